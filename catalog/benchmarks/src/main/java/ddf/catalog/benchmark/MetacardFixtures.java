@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.opengis.filter.sort.SortBy;
+
+/**
+ * Builds the metacards the benchmarks run against.
+ *
+ * <p>The metacards cycle through the basic metacard type and two richer types, carry points, lines,
+ * polygons and multi-polygons, and hold metadata of a configurable size. They are built from a
+ * seeded {@link Random}, so every run of a benchmark sees the same metacards.
+ */
+final class MetacardFixtures {
+
+  static final String SOURCE_ID = "ddf.distribution";
+
+  static final String SENSOR_PLATFORM = "sensor.platform";
+
+  static final String SENSOR_ALTITUDE = "sensor.altitude";
+
+  static final String SENSOR_FRAMES = "sensor.frames";
+
+  static final String SENSOR_COLLECTED = "sensor.collected";
+
+  static final String SENSOR_CALIBRATED = "sensor.calibrated";
+
+  static final String IMAGERY_CLOUD_COVER = "imagery.cloud-cover";
+
+  static final String IMAGERY_BANDS = "imagery.bands";
+
+  static final String IMAGERY_FOOTPRINT = "imagery.footprint";
+
+  static final MetacardType SENSOR_TYPE =
+      new MetacardTypeImpl(
+          "sensor",
+          MetacardImpl.BASIC_METACARD,
+          new HashSet<>(
+              Arrays.asList(
+                  descriptor(SENSOR_PLATFORM, true, true, BasicTypes.STRING_TYPE),
+                  descriptor(SENSOR_ALTITUDE, false, false, BasicTypes.DOUBLE_TYPE),
+                  descriptor(SENSOR_FRAMES, false, false, BasicTypes.LONG_TYPE),
+                  descriptor(SENSOR_COLLECTED, false, false, BasicTypes.DATE_TYPE),
+                  descriptor(SENSOR_CALIBRATED, false, false, BasicTypes.BOOLEAN_TYPE))));
+
+  static final MetacardType IMAGERY_TYPE =
+      new MetacardTypeImpl(
+          "imagery",
+          MetacardImpl.BASIC_METACARD,
+          new HashSet<>(
+              Arrays.asList(
+                  descriptor(IMAGERY_CLOUD_COVER, false, false, BasicTypes.INTEGER_TYPE),
+                  descriptor(IMAGERY_BANDS, true, true, BasicTypes.STRING_TYPE),
+                  descriptor(IMAGERY_FOOTPRINT, false, false, BasicTypes.GEO_TYPE))));
+
+  static final List<MetacardType> METACARD_TYPES =
+      Collections.unmodifiableList(
+          Arrays.asList(MetacardImpl.BASIC_METACARD, SENSOR_TYPE, IMAGERY_TYPE));
+
+  private static final long SEED = 0xDDFL;
+
+  /** 2017-01-01T00:00:00Z, the dates of the metacards fall in the year that follows. */
+  private static final long START_OF_DATES = 1483228800000L;
+
+  private static final long YEAR_MILLIS = 365L * 24 * 60 * 60 * 1000;
+
+  private static final String[] WORDS =
+      ("airfield bridge coastline convoy harbor highway mountain pipeline railway reservoir river "
+              + "runway substation tower valley village")
+          .split(" ");
+
+  private static final String[] PLATFORMS = {"aircraft", "satellite", "ship", "uav", "vehicle"};
+
+  private static final String[] BANDS = {"red", "green", "blue", "nir", "swir", "thermal"};
+
+  private MetacardFixtures() {}
+
+  /**
+   * @param count the number of metacards
+   * @param metadataKilobytes the approximate size of the metadata of each metacard
+   * @return the metacards, always the same ones for the same arguments
+   */
+  static List<Metacard> createMetacards(int count, int metadataKilobytes) {
+    Random random = new Random(SEED);
+    List<Metacard> metacards = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      MetacardType metacardType = METACARD_TYPES.get(i % METACARD_TYPES.size());
+      metacards.add(createMetacard(random, metacardType, i, metadataKilobytes));
+    }
+    return metacards;
+  }
+
+  /** @return results for the metacards, with relevance scores and distances */
+  static List<Result> createResults(List<Metacard> metacards) {
+    Random random = new Random(SEED);
+    List<Result> results = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      ResultImpl result = new ResultImpl(metacard);
+      result.setRelevanceScore(random.nextDouble());
+      result.setDistanceInMeters(random.nextDouble() * 100000);
+      results.add(result);
+    }
+    return results;
+  }
+
+  /**
+   * @param pageSize the page size of the query
+   * @param sortBy the sort of the query, may be null
+   * @return a request for a query that matches any metacard
+   */
+  static QueryRequest createQueryRequest(int pageSize, SortBy sortBy) {
+    return new QueryRequestImpl(
+        new QueryImpl(
+            new GeotoolsFilterBuilder().attribute(Metacard.ANY_TEXT).is().like().text("*"),
+            1,
+            pageSize,
+            sortBy,
+            false,
+            TimeUnit.MINUTES.toMillis(1)));
+  }
+
+  private static Metacard createMetacard(
+      Random random, MetacardType metacardType, int index, int metadataKilobytes) {
+    MetacardImpl metacard = new MetacardImpl(metacardType);
+    String title = words(random, 3);
+
+    metacard.setId(new UUID(random.nextLong(), random.nextLong()).toString().replace("-", ""));
+    metacard.setSourceId(SOURCE_ID);
+    metacard.setTitle(title);
+    metacard.setDescription(words(random, 40));
+    metacard.setCreatedDate(date(random));
+    metacard.setModifiedDate(date(random));
+    metacard.setEffectiveDate(date(random));
+    metacard.setContentTypeName(metacardType.getName());
+    metacard.setTags(Collections.singleton("resource"));
+    metacard.setResourceURI(URI.create("content:" + metacard.getId()));
+    metacard.setLocation(geometry(random, index));
+    metacard.setThumbnail(bytes(random, 2048));
+    metacard.setMetadata(metadata(random, title, metadataKilobytes));
+
+    if (metacardType == SENSOR_TYPE) {
+      metacard.setAttribute(
+          new AttributeImpl(
+              SENSOR_PLATFORM, values(PLATFORMS[random.nextInt(PLATFORMS.length)], "gimbal")));
+      metacard.setAttribute(SENSOR_ALTITUDE, random.nextDouble() * 10000);
+      metacard.setAttribute(SENSOR_FRAMES, (long) random.nextInt(100000));
+      metacard.setAttribute(SENSOR_COLLECTED, date(random));
+      metacard.setAttribute(SENSOR_CALIBRATED, random.nextBoolean());
+    } else if (metacardType == IMAGERY_TYPE) {
+      metacard.setAttribute(IMAGERY_CLOUD_COVER, random.nextInt(101));
+      metacard.setAttribute(
+          new AttributeImpl(
+              IMAGERY_BANDS,
+              values(BANDS[random.nextInt(BANDS.length)], BANDS[random.nextInt(BANDS.length)])));
+      metacard.setAttribute(IMAGERY_FOOTPRINT, polygon(random, 6));
+    }
+    return metacard;
+  }
+
+  private static AttributeDescriptor descriptor(
+      String name, boolean tokenized, boolean multiValued, AttributeType<?> type) {
+    return new AttributeDescriptorImpl(name, true, true, tokenized, multiValued, type);
+  }
+
+  private static List<Serializable> values(Serializable... values) {
+    return new ArrayList<>(Arrays.asList(values));
+  }
+
+  private static String words(Random random, int count) {
+    StringBuilder words = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        words.append(' ');
+      }
+      words.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return words.toString();
+  }
+
+  private static Date date(Random random) {
+    return new Date(START_OF_DATES + (long) (random.nextDouble() * YEAR_MILLIS));
+  }
+
+  private static byte[] bytes(Random random, int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  /** Cycles through the kinds of geometry metacards are usually indexed with. */
+  private static String geometry(Random random, int index) {
+    switch (index % 4) {
+      case 0:
+        return "POINT (" + coordinate(random) + ")";
+      case 1:
+        return "LINESTRING (" + coordinates(random, 8) + ")";
+      case 2:
+        return polygon(random, 12);
+      default:
+        return "MULTIPOLYGON (((" + ring(random, 6) + ")), ((" + ring(random, 6) + ")))";
+    }
+  }
+
+  private static String polygon(Random random, int vertices) {
+    return "POLYGON ((" + ring(random, vertices) + "))";
+  }
+
+  /** @return a ring of vertices around a center, closed with its first vertex */
+  private static String ring(Random random, int vertices) {
+    double lon = random.nextDouble() * 340 - 170;
+    double lat = random.nextDouble() * 160 - 80;
+    double radius = 0.1 + random.nextDouble() * 5;
+
+    StringBuilder ring = new StringBuilder();
+    for (int i = 0; i <= vertices; i++) {
+      double angle = 2 * Math.PI * (i % vertices) / vertices;
+      if (i > 0) {
+        ring.append(", ");
+      }
+      ring.append(format(lon + radius * Math.cos(angle)))
+          .append(' ')
+          .append(format(lat + radius * Math.sin(angle)));
+    }
+    return ring.toString();
+  }
+
+  private static String coordinates(Random random, int count) {
+    StringBuilder coordinates = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        coordinates.append(", ");
+      }
+      coordinates.append(coordinate(random));
+    }
+    return coordinates.toString();
+  }
+
+  private static String coordinate(Random random) {
+    return format(random.nextDouble() * 360 - 180) + " " + format(random.nextDouble() * 180 - 90);
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.6f", value);
+  }
+
+  /** @return a metadata document of about the given size, mostly made of repeated records */
+  private static String metadata(Random random, String title, int kilobytes) {
+    StringBuilder metadata =
+        new StringBuilder(kilobytes * 1024 + 256)
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+            .append("<metadata xmlns=\"urn:ddf:benchmark\"><title>")
+            .append(title)
+            .append("</title><records>");
+    int record = 0;
+    while (metadata.length() < kilobytes * 1024) {
+      metadata
+          .append("<record id=\"")
+          .append(record++)
+          .append("\"><keyword>")
+          .append(words(random, 2))
+          .append("</keyword><summary>")
+          .append(words(random, 12))
+          .append("</summary><position>")
+          .append(coordinate(random))
+          .append("</position></record>");
+    }
+    return metadata.append("</records></metadata>").toString();
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transform.QueryResponseTransformer;
+import ddf.catalog.transformer.api.MetacardMarshaller;
+import ddf.catalog.transformer.api.PrintWriterProvider;
+import ddf.catalog.transformer.csv.CsvQueryResponseTransformer;
+import ddf.catalog.transformer.metacard.geojson.GeoJsonMetacardTransformer;
+import ddf.catalog.transformer.queryresponse.geojson.GeoJsonQueryResponseTransformer;
+import ddf.catalog.transformer.xml.MetacardMarshallerImpl;
+import ddf.catalog.transformer.xml.PrintWriterProviderImpl;
+import ddf.catalog.transformer.xml.XmlResponseQueueTransformer;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.activation.MimeType;
+import javax.activation.MimeTypeParseException;
+import org.codice.ddf.parser.Parser;
+import org.codice.ddf.parser.xml.XmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the query response transformers that write query results for the endpoints, from the
+ * response to the last byte of the transformed content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryResponseTransformerBenchmark {
+
+  /** The number of results in the response. */
+  static final int RESULTS = 500;
+
+  @Param({"xml", "geojson", "csv"})
+  public String transformer;
+
+  /** The size of the metadata of the metacards, in kilobytes. */
+  @Param({"1", "64"})
+  public int metadataKilobytes;
+
+  private final Map<String, Serializable> arguments = new HashMap<>();
+
+  private QueryResponseTransformer queryResponseTransformer;
+
+  private SourceResponse response;
+
+  @Setup
+  public void setup() throws MimeTypeParseException {
+    queryResponseTransformer = createTransformer();
+    response =
+        new SourceResponseImpl(
+            MetacardFixtures.createQueryRequest(RESULTS, null),
+            MetacardFixtures.createResults(
+                MetacardFixtures.createMetacards(RESULTS, metadataKilobytes)));
+  }
+
+  @Benchmark
+  public byte[] transform() throws CatalogTransformerException, IOException {
+    return queryResponseTransformer.transform(response, arguments).getByteArray();
+  }
+
+  private QueryResponseTransformer createTransformer() throws MimeTypeParseException {
+    switch (transformer) {
+      case "xml":
+        Parser parser = new XmlParser();
+        PrintWriterProvider printWriterProvider = new PrintWriterProviderImpl();
+        MetacardMarshaller metacardMarshaller =
+            new MetacardMarshallerImpl(parser, printWriterProvider);
+        return new XmlResponseQueueTransformer(
+            parser, printWriterProvider, metacardMarshaller, new MimeType("text/xml"));
+      case "geojson":
+        return new GeoJsonQueryResponseTransformer(new GeoJsonMetacardTransformer());
+      case "csv":
+        return new CsvQueryResponseTransformer();
+      default:
+        throw new IllegalArgumentException("Unknown transformer " + transformer);
+    }
+  }
+}
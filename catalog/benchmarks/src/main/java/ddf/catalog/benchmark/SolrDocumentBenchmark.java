@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardCreationException;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import ddf.catalog.source.solr.SchemaFields;
+import ddf.catalog.source.solr.SolrMetacardClientImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the conversion of metacards to and from Solr documents, {@link
+ * DynamicSchemaResolver#addFields} when metacards are indexed and {@link
+ * SolrMetacardClientImpl#createMetacard} when query results are read.
+ *
+ * <p>No Solr server is involved. The documents read back are made from the indexed documents,
+ * keeping only the fields the Solr schema stores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolrDocumentBenchmark {
+
+  /** The number of metacards converted by each invocation, spread over the metacard types. */
+  static final int METACARDS = 30;
+
+  /** Fields that are only indexed by Solr, they are never returned with query results. */
+  private static final String[] INDEXED_ONLY_SUFFIXES = {
+    SchemaFields.TOKENIZED,
+    SchemaFields.HAS_CASE,
+    SchemaFields.INDEXED,
+    SchemaFields.TEXT_PATH,
+    SchemaFields.WHITESPACE_TEXT_SUFFIX,
+    SchemaFields.SORT_KEY_SUFFIX
+  };
+
+  /** The size of the metadata of the metacards, in kilobytes. */
+  @Param({"1", "64"})
+  public int metadataKilobytes;
+
+  private DynamicSchemaResolver resolver;
+
+  private SolrMetacardClientImpl metacardClient;
+
+  private List<Metacard> metacards;
+
+  private List<SolrDocument> documents;
+
+  @Setup
+  public void setup() throws MetacardCreationException {
+    resolver = new DynamicSchemaResolver();
+    metacardClient = new SolrMetacardClientImpl(null, null, null, resolver);
+    metacards = MetacardFixtures.createMetacards(METACARDS, metadataKilobytes);
+
+    documents = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      SolrInputDocument inputDocument = new SolrInputDocument();
+      resolver.addFields(metacard, inputDocument);
+      documents.add(toStoredDocument(inputDocument));
+    }
+  }
+
+  @Benchmark
+  public void addFields(Blackhole blackhole) throws MetacardCreationException {
+    for (Metacard metacard : metacards) {
+      SolrInputDocument inputDocument = new SolrInputDocument();
+      resolver.addFields(metacard, inputDocument);
+      blackhole.consume(inputDocument);
+    }
+  }
+
+  @Benchmark
+  public void createMetacard(Blackhole blackhole) throws MetacardCreationException {
+    for (SolrDocument document : documents) {
+      blackhole.consume(metacardClient.createMetacard(document));
+    }
+  }
+
+  private static SolrDocument toStoredDocument(SolrInputDocument inputDocument) {
+    SolrDocument document = new SolrDocument();
+    for (SolrInputField field : inputDocument) {
+      if (isStored(field.getName())) {
+        document.setField(field.getName(), field.getValues());
+      }
+    }
+    return document;
+  }
+
+  private static boolean isStored(String fieldName) {
+    if (DynamicSchemaResolver.LUX_XML_FIELD_NAME.equals(fieldName)) {
+      return false;
+    }
+    for (String suffix : INDEXED_ONLY_SUFFIXES) {
+      if (fieldName.endsWith(suffix)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.types.Core;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.filter.proxy.adapter.GeotoolsFilterAdapterImpl;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.source.solr.DynamicSchemaResolver;
+import ddf.catalog.source.solr.SolrFilterDelegate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.common.SolrInputDocument;
+import org.opengis.filter.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the translation of catalog queries into Solr queries, the {@link
+ * GeotoolsFilterAdapterImpl} visiting the query filter into a {@link SolrFilterDelegate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolrFilterBenchmark {
+
+  private static final String AREA = "POLYGON ((10 10, 30 10, 30 30, 10 30, 10 10))";
+
+  private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  /** The kind of query that is translated. */
+  @Param({"contextual", "spatial", "temporal", "combined"})
+  public String query;
+
+  private final FilterBuilder filterBuilder = new GeotoolsFilterBuilder();
+
+  private final FilterAdapter filterAdapter = new GeotoolsFilterAdapterImpl();
+
+  private DynamicSchemaResolver resolver;
+
+  private Filter filter;
+
+  @Setup
+  public void setup() throws Exception {
+    resolver = new DynamicSchemaResolver();
+
+    // the resolver learns the fields of the metacard types as they are indexed
+    for (Metacard metacard :
+        MetacardFixtures.createMetacards(MetacardFixtures.METACARD_TYPES.size(), 1)) {
+      resolver.addFields(metacard, new SolrInputDocument());
+    }
+
+    filter = createFilter();
+  }
+
+  @Benchmark
+  public SolrQuery adapt() throws UnsupportedQueryException {
+    return filterAdapter.adapt(filter, new SolrFilterDelegate(resolver));
+  }
+
+  private Filter createFilter() {
+    Date end = new Date(1514764800000L);
+    Date start = new Date(end.getTime() - 30 * DAY_MILLIS);
+
+    switch (query) {
+      case "contextual":
+        return filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("bridge");
+      case "spatial":
+        return filterBuilder.attribute(Metacard.ANY_GEO).is().intersecting().wkt(AREA);
+      case "temporal":
+        return filterBuilder.attribute(Core.MODIFIED).is().during().dates(start, end);
+      case "combined":
+        return filterBuilder.allOf(
+            filterBuilder.attribute(Metacard.ANY_TEXT).is().like().text("river*"),
+            filterBuilder.attribute(Metacard.ANY_GEO).is().intersecting().wkt(AREA),
+            filterBuilder.attribute(Metacard.EFFECTIVE).is().after().date(start),
+            filterBuilder.attribute(Metacard.TAGS).is().equalTo().text("resource"),
+            filterBuilder.anyOf(
+                filterBuilder
+                    .attribute(MetacardFixtures.SENSOR_ALTITUDE)
+                    .is()
+                    .greaterThan()
+                    .number(1000.0),
+                filterBuilder.attribute(MetacardFixtures.IMAGERY_BANDS).is().like().text("nir")),
+            filterBuilder.not(
+                filterBuilder.attribute(Core.TITLE).is().like().caseSensitiveText("Village")));
+      default:
+        throw new IllegalArgumentException("Unknown query " + query);
+    }
+  }
+}
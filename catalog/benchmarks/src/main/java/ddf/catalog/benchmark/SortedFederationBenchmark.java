@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.benchmark;
+
+import ddf.catalog.data.ContentType;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.federation.impl.SortedFederationStrategy;
+import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.source.Source;
+import ddf.catalog.source.SourceMonitor;
+import ddf.catalog.util.impl.DescribableImpl;
+import ddf.catalog.util.impl.DistanceResultComparator;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.catalog.util.impl.TemporalResultComparator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.opengis.filter.sort.SortOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a federated query through the {@link SortedFederationStrategy}, from submitting the
+ * source queries to merging their sorted results into one page. The sources answer from memory
+ * with pages of results that are already sorted, as sources return them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedFederationBenchmark {
+
+  /** The number of results each source returns, and the page size of the query. */
+  static final int PAGE_SIZE = 250;
+
+  @Param({"2", "8"})
+  public int sourceCount;
+
+  /** The result property the query is sorted by. */
+  @Param({Result.RELEVANCE, Result.TEMPORAL, Result.DISTANCE})
+  public String sortBy;
+
+  private ExecutorService queryExecutor;
+
+  private SortedFederationStrategy strategy;
+
+  private List<Source> sources;
+
+  private QueryRequest queryRequest;
+
+  @Setup
+  public void setup() {
+    queryExecutor = Executors.newFixedThreadPool(sourceCount + 1);
+    strategy =
+        new SortedFederationStrategy(
+            queryExecutor, Collections.emptyList(), Collections.emptyList());
+
+    Comparator<Result> comparator = getComparator();
+    List<Metacard> metacards = MetacardFixtures.createMetacards(sourceCount * PAGE_SIZE, 1);
+    List<Result> results = MetacardFixtures.createResults(metacards);
+
+    sources = new ArrayList<>(sourceCount);
+    for (int i = 0; i < sourceCount; i++) {
+      List<Result> sourceResults =
+          new ArrayList<>(results.subList(i * PAGE_SIZE, (i + 1) * PAGE_SIZE));
+      sourceResults.sort(comparator);
+      sources.add(new InMemorySource("source" + i, sourceResults));
+    }
+
+    queryRequest =
+        MetacardFixtures.createQueryRequest(
+            PAGE_SIZE, new SortByImpl(sortBy, SortOrder.DESCENDING));
+  }
+
+  @TearDown
+  public void tearDown() {
+    queryExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public List<Result> federate() {
+    return strategy.federate(sources, queryRequest).getResults();
+  }
+
+  private Comparator<Result> getComparator() {
+    switch (sortBy) {
+      case Result.TEMPORAL:
+        return new TemporalResultComparator(SortOrder.DESCENDING);
+      case Result.DISTANCE:
+        return new DistanceResultComparator(SortOrder.DESCENDING);
+      default:
+        return new RelevanceResultComparator(SortOrder.DESCENDING);
+    }
+  }
+
+  private static class InMemorySource extends DescribableImpl implements Source {
+
+    private final List<Result> results;
+
+    InMemorySource(String id, List<Result> results) {
+      setId(id);
+      this.results = results;
+    }
+
+    @Override
+    public boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    public boolean isAvailable(SourceMonitor callback) {
+      return true;
+    }
+
+    @Override
+    public SourceResponse query(QueryRequest request) {
+      return new SourceResponseImpl(request, new ArrayList<>(results), (long) results.size());
+    }
+
+    @Override
+    public Set<ContentType> getContentTypes() {
+      return Collections.emptySet();
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import ddf.catalog.data.Result;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the individually sorted result lists returned by federated sources into a single sorted
+ * page using a heap based k-way merge, rather than concatenating and re-sorting the union of all
+ * results.
+ *
+ * <p>Lists are expected to be added in the order the sources completed. Ties are broken by that
+ * order and then by the position of the result within its list, which yields the same ordering as
+ * a stable sort over the concatenated lists. Lists that are not already sorted according to the
+ * comparator are sorted when added.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class SortedResultMerger {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SortedResultMerger.class);
+
+  private final Comparator<? super Result> comparator;
+
+  private final int maxResults;
+
+  private final List<List<Result>> sortedLists = new ArrayList<>();
+
+  private int size = 0;
+
+  /**
+   * @param comparator the comparator each added list is sorted by
+   * @param maxResults the maximum number of results to return from {@link #merge()}, values less
+   *     than 1 mean no limit
+   */
+  public SortedResultMerger(Comparator<? super Result> comparator, int maxResults) {
+    Validate.notNull(comparator, "Valid comparator required.");
+    this.comparator = comparator;
+    this.maxResults = maxResults > 0 ? maxResults : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Adds the results of a single source. Only the first {@code maxResults} results of the list can
+   * appear in the merged page, so the remainder is not retained.
+   *
+   * @param results the results of a single source, may be null or empty
+   */
+  public void add(List<Result> results) {
+    if (results == null || results.isEmpty()) {
+      return;
+    }
+
+    List<Result> sorted = results;
+    if (!isSorted(sorted)) {
+      LOGGER.debug("Received {} results that were not sorted, sorting them.", results.size());
+      sorted = new ArrayList<>(results);
+      Collections.sort(sorted, comparator);
+    }
+
+    if (sorted.size() > maxResults) {
+      sorted = sorted.subList(0, maxResults);
+    }
+
+    sortedLists.add(sorted);
+    size += sorted.size();
+  }
+
+  /** @return the number of results retained for merging */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Merges the added lists.
+   *
+   * @return at most {@code maxResults} results in sorted order
+   */
+  public List<Result> merge() {
+    if (sortedLists.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    if (sortedLists.size() == 1) {
+      return new ArrayList<>(sortedLists.get(0));
+    }
+
+    PriorityQueue<Cursor> heap = new PriorityQueue<>(sortedLists.size(), this::compareCursors);
+    for (int i = 0; i < sortedLists.size(); i++) {
+      heap.add(new Cursor(i, sortedLists.get(i)));
+    }
+
+    List<Result> merged = new ArrayList<>(Math.min(size, maxResults));
+    while (merged.size() < maxResults && !heap.isEmpty()) {
+      Cursor cursor = heap.poll();
+      merged.add(cursor.current());
+      if (cursor.advance()) {
+        heap.add(cursor);
+      }
+    }
+
+    return merged;
+  }
+
+  private int compareCursors(Cursor a, Cursor b) {
+    int result = comparator.compare(a.current(), b.current());
+    if (result != 0) {
+      return result;
+    }
+    return Integer.compare(a.listIndex, b.listIndex);
+  }
+
+  private boolean isSorted(List<Result> results) {
+    Result previous = null;
+    for (Result result : results) {
+      if (previous != null && comparator.compare(previous, result) > 0) {
+        return false;
+      }
+      previous = result;
+    }
+    return true;
+  }
+
+  private static class Cursor {
+
+    private final int listIndex;
+
+    private final Iterator<Result> iterator;
+
+    private Result current;
+
+    Cursor(int listIndex, List<Result> results) {
+      this.listIndex = listIndex;
+      this.iterator = results.iterator();
+      this.current = iterator.next();
+    }
+
+    Result current() {
+      return current;
+    }
+
+    boolean advance() {
+      if (iterator.hasNext()) {
+        current = iterator.next();
+        return true;
+      }
+      return false;
+    }
+  }
+}
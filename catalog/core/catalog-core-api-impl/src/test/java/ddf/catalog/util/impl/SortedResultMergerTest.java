@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.util.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.ResultImpl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+public class SortedResultMergerTest {
+
+  private static final Comparator<Result> RELEVANCE_DESCENDING =
+      new RelevanceResultComparator(SortOrder.DESCENDING);
+
+  @Test
+  public void testMergeSortedLists() {
+    SortedResultMerger merger = new SortedResultMerger(RELEVANCE_DESCENDING, 0);
+    merger.add(results(9.0, 5.0, 1.0));
+    merger.add(results(8.0, 7.0, 2.0));
+    merger.add(results(6.0, 3.0));
+
+    assertThat(merger.size(), is(8));
+    assertThat(scores(merger.merge()), contains(9.0, 8.0, 7.0, 6.0, 5.0, 3.0, 2.0, 1.0));
+  }
+
+  @Test
+  public void testMergeLimitsToMaxResults() {
+    SortedResultMerger merger = new SortedResultMerger(RELEVANCE_DESCENDING, 3);
+    merger.add(results(9.0, 5.0, 1.0, 0.5));
+    merger.add(results(8.0, 7.0, 2.0));
+
+    assertThat(merger.size(), is(6));
+    assertThat(scores(merger.merge()), contains(9.0, 8.0, 7.0));
+  }
+
+  @Test
+  public void testMergeSortsUnsortedLists() {
+    SortedResultMerger merger = new SortedResultMerger(RELEVANCE_DESCENDING, 0);
+    merger.add(results(1.0, 9.0, 5.0));
+    merger.add(results(8.0, 2.0));
+
+    assertThat(scores(merger.merge()), contains(9.0, 8.0, 5.0, 2.0, 1.0));
+  }
+
+  @Test
+  public void testMergeMatchesStableSort() {
+    List<Result> first = results(5.0, 5.0, 3.0);
+    List<Result> second = results(5.0, 4.0, 3.0);
+
+    SortedResultMerger merger = new SortedResultMerger(RELEVANCE_DESCENDING, 0);
+    merger.add(first);
+    merger.add(second);
+
+    List<Result> expected = new ArrayList<>(first);
+    expected.addAll(second);
+    Collections.sort(expected, RELEVANCE_DESCENDING);
+
+    List<Result> merged = merger.merge();
+    assertThat(merged.size(), is(expected.size()));
+    for (int i = 0; i < expected.size(); i++) {
+      assertThat(merged.get(i) == expected.get(i), is(true));
+    }
+  }
+
+  @Test
+  public void testMergeNoResults() {
+    SortedResultMerger merger = new SortedResultMerger(RELEVANCE_DESCENDING, 10);
+    merger.add(null);
+    merger.add(Collections.emptyList());
+
+    assertThat(merger.size(), is(0));
+    assertThat(merger.merge(), is(empty()));
+  }
+
+  private List<Result> results(Double... scores) {
+    return Arrays.stream(scores)
+        .map(
+            score -> {
+              ResultImpl result = new ResultImpl();
+              result.setRelevanceScore(score);
+              return result;
+            })
+        .collect(Collectors.toList());
+  }
+
+  private List<Double> scores(List<Result> results) {
+    return results.stream().map(Result::getRelevanceScore).collect(Collectors.toList());
+  }
+}
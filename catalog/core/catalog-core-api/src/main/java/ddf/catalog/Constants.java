@@ -154,4 +154,22 @@ public final class Constants {
   public static final String SUGGESTION_BUILD_KEY = "suggestion-build";
 
   public static final String ADDITIONAL_SORT_BYS = "additional-sort-bys";
+
+  /**
+   * Query request property used to page through results with a cursor instead of a start index.
+   * The value is {@link #QUERY_CURSOR_START} for the first page and the value of the {@link
+   * #QUERY_NEXT_CURSOR_KEY} response property for each following page. Sources that do not support
+   * cursors ignore this property.
+   */
+  public static final String QUERY_CURSOR_KEY = "query-cursor";
+
+  /** Query response property containing the opaque cursor to request the next page with. */
+  public static final String QUERY_NEXT_CURSOR_KEY = "query-next-cursor";
+
+  /**
+   * Value of the {@link #QUERY_CURSOR_KEY} property that requests the first page of results. When
+   * the returned {@link #QUERY_NEXT_CURSOR_KEY} is equal to the cursor of the request, all results
+   * have been returned.
+   */
+  public static final String QUERY_CURSOR_START = "*";
 }
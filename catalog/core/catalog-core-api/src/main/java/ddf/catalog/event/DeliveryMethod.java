@@ -17,7 +17,8 @@
 
 /**
  * The DeliveryMethod provides the operation (created, updated, deleted) of how a {@link Metacard}
- * can be delivered.
+ * can be delivered. A delivery that fails throws an unchecked exception, the event may then be
+ * delivered again later.
  *
  * @see Subscription
  */
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.plugin;
+
+/**
+ * Marks a {@link PostQueryPlugin} or an {@link AccessPlugin} that processes each {@link
+ * ddf.catalog.data.Result} of a {@link ddf.catalog.operation.QueryResponse} independently of the
+ * other results. The Catalog Framework may then split large responses into chunks of results and
+ * process the chunks concurrently, on other threads, before putting the results back together in
+ * their original order.
+ *
+ * <p>When a response is split, each chunk is passed to the plugin as a response with the original
+ * request, hits and properties, and only the results of that chunk. A plugin that implements this
+ * interface must therefore:
+ *
+ * <ul>
+ *   <li>be thread-safe,
+ *   <li>not depend on the number of results or on results other than the one being processed,
+ *   <li>not modify the properties of the response, which are read-only when a response is split.
+ * </ul>
+ */
+public interface ResultIndependentPlugin {}
@@ -27,10 +27,10 @@
 import ddf.catalog.source.Source;
 import ddf.catalog.util.impl.DistanceResultComparator;
 import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.catalog.util.impl.SortedResultMerger;
 import ddf.catalog.util.impl.TemporalResultComparator;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
@@ -144,7 +144,8 @@ public void run() {
         }
       }
 
-      List<Result> resultList = new ArrayList<Result>();
+      int maxResults = query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
+      SortedResultMerger resultMerger = new SortedResultMerger(coreComparator, maxResults);
       long totalHits = 0;
       Set<ProcessingDetails> processingDetails = returnResults.getProcessingDetails();
 
@@ -180,7 +181,7 @@ public void run() {
           }
           if (sourceResponse != null) {
             List<Result> sourceResults = sourceResponse.getResults();
-            resultList.addAll(sourceResults);
+            resultMerger.add(sourceResults);
             long sourceHits = sourceResponse.getHits();
 
             totalHits += sourceHits;
@@ -225,15 +226,10 @@ public void run() {
           Thread.currentThread().interrupt();
         }
       }
-      LOGGER.debug("all sites finished returning results: {}", resultList.size());
-
-      Collections.sort(resultList, coreComparator);
+      LOGGER.debug("all sites finished returning results: {}", resultMerger.size());
 
       returnResults.setHits(totalHits);
-      int maxResults = query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
-
-      returnResults.addResults(
-          resultList.size() > maxResults ? resultList.subList(0, maxResults) : resultList, true);
+      returnResults.addResults(resultMerger.merge(), true);
     }
 
     private long getTimeRemaining(long deadline) {
@@ -0,0 +1,351 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import ddf.catalog.event.DeliveryException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang.Validate;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the evaluation and delivery of events for subscriptions on a bounded number of threads.
+ *
+ * <p>Each subscription has its own bounded queue of pending deliveries. The queues take turns: a
+ * thread runs a single delivery for a subscription and then puts that subscription back at the end
+ * of the line, so a slow subscriber can only occupy one thread at a time and cannot starve the
+ * others. Deliveries of a subscription run one at a time, in the order they were submitted.
+ *
+ * <p>When the queue of a subscription is full, either its oldest pending delivery or the new one is
+ * dropped. Deliveries that fail with an exception are retried up to the configured number of times.
+ * The first retry waits for the retry delay and each following retry waits twice as long as the
+ * previous one; the other deliveries of the subscription wait behind the retried one so that they
+ * stay in order, without holding a thread.
+ *
+ * <p>The number of queued deliveries, the delivery latency from submission to completion and the
+ * number of dropped, retried and failed deliveries are recorded in the metric registry, under the
+ * name of the scheduler.
+ */
+public class DeliveryScheduler {
+
+  static final String DELIVERY_SCOPE = "Deliveries";
+
+  public static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DeliveryScheduler.class);
+
+  private static final int MAX_RETRY_DELAY_SHIFT = 16;
+
+  private final Map<String, SubscriptionQueue> queues = new ConcurrentHashMap<>();
+
+  private final ThreadPoolExecutor executor;
+
+  private final ScheduledExecutorService retryTimer;
+
+  private final AtomicInteger queued = new AtomicInteger();
+
+  private final Timer latency;
+
+  private final Meter dropped;
+
+  private final Meter retried;
+
+  private final Meter failed;
+
+  private volatile int maxQueuedPerSubscription;
+
+  private volatile int maxRetries;
+
+  private volatile long retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+
+  private volatile boolean dropOldest = true;
+
+  /**
+   * @param name name the metrics of the scheduler are registered under, which must be unique within
+   *     the JMX domain the registry is reported to
+   * @param threads number of threads deliveries are run on
+   * @param maxQueuedPerSubscription maximum number of pending deliveries of a single subscription
+   * @param maxRetries number of times a failed delivery is retried
+   * @param metrics registry the delivery metrics are added to
+   */
+  public DeliveryScheduler(
+      String name,
+      int threads,
+      int maxQueuedPerSubscription,
+      int maxRetries,
+      MetricRegistry metrics) {
+    Validate.notEmpty(name, "Name cannot be empty.");
+    Validate.isTrue(threads > 0, "Number of delivery threads must be greater than 0.");
+    Validate.notNull(metrics, "MetricRegistry cannot be null.");
+    setMaxQueuedPerSubscription(maxQueuedPerSubscription);
+    setMaxRetries(maxRetries);
+
+    // the work queue holds at most one task per subscription, the pending deliveries are held by
+    // the subscription queues, which are bounded
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            1,
+            TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>(),
+            StandardThreadFactoryBuilder.newThreadFactory("eventDeliveryThread"));
+    executor.allowCoreThreadTimeOut(true);
+    retryTimer =
+        Executors.newSingleThreadScheduledExecutor(
+            StandardThreadFactoryBuilder.newThreadFactory("eventDeliveryRetryThread"));
+
+    metrics.register(
+        MetricRegistry.name(name, DELIVERY_SCOPE, "Queued"), (Gauge<Integer>) queued::get);
+    latency = metrics.timer(MetricRegistry.name(name, DELIVERY_SCOPE, "Latency"));
+    dropped = metrics.meter(MetricRegistry.name(name, DELIVERY_SCOPE, "Dropped"));
+    retried = metrics.meter(MetricRegistry.name(name, DELIVERY_SCOPE, "Retried"));
+    failed = metrics.meter(MetricRegistry.name(name, DELIVERY_SCOPE, "Failed"));
+  }
+
+  /**
+   * Queues a delivery for a subscription.
+   *
+   * @param subscriptionId ID of the subscription the delivery is for
+   * @param delivery evaluates the event for the subscription and delivers it if it matches, it is
+   *     retried if it throws an exception
+   * @return {@code false} if the delivery was dropped because the queue of the subscription is full
+   *     and the newest delivery is the one being dropped, {@code true} otherwise
+   */
+  public boolean submit(String subscriptionId, Delivery delivery) {
+    while (true) {
+      SubscriptionQueue queue = queues.computeIfAbsent(subscriptionId, SubscriptionQueue::new);
+      Boolean accepted = queue.offer(new PendingDelivery(delivery));
+      if (accepted != null) {
+        return accepted;
+      }
+      // the queue was cancelled concurrently, the subscription has been re-created
+      queues.remove(subscriptionId, queue);
+    }
+  }
+
+  /** Drops the pending deliveries of a subscription that has been deleted. */
+  public void cancel(String subscriptionId) {
+    SubscriptionQueue queue = queues.remove(subscriptionId);
+    if (queue != null) {
+      queue.cancel();
+    }
+  }
+
+  /** @return the number of deliveries waiting to run */
+  public int getQueued() {
+    return queued.get();
+  }
+
+  public void setThreads(int threads) {
+    Validate.isTrue(threads > 0, "Number of delivery threads must be greater than 0.");
+    if (threads > executor.getMaximumPoolSize()) {
+      executor.setMaximumPoolSize(threads);
+      executor.setCorePoolSize(threads);
+    } else {
+      executor.setCorePoolSize(threads);
+      executor.setMaximumPoolSize(threads);
+    }
+  }
+
+  public void setMaxQueuedPerSubscription(int maxQueuedPerSubscription) {
+    Validate.isTrue(
+        maxQueuedPerSubscription > 0,
+        "Maximum number of queued deliveries per subscription must be greater than 0.");
+    this.maxQueuedPerSubscription = maxQueuedPerSubscription;
+  }
+
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = Math.max(0, maxRetries);
+  }
+
+  /** @param retryDelayMillis time to wait before the first retry of a failed delivery */
+  public void setRetryDelay(long retryDelayMillis) {
+    this.retryDelayMillis = Math.max(0, retryDelayMillis);
+  }
+
+  /**
+   * @param dropOldest {@code true} to drop the oldest pending delivery of a subscription when its
+   *     queue is full, {@code false} to drop the new delivery
+   */
+  public void setDropOldest(boolean dropOldest) {
+    this.dropOldest = dropOldest;
+  }
+
+  /** Stops running deliveries, pending deliveries are dropped. */
+  public void shutdown() {
+    queues.values().forEach(SubscriptionQueue::cancel);
+    queues.clear();
+    retryTimer.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  /** Evaluates an event for a subscription and delivers it. */
+  @FunctionalInterface
+  public interface Delivery {
+
+    /** @throws DeliveryException if the event could not be delivered and should be retried */
+    void deliver() throws DeliveryException;
+  }
+
+  private class SubscriptionQueue {
+
+    private final String subscriptionId;
+
+    private final Deque<PendingDelivery> deliveries = new ArrayDeque<>();
+
+    private boolean scheduled = false;
+
+    private boolean cancelled = false;
+
+    SubscriptionQueue(String subscriptionId) {
+      this.subscriptionId = subscriptionId;
+    }
+
+    /** @return whether the delivery was accepted, {@code null} if the queue has been cancelled */
+    synchronized Boolean offer(PendingDelivery delivery) {
+      if (cancelled) {
+        return null;
+      }
+
+      if (deliveries.size() >= maxQueuedPerSubscription) {
+        dropped.mark();
+        if (!dropOldest) {
+          LOGGER.debug(
+              "Delivery queue of subscription {} is full, dropping new event.", subscriptionId);
+          return false;
+        }
+        LOGGER.debug(
+            "Delivery queue of subscription {} is full, dropping oldest event.", subscriptionId);
+        deliveries.pollFirst();
+        queued.decrementAndGet();
+      }
+
+      deliveries.addLast(delivery);
+      queued.incrementAndGet();
+      if (!scheduled) {
+        scheduled = true;
+        schedule();
+      }
+      return true;
+    }
+
+    synchronized void cancel() {
+      cancelled = true;
+      queued.addAndGet(-deliveries.size());
+      deliveries.clear();
+    }
+
+    private void schedule() {
+      try {
+        executor.execute(this::runNext);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Delivery scheduler has been shut down.", e);
+        cancel();
+      }
+    }
+
+    /** Runs the retried delivery, which is first in line, once the delay of the attempt elapsed. */
+    private void scheduleRetry(int attempt) {
+      long delay = retryDelayMillis << Math.min(attempt - 1, MAX_RETRY_DELAY_SHIFT);
+      if (delay == 0) {
+        schedule();
+        return;
+      }
+      try {
+        retryTimer.schedule(this::schedule, delay, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        LOGGER.debug("Delivery scheduler has been shut down.", e);
+        cancel();
+      }
+    }
+
+    @SuppressWarnings("squid:S1181" /* bubbling out VirtualMachineError */)
+    private void runNext() {
+      PendingDelivery next;
+      synchronized (this) {
+        next = deliveries.pollFirst();
+        if (next == null) {
+          scheduled = false;
+          return;
+        }
+        queued.decrementAndGet();
+      }
+
+      boolean succeeded = false;
+      try {
+        next.delivery.deliver();
+        succeeded = true;
+        latency.update(System.nanoTime() - next.submitted, TimeUnit.NANOSECONDS);
+      } catch (VirtualMachineError e) {
+        throw e;
+      } catch (Throwable t) {
+        LOGGER.debug("Delivery for subscription {} failed.", subscriptionId, t);
+      }
+
+      synchronized (this) {
+        if (!succeeded && !cancelled) {
+          if (next.attempts < maxRetries) {
+            next.attempts++;
+            retried.mark();
+            deliveries.addFirst(next);
+            queued.incrementAndGet();
+            scheduleRetry(next.attempts);
+            return;
+          }
+          LOGGER.debug(
+              "Delivery for subscription {} failed after {} attempt(s), dropping event.",
+              subscriptionId,
+              next.attempts + 1);
+          failed.mark();
+        }
+
+        if (deliveries.isEmpty()) {
+          scheduled = false;
+        } else {
+          // go to the back of the line so that other subscriptions get their turn
+          schedule();
+        }
+      }
+    }
+  }
+
+  private static class PendingDelivery {
+
+    private final Delivery delivery;
+
+    private final long submitted = System.nanoTime();
+
+    private int attempts = 0;
+
+    PendingDelivery(Delivery delivery) {
+      this.delivery = delivery;
+    }
+  }
+}
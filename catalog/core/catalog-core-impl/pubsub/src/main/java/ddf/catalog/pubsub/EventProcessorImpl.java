@@ -13,6 +13,9 @@
  */
 package ddf.catalog.pubsub;
 
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import com.vividsolutions.jts.io.ParseException;
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.types.Core;
@@ -42,10 +45,10 @@
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.lucene.store.Directory;
-import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
+import org.geotools.geometry.jts.WKTReader2;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.event.Event;
@@ -64,6 +67,15 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
   public static final String EXITING = "EXITING: {}";
 
+  public static final int DEFAULT_DELIVERY_THREADS = 32;
+
+  public static final int DEFAULT_MAX_QUEUED_DELIVERIES_PER_SUBSCRIPTION = 1000;
+
+  public static final int DEFAULT_DELIVERY_RETRIES = 0;
+
+  /** Number of processors created per class, which tells apart the metrics of each processor. */
+  private static final Map<String, AtomicInteger> INSTANCE_COUNTS = new ConcurrentHashMap<>();
+
   protected EventAdmin eventAdmin;
 
   protected BundleContext bundleContext;
@@ -76,9 +88,18 @@ public class EventProcessorImpl implements EventProcessor, EventHandler, PostIng
 
   private Map<String, ServiceRegistration> existingSubscriptions;
 
-  private final ExecutorService threadPool =
-      Executors.newCachedThreadPool(
-          StandardThreadFactoryBuilder.newThreadFactory("eventProcessorThread"));
+  private final MetricRegistry metrics = new MetricRegistry();
+
+  private final JmxReporter reporter =
+      JmxReporter.forRegistry(metrics).inDomain("ddf.metrics.catalog.pubsub").build();
+
+  private final DeliveryScheduler deliveryScheduler =
+      new DeliveryScheduler(
+          getMetricsName(),
+          DEFAULT_DELIVERY_THREADS,
+          DEFAULT_MAX_QUEUED_DELIVERIES_PER_SUBSCRIPTION,
+          DEFAULT_DELIVERY_RETRIES,
+          metrics);
 
   public EventProcessorImpl() {
     LOGGER.debug("INSIDE: EventProcessorImpl default constructor");
@@ -131,7 +152,7 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
       LOGGER.debug("catalog ID = {}", metacard.getId());
       LOGGER.debug("operation = {}", operation);
 
-      HashMap<String, Object> properties = new HashMap<>(3, 1);
+      HashMap<String, Object> properties = new HashMap<>();
 
       // Common headers
       properties.put(PubSubConstants.HEADER_OPERATION_KEY, operation);
@@ -172,6 +193,18 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
 
       properties.put(PubSubConstants.HEADER_CONTENT_TYPE_KEY, contentType);
 
+      // GEOSPATIAL INFORMATION
+      // Parse the entry's location once so that every geospatial subscription can use it instead
+      // of parsing the WKT again
+      String location = metacard.getLocation();
+      if (location != null) {
+        try {
+          properties.put(PubSubConstants.HEADER_GEOSPATIAL_KEY, new WKTReader2().read(location));
+        } catch (ParseException e) {
+          LOGGER.debug("Unable to parse location [{}] of entry {}", location, metacard.getId(), e);
+        }
+      }
+
       // CONTEXTUAL INFORMATION
       if (metacard.getMetadata() != null) {
         try {
@@ -189,8 +222,10 @@ public static void processEntry(Metacard metacard, String operation, EventAdmin
           // Include the default Lucene search
           // index and the entry's metadata (in case subscription has
           // textPaths, then it can create Lucene
-          // search indices on the metadata using its textPaths)
-          Map<String, Object> contextualMap = new HashMap<>(2, 1);
+          // search indices on the metadata using its textPaths). The map is shared by all
+          // subscriptions evaluating this event, so the indices built for textPaths are added
+          // to it and reused by the subscriptions with the same textPaths.
+          Map<String, Object> contextualMap = new ConcurrentHashMap<>();
           contextualMap.put("DEFAULT_INDEX", index);
           contextualMap.put("METADATA", metacard.getMetadata());
           properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
@@ -215,6 +250,8 @@ public void init() {
     String methodName = "init";
     LOGGER.trace(ENTERING, methodName);
 
+    reporter.start();
+
     LOGGER.trace(EXITING, methodName);
   }
 
@@ -222,9 +259,59 @@ public void destroy() {
     String methodName = "destroy";
     LOGGER.trace(ENTERING, methodName);
 
+    deliveryScheduler.shutdown();
+    reporter.stop();
+
     LOGGER.trace(EXITING, methodName);
   }
 
+  /** Sets the number of threads the events of all subscriptions are evaluated and delivered on. */
+  public void setDeliveryThreads(int deliveryThreads) {
+    LOGGER.debug("Setting number of delivery threads to {}", deliveryThreads);
+    deliveryScheduler.setThreads(deliveryThreads);
+  }
+
+  /**
+   * Sets the maximum number of events waiting to be delivered to a single subscription. Once
+   * reached, events for that subscription are dropped.
+   */
+  public void setMaxQueuedDeliveriesPerSubscription(int maxQueuedDeliveries) {
+    LOGGER.debug("Setting maximum number of queued deliveries to {}", maxQueuedDeliveries);
+    deliveryScheduler.setMaxQueuedPerSubscription(maxQueuedDeliveries);
+  }
+
+  /** Sets the number of times the delivery of an event is retried when it fails. */
+  public void setDeliveryRetries(int deliveryRetries) {
+    LOGGER.debug("Setting number of delivery retries to {}", deliveryRetries);
+    deliveryScheduler.setMaxRetries(deliveryRetries);
+  }
+
+  /** Sets the time to wait before the first retry of a failed delivery, in milliseconds. */
+  public void setDeliveryRetryDelay(long deliveryRetryDelay) {
+    LOGGER.debug("Setting delivery retry delay to {} ms", deliveryRetryDelay);
+    deliveryScheduler.setRetryDelay(deliveryRetryDelay);
+  }
+
+  /**
+   * Sets whether the oldest or the newest event is dropped when too many events are waiting to be
+   * delivered to a subscription.
+   */
+  public void setDropOldestDeliveries(boolean dropOldestDeliveries) {
+    LOGGER.debug("Setting drop oldest deliveries to {}", dropOldestDeliveries);
+    deliveryScheduler.setDropOldest(dropOldestDeliveries);
+  }
+
+  /**
+   * @return the name the delivery metrics of this processor are reported under, the class name
+   *     followed by the instance number for every processor of the class but the first
+   */
+  private String getMetricsName() {
+    String name = getClass().getSimpleName();
+    int instance =
+        INSTANCE_COUNTS.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+    return instance == 1 ? name : name + "-" + instance;
+  }
+
   /**
    * By default the Felix EventAdmin implementation has a timeout of 5000 ms. Your event handler has
    * to return from the handle event method in this time frame. If it does not, it gets Blacklisted.
@@ -292,7 +379,12 @@ public void createSubscription(Subscription subscription, String subscriptionId)
           bundleContext.registerService(
               EventHandler.class.getName(),
               new PublishedEventHandler(
-                  finalPredicate, subscription, preDelivery, catalog, threadPool),
+                  finalPredicate,
+                  subscription,
+                  subscriptionId,
+                  preDelivery,
+                  catalog,
+                  deliveryScheduler),
               props);
 
       existingSubscriptions.put(subscriptionId, serviceRegistration);
@@ -338,6 +430,7 @@ public void deleteSubscription(String subscriptionId) throws SubscriptionNotFoun
         sr.unregister();
         LOGGER.debug("Removal complete");
         existingSubscriptions.remove(subscriptionId);
+        deliveryScheduler.cancel(subscriptionId);
       } else {
         LOGGER.debug(
             "Unable to find existing subscription: {}.  May already be deleted.", subscriptionId);
@@ -15,6 +15,7 @@
 
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Metacard;
+import ddf.catalog.event.DeliveryException;
 import ddf.catalog.event.Subscription;
 import ddf.catalog.operation.Pingable;
 import ddf.catalog.plugin.PreDeliveryPlugin;
@@ -23,7 +24,6 @@
 import ddf.catalog.pubsub.predicate.Predicate;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 import org.apache.commons.collections.CollectionUtils;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
@@ -33,7 +33,9 @@
 public class PublishedEventHandler implements EventHandler {
   private static final Logger LOGGER = LoggerFactory.getLogger(PublishedEventHandler.class);
 
-  private final ExecutorService threadPool;
+  private final DeliveryScheduler deliveryScheduler;
+
+  private final String subscriptionId;
 
   private Predicate predicate;
 
@@ -46,21 +48,23 @@ public class PublishedEventHandler implements EventHandler {
   public PublishedEventHandler(
       Predicate finalPredicate,
       Subscription subscription,
+      String subscriptionId,
       List<PreDeliveryPlugin> preDelivery,
       CatalogFramework catalog,
-      ExecutorService threadPool) {
+      DeliveryScheduler deliveryScheduler) {
     this.predicate = finalPredicate;
     this.subscription = subscription;
     this.preDelivery = preDelivery;
     this.catalog = catalog;
-    this.threadPool = threadPool;
+    this.subscriptionId = subscriptionId;
+    this.deliveryScheduler = deliveryScheduler;
   }
 
   public void handleEvent(Event event) {
-    threadPool.submit(new EventProcessor(event));
+    deliveryScheduler.submit(subscriptionId, new EventProcessor(event));
   }
 
-  private class EventProcessor implements Runnable {
+  private class EventProcessor implements DeliveryScheduler.Delivery {
 
     private Event event;
 
@@ -69,7 +73,7 @@ public EventProcessor(Event event) {
     }
 
     @Override
-    public void run() {
+    public void deliver() throws DeliveryException {
 
       String methodName = "handleEvent";
       LOGGER.trace("ENTERING: {}", methodName);
@@ -83,8 +87,7 @@ public void run() {
 
       if (subscription.getDeliveryMethod() instanceof Pingable
           && !((Pingable) subscription.getDeliveryMethod()).ping()) {
-        LOGGER.debug("Subscription is not active ignoring event");
-        return;
+        throw new DeliveryException("Subscription " + subscriptionId + " is not active.");
       }
 
       LOGGER.debug("subscription is enterprise? {}", subscription.isEnterprise());
@@ -107,7 +110,8 @@ public void run() {
       LOGGER.trace("EXITING: {}", methodName);
     }
 
-    private void evaluateSiteBasedSubscription(Set<String> sourceIds, String metacardSourceId) {
+    private void evaluateSiteBasedSubscription(Set<String> sourceIds, String metacardSourceId)
+        throws DeliveryException {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug(
             "subscription is a site-based subscription starting with site id {}",
@@ -123,7 +127,7 @@ private void evaluateSiteBasedSubscription(Set<String> sourceIds, String metacar
       }
     }
 
-    private void evaluateLocalSubscription(String metacardSourceId) {
+    private void evaluateLocalSubscription(String metacardSourceId) throws DeliveryException {
       LOGGER.debug("subscription is a local subscription. Local Source Id: {}", catalog.getId());
       if (catalog.getId() != null && catalog.getId().equals(metacardSourceId)) {
         LOGGER.debug("event received from local site");
@@ -134,7 +138,7 @@ private void evaluateLocalSubscription(String metacardSourceId) {
       }
     }
 
-    private void evaluateEvent(Event event) {
+    private void evaluateEvent(Event event) throws DeliveryException {
       // If predicate is NULL then we are handling a filterless subscription - publish all events
       if (predicate == null || predicate.matches(event)) {
         new DeliveryProcessor(subscription, preDelivery).process(event);
@@ -75,6 +75,28 @@ public ContextualEvaluationCriteriaImpl(
     this.index = ContextualEvaluator.buildIndex(metadata, this.textPaths);
   }
 
+  /**
+   * Creates criteria for text paths whose index has already been built from the metadata.
+   *
+   * @param index the index built by {@link ContextualEvaluator#buildIndex(String, String[])} for
+   *     the metadata and text paths
+   */
+  public ContextualEvaluationCriteriaImpl(
+      String criteria,
+      boolean fuzzy,
+      boolean caseSensitiveSearch,
+      String[] textPaths,
+      String metadata,
+      Directory index) {
+    super();
+    this.criteria = criteria;
+    this.fuzzy = fuzzy;
+    this.caseSensitiveSearch = caseSensitiveSearch;
+    this.textPaths = textPaths == null ? null : Arrays.copyOf(textPaths, textPaths.length);
+    this.metadata = metadata;
+    this.index = index;
+  }
+
   public String getCriteria() {
     return criteria;
   }
@@ -14,6 +14,7 @@
 package ddf.catalog.pubsub.internal;
 
 import ddf.catalog.data.Metacard;
+import ddf.catalog.event.DeliveryException;
 import ddf.catalog.event.Subscription;
 import ddf.catalog.operation.Update;
 import ddf.catalog.operation.impl.UpdateImpl;
@@ -37,10 +38,25 @@ public DeliveryProcessor(Subscription subscription, List<PreDeliveryPlugin> preD
     this.preDelivery = preDelivery;
   }
 
-  public void process(Event event) {
+  /**
+   * Runs the pre-delivery plugins on the metacard of the event and delivers it to the subscription.
+   *
+   * @throws DeliveryException if the delivery method failed to deliver the metacard
+   */
+  public void process(Event event) throws DeliveryException {
     String methodName = "process";
     LOGGER.debug("ENTERING: {}", methodName);
 
+    try {
+      deliver(event);
+    } catch (RuntimeException e) {
+      throw new DeliveryException("Could not deliver catalog entry to subscription.", e);
+    }
+
+    LOGGER.debug("EXITING: {}", methodName);
+  }
+
+  private void deliver(Event event) {
     Metacard entry = (Metacard) event.getProperty(PubSubConstants.HEADER_ENTRY_KEY);
     String operation = event.getProperty(PubSubConstants.HEADER_OPERATION_KEY).toString();
 
@@ -98,7 +114,5 @@ public void process(Event event) {
     } else {
       LOGGER.debug("Could not deliver hit for subscription. Subscription is null.");
     }
-
-    LOGGER.debug("EXITING: {}", methodName);
   }
 }
@@ -26,6 +26,7 @@
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -135,6 +136,27 @@ public static void notNull(Object value, String name) {
     }
   }
 
+  /**
+   * Orders the predicates so that the cheapest ones are evaluated first. The combined predicates
+   * short-circuit, so an event rejected by its content type, entry, date or location is never
+   * evaluated against the contextual and XPath criteria, which require searching the metadata.
+   * The sort is stable, so predicates of the same cost keep their order.
+   */
+  private static void sortByEvaluationCost(List<Predicate> predicates) {
+    predicates.sort(Comparator.comparingInt(SubscriptionFilterVisitor::getEvaluationCost));
+  }
+
+  private static int getEvaluationCost(Predicate predicate) {
+    if (predicate instanceof ContentTypePredicate || predicate instanceof EntryPredicate) {
+      return 0;
+    } else if (predicate instanceof TemporalPredicate) {
+      return 1;
+    } else if (predicate instanceof GeospatialPredicate) {
+      return 2;
+    }
+    return 3;
+  }
+
   @Override
   public Object visit(Not filter, Object data) {
     LOGGER.debug("ENTERING: NOT filter");
@@ -165,6 +187,7 @@ public Object visit(Or filter, Object data) {
         predList.add((Predicate) child.accept(this, data));
       }
     }
+    sortByEvaluationCost(predList);
 
     for (Predicate p : predList) {
       if (returnPredicate == null) {
@@ -196,6 +219,7 @@ public Object visit(And filter, Object data) {
         predList.add((Predicate) child.accept(this, data));
       }
     }
+    sortByEvaluationCost(predList);
 
     ContentTypePredicate currentContentTypePred = null;
     LOGGER.debug("predicate list size: {}", predList.size());
@@ -19,9 +19,12 @@
 import ddf.catalog.pubsub.criteria.contextual.ContextualTokenizer;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
@@ -34,6 +37,8 @@
 public class ContextualPredicate implements Predicate {
   private static final Logger LOGGER = LoggerFactory.getLogger(ContextualPredicate.class);
 
+  private static final String TEXT_PATHS_INDEX_KEY_PREFIX = "TEXT_PATHS_INDEX:";
+
   private String searchPhrase;
 
   private boolean fuzzy;
@@ -241,14 +246,17 @@ public boolean matches(Event properties) {
     // text paths)
     if (this.textPaths != null && !this.textPaths.isEmpty()) {
       LOGGER.debug("creating criteria with textPaths and metadata document");
+      String[] paths = this.textPaths.toArray(new String[this.textPaths.size()]);
       try {
         cec =
             new ContextualEvaluationCriteriaImpl(
                 searchPhrase,
                 fuzzy,
                 caseSensitiveSearch,
-                this.textPaths.toArray(new String[this.textPaths.size()]),
-                (String) contextualMap.get("METADATA"));
+                paths,
+                metadata,
+                // an empty search phrase only checks that the text paths exist in the metadata
+                searchPhrase.isEmpty() ? null : getTextPathsIndex(contextualMap, paths, metadata));
       } catch (IOException e) {
         LOGGER.debug("IO exception during context evaluation", e);
         return false;
@@ -281,6 +289,33 @@ public boolean matches(Event properties) {
     return false;
   }
 
+  /**
+   * Gets the index of the metadata for the text paths. The index is added to the contextual map of
+   * the event when that map can be shared between threads, so that it is only built once per event
+   * for all the subscriptions using the same text paths.
+   */
+  private static Directory getTextPathsIndex(
+      Map<String, Object> contextualMap, String[] paths, String metadata) throws IOException {
+    if (!(contextualMap instanceof ConcurrentMap)) {
+      return ContextualEvaluator.buildIndex(metadata, paths);
+    }
+
+    try {
+      return (Directory)
+          contextualMap.computeIfAbsent(
+              TEXT_PATHS_INDEX_KEY_PREFIX + Arrays.toString(paths),
+              key -> {
+                try {
+                  return ContextualEvaluator.buildIndex(metadata, paths);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
   public String getSearchPhrase() {
     return searchPhrase;
   }
@@ -13,12 +13,14 @@
  */
 package ddf.catalog.pubsub.predicate;
 
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.ParseException;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteria;
 import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluationCriteriaImpl;
 import ddf.catalog.pubsub.criteria.geospatial.GeospatialEvaluator;
+import ddf.catalog.pubsub.criteria.geospatial.SpatialOperator;
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import java.util.Iterator;
 import java.util.Map;
@@ -30,6 +32,8 @@
 public class GeospatialPredicate implements Predicate {
   private static final Logger LOGGER = LoggerFactory.getLogger(GeospatialPredicate.class);
 
+  private static final double ERROR_THRESHOLD = .000001;
+
   private Geometry geoCriteria;
 
   private String geoOperation;
@@ -102,9 +106,19 @@ public boolean matches(Event properties) {
 
     GeospatialEvaluationCriteria gec;
     try {
-      gec =
-          new GeospatialEvaluationCriteriaImpl(
-              geoCriteria, geoOperation, entry.getLocation(), distance);
+      Object location = properties.getProperty(PubSubConstants.HEADER_GEOSPATIAL_KEY);
+      if (location instanceof Geometry) {
+        Geometry input = (Geometry) location;
+        if (!envelopesMayMatch(input)) {
+          LOGGER.debug("Entry location is outside of the bounding box of the criteria.");
+          return false;
+        }
+        gec = new GeospatialEvaluationCriteriaImpl(geoCriteria, geoOperation, input, distance);
+      } else {
+        gec =
+            new GeospatialEvaluationCriteriaImpl(
+                geoCriteria, geoOperation, entry.getLocation(), distance);
+      }
       return GeospatialEvaluator.evaluate(gec);
     } catch (ParseException e) {
       LOGGER.debug("Error parsing WKT string.  Unable to compare geos.  Returning false.");
@@ -112,6 +126,37 @@ public boolean matches(Event properties) {
     }
   }
 
+  /**
+   * Compares the bounding boxes of the criteria and the input, which is much cheaper than the
+   * evaluation of the geometries themselves and rules out most entries that cannot match.
+   *
+   * @return {@code false} if the input cannot match the criteria
+   */
+  private boolean envelopesMayMatch(Geometry input) {
+    if (geoCriteria == null) {
+      return true;
+    }
+
+    Envelope criteriaEnvelope = geoCriteria.getEnvelopeInternal();
+    Envelope inputEnvelope = input.getEnvelopeInternal();
+    if (criteriaEnvelope.isNull() || inputEnvelope.isNull()) {
+      return true;
+    }
+
+    if (Math.abs(distance) >= ERROR_THRESHOLD) {
+      return criteriaEnvelope.distance(inputEnvelope) <= distance;
+    }
+
+    // both operations require the geometries, and therefore their envelopes, to intersect
+    if (geoOperation != null
+        && (SpatialOperator.CONTAINS.name().equalsIgnoreCase(geoOperation)
+            || SpatialOperator.OVERLAPS.name().equalsIgnoreCase(geoOperation))) {
+      return criteriaEnvelope.intersects(inputEnvelope);
+    }
+
+    return true;
+  }
+
   public Geometry getGeoCriteria() {
     return geoCriteria;
   }
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import com.codahale.metrics.MetricRegistry;
+import ddf.catalog.event.DeliveryException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeliverySchedulerTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private MetricRegistry metrics;
+
+  private DeliveryScheduler scheduler;
+
+  private List<String> delivered;
+
+  private CountDownLatch blockerStarted;
+
+  private CountDownLatch releaseBlocker;
+
+  @Before
+  public void setUp() {
+    metrics = new MetricRegistry();
+    scheduler = new DeliveryScheduler("test", 1, 2, 0, metrics);
+    scheduler.setRetryDelay(0);
+    delivered = new CopyOnWriteArrayList<>();
+    blockerStarted = new CountDownLatch(1);
+    releaseBlocker = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testSubscriptionsTakeTurns() throws Exception {
+    scheduler.setMaxQueuedPerSubscription(10);
+    blockDeliveryThread();
+
+    submit("a", "a1");
+    submit("a", "a2");
+    submit("a", "a3");
+    submit("b", "b1");
+    CountDownLatch done = submitLast("a");
+
+    releaseBlocker.countDown();
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    assertThat(delivered, contains("a1", "b1", "a2", "a3"));
+  }
+
+  @Test
+  public void testDropOldestWhenQueueIsFull() throws Exception {
+    blockDeliveryThread();
+
+    submit("a", "a1");
+    submit("a", "a2");
+    assertThat(scheduler.getQueued(), is(2));
+    CountDownLatch done = submitLast("a");
+
+    releaseBlocker.countDown();
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    assertThat(delivered, contains("a2"));
+    assertThat(metrics.meter(metricName("Dropped")).getCount(), is(1L));
+  }
+
+  @Test
+  public void testDropNewestWhenQueueIsFull() throws Exception {
+    scheduler.setDropOldest(false);
+    blockDeliveryThread();
+
+    submit("a", "a1");
+    CountDownLatch done = submitLast("a");
+    assertThat(scheduler.submit("a", () -> delivered.add("a3")), is(false));
+
+    releaseBlocker.countDown();
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    assertThat(delivered, contains("a1"));
+    assertThat(metrics.meter(metricName("Dropped")).getCount(), is(1L));
+  }
+
+  @Test
+  public void testFailedDeliveryIsRetried() throws Exception {
+    scheduler.setMaxRetries(1);
+    AtomicInteger attempts = new AtomicInteger();
+    scheduler.submit(
+        "a",
+        () -> {
+          if (attempts.incrementAndGet() == 1) {
+            throw new IllegalStateException("Subscriber unavailable");
+          }
+          delivered.add("a1");
+        });
+    CountDownLatch done = submitLast("a");
+
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    assertThat(attempts.get(), is(2));
+    assertThat(delivered, contains("a1"));
+    assertThat(metrics.meter(metricName("Retried")).getCount(), is(1L));
+  }
+
+  @Test
+  public void testRetryWaitsForDelayAndKeepsOrder() throws Exception {
+    scheduler.setMaxRetries(1);
+    scheduler.setRetryDelay(50);
+    AtomicInteger attempts = new AtomicInteger();
+    long start = System.nanoTime();
+    scheduler.submit(
+        "a",
+        () -> {
+          if (attempts.incrementAndGet() == 1) {
+            throw new DeliveryException("Subscription is not active.");
+          }
+          delivered.add("a1");
+        });
+    submit("a", "a2");
+    CountDownLatch done = submitLast("a");
+
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    assertThat(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), is(true));
+    assertThat(delivered, contains("a1", "a2"));
+  }
+
+  @Test
+  public void testDeliveryFailsOnceRetriesAreExhausted() throws Exception {
+    scheduler.setMaxRetries(2);
+    AtomicInteger attempts = new AtomicInteger();
+    scheduler.submit(
+        "a",
+        () -> {
+          attempts.incrementAndGet();
+          throw new DeliveryException("Subscription is not active.");
+        });
+    CountDownLatch done = submitLast("a");
+
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    assertThat(attempts.get(), is(3));
+    assertThat(metrics.meter(metricName("Retried")).getCount(), is(2L));
+    assertThat(metrics.meter(metricName("Failed")).getCount(), is(1L));
+  }
+
+  @Test
+  public void testCancelDropsPendingDeliveries() throws Exception {
+    blockDeliveryThread();
+    submit("a", "a1");
+
+    scheduler.cancel("a");
+    assertThat(scheduler.getQueued(), is(0));
+
+    CountDownLatch done = submitLast("b");
+    releaseBlocker.countDown();
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+    assertThat(delivered.isEmpty(), is(true));
+  }
+
+  private void blockDeliveryThread() throws InterruptedException {
+    scheduler.submit(
+        "blocker",
+        () -> {
+          blockerStarted.countDown();
+          try {
+            releaseBlocker.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    assertThat(blockerStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS), is(true));
+  }
+
+  private void submit(String subscriptionId, String event) {
+    scheduler.submit(subscriptionId, () -> delivered.add(event));
+  }
+
+  private CountDownLatch submitLast(String subscriptionId) {
+    CountDownLatch done = new CountDownLatch(1);
+    scheduler.submit(subscriptionId, done::countDown);
+    return done;
+  }
+
+  private static String metricName(String name) {
+    return MetricRegistry.name("test", DeliveryScheduler.DELIVERY_SCOPE, name);
+  }
+}
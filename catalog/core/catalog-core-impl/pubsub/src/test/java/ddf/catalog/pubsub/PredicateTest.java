@@ -38,6 +38,7 @@
 import ddf.catalog.pubsub.internal.PubSubConstants;
 import ddf.catalog.pubsub.internal.SubscriptionFilterVisitor;
 import ddf.catalog.pubsub.predicate.ContentTypePredicate;
+import ddf.catalog.pubsub.predicate.ContextualPredicate;
 import ddf.catalog.pubsub.predicate.GeospatialPredicate;
 import ddf.catalog.pubsub.predicate.Predicate;
 import ddf.measure.Distance;
@@ -45,15 +46,18 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.lucene.store.Directory;
 import org.geotools.filter.FilterTransformer;
+import org.geotools.geometry.jts.WKTReader2;
 import org.junit.Test;
 import org.opengis.filter.Filter;
 import org.osgi.service.event.Event;
@@ -1457,6 +1461,51 @@ public void testGeospatialEvaluatorPointRadiusContains() throws Exception {
         "**************************  END: testGeospatialEvaluator_PointRadius_Contains()  ***********************");
   }
 
+  @Test
+  public void testGeospatialPredicateUsesParsedLocation() throws Exception {
+    GeospatialPredicate predicate =
+        new GeospatialPredicate("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))", "overlaps", 0.0);
+
+    // the metacard has no location, so the predicate can only match using the parsed location
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId("ABC123");
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+    properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+
+    properties.put(PubSubConstants.HEADER_GEOSPATIAL_KEY, new WKTReader2().read("POINT (5 5)"));
+    assertTrue(predicate.matches(new Event("topic", properties)));
+
+    properties.put(PubSubConstants.HEADER_GEOSPATIAL_KEY, new WKTReader2().read("POINT (50 50)"));
+    assertFalse(predicate.matches(new Event("topic", properties)));
+  }
+
+  @Test
+  public void testContextualTextPathsIndexSharedBetweenPredicates() throws Exception {
+    List<String> textPaths = Collections.singletonList("//title");
+    ContextualPredicate serengeti = new ContextualPredicate("serengeti", false, false, textPaths);
+    ContextualPredicate cat = new ContextualPredicate("cat", false, false, textPaths);
+
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId("ABC123");
+    metacard.setMetadata(TestDataLibrary.getCatAndDogEntry());
+
+    Map<String, Object> contextualMap = new ConcurrentHashMap<>();
+    contextualMap.put("METADATA", metacard.getMetadata());
+
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+    properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+    properties.put(PubSubConstants.HEADER_CONTEXTUAL_KEY, contextualMap);
+    Event event = new Event("topic", properties);
+
+    assertTrue(serengeti.matches(event));
+    // "cat" only appears outside of the title
+    assertFalse(cat.matches(event));
+    assertThat(contextualMap.size(), is(2));
+  }
+
   @Test
   public void testSpatialAndTemporalAnd2EntryPredicates() throws Exception {
     // LOGGER.debug("**************************  START:
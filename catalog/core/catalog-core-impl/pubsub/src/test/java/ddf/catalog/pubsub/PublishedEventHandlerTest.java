@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.pubsub;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.codahale.metrics.MetricRegistry;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.event.DeliveryMethod;
+import ddf.catalog.event.Subscription;
+import ddf.catalog.operation.Pingable;
+import ddf.catalog.pubsub.internal.PubSubConstants;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.service.event.Event;
+
+public class PublishedEventHandlerTest {
+
+  private static final long TIMEOUT_MILLIS = 10000;
+
+  private MetricRegistry metrics;
+
+  private DeliveryScheduler scheduler;
+
+  private DeliveryMethod deliveryMethod;
+
+  private MetacardImpl metacard;
+
+  private PublishedEventHandler handler;
+
+  @Before
+  public void setUp() {
+    metrics = new MetricRegistry();
+    scheduler = new DeliveryScheduler("test", 1, 10, 1, metrics);
+    scheduler.setRetryDelay(10);
+
+    deliveryMethod = mock(DeliveryMethod.class, withSettings().extraInterfaces(Pingable.class));
+    when(((Pingable) deliveryMethod).ping()).thenReturn(true);
+    Subscription subscription = mock(Subscription.class);
+    when(subscription.getDeliveryMethod()).thenReturn(deliveryMethod);
+    when(subscription.isEnterprise()).thenReturn(true);
+
+    metacard = new MetacardImpl();
+    metacard.setId("id");
+
+    handler =
+        new PublishedEventHandler(
+            null, subscription, "subscription", Collections.emptyList(), null, scheduler);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void testFailedDeliveryIsRetried() {
+    doThrow(new IllegalStateException("Subscriber unavailable"))
+        .doNothing()
+        .when(deliveryMethod)
+        .created(metacard);
+
+    handler.handleEvent(getCreatedEvent());
+
+    verify(deliveryMethod, timeout(TIMEOUT_MILLIS).times(2)).created(metacard);
+    assertThat(metrics.meter(metricName("Retried")).getCount(), is(1L));
+    assertThat(metrics.meter(metricName("Failed")).getCount(), is(0L));
+  }
+
+  @Test
+  public void testInactiveSubscriptionIsRetried() {
+    when(((Pingable) deliveryMethod).ping()).thenReturn(false, true);
+    doNothing().when(deliveryMethod).created(metacard);
+
+    handler.handleEvent(getCreatedEvent());
+
+    verify(deliveryMethod, timeout(TIMEOUT_MILLIS)).created(metacard);
+    verify((Pingable) deliveryMethod, times(2)).ping();
+    assertThat(metrics.meter(metricName("Retried")).getCount(), is(1L));
+  }
+
+  private Event getCreatedEvent() {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(PubSubConstants.HEADER_ENTRY_KEY, metacard);
+    properties.put(PubSubConstants.HEADER_OPERATION_KEY, PubSubConstants.CREATE);
+    return new Event("topic", properties);
+  }
+
+  private static String metricName(String name) {
+    return MetricRegistry.name("test", DeliveryScheduler.DELIVERY_SCOPE, name);
+  }
+}
@@ -24,13 +24,14 @@
 import ddf.catalog.operation.impl.ResourceRequestById;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PostQueryPlugin;
+import ddf.catalog.plugin.ResultIndependentPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.resource.data.ReliableResource;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class MetacardResourceSizePlugin implements PostQueryPlugin {
+public class MetacardResourceSizePlugin implements PostQueryPlugin, ResultIndependentPlugin {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MetacardResourceSizePlugin.class);
 
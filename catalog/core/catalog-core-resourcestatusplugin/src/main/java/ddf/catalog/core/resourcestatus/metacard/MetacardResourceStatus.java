@@ -23,6 +23,7 @@
 import ddf.catalog.operation.impl.ResourceRequestById;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PostQueryPlugin;
+import ddf.catalog.plugin.ResultIndependentPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.resource.data.ReliableResource;
 import java.util.List;
@@ -38,7 +39,7 @@
  * existence of each {@link Metacard}'s related {@link ddf.catalog.resource.Resource} and adds an
  * {@link ddf.catalog.data.Attribute} to each {@link Metacard} in the {@link QueryResponse}.
  */
-public class MetacardResourceStatus implements PostQueryPlugin {
+public class MetacardResourceStatus implements PostQueryPlugin, ResultIndependentPlugin {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MetacardResourceStatus.class);
 
@@ -21,6 +21,7 @@
 import com.vividsolutions.jts.geom.Point;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKTReader;
+import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.AttributeType;
 import ddf.catalog.data.AttributeType.AttributeFormat;
@@ -33,11 +34,8 @@
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.MetacardTypeImpl;
 import ddf.catalog.data.types.Validation;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import ddf.catalog.source.solr.MetacardTypeFieldPlan.AttributeFieldPlan;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.nio.charset.Charset;
@@ -82,6 +80,7 @@
 import org.codehaus.stax2.XMLInputFactory2;
 import org.codice.solr.client.solrj.SolrClient;
 import org.codice.solr.factory.impl.ConfigurationStore;
+import org.codice.solr.xpath.XpathIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -107,6 +106,8 @@ public class DynamicSchemaResolver {
 
   protected static final String FIELDS_KEY = "fields";
 
+  protected static final String SCHEMA_KEY = "schema";
+
   protected static final String COULD_NOT_SERIALIZE_OBJECT_MESSAGE = "Could not serialize object";
 
   protected static final XMLInputFactory XML_INPUT_FACTORY;
@@ -122,10 +123,20 @@ public class DynamicSchemaResolver {
           SchemaFields.METACARD_TYPE_FIELD_NAME,
           SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
           LUX_XML_FIELD_NAME,
+          XpathIndex.FIELD_NAME,
           SCORE_FIELD_NAME);
 
   private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
 
+  /** The numerical formats, in the order a property of unknown numerical format is looked for. */
+  private static final AttributeFormat[] NUMERICAL_FORMATS = {
+    AttributeFormat.DOUBLE,
+    AttributeFormat.FLOAT,
+    AttributeFormat.INTEGER,
+    AttributeFormat.LONG,
+    AttributeFormat.SHORT
+  };
+
   private static final Logger LOGGER = LoggerFactory.getLogger(DynamicSchemaResolver.class);
 
   private Function<TinyTree, TinyBinary> tinyBinaryFunction;
@@ -160,8 +171,17 @@ public class DynamicSchemaResolver {
   protected Cache<String, byte[]> metacardTypeNameToSerialCache =
       CacheBuilder.newBuilder().maximumSize(4096).initialCapacity(64).build();
 
+  /** Keyed by identity, metacard types are usually shared by all the metacards of the type. */
+  private final Cache<MetacardType, MetacardTypeFieldPlan> fieldPlanCache =
+      CacheBuilder.newBuilder().weakKeys().maximumSize(4096).initialCapacity(64).build();
+
+  private final Cache<String, PropertyFieldNames> propertyFieldNamesCache =
+      CacheBuilder.newBuilder().maximumSize(4096).initialCapacity(64).build();
+
   private Processor processor = new Processor(new Config());
 
+  private volatile List<MetacardType> metacardTypes = Collections.emptyList();
+
   public DynamicSchemaResolver(
       List<String> additionalFields, Function<TinyTree, TinyBinary> tinyBinaryFunction) {
     this(additionalFields);
@@ -203,6 +223,16 @@ public DynamicSchemaResolver() {
     this(Collections.emptyList());
   }
 
+  /**
+   * Sets the registered metacard types that the metacard types read from Solr documents are
+   * resolved to by name.
+   *
+   * @param metacardTypes registered metacard types
+   */
+  public void setMetacardTypes(List<MetacardType> metacardTypes) {
+    this.metacardTypes = metacardTypes == null ? Collections.emptyList() : metacardTypes;
+  }
+
   /**
    * Adds the fields that are already in Solr to the cache. This method should be called once the
    * SolrClient is up to ensure the cache is synchronized with Solr.
@@ -251,39 +281,57 @@ public void addFieldsFromClient(SolrClient client) throws SolrServerException, I
         anyTextFieldsCache.add(key);
       }
     }
+
+    addXpathIndexFieldFromClient(client);
+  }
+
+  /**
+   * The XPath index field is only in the schema of new cores, the schema of existing cores is not
+   * replaced on upgrade. Documents can only carry the field when the core's schema defines it.
+   */
+  private void addXpathIndexFieldFromClient(SolrClient client) {
+    SolrQuery query = new SolrQuery();
+    query.add("show", "schema");
+    query.setRequestHandler("/admin/luke");
+
+    try {
+      NamedList<?> schema =
+          (NamedList<?>) client.query(query, METHOD.POST).getResponse().get(SCHEMA_KEY);
+      NamedList<?> schemaFields = schema == null ? null : (NamedList<?>) schema.get(FIELDS_KEY);
+      if (schemaFields != null && schemaFields.get(XpathIndex.FIELD_NAME) != null) {
+        fieldsCache.add(XpathIndex.FIELD_NAME);
+      } else {
+        LOGGER.info(
+            "The Solr schema has no {} field, XPath queries are not pre-filtered.",
+            XpathIndex.FIELD_NAME);
+      }
+    } catch (SolrServerException | SolrException | IOException | ClassCastException e) {
+      LOGGER.debug("Could not read the Solr schema, XPath queries are not pre-filtered.", e);
+    }
   }
 
   /** Adds the fields of the Metacard into the {@link SolrInputDocument} */
   public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
       throws MetacardCreationException {
-    MetacardType schema = metacard.getMetacardType();
-
-    // TODO: register these metacard types when a new one is seen
+    MetacardTypeFieldPlan fieldPlan = getFieldPlan(metacard.getMetacardType());
 
-    for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
-      if (metacard.getAttribute(ad.getName()) != null) {
-        List<Serializable> attributeValues = metacard.getAttribute(ad.getName()).getValues();
+    for (AttributeFieldPlan field : fieldPlan.getAttributes()) {
+      Attribute attribute = metacard.getAttribute(field.getAttributeName());
+      if (attribute != null) {
+        List<Serializable> attributeValues = attribute.getValues();
 
         if (CollectionUtils.isNotEmpty(attributeValues) && attributeValues.get(0) != null) {
-          AttributeFormat format = ad.getType().getAttributeFormat();
-          String formatIndexName = ad.getName() + getFieldSuffix(format);
+          AttributeFormat format = field.getFormat();
+          String formatIndexName = field.getFormatIndexName();
 
           if (AttributeFormat.XML.equals(format)
-              && solrInputDocument.getFieldValue(
-                      formatIndexName + getSpecialIndexSuffix(AttributeFormat.STRING))
-                  == null) {
+              && solrInputDocument.getFieldValue(field.getSpecialFormatIndexName()) == null) {
             List<String> parsedTexts = parseTextFrom(attributeValues);
 
             // parsedTexts => *_txt_tokenized
-            String specialStringIndexName =
-                ad.getName()
-                    + getFieldSuffix(AttributeFormat.STRING)
-                    + getSpecialIndexSuffix(AttributeFormat.STRING);
-            solrInputDocument.addField(specialStringIndexName, parsedTexts);
+            solrInputDocument.addField(field.getTokenizedTextName(), parsedTexts);
           } else if (AttributeFormat.STRING.equals(format)
-              && solrInputDocument.getFieldValue(
-                      ad.getName() + getFieldSuffix(AttributeFormat.STRING))
-                  == null) {
+              && solrInputDocument.getFieldValue(field.getTextName()) == null) {
             List<Serializable> truncatedValues =
                 attributeValues
                     .stream()
@@ -294,24 +342,16 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
                                 : value)
                     .collect(Collectors.toList());
             // *_txt
-            solrInputDocument.addField(
-                ad.getName() + getFieldSuffix(AttributeFormat.STRING), truncatedValues);
+            solrInputDocument.addField(field.getTextName(), truncatedValues);
 
             // *_txt_tokenized
-            solrInputDocument.addField(
-                ad.getName()
-                    + getFieldSuffix(AttributeFormat.STRING)
-                    + getSpecialIndexSuffix(AttributeFormat.STRING),
-                attributeValues);
+            solrInputDocument.addField(field.getTokenizedTextName(), attributeValues);
           } else if (AttributeFormat.OBJECT.equals(format)) {
-            ByteArrayOutputStream byteArrayOS = new ByteArrayOutputStream();
-            List<Serializable> byteArrays = new ArrayList<>();
+            List<Serializable> byteArrays = new ArrayList<>(attributeValues.size());
 
-            try (ObjectOutputStream out = new ObjectOutputStream(byteArrayOS)) {
+            try {
               for (Serializable serializable : attributeValues) {
-                out.writeObject(serializable);
-                byteArrays.add(byteArrayOS.toByteArray());
-                out.reset();
+                byteArrays.add(encodeObject(serializable));
               }
             } catch (IOException e) {
               throw new MetacardCreationException(COULD_NOT_SERIALIZE_OBJECT_MESSAGE, e);
@@ -320,16 +360,13 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
             attributeValues = byteArrays;
           }
 
-          if (solrInputDocument.getFieldValue(formatIndexName + SchemaFields.SORT_KEY_SUFFIX)
-              == null) {
+          if (solrInputDocument.getFieldValue(field.getSortKeyName()) == null) {
             if (AttributeFormat.GEOMETRY.equals(format)) {
               solrInputDocument.addField(
-                  formatIndexName + SchemaFields.SORT_KEY_SUFFIX,
-                  createCenterPoint(attributeValues));
+                  field.getSortKeyName(), createCenterPoint(attributeValues));
             } else if (!(AttributeFormat.BINARY.equals(format)
                 || AttributeFormat.OBJECT.equals(format))) {
-              solrInputDocument.addField(
-                  formatIndexName + SchemaFields.SORT_KEY_SUFFIX, attributeValues.get(0));
+              solrInputDocument.addField(field.getSortKeyName(), attributeValues.get(0));
             }
           }
 
@@ -346,8 +383,16 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
     if (!ConfigurationStore.getInstance().isDisableTextPath()
         && StringUtils.isNotBlank(metacard.getMetadata())) {
       try {
-        byte[] luxXml = createTinyBinary(metacard.getMetadata());
+        XdmNode document = parseMetadata(metacard.getMetadata());
+        byte[] luxXml = createTinyBinary(document);
+        Set<String> xpathTerms =
+            fieldsCache.contains(XpathIndex.FIELD_NAME)
+                ? XpathIndex.getTerms(document)
+                : Collections.emptySet();
         solrInputDocument.addField(LUX_XML_FIELD_NAME, luxXml);
+        if (!xpathTerms.isEmpty()) {
+          solrInputDocument.addField(XpathIndex.FIELD_NAME, xpathTerms);
+        }
       } catch (XMLStreamException | SaxonApiException | IOException | RuntimeException e) {
         LOGGER.debug(
             "Unable to parse metadata field.  XPath support unavailable for metacard {}",
@@ -359,16 +404,35 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
     /*
      * Lastly the metacardType must be added to the solr document. These are internal fields
      */
+    solrInputDocument.addField(SchemaFields.METACARD_TYPE_FIELD_NAME, fieldPlan.getSchemaName());
+    solrInputDocument.addField(
+        SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME, fieldPlan.getMetacardTypeBytes());
+  }
+
+  /**
+   * Gets the fields the attributes of a metacard type are indexed into. The plans are kept per
+   * metacard type instance, so the hash code of the metacard type, which goes through all of its
+   * attribute descriptors, is only computed the first time an instance is seen. Plans and bytes
+   * cached in the other encoding than the configured one are not used, so that a change of the
+   * encoding applies to the next write.
+   */
+  private MetacardTypeFieldPlan getFieldPlan(MetacardType schema) throws MetacardCreationException {
+    boolean compactEncoding = isCompactEncoding();
+    MetacardTypeFieldPlan fieldPlan = fieldPlanCache.getIfPresent(schema);
+    if (fieldPlan != null && isInEncoding(fieldPlan.getMetacardTypeBytes(), compactEncoding)) {
+      return fieldPlan;
+    }
+
     String schemaName = String.format("%s#%s", schema.getName(), schema.hashCode());
-    solrInputDocument.addField(SchemaFields.METACARD_TYPE_FIELD_NAME, schemaName);
     byte[] metacardTypeBytes = metacardTypeNameToSerialCache.getIfPresent(schemaName);
 
-    if (metacardTypeBytes == null) {
+    if (metacardTypeBytes == null || !isInEncoding(metacardTypeBytes, compactEncoding)) {
       MetacardType coreMetacardType =
           new MetacardTypeImpl(
               schema.getName(), convertAttributeDescriptors(schema.getAttributeDescriptors()));
 
-      metacardTypesCache.put(schemaName, coreMetacardType);
+      metacardTypesCache.put(
+          schemaName, MetacardBinaryCodec.resolveMetacardType(coreMetacardType, metacardTypes));
 
       metacardTypeBytes = serialize(coreMetacardType);
       metacardTypeNameToSerialCache.put(schemaName, metacardTypeBytes);
@@ -376,7 +440,20 @@ public void addFields(Metacard metacard, SolrInputDocument solrInputDocument)
       addToFieldsCache(coreMetacardType.getAttributeDescriptors());
     }
 
-    solrInputDocument.addField(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME, metacardTypeBytes);
+    fieldPlan =
+        new MetacardTypeFieldPlan(
+            schemaName, metacardTypeBytes, schema.getAttributeDescriptors(), this);
+    fieldPlanCache.put(schema, fieldPlan);
+    return fieldPlan;
+  }
+
+  private PropertyFieldNames getPropertyFieldNames(String propertyName) {
+    if (propertyName == null) {
+      return new PropertyFieldNames(null, this);
+    }
+    return propertyFieldNamesCache
+        .asMap()
+        .computeIfAbsent(propertyName, name -> new PropertyFieldNames(name, this));
   }
 
   /*
@@ -447,7 +524,7 @@ private String createCenterPoint(List<Serializable> values) {
     return centerPoint.getY() + "," + centerPoint.getX();
   }
 
-  private byte[] createTinyBinary(String xml)
+  private XdmNode parseMetadata(String xml)
       throws XMLStreamException, SaxonApiException, IOException {
     SaxonDocBuilder builder = new SaxonDocBuilder(processor);
 
@@ -456,8 +533,10 @@ private byte[] createTinyBinary(String xml)
     xmlReader.setStripNamespaces(true);
     xmlReader.read(IOUtils.toInputStream(xml, Charset.defaultCharset().name()));
 
-    XdmNode node = builder.getDocument();
+    return builder.getDocument();
+  }
 
+  private byte[] createTinyBinary(XdmNode node) {
     TinyTree tinyTree = ((TinyDocumentImpl) node.getUnderlyingNode()).getTree();
     TinyBinary tinyBinary = tinyBinaryFunction.apply(tinyTree);
 
@@ -495,8 +574,6 @@ public List<Serializable> getDocValues(String solrFieldName, Collection<Object>
     return values;
   }
 
-  @SuppressWarnings(
-      "squid:S2093" /* try-with-resource will throw IOException with InputStream and we do not care to get that exception */)
   public Serializable getDocValue(String solrFieldName, Object docValue) {
 
     AttributeFormat format = getType(solrFieldName);
@@ -509,22 +586,13 @@ public Serializable getDocValue(String solrFieldName, Object docValue) {
        */
       return Short.parseShort(docValue.toString());
     } else if (AttributeFormat.OBJECT.equals(format)) {
-
-      ByteArrayInputStream bais = null;
-      ObjectInputStream in = null;
-
       try {
-        bais = new ByteArrayInputStream((byte[]) docValue);
-        in = new ObjectInputStream(bais);
-        return (Serializable) in.readObject();
+        return MetacardBinaryCodec.decodeObject((byte[]) docValue);
       } catch (IOException e) {
         LOGGER.info("IO exception loading input document", e);
       } catch (ClassNotFoundException e) {
         LOGGER.info("Could not create object to return.", e);
         // TODO which exception to throw?
-      } finally {
-        IOUtils.closeQuietly(bais);
-        IOUtils.closeQuietly(in);
       }
 
       return null;
@@ -565,9 +633,10 @@ public boolean isPrivateField(String solrFieldName) {
    */
   public List<String> getAnonymousField(String field) {
     ArrayList<String> list = new ArrayList<>();
+    PropertyFieldNames fieldNames = getPropertyFieldNames(field);
 
     for (AttributeFormat format : AttributeFormat.values()) {
-      String fullFieldName = field + schemaFields.getFieldSuffix(format);
+      String fullFieldName = fieldNames.getFieldName(format);
 
       if (fieldsCache.contains(fullFieldName)) {
         list.add(fullFieldName);
@@ -595,10 +664,11 @@ public String getField(
       return Metacard.GEOGRAPHY + "_geo_index";
     }
 
+    PropertyFieldNames fieldNames = getPropertyFieldNames(propertyName);
     String fieldName =
-        propertyName
-            + schemaFields.getFieldSuffix(format)
-            + (isSearchedAsExactValue ? "" : getSpecialIndexSuffix(format));
+        isSearchedAsExactValue
+            ? fieldNames.getFieldName(format)
+            : fieldNames.getSpecialFieldName(format);
 
     if (fieldsCache.contains(fieldName)) {
       return fieldName;
@@ -610,7 +680,7 @@ public String getField(
       case INTEGER:
       case SHORT:
       case FLOAT:
-        return findAnyMatchingNumericalField(propertyName);
+        return findAnyMatchingNumericalField(fieldNames);
       default:
         break;
     }
@@ -627,8 +697,6 @@ public String getFieldSuffix(AttributeFormat format) {
     return schemaFields.getFieldSuffix(format);
   }
 
-  @SuppressWarnings(
-      "squid:S2093" /* try-with-resource will throw IOException with InputStream and we do not care to get that exception */)
   public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationException {
     String mTypeFieldName = doc.getFirstValue(SchemaFields.METACARD_TYPE_FIELD_NAME).toString();
 
@@ -640,16 +708,9 @@ public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationExc
 
     byte[] bytes = (byte[]) doc.getFirstValue(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME);
 
-    ByteArrayInputStream bais = null;
-    ObjectInputStream in = null;
+    MetacardType decodedMetacardType;
     try {
-
-      bais = new ByteArrayInputStream(bytes);
-
-      in = new ObjectInputStream(bais);
-
-      cachedMetacardType = (MetacardType) in.readObject();
-
+      decodedMetacardType = MetacardBinaryCodec.decodeMetacardType(bytes);
     } catch (IOException e) {
 
       LOGGER.info("IO exception loading cached metacard type", e);
@@ -659,14 +720,18 @@ public MetacardType getMetacardType(SolrDocument doc) throws MetacardCreationExc
       LOGGER.info("Class exception loading cached metacard type", e);
 
       throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE);
-    } finally {
-      IOUtils.closeQuietly(bais);
-      IOUtils.closeQuietly(in);
     }
 
+    // re-encode types stored in the other encoding, documents are converted to the configured
+    // encoding when they are updated
+    if (!isInEncoding(bytes, isCompactEncoding())) {
+      bytes = serialize(decodedMetacardType);
+    }
+    cachedMetacardType =
+        MetacardBinaryCodec.resolveMetacardType(decodedMetacardType, metacardTypes);
     metacardTypeNameToSerialCache.put(mTypeFieldName, bytes);
     metacardTypesCache.put(mTypeFieldName, cachedMetacardType);
-    addToFieldsCache(cachedMetacardType.getAttributeDescriptors());
+    addToFieldsCache(decodedMetacardType.getAttributeDescriptors());
     return cachedMetacardType;
   }
 
@@ -730,47 +795,43 @@ private void addToFieldsCache(Set<AttributeDescriptor> descriptors) {
   }
 
   private byte[] serialize(MetacardType anywhereMType) throws MetacardCreationException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
     try {
-      ObjectOutputStream out = new ObjectOutputStream(baos);
-      out.writeObject(anywhereMType);
-
-      byte[] bytes = baos.toByteArray();
-
-      baos.close();
-      out.close();
-
-      return bytes;
+      return isCompactEncoding()
+          ? MetacardBinaryCodec.encodeMetacardType(anywhereMType)
+          : MetacardBinaryCodec.serialize(anywhereMType);
     } catch (IOException e) {
       throw new MetacardCreationException(COULD_NOT_READ_METACARD_TYPE_MESSAGE, e);
     }
   }
 
-  private String findAnyMatchingNumericalField(String propertyName) {
+  private byte[] encodeObject(Serializable value) throws IOException {
+    return isCompactEncoding()
+        ? MetacardBinaryCodec.encodeObject(value)
+        : MetacardBinaryCodec.serialize(value);
+  }
 
-    if (fieldsCache.contains(propertyName + SchemaFields.DOUBLE_SUFFIX)) {
-      return propertyName + SchemaFields.DOUBLE_SUFFIX;
-    }
-    if (fieldsCache.contains(propertyName + SchemaFields.FLOAT_SUFFIX)) {
-      return propertyName + SchemaFields.FLOAT_SUFFIX;
-    }
-    if (fieldsCache.contains(propertyName + SchemaFields.INTEGER_SUFFIX)) {
-      return propertyName + SchemaFields.INTEGER_SUFFIX;
-    }
-    if (fieldsCache.contains(propertyName + SchemaFields.LONG_SUFFIX)) {
-      return propertyName + SchemaFields.LONG_SUFFIX;
-    }
-    if (fieldsCache.contains(propertyName + SchemaFields.SHORT_SUFFIX)) {
-      return propertyName + SchemaFields.SHORT_SUFFIX;
+  private boolean isCompactEncoding() {
+    return ConfigurationStore.getInstance().isCompactMetacardEncoding();
+  }
+
+  private static boolean isInEncoding(byte[] bytes, boolean compactEncoding) {
+    return MetacardBinaryCodec.isSerialized(bytes) != compactEncoding;
+  }
+
+  private String findAnyMatchingNumericalField(PropertyFieldNames fieldNames) {
+    for (AttributeFormat format : NUMERICAL_FORMATS) {
+      String fieldName = fieldNames.getFieldName(format);
+      if (fieldsCache.contains(fieldName)) {
+        return fieldName;
+      }
     }
 
     LOGGER.debug(
         "Did not find any numerical schema fields for property [{}]. Replacing with property [{}{}]",
-        propertyName,
-        propertyName,
+        fieldNames.getPropertyName(),
+        fieldNames.getPropertyName(),
         SchemaFields.INTEGER_SUFFIX);
-    return propertyName + SchemaFields.INTEGER_SUFFIX;
+    return fieldNames.getFieldName(AttributeFormat.INTEGER);
   }
 
   /**
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.MetacardCreationException;
+import ddf.catalog.data.Result;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.solr.common.SolrDocument;
+
+/**
+ * {@link Result} that holds on to the {@link SolrDocument} it was created from and only converts
+ * it into a {@link Metacard} the first time the metacard is requested. The document is released
+ * once converted so that consumers iterating over a page of results never hold both the Solr
+ * documents and the metacards of the entire page in memory.
+ *
+ * <p>These results are only returned when the {@code solr.client.lazyResults} system property is
+ * true. Since the conversion happens outside of the query, a document that cannot be converted is
+ * reported to whichever consumer first reads the metacard rather than failing the query.
+ */
+class LazySolrResult implements Result {
+
+  private final SolrMetacardClientImpl client;
+
+  private final Double relevanceScore;
+
+  private final Double distanceInMeters;
+
+  private SolrDocument document;
+
+  private volatile Metacard metacard;
+
+  LazySolrResult(
+      SolrMetacardClientImpl client,
+      SolrDocument document,
+      Double relevanceScore,
+      Double distanceInMeters) {
+    this.client = client;
+    this.document = document;
+    this.relevanceScore = relevanceScore;
+    this.distanceInMeters = distanceInMeters;
+  }
+
+  /**
+   * @throws IllegalStateException if the Solr document could not be converted into a metacard
+   */
+  @Override
+  public Metacard getMetacard() {
+    Metacard result = metacard;
+    if (result == null) {
+      synchronized (this) {
+        result = metacard;
+        if (result == null) {
+          try {
+            result = client.createMetacard(document);
+          } catch (MetacardCreationException e) {
+            throw new IllegalStateException("Could not create result metacard.", e);
+          }
+          metacard = result;
+          document = null;
+        }
+      }
+    }
+    return result;
+  }
+
+  /** @return the ID of the metacard, read from the Solr document if it is not converted yet */
+  String getMetacardId() {
+    Metacard result = metacard;
+    if (result == null) {
+      synchronized (this) {
+        result = metacard;
+        if (result == null) {
+          Object id = document.getFirstValue(Metacard.ID + SchemaFields.TEXT_SUFFIX);
+          return id != null ? id.toString() : null;
+        }
+      }
+    }
+    return result.getId();
+  }
+
+  @Override
+  public Double getRelevanceScore() {
+    return relevanceScore;
+  }
+
+  @Override
+  public Double getDistanceInMeters() {
+    return distanceInMeters;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("metacard", getMetacard())
+        .append("relevanceScore", relevanceScore)
+        .append("distanceInMeters", distanceInMeters)
+        .toString();
+  }
+}
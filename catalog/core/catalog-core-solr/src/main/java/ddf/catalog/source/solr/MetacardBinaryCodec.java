@@ -0,0 +1,387 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Encodes the metacard types and the values of {@link
+ * ddf.catalog.data.AttributeType.AttributeFormat#OBJECT} attributes stored in Solr documents.
+ *
+ * <p>Encoded bytes start with a magic number and a format version. Attribute types from {@link
+ * BasicTypes} are written as a one byte id, and strings, numbers, booleans, dates and byte arrays
+ * are written as their raw value. Only other values and attribute types fall back to Java
+ * serialization.
+ *
+ * <p>Bytes written by Java serialization, as stored by previous releases, are always decoded, so
+ * existing indexes keep working. Since previous releases cannot decode the compact encoding, it is
+ * only written when enabled in the {@link org.codice.solr.factory.impl.ConfigurationStore}, and
+ * otherwise values are still written with {@link #serialize(Serializable)} so that a rollback keeps
+ * working on the documents written since the upgrade. This must remain the default until the
+ * release after next.
+ *
+ * <p>Decoded metacard types are resolved by name to the registered metacard types, so that
+ * metacards read from Solr keep the type instance they were created with.
+ */
+final class MetacardBinaryCodec {
+
+  static final int VERSION = 1;
+
+  private static final byte[] MAGIC = {(byte) 0xDD, (byte) 0xFC};
+
+  private static final byte[] SERIALIZATION_MAGIC = {(byte) 0xAC, (byte) 0xED};
+
+  private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+  private static final int INDEXED = 1;
+
+  private static final int STORED = 1 << 1;
+
+  private static final int TOKENIZED = 1 << 2;
+
+  private static final int MULTI_VALUED = 1 << 3;
+
+  private static final byte TAG_SERIALIZED = 0;
+
+  private static final byte TAG_STRING = 1;
+
+  private static final byte TAG_BOOLEAN = 2;
+
+  private static final byte TAG_SHORT = 3;
+
+  private static final byte TAG_INTEGER = 4;
+
+  private static final byte TAG_LONG = 5;
+
+  private static final byte TAG_FLOAT = 6;
+
+  private static final byte TAG_DOUBLE = 7;
+
+  private static final byte TAG_DATE = 8;
+
+  private static final byte TAG_BYTES = 9;
+
+  /** The ids of the basic attribute types are their position in this list, plus one. */
+  private static final List<AttributeType<?>> BASIC_TYPES =
+      Arrays.asList(
+          BasicTypes.DATE_TYPE,
+          BasicTypes.STRING_TYPE,
+          BasicTypes.XML_TYPE,
+          BasicTypes.LONG_TYPE,
+          BasicTypes.BINARY_TYPE,
+          BasicTypes.GEO_TYPE,
+          BasicTypes.BOOLEAN_TYPE,
+          BasicTypes.DOUBLE_TYPE,
+          BasicTypes.FLOAT_TYPE,
+          BasicTypes.INTEGER_TYPE,
+          BasicTypes.OBJECT_TYPE,
+          BasicTypes.SHORT_TYPE);
+
+  private MetacardBinaryCodec() {}
+
+  /** @return {@code true} if the bytes were written by Java serialization */
+  static boolean isSerialized(byte[] bytes) {
+    return startsWith(bytes, SERIALIZATION_MAGIC);
+  }
+
+  static byte[] encodeMetacardType(MetacardType metacardType) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = startEncoding(bytes)) {
+      writeNullableString(out, metacardType.getName());
+
+      Set<AttributeDescriptor> descriptors = metacardType.getAttributeDescriptors();
+      out.writeInt(descriptors.size());
+      for (AttributeDescriptor descriptor : descriptors) {
+        writeNullableString(out, descriptor.getName());
+        out.writeByte(
+            (descriptor.isIndexed() ? INDEXED : 0)
+                | (descriptor.isStored() ? STORED : 0)
+                | (descriptor.isTokenized() ? TOKENIZED : 0)
+                | (descriptor.isMultiValued() ? MULTI_VALUED : 0));
+
+        int typeId = getBasicTypeId(descriptor.getType());
+        out.writeByte(typeId);
+        if (typeId == 0) {
+          writeSerialized(out, descriptor.getType());
+        }
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /** @return the bytes of the value written by Java serialization, as previous releases did */
+  static byte[] serialize(Serializable value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Resolves a decoded metacard type to the registered metacard type of the same name, when that
+   * type has every attribute of the decoded type with the same format.
+   *
+   * @param decoded metacard type decoded from a Solr document
+   * @param registeredTypes metacard types registered in the system
+   * @return the registered metacard type, or the decoded type if none matches
+   */
+  static MetacardType resolveMetacardType(
+      MetacardType decoded, Collection<? extends MetacardType> registeredTypes) {
+    if (decoded.getName() == null || registeredTypes == null) {
+      return decoded;
+    }
+
+    for (MetacardType registered : registeredTypes) {
+      if (registered != null
+          && decoded.getName().equals(registered.getName())
+          && hasAttributes(registered, decoded)) {
+        return registered;
+      }
+    }
+    return decoded;
+  }
+
+  static MetacardType decodeMetacardType(byte[] bytes) throws IOException, ClassNotFoundException {
+    if (isSerialized(bytes)) {
+      return (MetacardType) deserialize(bytes);
+    }
+
+    try (DataInputStream in = startDecoding(bytes)) {
+      String name = readNullableString(in);
+
+      int count = in.readInt();
+      Set<AttributeDescriptor> descriptors = new HashSet<>(count);
+      for (int i = 0; i < count; i++) {
+        String descriptorName = readNullableString(in);
+        int flags = in.readUnsignedByte();
+        int typeId = in.readUnsignedByte();
+        AttributeType<?> type =
+            typeId == 0 ? (AttributeType<?>) readSerialized(in) : getBasicType(typeId);
+
+        descriptors.add(
+            new AttributeDescriptorImpl(
+                descriptorName,
+                (flags & INDEXED) != 0,
+                (flags & STORED) != 0,
+                (flags & TOKENIZED) != 0,
+                (flags & MULTI_VALUED) != 0,
+                type));
+      }
+      return new MetacardTypeImpl(name, descriptors);
+    }
+  }
+
+  static byte[] encodeObject(Serializable value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = startEncoding(bytes)) {
+      Class<?> type = value == null ? null : value.getClass();
+      if (type == String.class) {
+        out.writeByte(TAG_STRING);
+        writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+      } else if (type == Boolean.class) {
+        out.writeByte(TAG_BOOLEAN);
+        out.writeBoolean((Boolean) value);
+      } else if (type == Short.class) {
+        out.writeByte(TAG_SHORT);
+        out.writeShort((Short) value);
+      } else if (type == Integer.class) {
+        out.writeByte(TAG_INTEGER);
+        out.writeInt((Integer) value);
+      } else if (type == Long.class) {
+        out.writeByte(TAG_LONG);
+        out.writeLong((Long) value);
+      } else if (type == Float.class) {
+        out.writeByte(TAG_FLOAT);
+        out.writeFloat((Float) value);
+      } else if (type == Double.class) {
+        out.writeByte(TAG_DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (type == Date.class) {
+        out.writeByte(TAG_DATE);
+        out.writeLong(((Date) value).getTime());
+      } else if (type == byte[].class) {
+        out.writeByte(TAG_BYTES);
+        writeBytes(out, (byte[]) value);
+      } else {
+        out.writeByte(TAG_SERIALIZED);
+        writeSerialized(out, value);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static Serializable decodeObject(byte[] bytes) throws IOException, ClassNotFoundException {
+    if (isSerialized(bytes)) {
+      return deserialize(bytes);
+    }
+
+    try (DataInputStream in = startDecoding(bytes)) {
+      byte tag = in.readByte();
+      switch (tag) {
+        case TAG_STRING:
+          return new String(readBytes(in), StandardCharsets.UTF_8);
+        case TAG_BOOLEAN:
+          return in.readBoolean();
+        case TAG_SHORT:
+          return in.readShort();
+        case TAG_INTEGER:
+          return in.readInt();
+        case TAG_LONG:
+          return in.readLong();
+        case TAG_FLOAT:
+          return in.readFloat();
+        case TAG_DOUBLE:
+          return in.readDouble();
+        case TAG_DATE:
+          return new Date(in.readLong());
+        case TAG_BYTES:
+          return readBytes(in);
+        case TAG_SERIALIZED:
+          return readSerialized(in);
+        default:
+          throw new IOException("Unknown value tag " + tag);
+      }
+    }
+  }
+
+  private static boolean hasAttributes(MetacardType registered, MetacardType decoded) {
+    for (AttributeDescriptor descriptor : decoded.getAttributeDescriptors()) {
+      AttributeDescriptor registeredDescriptor =
+          registered.getAttributeDescriptor(descriptor.getName());
+      if (registeredDescriptor == null
+          || registeredDescriptor.getType().getAttributeFormat()
+              != descriptor.getType().getAttributeFormat()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The attribute types of {@link BasicTypes} all share one class, so a type of that class with the
+   * same format and binding is the basic type, even when it is a deserialized copy.
+   *
+   * @return the id of the basic type, or 0 if the type is not a basic type
+   */
+  private static int getBasicTypeId(AttributeType<?> type) {
+    for (int i = 0; i < BASIC_TYPES.size(); i++) {
+      AttributeType<?> basicType = BASIC_TYPES.get(i);
+      if (type == basicType
+          || (type != null
+              && type.getClass() == basicType.getClass()
+              && type.getAttributeFormat() == basicType.getAttributeFormat()
+              && type.getBinding() == basicType.getBinding())) {
+        return i + 1;
+      }
+    }
+    return 0;
+  }
+
+  private static AttributeType<?> getBasicType(int typeId) throws IOException {
+    if (typeId > BASIC_TYPES.size()) {
+      throw new IOException("Unknown attribute type id " + typeId);
+    }
+    return BASIC_TYPES.get(typeId - 1);
+  }
+
+  private static DataOutputStream startEncoding(ByteArrayOutputStream bytes) throws IOException {
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.write(MAGIC);
+    out.writeByte(VERSION);
+    return out;
+  }
+
+  private static DataInputStream startDecoding(byte[] bytes) throws IOException {
+    if (!startsWith(bytes, MAGIC) || bytes.length < HEADER_LENGTH) {
+      throw new IOException("Unrecognized encoding.");
+    }
+    int version = bytes[MAGIC.length] & 0xff;
+    if (version != VERSION) {
+      throw new IOException("Unsupported encoding version " + version);
+    }
+    return new DataInputStream(
+        new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH));
+  }
+
+  private static boolean startsWith(byte[] bytes, byte[] prefix) {
+    if (bytes == null || bytes.length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (bytes[i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullableString(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+    out.writeInt(value.length);
+    out.write(value);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] value = new byte[in.readInt()];
+    in.readFully(value);
+    return value;
+  }
+
+  private static void writeSerialized(DataOutputStream out, Serializable value)
+      throws IOException {
+    writeBytes(out, serialize(value));
+  }
+
+  private static Serializable readSerialized(DataInputStream in)
+      throws IOException, ClassNotFoundException {
+    return deserialize(readBytes(in));
+  }
+
+  private static Serializable deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return (Serializable) in.readObject();
+    }
+  }
+}
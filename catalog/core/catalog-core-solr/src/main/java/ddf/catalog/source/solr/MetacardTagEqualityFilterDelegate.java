@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.filter.impl.SimpleFilterDelegate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Filter delegate that returns the tags of a filter made up exclusively of metacard tag equality
+ * filters, optionally combined with OR. Any other filter, including one that combines tags with
+ * other criteria, returns an empty set since a metacard cannot be matched by its tags alone.
+ */
+public class MetacardTagEqualityFilterDelegate extends SimpleFilterDelegate<Set<String>> {
+
+  private static final String WILDCARDS = "*?";
+
+  @Override
+  public <S> Set<String> defaultOperation(
+      Object property, S literal, Class<S> literalClass, Enum operation) {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public <S> Set<String> propertyIsEqualTo(
+      String propertyName,
+      S literal,
+      Class<S> literalClass,
+      ComparisonPropertyOperation operation) {
+    if (Metacard.TAGS.equals(propertyName) && literal != null) {
+      return Collections.singleton(literal.toString());
+    } else {
+      return defaultOperation(propertyName, literal, literalClass, operation);
+    }
+  }
+
+  @Override
+  public Set<String> propertyIsLike(String propertyName, String pattern, boolean isCaseSensitive) {
+    if (Metacard.TAGS.equals(propertyName)
+        && pattern != null
+        && !StringUtils.containsAny(pattern, WILDCARDS)) {
+      return Collections.singleton(pattern);
+    } else {
+      return Collections.emptySet();
+    }
+  }
+
+  @Override
+  public Set<String> and(List<Set<String>> operands) {
+    return Collections.emptySet();
+  }
+
+  @Override
+  public Set<String> or(List<Set<String>> operands) {
+    if (operands.stream().anyMatch(Set::isEmpty)) {
+      return Collections.emptySet();
+    }
+    return operands.stream().flatMap(Collection::stream).collect(Collectors.toSet());
+  }
+
+  @Override
+  public Set<String> not(Set<String> operand) {
+    return Collections.emptySet();
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import java.util.Set;
+
+/**
+ * The Solr fields the attributes of a {@link ddf.catalog.data.MetacardType} are indexed into,
+ * resolved once per metacard type so that indexing a metacard does not build any field names.
+ */
+final class MetacardTypeFieldPlan {
+
+  private final String schemaName;
+
+  private final byte[] metacardTypeBytes;
+
+  private final AttributeFieldPlan[] attributes;
+
+  /**
+   * @param schemaName value of the metacard type name field
+   * @param metacardTypeBytes value of the metacard type object field
+   * @param descriptors the attribute descriptors of the metacard type
+   * @param resolver resolves the field suffixes
+   */
+  MetacardTypeFieldPlan(
+      String schemaName,
+      byte[] metacardTypeBytes,
+      Set<AttributeDescriptor> descriptors,
+      DynamicSchemaResolver resolver) {
+    this.schemaName = schemaName;
+    this.metacardTypeBytes = metacardTypeBytes;
+    this.attributes =
+        descriptors
+            .stream()
+            .map(descriptor -> new AttributeFieldPlan(descriptor, resolver))
+            .toArray(AttributeFieldPlan[]::new);
+  }
+
+  String getSchemaName() {
+    return schemaName;
+  }
+
+  byte[] getMetacardTypeBytes() {
+    return metacardTypeBytes;
+  }
+
+  AttributeFieldPlan[] getAttributes() {
+    return attributes;
+  }
+
+  /** The Solr fields of a single attribute. */
+  static final class AttributeFieldPlan {
+
+    private final String attributeName;
+
+    private final AttributeFormat format;
+
+    private final String formatIndexName;
+
+    private final String specialFormatIndexName;
+
+    private final String textName;
+
+    private final String tokenizedTextName;
+
+    private final String sortKeyName;
+
+    AttributeFieldPlan(AttributeDescriptor descriptor, DynamicSchemaResolver resolver) {
+      String stringSpecialSuffix = resolver.getSpecialIndexSuffix(AttributeFormat.STRING);
+
+      attributeName = descriptor.getName();
+      format = descriptor.getType().getAttributeFormat();
+      formatIndexName = attributeName + resolver.getFieldSuffix(format);
+      specialFormatIndexName = formatIndexName + stringSpecialSuffix;
+      textName = attributeName + resolver.getFieldSuffix(AttributeFormat.STRING);
+      tokenizedTextName = textName + stringSpecialSuffix;
+      sortKeyName = formatIndexName + SchemaFields.SORT_KEY_SUFFIX;
+    }
+
+    String getAttributeName() {
+      return attributeName;
+    }
+
+    AttributeFormat getFormat() {
+      return format;
+    }
+
+    /** @return the field the values of the attribute are indexed into */
+    String getFormatIndexName() {
+      return formatIndexName;
+    }
+
+    /** @return the field that marks the text of an XML attribute as already indexed */
+    String getSpecialFormatIndexName() {
+      return specialFormatIndexName;
+    }
+
+    /** @return the {@code *_txt} field of the attribute */
+    String getTextName() {
+      return textName;
+    }
+
+    /** @return the {@code *_txt_tokenized} field of the attribute */
+    String getTokenizedTextName() {
+      return tokenizedTextName;
+    }
+
+    String getSortKeyName() {
+      return sortKeyName;
+    }
+  }
+}
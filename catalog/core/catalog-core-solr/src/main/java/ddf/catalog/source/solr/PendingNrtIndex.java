@@ -0,0 +1,258 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Overlay of the metacards that have been created, updated or deleted in Solr but might not be
+ * visible in the near real time index yet.
+ *
+ * <p>Each write is recorded with the write generation current at the time Solr acknowledged it.
+ * Entries are evicted once the caller itself issued a commit that opened a new searcher after that
+ * generation (see {@link #startCommit()} and {@link #commitCompleted(long)}), or once they are
+ * older than the maximum age. An entry only tells which metacards might be stale in the index,
+ * their latest version is read from Solr, so keeping an entry longer than needed is harmless.
+ *
+ * <p>Writes only become visible on their own once Solr opens a new searcher after its soft commit
+ * interval, so the maximum age is never shorter than that interval once it is known (see {@link
+ * #setSoftCommitMaxTime(long)}).
+ *
+ * <p>This class is thread-safe.
+ */
+class PendingNrtIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PendingNrtIndex.class);
+
+  /** Time allowed for Solr to open and warm a new searcher once a soft commit started. */
+  static final long SEARCHER_OPEN_MARGIN_MILLIS = 1000;
+
+  private long maxAgeMillis;
+
+  private long softCommitMaxTimeMillis = -1;
+
+  private long maxAgeNanos;
+
+  private final LongSupplier nanoTime;
+
+  private final AtomicLong generation = new AtomicLong();
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+  private final Map<String, Set<String>> idsByTag = new HashMap<>();
+
+  /** @param maxAgeMillis maximum time in milliseconds an entry is kept in the overlay */
+  PendingNrtIndex(long maxAgeMillis) {
+    this(maxAgeMillis, System::nanoTime);
+  }
+
+  PendingNrtIndex(long maxAgeMillis, LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+    setMaxAge(maxAgeMillis);
+  }
+
+  /** @param maxAgeMillis maximum time in milliseconds an entry is kept in the overlay */
+  synchronized void setMaxAge(long maxAgeMillis) {
+    Validate.isTrue(maxAgeMillis > 0, "Maximum age must be greater than 0.");
+    this.maxAgeMillis = maxAgeMillis;
+    updateMaxAge();
+  }
+
+  /**
+   * Sets the soft commit interval of Solr, which the maximum age is raised to (plus {@link
+   * #SEARCHER_OPEN_MARGIN_MILLIS}) if it is shorter.
+   *
+   * @param softCommitMaxTimeMillis the {@code autoSoftCommit} {@code maxTime} of Solr in
+   *     milliseconds, {@code 0} or less if soft commits are disabled
+   */
+  synchronized void setSoftCommitMaxTime(long softCommitMaxTimeMillis) {
+    this.softCommitMaxTimeMillis = softCommitMaxTimeMillis;
+    updateMaxAge();
+  }
+
+  private void updateMaxAge() {
+    long effectiveMaxAgeMillis = maxAgeMillis;
+    if (softCommitMaxTimeMillis > 0
+        && maxAgeMillis < softCommitMaxTimeMillis + SEARCHER_OPEN_MARGIN_MILLIS) {
+      effectiveMaxAgeMillis = softCommitMaxTimeMillis + SEARCHER_OPEN_MARGIN_MILLIS;
+      LOGGER.warn(
+          "The pending change max age of {} ms does not outlast the Solr soft commit interval of {} ms plus {} ms to open a searcher. Pending changes are kept for {} ms instead.",
+          maxAgeMillis,
+          softCommitMaxTimeMillis,
+          SEARCHER_OPEN_MARGIN_MILLIS,
+          effectiveMaxAgeMillis);
+    }
+    maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(effectiveMaxAgeMillis);
+  }
+
+  /**
+   * Records metacards that have been acknowledged by Solr. The overlay keeps references to the
+   * metacards, callers must pass copies if the originals can still be modified.
+   */
+  synchronized void putAll(Collection<Metacard> metacards) {
+    long writeGeneration = generation.get();
+    long now = nanoTime.getAsLong();
+    for (Metacard metacard : metacards) {
+      put(metacard.getId(), new Entry(metacard, writeGeneration, now));
+    }
+  }
+
+  /** Records the deletion of metacards that has been acknowledged by Solr. */
+  synchronized void deleteAll(Collection<String> ids) {
+    long writeGeneration = generation.get();
+    long now = nanoTime.getAsLong();
+    for (String id : ids) {
+      put(id, new Entry(null, writeGeneration, now));
+    }
+  }
+
+  /** @return whether the overlay is empty */
+  synchronized boolean isEmpty() {
+    evictExpired();
+    return entries.isEmpty();
+  }
+
+  /**
+   * @return the pending metacards with the given IDs, pending deletions are represented by a
+   *     {@code null} value
+   */
+  synchronized Map<String, Metacard> getAll(Collection<? extends Serializable> ids) {
+    evictExpired();
+    Map<String, Metacard> matches = new HashMap<>();
+    for (Serializable id : ids) {
+      Entry entry = entries.get(id.toString());
+      if (entry != null) {
+        matches.put(id.toString(), entry.metacard);
+      }
+    }
+    return matches;
+  }
+
+  /** @return the pending metacards, excluding deletions, that have at least one of the tags */
+  synchronized List<Metacard> getByTags(Collection<String> tags) {
+    evictExpired();
+    Set<String> ids = new HashSet<>();
+    for (String tag : tags) {
+      ids.addAll(idsByTag.getOrDefault(tag, Collections.emptySet()));
+    }
+    return ids.stream().map(entries::get).map(e -> e.metacard).collect(Collectors.toList());
+  }
+
+  /**
+   * Marks the start of a commit that waits for a new searcher to be opened.
+   *
+   * @return the token to pass to {@link #commitCompleted(long)} once the commit returned
+   */
+  long startCommit() {
+    return generation.incrementAndGet();
+  }
+
+  /**
+   * Evicts the entries that were written before the commit identified by the token started, since
+   * they are now visible in the index.
+   */
+  synchronized void commitCompleted(long commitToken) {
+    evictWrittenBefore(commitToken);
+  }
+
+  private void put(String id, Entry entry) {
+    remove(id);
+    entries.put(id, entry);
+    if (entry.metacard != null) {
+      for (String tag : getTags(entry.metacard)) {
+        idsByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(id);
+      }
+    }
+  }
+
+  private void remove(String id) {
+    Entry previous = entries.remove(id);
+    if (previous != null && previous.metacard != null) {
+      for (String tag : getTags(previous.metacard)) {
+        Set<String> ids = idsByTag.get(tag);
+        if (ids != null) {
+          ids.remove(id);
+          if (ids.isEmpty()) {
+            idsByTag.remove(tag);
+          }
+        }
+      }
+    }
+  }
+
+  private void evictWrittenBefore(long writeGeneration) {
+    entries
+        .entrySet()
+        .stream()
+        .filter(e -> e.getValue().generation < writeGeneration)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList())
+        .forEach(this::remove);
+  }
+
+  private void evictExpired() {
+    long now = nanoTime.getAsLong();
+    List<String> expired = new ArrayList<>();
+    // entries are kept in write order, so the oldest entries come first
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      if (now - entry.getValue().writtenAt < maxAgeNanos) {
+        break;
+      }
+      expired.add(entry.getKey());
+    }
+    expired.forEach(this::remove);
+  }
+
+  private static Set<String> getTags(Metacard metacard) {
+    Attribute tags = metacard.getAttribute(Metacard.TAGS);
+    if (tags == null || tags.getValues() == null || tags.getValues().isEmpty()) {
+      return Collections.singleton(Metacard.DEFAULT_TAG);
+    }
+    return tags.getValues().stream().map(String::valueOf).collect(Collectors.toSet());
+  }
+
+  private static class Entry {
+
+    @Nullable private final Metacard metacard;
+
+    private final long generation;
+
+    private final long writtenAt;
+
+    Entry(@Nullable Metacard metacard, long generation, long writtenAt) {
+      this.metacard = metacard;
+      this.generation = generation;
+      this.writtenAt = writtenAt;
+    }
+  }
+}
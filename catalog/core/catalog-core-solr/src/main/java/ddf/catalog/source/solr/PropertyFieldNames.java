@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import ddf.catalog.data.AttributeType.AttributeFormat;
+
+/**
+ * The Solr field names a filter property name can map to, one per {@link AttributeFormat}, built
+ * once per property name so that translating a query does not build any field names.
+ */
+final class PropertyFieldNames {
+
+  private static final AttributeFormat[] FORMATS = AttributeFormat.values();
+
+  private final String propertyName;
+
+  private final String[] fieldNames = new String[FORMATS.length];
+
+  private final String[] specialFieldNames = new String[FORMATS.length];
+
+  PropertyFieldNames(String propertyName, DynamicSchemaResolver resolver) {
+    this.propertyName = propertyName;
+    for (AttributeFormat format : FORMATS) {
+      String fieldName = propertyName + resolver.getFieldSuffix(format);
+      fieldNames[format.ordinal()] = fieldName;
+      specialFieldNames[format.ordinal()] = fieldName + resolver.getSpecialIndexSuffix(format);
+    }
+  }
+
+  String getPropertyName() {
+    return propertyName;
+  }
+
+  /** @return the name of the field that holds the exact values of the property */
+  String getFieldName(AttributeFormat format) {
+    return fieldNames[format.ordinal()];
+  }
+
+  /** @return the name of the field that is searched for the property, for example when tokenized */
+  String getSpecialFieldName(AttributeFormat format) {
+    return specialFieldNames[format.ordinal()];
+  }
+}
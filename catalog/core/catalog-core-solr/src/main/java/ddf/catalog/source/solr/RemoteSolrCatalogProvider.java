@@ -14,6 +14,7 @@
 package ddf.catalog.source.solr;
 
 import ddf.catalog.data.ContentType;
+import ddf.catalog.data.MetacardType;
 import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.operation.CreateRequest;
 import ddf.catalog.operation.CreateResponse;
@@ -30,6 +31,7 @@
 import ddf.catalog.util.impl.MaskableImpl;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -58,8 +60,16 @@ public abstract class RemoteSolrCatalogProvider extends MaskableImpl implements
 
   protected static final String SOLR_CATALOG_CORE_NAME = "catalog";
 
+  private static final int DEFAULT_UPDATE_BATCH_SIZE = 500;
+
   private final SolrCatalogProvider provider;
 
+  private final DynamicSchemaResolver resolver;
+
+  private int updateBatchWindowMillis = 0;
+
+  private int updateBatchSize = DEFAULT_UPDATE_BATCH_SIZE;
+
   /**
    * Constructor.
    *
@@ -74,12 +84,9 @@ public RemoteSolrCatalogProvider(
       SolrClient client,
       SolrFilterDelegateFactory solrFilterDelegateFactory,
       @Nullable DynamicSchemaResolver resolver) {
+    this.resolver = (resolver == null) ? new DynamicSchemaResolver() : resolver;
     this.provider =
-        new SolrCatalogProvider(
-            client,
-            filterAdapter,
-            solrFilterDelegateFactory,
-            (resolver == null) ? new DynamicSchemaResolver() : resolver);
+        new SolrCatalogProvider(client, filterAdapter, solrFilterDelegateFactory, this.resolver);
     provider.maskId(getId());
   }
 
@@ -109,6 +116,61 @@ public void setDisableTextPath(boolean disableTextPath) {
     ConfigurationStore.getInstance().setDisableTextPath(disableTextPath);
   }
 
+  /**
+   * Writes metacard types and object values in the compact encoding instead of Java serialization.
+   * Releases before the compact encoding cannot read documents written with it.
+   *
+   * @param compactMetacardEncoding {@code true} to write the compact encoding
+   */
+  public void setCompactMetacardEncoding(boolean compactMetacardEncoding) {
+    ConfigurationStore.getInstance().setCompactMetacardEncoding(compactMetacardEncoding);
+  }
+
+  /**
+   * Sets the registered metacard types that the metacard types read from Solr are resolved to.
+   *
+   * @param metacardTypes registered metacard types
+   */
+  public void setMetacardTypes(List<MetacardType> metacardTypes) {
+    resolver.setMetacardTypes(metacardTypes);
+  }
+
+  /**
+   * Sets how long a create, update or delete request waits for concurrent requests so that they
+   * can be sent to Solr as a single update.
+   *
+   * @param updateBatchWindowMillis batching window in milliseconds, {@code 0} disables batching
+   */
+  public void setUpdateBatchWindowMillis(int updateBatchWindowMillis) {
+    this.updateBatchWindowMillis = updateBatchWindowMillis;
+    provider.setUpdateBatching(this.updateBatchWindowMillis, this.updateBatchSize);
+  }
+
+  /**
+   * Sets the number of documents after which a batch of requests is sent to Solr without waiting
+   * for the batching window to elapse.
+   *
+   * @param updateBatchSize maximum number of documents in a batch
+   */
+  public void setUpdateBatchSize(int updateBatchSize) {
+    this.updateBatchSize = updateBatchSize > 0 ? updateBatchSize : DEFAULT_UPDATE_BATCH_SIZE;
+    provider.setUpdateBatching(this.updateBatchWindowMillis, this.updateBatchSize);
+  }
+
+  /**
+   * Sets how long created, updated and deleted metacards are merged into query responses before
+   * they are expected to be visible in the Solr index.
+   *
+   * @param pendingChangeMaxAgeMillis maximum age in milliseconds, raised to the soft commit
+   *     interval of Solr if it is shorter
+   */
+  public void setPendingChangeMaxAgeMillis(int pendingChangeMaxAgeMillis) {
+    provider.setPendingNrtMaxAge(
+        pendingChangeMaxAgeMillis > 0
+            ? pendingChangeMaxAgeMillis
+            : SolrCatalogProvider.DEFAULT_PENDING_NRT_MAX_AGE_MILLIS);
+  }
+
   @Override
   public Set<ContentType> getContentTypes() {
     return provider.getContentTypes();
@@ -13,8 +13,8 @@
  */
 package ddf.catalog.source.solr;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import ddf.catalog.Constants;
+import ddf.catalog.data.Attribute;
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardCreationException;
@@ -27,6 +27,7 @@
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteRequest;
 import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.Request;
 import ddf.catalog.operation.SourceResponse;
@@ -35,18 +36,27 @@
 import ddf.catalog.operation.UpdateResponse;
 import ddf.catalog.operation.impl.CreateResponseImpl;
 import ddf.catalog.operation.impl.DeleteResponseImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
 import ddf.catalog.operation.impl.UpdateImpl;
 import ddf.catalog.operation.impl.UpdateResponseImpl;
 import ddf.catalog.source.CatalogProvider;
 import ddf.catalog.source.IngestException;
 import ddf.catalog.source.SourceMonitor;
 import ddf.catalog.source.UnsupportedQueryException;
+import ddf.catalog.util.impl.CollectionResultComparator;
+import ddf.catalog.util.impl.DistanceResultComparator;
 import ddf.catalog.util.impl.MaskableImpl;
+import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.catalog.util.impl.TemporalResultComparator;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -54,12 +64,10 @@
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
-import org.apache.commons.lang.math.NumberUtils;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -68,8 +76,11 @@
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
 import org.codice.solr.client.solrj.SolrClient;
 import org.codice.solr.factory.impl.ConfigurationStore;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,6 +100,10 @@ public class SolrCatalogProvider extends MaskableImpl implements CatalogProvider
 
   public static final int MAX_BOOLEAN_CLAUSES = 1024;
 
+  public static final long DEFAULT_PENDING_NRT_MAX_AGE_MILLIS = 5000;
+
+  private static final String UPDATE_HANDLER_CONFIG_PATH = "/config/updateHandler";
+
   private static final Properties DESCRIBABLE_PROPERTIES = new Properties();
 
   static {
@@ -109,16 +124,20 @@ public class SolrCatalogProvider extends MaskableImpl implements CatalogProvider
 
   private final FilterAdapter filterAdapter;
 
+  private SolrUpdateCoalescer updateCoalescer;
+
+  private long updateBatchWindowMillis = 0;
+
+  private int updateBatchSize = 0;
+
   /**
-   * Cache of Metacards that have been updated on Solr but might not be visible in the near real
-   * time index yet. Cache is checked when ID queries fail from Solr.
+   * Metacards that have been created, updated or deleted in Solr but might not be visible in the
+   * near real time index yet. Pending changes are merged into the first page of query responses
+   * until the provider commits or they expire, which only needs to outlast the soft commit interval
+   * of Solr, read from Solr once it is available.
    */
-  private final Cache<String, Metacard> pendingNrtIndex =
-      CacheBuilder.newBuilder()
-          .expireAfterWrite(
-              NumberUtils.toInt(System.getProperty("solr.provider.pending-nrt-ttl"), 5),
-              TimeUnit.SECONDS)
-          .build();
+  private final PendingNrtIndex pendingNrtIndex =
+      new PendingNrtIndex(DEFAULT_PENDING_NRT_MAX_AGE_MILLIS);
 
   /**
    * Constructor that creates a new instance and allows for a custom {@link DynamicSchemaResolver}
@@ -144,6 +163,7 @@ public SolrCatalogProvider(
         "Constructing {} with Solr client [{}]", SolrCatalogProvider.class.getName(), solr);
 
     solr.whenAvailable(this::addFieldsFromClientToResolver);
+    solr.whenAvailable(this::readSoftCommitMaxTime);
     this.client =
         new ProviderSolrMetacardClient(solrClient, adapter, solrFilterDelegateFactory, resolver);
   }
@@ -223,37 +243,161 @@ public void maskId(String id) {
 
   @Override
   public SourceResponse query(QueryRequest request) throws UnsupportedQueryException {
-    SourceResponse response = client.query(request);
-    queryPendingNrtIndex(request, response);
-    return response;
+    return queryPendingNrtIndex(request, client.query(request));
   }
 
-  private void queryPendingNrtIndex(QueryRequest request, SourceResponse response)
-      throws UnsupportedQueryException {
+  /**
+   * Merges the pending changes into the first page of a query response. The hits with pending
+   * changes and the pending metacards the query is known to match are read again with a real time
+   * get filtered by the query, so each of them is returned in its latest version, in sort order,
+   * and only if it still matches the query.
+   */
+  private SourceResponse queryPendingNrtIndex(QueryRequest request, SourceResponse response) {
     if (request == null || request.getQuery() == null) {
-      return;
+      return response;
     }
 
-    Set<String> ids =
-        filterAdapter.adapt(request.getQuery(), new MetacardIdEqualityFilterDelegate());
-    if (ids.isEmpty()) {
-      return;
+    // pending metacards are only merged into the first page of a cursor query so that they are
+    // not returned again on every following page
+    Serializable cursor = request.getPropertyValue(Constants.QUERY_CURSOR_KEY);
+    if (cursor != null && !Constants.QUERY_CURSOR_START.equals(cursor)) {
+      return response;
     }
 
-    for (Result result : response.getResults()) {
-      ids.remove(result.getMetacard().getId());
+    if (pendingNrtIndex.isEmpty()) {
+      return response;
     }
 
-    List<Result> pendingResults =
-        pendingNrtIndex
-            .getAllPresent(ids)
-            .values()
-            .stream()
-            .filter(Objects::nonNull)
-            .map(ResultImpl::new)
-            .collect(Collectors.toList());
+    Query query = request.getQuery();
+    List<Result> results = new ArrayList<>(response.getResults());
+    Set<String> pendingIds =
+        new HashSet<>(
+            pendingNrtIndex
+                .getAll(
+                    results
+                        .stream()
+                        .map(SolrCatalogProvider::getMetacardId)
+                        .collect(Collectors.toList()))
+                .keySet());
+    Set<String> ids = filterAdapter.adapt(query, new MetacardIdEqualityFilterDelegate());
+    if (!ids.isEmpty()) {
+      pendingIds.addAll(pendingNrtIndex.getAll(ids).keySet());
+    }
+    Set<String> tags = filterAdapter.adapt(query, new MetacardTagEqualityFilterDelegate());
+    if (!tags.isEmpty() && query.getStartIndex() <= 1) {
+      pendingNrtIndex.getByTags(tags).forEach(metacard -> pendingIds.add(metacard.getId()));
+    }
+    if (pendingIds.isEmpty()) {
+      return response;
+    }
+
+    List<Result> latest;
+    try {
+      latest = client.getLatestMatching(request, pendingIds);
+    } catch (UnsupportedQueryException e) {
+      LOGGER.info("Could not merge pending changes into the query response.");
+      LOGGER.debug("Failed to read pending changes.", e);
+      return response;
+    }
+
+    int pageSize = query.getPageSize();
+    boolean isLastPage = pageSize <= 0 || results.size() < pageSize;
+    Map<String, Result> stale = new HashMap<>();
+    Iterator<Result> iterator = results.iterator();
+    while (iterator.hasNext()) {
+      Result result = iterator.next();
+      String id = getMetacardId(result);
+      if (pendingIds.contains(id)) {
+        stale.put(id, result);
+        iterator.remove();
+      }
+    }
+    int remaining = results.size();
+
+    Comparator<Result> comparator = getResultComparator(request);
+    long hits = response.getHits();
+    for (Result result : latest) {
+      Result previous = stale.remove(result.getMetacard().getId());
+      if (previous != null) {
+        ResultImpl replacement = new ResultImpl(result.getMetacard());
+        replacement.setRelevanceScore(previous.getRelevanceScore());
+        replacement.setDistanceInMeters(previous.getDistanceInMeters());
+        result = replacement;
+      }
+
+      int position = 0;
+      while (position < results.size() && comparator.compare(results.get(position), result) <= 0) {
+        position++;
+      }
+      results.add(position, result);
 
-    response.getResults().addAll(pendingResults);
+      // a new metacard that sorts after the whole page might already be searchable and counted
+      if (previous == null && (isLastPage || position < remaining)) {
+        hits++;
+      }
+    }
+
+    // the hits that were not read again have been deleted or no longer match the query
+    hits -= stale.size();
+
+    if (pageSize > 0 && results.size() > pageSize) {
+      results.subList(pageSize, results.size()).clear();
+    }
+
+    return new SourceResponseImpl(
+        request, response.getProperties(), results, Math.max(hits, results.size()));
+  }
+
+  private static String getMetacardId(Result result) {
+    if (result instanceof LazySolrResult) {
+      return ((LazySolrResult) result).getMetacardId();
+    }
+    return result.getMetacard().getId();
+  }
+
+  /** @return the comparator of the sort policy Solr applies to the query of the request */
+  private static Comparator<Result> getResultComparator(QueryRequest request) {
+    List<SortBy> sortBys = new ArrayList<>();
+    SortBy sortBy = request.getQuery().getSortBy();
+    if (sortBy != null && sortBy.getPropertyName() != null) {
+      sortBys.add(sortBy);
+    }
+    Serializable additionalSortBys = request.getPropertyValue(Constants.ADDITIONAL_SORT_BYS);
+    if (additionalSortBys instanceof SortBy[]) {
+      sortBys.addAll(Arrays.asList((SortBy[]) additionalSortBys));
+    }
+
+    CollectionResultComparator comparator = new CollectionResultComparator();
+    if (sortBys.isEmpty()) {
+      comparator.addComparator(new RelevanceResultComparator(SortOrder.DESCENDING));
+    }
+    for (SortBy sort : sortBys) {
+      String sortType = sort.getPropertyName().getPropertyName();
+      SortOrder sortOrder =
+          sort.getSortOrder() == null ? SortOrder.DESCENDING : sort.getSortOrder();
+      if (Metacard.EFFECTIVE.equals(sortType) || Result.TEMPORAL.equals(sortType)) {
+        comparator.addComparator(new TemporalResultComparator(sortOrder));
+      } else if (Result.DISTANCE.equals(sortType)) {
+        comparator.addComparator(new DistanceResultComparator(sortOrder));
+      } else if (Result.RELEVANCE.equals(sortType)) {
+        comparator.addComparator(new RelevanceResultComparator(sortOrder));
+      } else {
+        comparator.addComparator(
+            Comparator.comparing(
+                r -> getAttributeValue(r, sortType),
+                sortOrder == SortOrder.ASCENDING
+                    ? Comparator.nullsFirst(Comparator.<Comparable>naturalOrder())
+                    : Comparator.nullsLast(Comparator.<Comparable>reverseOrder())));
+      }
+    }
+    return comparator;
+  }
+
+  private static Comparable getAttributeValue(Result result, String attributeName) {
+    Attribute attribute = result.getMetacard().getAttribute(attributeName);
+    return attribute != null && attribute.getValue() instanceof Comparable
+        ? (Comparable) attribute.getValue()
+        : null;
   }
 
   @Override
@@ -288,15 +432,12 @@ public CreateResponse create(CreateRequest request) throws IngestException {
     }
 
     try {
-      client.add(output, isForcedAutoCommit());
+      addToIndex(output);
     } catch (SolrServerException | SolrException | IOException | MetacardCreationException e) {
       LOGGER.info("Solr could not ingest metacard(s) during create.", e);
       throw new IngestException("Could not ingest metacard(s).");
     }
 
-    pendingNrtIndex.putAll(
-        output.stream().collect(Collectors.toMap(Metacard::getId, this::copyMetacard)));
-
     return new CreateResponseImpl(request, request.getProperties(), output);
   }
 
@@ -354,7 +495,16 @@ public UpdateResponse update(UpdateRequest updateRequest) throws IngestException
         computeOldMetacardIds(attributeName, updates, idResults);
 
     if (Metacard.ID.equals(attributeName)) {
-      idToMetacardMap.putAll(pendingNrtIndex.getAllPresent(identifiers));
+      pendingNrtIndex
+          .getAll(identifiers)
+          .forEach(
+              (id, pending) -> {
+                if (pending == null) {
+                  idToMetacardMap.remove(id);
+                } else {
+                  idToMetacardMap.put(id, pending);
+                }
+              });
     }
     if (idToMetacardMap.isEmpty()) {
       LOGGER.debug("No results found for given attribute values.");
@@ -364,17 +514,11 @@ public UpdateResponse update(UpdateRequest updateRequest) throws IngestException
     List<Metacard> newMetacards = computeMetacardsToUpdate(updates, idToMetacardMap, updateList);
 
     try {
-      client.add(newMetacards, isForcedAutoCommit());
+      addToIndex(newMetacards);
     } catch (SolrServerException | SolrException | IOException | MetacardCreationException e) {
       LOGGER.info("Failed to update metacard(s) with Solr.", e);
       throw new IngestException("Failed to update metacard(s).");
     }
-    pendingNrtIndex.putAll(
-        updateList
-            .stream()
-            .collect(
-                Collectors.toMap(
-                    u -> u.getNewMetacard().getId(), u -> copyMetacard(u.getNewMetacard()))));
 
     return new UpdateResponseImpl(updateRequest, updateRequest.getProperties(), updateList);
   }
@@ -398,6 +542,9 @@ public DeleteResponse delete(DeleteRequest deleteRequest) throws IngestException
       return new DeleteResponseImpl(deleteRequest, null, deletedMetacards);
     }
 
+    // deletes are always committed, which makes every change acknowledged before visible
+    long commit = pendingNrtIndex.startCommit();
+
     if (identifiers.size() <= MAX_BOOLEAN_CLAUSES) {
       deleteListOfMetacards(deletedMetacards, identifiers, attributeName);
     } else {
@@ -414,9 +561,10 @@ public DeleteResponse delete(DeleteRequest deleteRequest) throws IngestException
           identifiers.subList(currPagingSize - MAX_BOOLEAN_CLAUSES, identifiers.size());
       deleteListOfMetacards(deletedMetacards, identifierPaged, attributeName);
     }
-    addPendingNrtDeletedMetacards(deletedMetacards, identifiers);
+    addPendingNrtDeletedMetacards(deletedMetacards, identifiers, attributeName);
 
-    pendingNrtIndex.invalidateAll(
+    pendingNrtIndex.commitCompleted(commit);
+    pendingNrtIndex.deleteAll(
         deletedMetacards.stream().map(Metacard::getId).collect(Collectors.toList()));
 
     return new DeleteResponseImpl(deleteRequest, null, deletedMetacards);
@@ -431,6 +579,46 @@ private void addFieldsFromClientToResolver(SolrClient client) {
     }
   }
 
+  /** Reads the {@code autoSoftCommit} {@code maxTime} of Solr through its Config API. */
+  private void readSoftCommitMaxTime(SolrClient client) {
+    org.apache.solr.client.solrj.request.QueryRequest request =
+        new org.apache.solr.client.solrj.request.QueryRequest();
+    request.setPath(UPDATE_HANDLER_CONFIG_PATH);
+    try {
+      Object maxTime =
+          getConfigValue(
+              request.process(client.getClient()).getResponse(),
+              "config",
+              "updateHandler",
+              "autoSoftCommit",
+              "maxTime");
+      if (maxTime instanceof Number) {
+        LOGGER.debug("Solr soft commit interval is {} ms.", maxTime);
+        pendingNrtIndex.setSoftCommitMaxTime(((Number) maxTime).longValue());
+      } else {
+        LOGGER.debug("Solr did not report a soft commit interval.");
+      }
+    } catch (SolrServerException | SolrException | IOException e) {
+      LOGGER.debug(
+          "Unable to read the Solr soft commit interval, pending changes are kept for the configured max age.",
+          e);
+    }
+  }
+
+  private static Object getConfigValue(Object config, String... path) {
+    Object value = config;
+    for (String name : path) {
+      if (value instanceof NamedList) {
+        value = ((NamedList<?>) value).get(name);
+      } else if (value instanceof Map) {
+        value = ((Map<?, ?>) value).get(name);
+      } else {
+        return null;
+      }
+    }
+    return value;
+  }
+
   private List<Metacard> computeMetacardsToUpdate(
       List<Entry<Serializable, Metacard>> updates,
       Map<Serializable, Metacard> idToMetacardMap,
@@ -536,13 +724,31 @@ private void createListOfDeletedMetacards(List<Metacard> deletedMetacards, SolrD
   }
 
   private void addPendingNrtDeletedMetacards(
-      List<Metacard> deletedMetacards, List<? extends Serializable> identifiers) {
-    if (deletedMetacards.size() < identifiers.size()
-        && pendingNrtIndex.getAllPresent(identifiers).size() > 0) {
-      Map<String, Metacard> matches = pendingNrtIndex.getAllPresent(identifiers);
+      List<Metacard> deletedMetacards,
+      List<? extends Serializable> identifiers,
+      String attributeName) {
+    if (Metacard.ID.equals(attributeName) && deletedMetacards.size() < identifiers.size()) {
+      Map<String, Metacard> matches = pendingNrtIndex.getAll(identifiers);
 
       deletedMetacards.forEach(m -> matches.remove(m.getId()));
-      deletedMetacards.addAll(matches.values());
+      matches.values().stream().filter(Objects::nonNull).forEach(deletedMetacards::add);
+    }
+  }
+
+  /**
+   * Adds the metacards to Solr. When commits are forced the metacards are searchable once added,
+   * otherwise they are recorded as pending until Solr opens a new searcher.
+   */
+  private void addToIndex(List<Metacard> metacards)
+      throws IOException, SolrServerException, MetacardCreationException {
+    if (isForcedAutoCommit()) {
+      long commit = pendingNrtIndex.startCommit();
+      client.add(metacards, true);
+      pendingNrtIndex.commitCompleted(commit);
+    } else {
+      client.add(metacards, false);
+      pendingNrtIndex.putAll(
+          metacards.stream().map(this::copyMetacard).collect(Collectors.toList()));
     }
   }
 
@@ -603,7 +809,54 @@ public boolean isForcedAutoCommit() {
     return ConfigurationStore.getInstance().isForceAutoCommit();
   }
 
-  public void shutdown() {
+  /**
+   * Sets how long created, updated and deleted metacards are merged into query responses when the
+   * provider does not commit. It is raised to the soft commit interval of Solr if it is shorter.
+   *
+   * @param maxAgeMillis maximum age in milliseconds, must be greater than 0
+   */
+  public void setPendingNrtMaxAge(long maxAgeMillis) {
+    pendingNrtIndex.setMaxAge(maxAgeMillis);
+  }
+
+  /**
+   * Configures the grouping of concurrent create, update and delete requests into a single Solr
+   * update. Each request still returns only once its own changes have been sent to Solr.
+   *
+   * @param windowMillis maximum time in milliseconds a request waits for other requests to join
+   *     its batch, {@code 0} or less disables batching
+   * @param maxBatchSize number of documents after which a batch is sent without waiting for the
+   *     window to elapse
+   */
+  public synchronized void setUpdateBatching(long windowMillis, int maxBatchSize) {
+    if (windowMillis == updateBatchWindowMillis && maxBatchSize == updateBatchSize) {
+      return;
+    }
+    updateBatchWindowMillis = windowMillis;
+    updateBatchSize = maxBatchSize;
+
+    SolrUpdateCoalescer previous = updateCoalescer;
+
+    if (windowMillis > 0 && maxBatchSize > 0) {
+      LOGGER.debug(
+          "Batching Solr updates within {} ms or {} documents.", windowMillis, maxBatchSize);
+      updateCoalescer = new SolrUpdateCoalescer(solr, windowMillis, maxBatchSize);
+    } else {
+      LOGGER.debug("Solr update batching disabled.");
+      updateCoalescer = null;
+    }
+    client.setUpdateCoalescer(updateCoalescer);
+
+    if (previous != null) {
+      previous.shutdown();
+    }
+  }
+
+  public synchronized void shutdown() {
+    if (updateCoalescer != null) {
+      updateCoalescer.shutdown();
+    }
+
     LOGGER.debug("Closing down Solr client.");
     try {
       solr.close();
@@ -215,10 +215,8 @@ private void combineXpathFilterQueries(
         for (String param : params) {
           if (StringUtils.startsWith(param, XPATH_QUERY_PARSER_PREFIX)) {
             if (StringUtils.contains(param, XPATH_FILTER_QUERY_INDEX)) {
-              xpathIndexes.add(
-                  StringUtils.substringAfter(
-                      StringUtils.substringBeforeLast(param, "\""),
-                      XPATH_FILTER_QUERY_INDEX + ":\""));
+              // Keep the whole index query, it can already combine several XPaths
+              xpathIndexes.add(StringUtils.substringAfter(param, XPATH_QUERY_PARSER_PREFIX));
             } else if (StringUtils.startsWith(
                 param, XPATH_QUERY_PARSER_PREFIX + XPATH_FILTER_QUERY)) {
               xpathFilters.add(
@@ -240,14 +238,16 @@ private void combineXpathFilterQueries(
               + StringUtils.join(xpathFilters, operator.toLowerCase())
               + ")\"";
 
-      List<String> indexes = new ArrayList<>();
-      for (String xpath : xpathIndexes) {
-        indexes.add("(" + XPATH_FILTER_QUERY_INDEX + ":\"" + xpath + "\")");
+      if (xpathIndexes.isEmpty()) {
+        query.setParam(FILTER_QUERY_PARAM_NAME, filter);
+      } else {
+        List<String> indexes = new ArrayList<>();
+        for (String index : xpathIndexes) {
+          indexes.add("(" + index + ")");
+        }
+        String index = XPATH_QUERY_PARSER_PREFIX + StringUtils.join(indexes, operator);
+        query.setParam(FILTER_QUERY_PARAM_NAME, filter, index);
       }
-      // TODO DDF-1882 add pre-filter xpath index
-      // String index = XPATH_QUERY_PARSER_PREFIX + StringUtils.join(indexes, operator);
-      // query.setParam(FILTER_QUERY_PARAM_NAME, filter, index);
-      query.setParam(FILTER_QUERY_PARAM_NAME, filter);
     } else if (queryParams.size() > 0) {
       // Pass through original filter queries if only a single XPath is present
       query.setParam(FILTER_QUERY_PARAM_NAME, queryParams.toArray(new String[queryParams.size()]));
@@ -854,11 +854,11 @@ private SolrQuery getXPathQuery(
     }
 
     SolrQuery solrQuery = new SolrQuery(query);
-    solrQuery.addFilterQuery(XPATH_QUERY_PARSER_PREFIX + XPATH_FILTER_QUERY + ":\"" + xpath + "\"");
-    // TODO DDF-1882 add pre-filter xpath index
-    //        solrQuery.addFilterQuery(
-    //                XPATH_QUERY_PARSER_PREFIX + XPATH_FILTER_QUERY + ":\"" + xpath + "\"",
-    //                XPATH_QUERY_PARSER_PREFIX + XPATH_FILTER_QUERY_INDEX + ":\"" + xpath + "\"");
+    // The index filter query is a regular cached filter that narrows down the documents the
+    // post filter evaluates the XPath against
+    solrQuery.addFilterQuery(
+        XPATH_QUERY_PARSER_PREFIX + XPATH_FILTER_QUERY + ":\"" + xpath + "\"",
+        XPATH_QUERY_PARSER_PREFIX + XPATH_FILTER_QUERY_INDEX + ":\"" + xpath + "\"");
 
     return solrQuery;
   }
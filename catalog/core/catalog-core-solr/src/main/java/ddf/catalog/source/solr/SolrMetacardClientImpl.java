@@ -16,6 +16,8 @@
 import static ddf.catalog.Constants.ADDITIONAL_SORT_BYS;
 import static ddf.catalog.Constants.EXPERIMENTAL_FACET_PROPERTIES_KEY;
 import static ddf.catalog.Constants.EXPERIMENTAL_FACET_RESULTS_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_KEY;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_KEY;
 import static ddf.catalog.Constants.SUGGESTION_BUILD_KEY;
 import static ddf.catalog.Constants.SUGGESTION_CONTEXT_KEY;
 import static ddf.catalog.Constants.SUGGESTION_DICT_KEY;
@@ -64,6 +66,7 @@
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
@@ -77,6 +80,9 @@
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
 import org.codice.solr.client.solrj.SolrClient;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.filter.sort.SortOrder;
@@ -94,6 +100,9 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
   private static final String GEOMETRY_SORT_FIELD =
       Metacard.GEOGRAPHY + SchemaFields.GEO_SUFFIX + SchemaFields.SORT_KEY_SUFFIX;
 
+  /** Unique key of the Solr schema, cursor queries must be sorted by it to break ties. */
+  private static final String ID_SORT_FIELD = Metacard.ID + SchemaFields.TEXT_SUFFIX;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(SolrMetacardClientImpl.class);
 
   private static final String QUOTE = "\"";
@@ -115,9 +124,19 @@ public class SolrMetacardClientImpl implements SolrMetacardClient {
 
   private final DynamicSchemaResolver resolver;
 
+  private volatile SolrUpdateCoalescer updateCoalescer;
+
   private static final Supplier<Boolean> ZERO_PAGESIZE_COMPATIBILTY =
       () -> Boolean.valueOf(System.getProperty(ZERO_PAGESIZE_COMPATIBILITY_PROPERTY));
 
+  /**
+   * Every result of a page is converted to a metacard before the query returns unless this property
+   * is set to true, in which case results are converted when they are first accessed and a document
+   * that cannot be converted fails the consumer reading it instead of the query.
+   */
+  private static final Supplier<Boolean> LAZY_RESULTS_ENABLED =
+      () -> Boolean.valueOf(System.getProperty("solr.client.lazyResults"));
+
   public SolrMetacardClientImpl(
       SolrClient client,
       FilterAdapter catalogFilterAdapter,
@@ -133,6 +152,15 @@ public SolrClient getClient() {
     return client;
   }
 
+  /**
+   * Sets the coalescer used to group concurrent additions and deletions into a single Solr update.
+   *
+   * @param updateCoalescer coalescer to use or {@code null} to send every update individually
+   */
+  void setUpdateCoalescer(@Nullable SolrUpdateCoalescer updateCoalescer) {
+    this.updateCoalescer = updateCoalescer;
+  }
+
   @Override
   public SourceResponse query(QueryRequest request) throws UnsupportedQueryException {
     if (request == null || request.getQuery() == null) {
@@ -196,6 +224,10 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         addDocsToResults(docs, results);
       }
 
+      if (solrResponse.getNextCursorMark() != null) {
+        responseProps.put(QUERY_NEXT_CURSOR_KEY, solrResponse.getNextCursorMark());
+      }
+
       SuggesterResponse suggesterResponse = solrResponse.getSuggesterResponse();
 
       if (suggesterResponse != null) {
@@ -231,12 +263,53 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
     return new SourceResponseImpl(request, responseProps, results, totalHits);
   }
 
+  /**
+   * Reads the latest version of metacards with a real time get, which returns the writes Solr has
+   * acknowledged even if they are not searchable yet, filtered by the query of the request.
+   *
+   * @param request request whose query the metacards must match
+   * @param ids IDs of the metacards to read
+   * @return the metacards that exist and match the query, without relevance scores or distances
+   * @throws UnsupportedQueryException if the query cannot be adapted or the read failed
+   */
+  List<Result> getLatestMatching(QueryRequest request, Collection<String> ids)
+      throws UnsupportedQueryException {
+    SolrQuery query =
+        filterAdapter.adapt(request.getQuery(), filterDelegateFactory.newInstance(resolver));
+
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.add(CommonParams.FQ, query.getQuery());
+    if (query.getFilterQueries() != null) {
+      params.add(CommonParams.FQ, query.getFilterQueries());
+    }
+
+    List<Result> results = new ArrayList<>();
+    try {
+      for (SolrDocument doc : client.getById(ids, params)) {
+        results.add(createResult(doc));
+      }
+    } catch (SolrServerException | IOException | SolrException e) {
+      throw new UnsupportedQueryException("Could not retrieve pending metacards.", e);
+    } catch (MetacardCreationException e) {
+      throw new UnsupportedQueryException("Could not create pending metacard(s).", e);
+    }
+    return results;
+  }
+
   private void addDocsToResults(SolrDocumentList docs, List<Result> results)
       throws UnsupportedQueryException {
+    boolean lazyResults = LAZY_RESULTS_ENABLED.get();
     for (SolrDocument doc : docs) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("SOLR DOC: {}", doc.getFieldValue(Metacard.ID + SchemaFields.TEXT_SUFFIX));
       }
+
+      if (lazyResults) {
+        results.add(
+            new LazySolrResult(this, doc, getRelevanceScore(doc), getDistanceInMeters(doc)));
+        continue;
+      }
+
       ResultImpl tmpResult;
       try {
         tmpResult = createResult(doc);
@@ -246,6 +319,9 @@ private void addDocsToResults(SolrDocumentList docs, List<Result> results)
 
       results.add(tmpResult);
     }
+
+    // The documents are referenced by the results until they are converted
+    docs.clear();
   }
 
   private String addAttributeTypeSuffix(String attribute) {
@@ -418,6 +494,12 @@ protected SolrQuery postAdapt(
       throw new UnsupportedQueryException("Start index must be greater than 0");
     }
 
+    String cursor = getQueryCursor(request);
+
+    if (cursor != null && request.getQuery().getStartIndex() != 1) {
+      throw new UnsupportedQueryException("Start index must be 1 when paging with a cursor");
+    }
+
     // Solr is 0-based
     query.setStart(request.getQuery().getStartIndex() - 1);
 
@@ -433,11 +515,34 @@ protected SolrQuery postAdapt(
 
     setSortProperty(request, query, filterDelegate);
 
+    if (cursor != null) {
+      setCursor(query, cursor);
+    }
+
     filterAttributes(request, query);
 
     return query;
   }
 
+  private String getQueryCursor(QueryRequest request) {
+    Serializable cursor = request.getPropertyValue(QUERY_CURSOR_KEY);
+    if (cursor instanceof String && !((String) cursor).isEmpty()) {
+      return (String) cursor;
+    }
+    return null;
+  }
+
+  /**
+   * Solr cursors walk the index in sort order without re-ranking the documents of previous pages,
+   * but require the sort to end with the unique key so that the position is unambiguous.
+   */
+  private void setCursor(SolrQuery query, String cursor) {
+    if (query.getSorts().stream().noneMatch(sort -> ID_SORT_FIELD.equals(sort.getItem()))) {
+      query.addSort(ID_SORT_FIELD, SolrQuery.ORDER.asc);
+    }
+    query.set(CursorMarkParams.CURSOR_MARK_PARAM, cursor);
+  }
+
   private void filterAttributes(QueryRequest request, SolrQuery query) {
     if (skipFilteredAttributes(request)) {
       return;
@@ -585,25 +690,27 @@ protected String setSortProperty(
 
   private ResultImpl createResult(SolrDocument doc) throws MetacardCreationException {
     ResultImpl result = new ResultImpl(createMetacard(doc));
+    result.setRelevanceScore(getRelevanceScore(doc));
+    result.setDistanceInMeters(getDistanceInMeters(doc));
+    return result;
+  }
 
+  private Double getRelevanceScore(SolrDocument doc) {
     if (doc.get(RELEVANCE_SORT_FIELD) != null) {
-      result.setRelevanceScore(((Float) (doc.get(RELEVANCE_SORT_FIELD))).doubleValue());
+      return ((Float) (doc.get(RELEVANCE_SORT_FIELD))).doubleValue();
     }
+    return null;
+  }
 
-    if (doc.get(DISTANCE_SORT_FIELD) != null) {
-      Object distance = doc.getFieldValue(DISTANCE_SORT_FIELD);
-
-      if (distance != null) {
-        LOGGER.debug("Distance returned from Solr [{}]", distance);
-        double convertedDistance =
-            new Distance(Double.valueOf(distance.toString()), Distance.LinearUnit.KILOMETER)
-                .getAs(Distance.LinearUnit.METER);
+  private Double getDistanceInMeters(SolrDocument doc) {
+    Object distance = doc.getFieldValue(DISTANCE_SORT_FIELD);
 
-        result.setDistanceInMeters(convertedDistance);
-      }
+    if (distance != null) {
+      LOGGER.debug("Distance returned from Solr [{}]", distance);
+      return new Distance(Double.valueOf(distance.toString()), Distance.LinearUnit.KILOMETER)
+          .getAs(Distance.LinearUnit.METER);
     }
-
-    return result;
+    return null;
   }
 
   public MetacardImpl createMetacard(SolrDocument doc) throws MetacardCreationException {
@@ -636,7 +743,10 @@ public List<SolrInputDocument> add(List<Metacard> metacards, boolean forceAutoCo
       docs.add(getSolrInputDocument(metacard));
     }
 
-    if (!forceAutoCommit) {
+    SolrUpdateCoalescer coalescer = updateCoalescer;
+    if (coalescer != null) {
+      coalescer.add(docs, forceAutoCommit);
+    } else if (!forceAutoCommit) {
       client.add(docs);
     } else {
       softCommit(docs);
@@ -662,26 +772,20 @@ public void deleteByIds(
       return;
     }
 
+    SolrUpdateCoalescer coalescer = updateCoalescer;
     if (Metacard.ID.equals(fieldName)) {
       CollectionUtils.transform(identifiers, Object::toString);
+      if (coalescer != null) {
+        coalescer.deleteByIds((List<String>) identifiers, forceCommit);
+        return;
+      }
       client.deleteById((List<String>) identifiers);
+    } else if (coalescer != null) {
+      coalescer.deleteByQueries(getIdentifierQueries(fieldName, identifiers), forceCommit);
+      return;
     } else {
-      if (identifiers.size() < SolrCatalogProvider.MAX_BOOLEAN_CLAUSES) {
-        client.deleteByQuery(getIdentifierQuery(fieldName, identifiers));
-      } else {
-        int i;
-        for (i = SolrCatalogProvider.MAX_BOOLEAN_CLAUSES;
-            i < identifiers.size();
-            i += SolrCatalogProvider.MAX_BOOLEAN_CLAUSES) {
-          client.deleteByQuery(
-              getIdentifierQuery(
-                  fieldName, identifiers.subList(i - SolrCatalogProvider.MAX_BOOLEAN_CLAUSES, i)));
-        }
-        client.deleteByQuery(
-            getIdentifierQuery(
-                fieldName,
-                identifiers.subList(
-                    i - SolrCatalogProvider.MAX_BOOLEAN_CLAUSES, identifiers.size())));
+      for (String query : getIdentifierQueries(fieldName, identifiers)) {
+        client.deleteByQuery(query);
       }
     }
 
@@ -690,6 +794,19 @@ public void deleteByIds(
     }
   }
 
+  private List<String> getIdentifierQueries(
+      String fieldName, List<? extends Serializable> identifiers) {
+    List<String> queries = new ArrayList<>();
+    for (int i = 0; i < identifiers.size(); i += SolrCatalogProvider.MAX_BOOLEAN_CLAUSES) {
+      queries.add(
+          getIdentifierQuery(
+              fieldName,
+              identifiers.subList(
+                  i, Math.min(i + SolrCatalogProvider.MAX_BOOLEAN_CLAUSES, identifiers.size()))));
+    }
+    return queries;
+  }
+
   @Override
   public void deleteByQuery(String query) throws IOException, SolrServerException {
     client.deleteByQuery(query);
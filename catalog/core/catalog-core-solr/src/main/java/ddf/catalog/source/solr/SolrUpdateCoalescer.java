@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.Validate;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.codice.solr.client.solrj.SolrClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Groups concurrent Solr updates into a single {@link UpdateRequest}.
+ *
+ * <p>Callers block until the batch containing their update has been sent to Solr and receive the
+ * outcome of that batch, so an update is visible to the caller exactly as if it had been sent on
+ * its own. A batch is sent once the configured window has elapsed since its first update or once it
+ * holds the maximum number of documents, whichever comes first. Additions and deletions are never
+ * mixed in the same batch so that the order in which they were submitted is preserved. If any
+ * update of a batch requested a commit, the whole batch is committed.
+ */
+class SolrUpdateCoalescer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SolrUpdateCoalescer.class);
+
+  private final SolrClient client;
+
+  private final long windowNanos;
+
+  private final int maxBatchSize;
+
+  private final LinkedBlockingDeque<PendingUpdate> pendingUpdates = new LinkedBlockingDeque<>();
+
+  private final Object lock = new Object();
+
+  private final Thread flusher;
+
+  private boolean closed = false;
+
+  /**
+   * @param client Solr client the batches are sent with
+   * @param windowMillis maximum time in milliseconds an update waits for other updates to join its
+   *     batch
+   * @param maxBatchSize number of documents, deleted IDs and delete queries after which a batch is
+   *     sent without waiting for the window to elapse
+   */
+  SolrUpdateCoalescer(SolrClient client, long windowMillis, int maxBatchSize) {
+    Validate.notNull(client, "SolrClient cannot be null.");
+    Validate.isTrue(windowMillis > 0, "Batch window must be greater than 0.");
+    Validate.isTrue(maxBatchSize > 0, "Maximum batch size must be greater than 0.");
+    this.client = client;
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.maxBatchSize = maxBatchSize;
+
+    flusher = new Thread(this::processUpdates, "solrUpdateCoalescerThread");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Adds documents to Solr as part of the next batch.
+   *
+   * @param docs documents to add
+   * @param softCommit {@code true} to soft commit the batch and wait for it to be searchable
+   */
+  void add(List<SolrInputDocument> docs, boolean softCommit)
+      throws IOException, SolrServerException {
+    submit(new PendingUpdate(docs, Collections.emptyList(), Collections.emptyList(), softCommit));
+  }
+
+  /**
+   * Deletes the documents with the given IDs as part of the next batch.
+   *
+   * @param ids IDs of the documents to delete
+   * @param commit {@code true} to commit the batch
+   */
+  void deleteByIds(List<String> ids, boolean commit) throws IOException, SolrServerException {
+    submit(new PendingUpdate(Collections.emptyList(), ids, Collections.emptyList(), commit));
+  }
+
+  /**
+   * Deletes the documents matching the queries as part of the next batch.
+   *
+   * @param queries Solr delete queries
+   * @param commit {@code true} to commit the batch
+   */
+  void deleteByQueries(List<String> queries, boolean commit)
+      throws IOException, SolrServerException {
+    submit(new PendingUpdate(Collections.emptyList(), Collections.emptyList(), queries, commit));
+  }
+
+  /**
+   * Stops batching. Updates that are already queued are still sent, updates submitted afterwards
+   * are sent individually.
+   */
+  void shutdown() {
+    synchronized (lock) {
+      closed = true;
+    }
+    flusher.interrupt();
+  }
+
+  private void submit(PendingUpdate update) throws IOException, SolrServerException {
+    boolean queued;
+    synchronized (lock) {
+      queued = !closed;
+      if (queued) {
+        pendingUpdates.add(update);
+      }
+    }
+
+    if (!queued) {
+      LOGGER.debug("Update batching has been shut down, sending update individually.");
+      send(Collections.singletonList(update));
+    }
+
+    update.await();
+  }
+
+  private void processUpdates() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        send(nextBatch(pendingUpdates.take()));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    // flush whatever was queued before the coalescer was shut down
+    PendingUpdate first;
+    while ((first = pendingUpdates.poll()) != null) {
+      List<PendingUpdate> batch = new ArrayList<>();
+      batch.add(first);
+      int size = first.size();
+      PendingUpdate next;
+      while (size < maxBatchSize
+          && (next = pendingUpdates.peek()) != null
+          && next.isDelete() == first.isDelete()) {
+        batch.add(pendingUpdates.poll());
+        size += next.size();
+      }
+      send(batch);
+    }
+  }
+
+  private List<PendingUpdate> nextBatch(PendingUpdate first) {
+    List<PendingUpdate> batch = new ArrayList<>();
+    batch.add(first);
+    int size = first.size();
+    long deadline = System.nanoTime() + windowNanos;
+
+    while (size < maxBatchSize) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        break;
+      }
+
+      PendingUpdate next;
+      try {
+        next = pendingUpdates.pollFirst(remaining, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        // send what has been collected so far, the caller stops after this batch
+        Thread.currentThread().interrupt();
+        break;
+      }
+
+      if (next == null) {
+        break;
+      }
+
+      if (next.isDelete() != first.isDelete()) {
+        pendingUpdates.addFirst(next);
+        break;
+      }
+
+      batch.add(next);
+      size += next.size();
+    }
+
+    return batch;
+  }
+
+  @SuppressWarnings("squid:S1181" /* bubbling out VirtualMachineError */)
+  private void send(List<PendingUpdate> batch) {
+    UpdateRequest request = new UpdateRequest();
+    boolean commit = false;
+    boolean delete = batch.get(0).isDelete();
+
+    for (PendingUpdate update : batch) {
+      if (!update.docs.isEmpty()) {
+        request.add(update.docs);
+      }
+      if (!update.ids.isEmpty()) {
+        request.deleteById(update.ids);
+      }
+      update.queries.forEach(request::deleteByQuery);
+      commit |= update.commit;
+    }
+
+    if (commit) {
+      request.setAction(
+          AbstractUpdateRequest.ACTION.COMMIT,
+          /* waitForFlush */ true,
+          /* waitToMakeVisible */ true,
+          /* softCommit */ !delete);
+    }
+
+    LOGGER.trace("Sending batch of {} Solr update(s), commit: {}", batch.size(), commit);
+
+    try {
+      request.process(client.getClient());
+      batch.forEach(PendingUpdate::complete);
+    } catch (VirtualMachineError e) {
+      throw e;
+    } catch (Throwable t) {
+      LOGGER.debug("Failed to send batch of {} Solr update(s).", batch.size(), t);
+      batch.forEach(update -> update.fail(t));
+    }
+  }
+
+  private static class PendingUpdate {
+
+    private final List<SolrInputDocument> docs;
+
+    private final List<String> ids;
+
+    private final List<String> queries;
+
+    private final boolean commit;
+
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    PendingUpdate(
+        List<SolrInputDocument> docs, List<String> ids, List<String> queries, boolean commit) {
+      this.docs = docs;
+      this.ids = ids;
+      this.queries = queries;
+      this.commit = commit;
+    }
+
+    boolean isDelete() {
+      return !ids.isEmpty() || !queries.isEmpty();
+    }
+
+    int size() {
+      return docs.size() + ids.size() + queries.size();
+    }
+
+    void complete() {
+      result.complete(null);
+    }
+
+    void fail(Throwable t) {
+      result.completeExceptionally(t);
+    }
+
+    void await() throws IOException, SolrServerException {
+      try {
+        result.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for Solr update.", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof SolrServerException) {
+          throw (SolrServerException) cause;
+        } else if (cause instanceof SolrException) {
+          throw (SolrException) cause;
+        }
+        throw new SolrServerException(cause);
+      }
+    }
+  }
+}
@@ -13,10 +13,20 @@
  */
 package ddf.catalog.source.solr;
 
+import static ddf.catalog.data.impl.BasicTypes.LONG_TYPE;
+import static ddf.catalog.data.impl.BasicTypes.STRING_TYPE;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
@@ -26,25 +36,36 @@
 
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardCreationException;
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeDescriptorImpl;
 import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.MetacardTypeImpl;
 import ddf.catalog.data.impl.types.CoreAttributes;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.nio.BufferOverflowException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import org.apache.commons.io.IOUtils;
+import java.util.stream.Collectors;
+import org.apache.commons.lang.StringUtils;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest.METHOD;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.codice.solr.client.solrj.SolrClient;
+import org.codice.solr.factory.impl.ConfigurationStore;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
@@ -133,6 +154,103 @@ public void testBufferOverflow() throws MetacardCreationException {
     verify(mockSolrInputDocument)
         .addField(eq(SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME), Matchers.any());
     verify(mockSolrInputDocument, times(0)).addField(eq("lux_xml"), Matchers.any());
+    verify(mockSolrInputDocument, times(0)).addField(eq("lux_path"), Matchers.any());
+  }
+
+  /** Verify that the paths, names and short values of the metadata are indexed for XPath. */
+  @Test
+  public void testXpathIndexTerms() throws MetacardCreationException {
+    // Setup
+    String description = StringUtils.repeat("x", 300);
+    String metadata =
+        "<metadata xmlns:gml=\"http://www.opengis.net/gml\">"
+            + "<title lang=\"en\">Boston</title>"
+            + "<gml:Point><gml:pos>42.36 -71.06</gml:pos></gml:Point>"
+            + "<description>"
+            + description
+            + "</description>"
+            + "</metadata>";
+    Metacard mockMetacard = mock(Metacard.class, RETURNS_DEEP_STUBS);
+    when(mockMetacard.getMetacardType().getName()).thenReturn("states");
+    when(mockMetacard.getMetacardType().getAttributeDescriptors())
+        .thenReturn(Collections.emptySet());
+    when(mockMetacard.getMetadata()).thenReturn(metadata);
+    SolrInputDocument solrInputDocument = new SolrInputDocument();
+    DynamicSchemaResolver resolver =
+        new DynamicSchemaResolver(Collections.singletonList("lux_path"));
+
+    // Perform Test
+    resolver.addFields(mockMetacard, solrInputDocument);
+
+    // Verify
+    List<String> terms =
+        solrInputDocument
+            .getFieldValues("lux_path")
+            .stream()
+            .map(String.class::cast)
+            .collect(Collectors.toList());
+    assertThat(
+        terms,
+        hasItems(
+            "/",
+            "/metadata/title",
+            "/metadata/title/@lang",
+            "/metadata/Point/pos",
+            "title",
+            "@lang",
+            "pos",
+            "title=Boston",
+            "@lang=en",
+            "pos=42.36 -71.06",
+            "Point=42.36 -71.06"));
+    assertThat(terms, not(hasItem("description=" + description)));
+    assertThat(terms, not(hasItem(startsWith("metadata="))));
+  }
+
+  /** Verify that the XPath index is not added when the Solr schema does not define its field. */
+  @Test
+  public void testXpathIndexTermsWithoutSchemaField() throws MetacardCreationException {
+    Metacard mockMetacard = mock(Metacard.class, RETURNS_DEEP_STUBS);
+    when(mockMetacard.getMetacardType().getName()).thenReturn("states");
+    when(mockMetacard.getMetacardType().getAttributeDescriptors())
+        .thenReturn(Collections.emptySet());
+    when(mockMetacard.getMetadata()).thenReturn("<metadata><title>Boston</title></metadata>");
+    SolrInputDocument solrInputDocument = new SolrInputDocument();
+
+    new DynamicSchemaResolver().addFields(mockMetacard, solrInputDocument);
+
+    assertThat(solrInputDocument.getFieldValue("lux_xml"), is(notNullValue()));
+    assertThat(solrInputDocument.getFieldValues("lux_path"), is(nullValue()));
+  }
+
+  @Test
+  public void testXpathIndexFieldFromSchema() throws Exception {
+    NamedList<Object> schemaFields = new NamedList<>();
+    schemaFields.add("lux_path", new NamedList<>());
+    NamedList<Object> schema = new NamedList<>();
+    schema.add("fields", schemaFields);
+    NamedList<Object> schemaResponse = new NamedList<>();
+    schemaResponse.add("schema", schema);
+
+    assertThat(resolverWithSchema(schemaResponse).fieldsCache, hasItem("lux_path"));
+    assertThat(resolverWithSchema(new NamedList<>()).fieldsCache, not(hasItem("lux_path")));
+  }
+
+  private DynamicSchemaResolver resolverWithSchema(NamedList<Object> schemaResponse)
+      throws Exception {
+    NamedList<Object> fieldsResponse = new NamedList<>();
+    fieldsResponse.add("fields", new SimpleOrderedMap<>());
+    QueryResponse fieldsQueryResponse = mock(QueryResponse.class);
+    when(fieldsQueryResponse.getResponse()).thenReturn(fieldsResponse);
+    QueryResponse schemaQueryResponse = mock(QueryResponse.class);
+    when(schemaQueryResponse.getResponse()).thenReturn(schemaResponse);
+    SolrClient client = mock(SolrClient.class);
+    when(client.query(Matchers.any(SolrQuery.class), eq(METHOD.POST)))
+        .thenReturn(fieldsQueryResponse, schemaQueryResponse);
+
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+    resolver.addFieldsFromClient(client);
+    return resolver;
   }
 
   @Test
@@ -160,13 +278,139 @@ public void testAdditionalFieldConstructor() throws Exception {
     assertThat(resolver.fieldsCache, hasItem(anotherExtraField));
   }
 
+  @Test
+  public void testAddFieldsWithSameMetacardType() throws Exception {
+    MetacardType metacardType =
+        new MetacardTypeImpl(
+            "states",
+            new HashSet<>(
+                Arrays.asList(
+                    new AttributeDescriptorImpl("name", true, true, true, false, STRING_TYPE),
+                    new AttributeDescriptorImpl("area", true, true, false, false, LONG_TYPE))));
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+
+    for (String name : Arrays.asList("Arizona", "Utah")) {
+      MetacardImpl metacard = new MetacardImpl(metacardType);
+      metacard.setAttribute("name", name);
+      metacard.setAttribute("area", 100L);
+      SolrInputDocument document = new SolrInputDocument();
+
+      resolver.addFields(metacard, document);
+
+      assertThat(document.getFieldValue("name_txt"), is(name));
+      assertThat(document.getFieldValue("name_txt_tokenized"), is(name));
+      assertThat(document.getFieldValue("name_txt_sk"), is(name));
+      assertThat(document.getFieldValue("area_lng"), is(100L));
+      assertThat(document.getFieldValue("area_lng_sk"), is(100L));
+      assertThat(
+          document.getFieldValue(SchemaFields.METACARD_TYPE_FIELD_NAME),
+          is("states#" + metacardType.hashCode()));
+    }
+    assertThat(resolver.getField("name", AttributeFormat.STRING, false), is("name_txt_tokenized"));
+    assertThat(resolver.getField("name", AttributeFormat.STRING, true), is("name_txt"));
+    assertThat(resolver.getField("area", AttributeFormat.INTEGER, true), is("area_lng"));
+    assertThat(resolver.getAnonymousField("area"), contains("area_lng"));
+  }
+
+  @Test
+  public void testGetFieldOfUnknownNumericalProperty() {
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+
+    assertThat(resolver.getField("unknown", AttributeFormat.DOUBLE, true), is("unknown_int"));
+    assertThat(resolver.getAnonymousField("unknown"), is(empty()));
+  }
+
+  @Test
+  public void testMetacardTypeIsSerializedUnlessCompactEncodingIsEnabled() throws Exception {
+    MetacardImpl metacard = new MetacardImpl(getStatesMetacardType());
+    metacard.setAttribute("extra", new ArrayList<>(Arrays.asList("a", "b")));
+
+    SolrInputDocument document = new SolrInputDocument();
+    new DynamicSchemaResolver().addFields(metacard, document);
+    assertThat(isSerialized(document, SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME), is(true));
+    assertThat(isSerialized(document, "extra_obj"), is(true));
+
+    ConfigurationStore.getInstance().setCompactMetacardEncoding(true);
+    try {
+      document = new SolrInputDocument();
+      new DynamicSchemaResolver().addFields(metacard, document);
+      assertThat(isSerialized(document, SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME), is(false));
+      assertThat(isSerialized(document, "extra_obj"), is(false));
+    } finally {
+      ConfigurationStore.getInstance().setCompactMetacardEncoding(false);
+    }
+  }
+
+  @Test
+  public void testTurningCompactEncodingOffAppliesToTheNextWrite() throws Exception {
+    MetacardImpl metacard = new MetacardImpl(getStatesMetacardType());
+    metacard.setAttribute("extra", new ArrayList<>(Arrays.asList("a", "b")));
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+
+    ConfigurationStore.getInstance().setCompactMetacardEncoding(true);
+    try {
+      SolrInputDocument document = new SolrInputDocument();
+      resolver.addFields(metacard, document);
+      assertThat(isSerialized(document, SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME), is(false));
+    } finally {
+      ConfigurationStore.getInstance().setCompactMetacardEncoding(false);
+    }
+
+    SolrInputDocument document = new SolrInputDocument();
+    resolver.addFields(metacard, document);
+    assertThat(isSerialized(document, SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME), is(true));
+    assertThat(isSerialized(document, "extra_obj"), is(true));
+  }
+
+  @Test
+  public void testMetacardTypeIsResolvedToRegisteredType() throws Exception {
+    MetacardType registeredType = getStatesMetacardType();
+    SolrDocument document = new SolrDocument();
+    document.setField(SchemaFields.METACARD_TYPE_FIELD_NAME, "states#1");
+    document.setField(
+        SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
+        MetacardBinaryCodec.encodeMetacardType(getStatesMetacardType()));
+
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+    resolver.setMetacardTypes(Collections.singletonList(registeredType));
+
+    assertThat(resolver.getMetacardType(document), is(sameInstance(registeredType)));
+  }
+
+  @Test
+  public void testUnregisteredMetacardTypeIsDecoded() throws Exception {
+    SolrDocument document = new SolrDocument();
+    document.setField(SchemaFields.METACARD_TYPE_FIELD_NAME, "states#1");
+    document.setField(
+        SchemaFields.METACARD_TYPE_OBJECT_FIELD_NAME,
+        MetacardBinaryCodec.encodeMetacardType(getStatesMetacardType()));
+
+    DynamicSchemaResolver resolver = new DynamicSchemaResolver();
+    resolver.setMetacardTypes(
+        Collections.singletonList(new MetacardTypeImpl("other", Collections.emptySet())));
+
+    MetacardType metacardType = resolver.getMetacardType(document);
+    assertThat(metacardType.getClass().getName(), is(MetacardTypeImpl.class.getName()));
+    assertThat(metacardType.getName(), is("states"));
+    assertThat(metacardType.getAttributeDescriptor("extra"), notNullValue());
+  }
+
+  private static MetacardType getStatesMetacardType() {
+    return new MetacardTypeImpl(
+        "states",
+        new HashSet<>(
+            Arrays.asList(
+                new AttributeDescriptorImpl("title", true, true, true, false, STRING_TYPE),
+                new AttributeDescriptorImpl(
+                    "extra", false, true, false, false, BasicTypes.OBJECT_TYPE))));
+  }
+
+  private static boolean isSerialized(SolrInputDocument document, String fieldName) {
+    return MetacardBinaryCodec.isSerialized((byte[]) document.getFieldValue(fieldName));
+  }
+
   private MetacardType deserializeMetacardType(byte[] serializedMetacardType)
       throws ClassNotFoundException, IOException {
-    ByteArrayInputStream bais = new ByteArrayInputStream((byte[]) serializedMetacardType);
-    ObjectInputStream in = new ObjectInputStream(bais);
-    MetacardType metacardType = (MetacardType) in.readObject();
-    IOUtils.closeQuietly(bais);
-    IOUtils.closeQuietly(in);
-    return metacardType;
+    return MetacardBinaryCodec.decodeMetacardType(serializedMetacardType);
   }
 }
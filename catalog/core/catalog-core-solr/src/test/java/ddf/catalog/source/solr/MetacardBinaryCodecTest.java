@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.MetacardType;
+import ddf.catalog.data.impl.AttributeDescriptorImpl;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardTypeImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class MetacardBinaryCodecTest {
+
+  private static final MetacardType METACARD_TYPE =
+      new MetacardTypeImpl(
+          "states",
+          new HashSet<>(
+              Arrays.asList(
+                  new AttributeDescriptorImpl(
+                      "title", true, true, true, false, BasicTypes.STRING_TYPE),
+                  new AttributeDescriptorImpl(
+                      "population", true, false, false, true, BasicTypes.LONG_TYPE),
+                  new AttributeDescriptorImpl(
+                      "extra", false, true, false, false, BasicTypes.OBJECT_TYPE))));
+
+  @Test
+  public void testMetacardTypeRoundTrip() throws Exception {
+    byte[] bytes = MetacardBinaryCodec.encodeMetacardType(METACARD_TYPE);
+
+    assertThat(MetacardBinaryCodec.isSerialized(bytes), is(false));
+    assertMetacardType(MetacardBinaryCodec.decodeMetacardType(bytes));
+  }
+
+  @Test
+  public void testSerializedMetacardTypeIsDecoded() throws Exception {
+    byte[] bytes = serialize(METACARD_TYPE);
+
+    assertThat(MetacardBinaryCodec.isSerialized(bytes), is(true));
+    MetacardType decoded = MetacardBinaryCodec.decodeMetacardType(bytes);
+    assertMetacardType(decoded);
+
+    // deserialized basic types are re-encoded as basic types
+    MetacardType reencoded =
+        MetacardBinaryCodec.decodeMetacardType(MetacardBinaryCodec.encodeMetacardType(decoded));
+    assertThat(
+        reencoded.getAttributeDescriptor("title").getType(),
+        is(sameInstance(BasicTypes.STRING_TYPE)));
+  }
+
+  @Test
+  public void testObjectRoundTrip() throws Exception {
+    List<Serializable> values =
+        Arrays.asList(
+            "value",
+            true,
+            (short) 7,
+            42,
+            42L,
+            1.5f,
+            2.5d,
+            new Date(1234567890L),
+            new ArrayList<>(Arrays.asList("a", "b")));
+
+    for (Serializable value : values) {
+      byte[] bytes = MetacardBinaryCodec.encodeObject(value);
+      assertThat(MetacardBinaryCodec.isSerialized(bytes), is(false));
+      assertThat(MetacardBinaryCodec.decodeObject(bytes), is(value));
+    }
+  }
+
+  @Test
+  public void testByteArrayAndNullRoundTrip() throws Exception {
+    byte[] value = {1, 2, 3};
+
+    assertThat(
+        MetacardBinaryCodec.decodeObject(MetacardBinaryCodec.encodeObject(value)), is(value));
+    assertThat(
+        MetacardBinaryCodec.decodeObject(MetacardBinaryCodec.encodeObject(null)), nullValue());
+  }
+
+  @Test
+  public void testSerializedObjectIsDecoded() throws Exception {
+    assertThat(MetacardBinaryCodec.decodeObject(serialize("value")), is("value"));
+  }
+
+  @Test
+  public void testSerializedValuesAreReadByPreviousReleases() throws Exception {
+    byte[] bytes = MetacardBinaryCodec.serialize(METACARD_TYPE);
+
+    assertThat(MetacardBinaryCodec.isSerialized(bytes), is(true));
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      assertMetacardType((MetacardType) in.readObject());
+    }
+  }
+
+  @Test
+  public void testMetacardTypeIsResolvedToRegisteredTypeOfSameName() throws Exception {
+    MetacardType decoded =
+        MetacardBinaryCodec.decodeMetacardType(
+            MetacardBinaryCodec.encodeMetacardType(METACARD_TYPE));
+    MetacardType other = new MetacardTypeImpl("other", METACARD_TYPE.getAttributeDescriptors());
+    Set<AttributeDescriptor> descriptors = new HashSet<>(METACARD_TYPE.getAttributeDescriptors());
+    descriptors.add(
+        new AttributeDescriptorImpl("added", true, true, false, false, BasicTypes.DATE_TYPE));
+    MetacardType registered = new MetacardTypeImpl("states", descriptors);
+
+    assertThat(
+        MetacardBinaryCodec.resolveMetacardType(decoded, Arrays.asList(other, registered)),
+        is(sameInstance(registered)));
+  }
+
+  @Test
+  public void testMetacardTypeWithoutMatchingRegisteredTypeIsKept() throws Exception {
+    MetacardType decoded =
+        MetacardBinaryCodec.decodeMetacardType(
+            MetacardBinaryCodec.encodeMetacardType(METACARD_TYPE));
+    Set<AttributeDescriptor> descriptors = new HashSet<>(METACARD_TYPE.getAttributeDescriptors());
+    descriptors.remove(METACARD_TYPE.getAttributeDescriptor("extra"));
+    MetacardType registered = new MetacardTypeImpl("states", descriptors);
+
+    assertThat(
+        MetacardBinaryCodec.resolveMetacardType(decoded, Collections.singletonList(registered)),
+        is(sameInstance(decoded)));
+    assertThat(
+        MetacardBinaryCodec.resolveMetacardType(decoded, Collections.emptyList()),
+        is(sameInstance(decoded)));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnknownEncoding() throws Exception {
+    MetacardBinaryCodec.decodeObject(new byte[] {1, 2, 3, 4});
+  }
+
+  private void assertMetacardType(MetacardType metacardType) {
+    assertThat(metacardType.getName(), is("states"));
+
+    List<String> names = new ArrayList<>();
+    for (AttributeDescriptor descriptor : metacardType.getAttributeDescriptors()) {
+      AttributeDescriptor expected = METACARD_TYPE.getAttributeDescriptor(descriptor.getName());
+      assertThat(descriptor.isIndexed(), is(expected.isIndexed()));
+      assertThat(descriptor.isStored(), is(expected.isStored()));
+      assertThat(descriptor.isTokenized(), is(expected.isTokenized()));
+      assertThat(descriptor.isMultiValued(), is(expected.isMultiValued()));
+      assertThat(
+          descriptor.getType().getAttributeFormat(), is(expected.getType().getAttributeFormat()));
+      names.add(descriptor.getName());
+    }
+    assertThat(names, containsInAnyOrder("title", "population", "extra"));
+  }
+
+  private static byte[] serialize(Serializable value) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    }
+    return bytes.toByteArray();
+  }
+}
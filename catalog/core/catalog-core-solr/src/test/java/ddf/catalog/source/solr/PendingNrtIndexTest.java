@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PendingNrtIndexTest {
+
+  private static final long MAX_AGE_MILLIS = 60000;
+
+  private AtomicLong clock;
+
+  private PendingNrtIndex index;
+
+  @Before
+  public void setUp() {
+    clock = new AtomicLong();
+    index = new PendingNrtIndex(MAX_AGE_MILLIS, clock::get);
+  }
+
+  @Test
+  public void testGetPendingMetacards() {
+    Metacard metacard = metacard("1", "workspace");
+    index.putAll(Collections.singletonList(metacard));
+
+    assertThat(index.getAll(Arrays.asList("1", "2")), hasEntry("1", metacard));
+    assertThat(index.getByTags(Collections.singleton("workspace")), contains(metacard));
+    assertThat(index.getByTags(Collections.singleton(Metacard.DEFAULT_TAG)), is(empty()));
+  }
+
+  @Test
+  public void testUntaggedMetacardsUseDefaultTag() {
+    Metacard metacard = metacard("1");
+    index.putAll(Collections.singletonList(metacard));
+
+    assertThat(index.getByTags(Collections.singleton(Metacard.DEFAULT_TAG)), contains(metacard));
+  }
+
+  @Test
+  public void testDeleteMasksPendingMetacard() {
+    index.putAll(Collections.singletonList(metacard("1", "workspace")));
+    index.deleteAll(Collections.singletonList("1"));
+
+    assertThat(index.getAll(Collections.singletonList("1")), hasEntry(is("1"), nullValue()));
+    assertThat(index.getByTags(Collections.singleton("workspace")), is(empty()));
+  }
+
+  @Test
+  public void testUpdateReplacesTags() {
+    index.putAll(Collections.singletonList(metacard("1", "workspace")));
+    Metacard updated = metacard("1", "query");
+    index.putAll(Collections.singletonList(updated));
+
+    assertThat(index.getByTags(Collections.singleton("workspace")), is(empty()));
+    assertThat(index.getByTags(Collections.singleton("query")), contains(updated));
+  }
+
+  @Test
+  public void testCommitEvictsEarlierWrites() {
+    index.putAll(Collections.singletonList(metacard("1")));
+    long commit = index.startCommit();
+    index.putAll(Collections.singletonList(metacard("2")));
+    index.commitCompleted(commit);
+
+    assertThat(index.getAll(Collections.singletonList("1")).isEmpty(), is(true));
+    assertThat(index.getAll(Collections.singletonList("2")).size(), is(1));
+  }
+
+  @Test
+  public void testEntriesExpireAfterMaxAge() {
+    index.putAll(Collections.singletonList(metacard("1", "workspace")));
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS / 2));
+    index.putAll(Collections.singletonList(metacard("2", "workspace")));
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS / 2));
+
+    assertThat(index.getAll(Collections.singletonList("1")).isEmpty(), is(true));
+    assertThat(index.getByTags(Collections.singleton("workspace")).size(), is(1));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS));
+    assertThat(index.isEmpty(), is(true));
+  }
+
+  @Test
+  public void testMaxAgeIsRaisedToSoftCommitInterval() {
+    long softCommitMaxTime = MAX_AGE_MILLIS * 2;
+    index.setSoftCommitMaxTime(softCommitMaxTime);
+    index.putAll(Collections.singletonList(metacard("1")));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(softCommitMaxTime));
+    assertThat(index.isEmpty(), is(false));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(PendingNrtIndex.SEARCHER_OPEN_MARGIN_MILLIS));
+    assertThat(index.isEmpty(), is(true));
+  }
+
+  @Test
+  public void testLongerMaxAgeIsKeptWithSoftCommitInterval() {
+    index.setSoftCommitMaxTime(MAX_AGE_MILLIS / 2);
+    index.putAll(Collections.singletonList(metacard("1")));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(MAX_AGE_MILLIS - 1));
+    assertThat(index.isEmpty(), is(false));
+
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    assertThat(index.isEmpty(), is(true));
+  }
+
+  private Metacard metacard(String id, String... tags) {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId(id);
+    if (tags.length > 0) {
+      metacard.setTags(new HashSet<>(Arrays.asList(tags)));
+    }
+    return metacard;
+  }
+}
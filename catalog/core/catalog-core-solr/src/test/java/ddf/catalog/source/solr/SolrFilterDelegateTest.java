@@ -437,8 +437,11 @@ public void testDatePropertyIsBetween() {
   public void testXpathExists() {
     String xpath = "//root/sub/@attribute";
     String expectedQuery = "{!xpath}xpath:\"" + xpath + "\"";
+    String expectedIndex = "{!xpath}xpath_index:\"" + xpath + "\"";
     SolrQuery xpathQuery = toTest.xpathExists(xpath);
+    assertThat(xpathQuery.getFilterQueries().length, is(2));
     assertThat(xpathQuery.getFilterQueries()[0], is(expectedQuery));
+    assertThat(xpathQuery.getFilterQueries()[1], is(expectedIndex));
   }
 
   @Test
@@ -474,10 +477,36 @@ public void testXpathOR() {
             + "(xpath_index:\""
             + xpath
             + "[contains(lower-case(.), 'example2')]\")";
-    // TODO DDF-1882 support xpath pre-filtering
-    //        assertThat(combinedQuery.getFilterQueries().length, is(2));
+    assertThat(combinedQuery.getFilterQueries().length, is(2));
     assertThat(combinedQuery.getFilterQueries()[0], is(combinedExpectedFilter));
-    //        assertThat(combinedQuery.getFilterQueries()[1], is(expectedIndex));
+    assertThat(combinedQuery.getFilterQueries()[1], is(expectedIndex));
+  }
+
+  @Test
+  public void testXpathNestedAndOR() {
+    String xpath1 = "//root/sub1";
+    String xpath2 = "//root/sub2";
+    String xpath3 = "//root/sub3";
+
+    SolrQuery combinedQuery =
+        toTest.and(
+            Arrays.asList(
+                toTest.or(Arrays.asList(toTest.xpathExists(xpath1), toTest.xpathExists(xpath2))),
+                toTest.xpathExists(xpath3)));
+
+    String expectedFilter =
+        "{!xpath}xpath:\"((" + xpath1 + " or " + xpath2 + ") and " + xpath3 + ")\"";
+    String expectedIndex =
+        "{!xpath}((xpath_index:\""
+            + xpath1
+            + "\") OR (xpath_index:\""
+            + xpath2
+            + "\")) AND (xpath_index:\""
+            + xpath3
+            + "\")";
+    assertThat(combinedQuery.getFilterQueries().length, is(2));
+    assertThat(combinedQuery.getFilterQueries()[0], is(expectedFilter));
+    assertThat(combinedQuery.getFilterQueries()[1], is(expectedIndex));
   }
 
   @Test
@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.source.solr;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.filter.FilterAdapter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.codice.solr.client.solrj.SolrClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class SolrUpdateCoalescerTest {
+
+  private static final int THREADS = 5;
+
+  private org.apache.solr.client.solrj.SolrClient solrjClient;
+
+  private SolrUpdateCoalescer coalescer;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    solrjClient = mock(org.apache.solr.client.solrj.SolrClient.class);
+    SolrClient client = mock(SolrClient.class);
+    when(client.getClient()).thenReturn(solrjClient);
+
+    coalescer = new SolrUpdateCoalescer(client, 500, 100);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    coalescer.shutdown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testConcurrentAddsAreBatched() throws Exception {
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(executor.submit(add(false)));
+    }
+    for (Future<Void> future : futures) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+
+    ArgumentCaptor<SolrRequest> request = ArgumentCaptor.forClass(SolrRequest.class);
+    verify(solrjClient, times(1)).request(request.capture(), any());
+    assertThat(((UpdateRequest) request.getValue()).getDocuments(), hasSize(THREADS));
+  }
+
+  @Test
+  public void testConcurrentDeletesByIdAreBatched() throws Exception {
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                coalescer.deleteByIds(
+                    Collections.singletonList(UUID.randomUUID().toString()), false);
+                return null;
+              }));
+    }
+    for (Future<Void> future : futures) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+
+    ArgumentCaptor<SolrRequest> request = ArgumentCaptor.forClass(SolrRequest.class);
+    verify(solrjClient, times(1)).request(request.capture(), any());
+    assertThat(((UpdateRequest) request.getValue()).getDeleteById(), hasSize(THREADS));
+  }
+
+  @Test
+  public void testMetacardIdDeletesAreCoalesced() throws Exception {
+    SolrClient client = solrjClientWrapper();
+    SolrMetacardClientImpl metacardClient =
+        new SolrMetacardClientImpl(
+            client,
+            mock(FilterAdapter.class),
+            mock(SolrFilterDelegateFactory.class),
+            mock(DynamicSchemaResolver.class));
+    metacardClient.setUpdateCoalescer(coalescer);
+
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                metacardClient.deleteByIds(
+                    Metacard.ID,
+                    new ArrayList<>(Collections.singletonList(UUID.randomUUID().toString())),
+                    false);
+                return null;
+              }));
+    }
+    for (Future<Void> future : futures) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+
+    ArgumentCaptor<SolrRequest> request = ArgumentCaptor.forClass(SolrRequest.class);
+    verify(solrjClient, times(1)).request(request.capture(), any());
+    assertThat(((UpdateRequest) request.getValue()).getDeleteById(), hasSize(THREADS));
+    verify(client, never()).deleteById(anyListOf(String.class));
+  }
+
+  @Test
+  public void testBatchIsSentWhenFull() throws Exception {
+    coalescer.shutdown();
+    coalescer = new SolrUpdateCoalescer(solrjClientWrapper(), 60000, 1);
+
+    executor.submit(add(false)).get(5, TimeUnit.SECONDS);
+
+    verify(solrjClient, times(1)).request(any(SolrRequest.class), any());
+  }
+
+  @Test
+  public void testDeletesAreNotMixedWithAdds() throws Exception {
+    Future<Void> add = executor.submit(add(false));
+    Future<Void> delete =
+        executor.submit(
+            () -> {
+              coalescer.deleteByQueries(Collections.singletonList("id_txt:\"1\""), true);
+              return null;
+            });
+    add.get(5, TimeUnit.SECONDS);
+    delete.get(5, TimeUnit.SECONDS);
+
+    verify(solrjClient, times(2)).request(any(SolrRequest.class), any());
+  }
+
+  @Test(expected = IOException.class)
+  public void testFailureIsReturnedToCaller() throws Throwable {
+    when(solrjClient.request(any(SolrRequest.class), any())).thenThrow(new IOException());
+
+    try {
+      executor.submit(add(true)).get(5, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Test
+  public void testAddAfterShutdownIsSentIndividually() throws Exception {
+    coalescer.shutdown();
+
+    executor.submit(add(false)).get(5, TimeUnit.SECONDS);
+
+    verify(solrjClient, times(1)).request(any(SolrRequest.class), any());
+  }
+
+  private SolrClient solrjClientWrapper() {
+    SolrClient client = mock(SolrClient.class);
+    when(client.getClient()).thenReturn(solrjClient);
+    return client;
+  }
+
+  private Callable<Void> add(boolean commit) {
+    return () -> {
+      SolrInputDocument doc = new SolrInputDocument();
+      doc.addField("id_txt", UUID.randomUUID().toString());
+      coalescer.add(Collections.singletonList(doc), commit);
+      return null;
+    };
+  }
+}
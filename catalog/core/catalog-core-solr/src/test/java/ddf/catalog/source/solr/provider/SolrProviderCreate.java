@@ -410,4 +410,65 @@ public void testCreatePendingNrtIndex() throws Exception {
       ConfigurationStore.getInstance().setForceAutoCommit(true);
     }
   }
+
+  @Test
+  public void testCreatePendingNrtIndexTagQuery() throws Exception {
+    deleteAll();
+    ConfigurationStore.getInstance().setForceAutoCommit(false);
+
+    try {
+      MockMetacard metacard = new MockMetacard(Library.getFlagstaffRecord());
+      metacard.setAttribute(new AttributeImpl(Metacard.TAGS, "pending-nrt-test"));
+
+      String createdId = create(metacard).getCreatedMetacards().get(0).getId();
+
+      Filter tagFilter =
+          filterBuilder.attribute(Metacard.TAGS).is().equalTo().text("pending-nrt-test");
+      Filter tagAndTitleFilter =
+          filterBuilder.allOf(
+              tagFilter,
+              filterBuilder.attribute(Metacard.TITLE).like().text(MockMetacard.DEFAULT_TITLE));
+
+      SourceResponse tagResponse = provider.query(new QueryRequestImpl(new QueryImpl(tagFilter)));
+
+      SourceResponse tagAndTitleResponse =
+          provider.query(new QueryRequestImpl(new QueryImpl(tagAndTitleFilter)));
+
+      assertThat(tagResponse.getResults().size(), is(1));
+      assertThat(tagResponse.getResults().get(0).getMetacard().getId(), is(createdId));
+      assertThat(tagAndTitleResponse.getResults().size(), is(0));
+    } finally {
+      ConfigurationStore.getInstance().setForceAutoCommit(true);
+    }
+  }
+
+  @Test
+  public void testCreatePendingNrtIndexDropsHitsThatNoLongerMatch() throws Exception {
+    deleteAll();
+    String createdId =
+        create(new MockMetacard(Library.getFlagstaffRecord())).getCreatedMetacards().get(0).getId();
+    ConfigurationStore.getInstance().setForceAutoCommit(false);
+
+    try {
+      MockMetacard updatedMetacard = new MockMetacard(Library.getFlagstaffRecord());
+      updatedMetacard.setTitle("Pending update");
+      update(createdId, updatedMetacard);
+
+      Filter titleFilter =
+          filterBuilder.attribute(Metacard.TITLE).like().text(MockMetacard.DEFAULT_TITLE);
+      Filter idFilter = filterBuilder.attribute(Metacard.ID).equalTo().text(createdId);
+
+      SourceResponse titleResponse =
+          provider.query(new QueryRequestImpl(new QueryImpl(titleFilter)));
+
+      SourceResponse idResponse = provider.query(new QueryRequestImpl(new QueryImpl(idFilter)));
+
+      assertThat(titleResponse.getResults().size(), is(0));
+      assertThat(titleResponse.getHits(), is(0L));
+      assertThat(idResponse.getResults().size(), is(1));
+      assertThat(idResponse.getResults().get(0).getMetacard().getTitle(), is("Pending update"));
+    } finally {
+      ConfigurationStore.getInstance().setForceAutoCommit(true);
+    }
+  }
 }
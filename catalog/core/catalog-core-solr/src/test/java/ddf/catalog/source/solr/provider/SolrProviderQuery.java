@@ -14,6 +14,9 @@
 package ddf.catalog.source.solr.provider;
 
 import static ddf.catalog.Constants.EXPERIMENTAL_FACET_RESULTS_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_KEY;
+import static ddf.catalog.Constants.QUERY_CURSOR_START;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_KEY;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
@@ -53,6 +56,7 @@
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -1401,6 +1405,69 @@ public void testStartIndex() throws Exception {
     }
   }
 
+  @Test
+  public void testCursorPaging() throws Exception {
+
+    deleteAll();
+
+    List<Metacard> list = new ArrayList<>();
+    for (int i = 0; i < 9; i++) {
+      list.add(new MockMetacard(Library.getFlagstaffRecord()));
+    }
+
+    create(list);
+
+    QueryImpl query =
+        new QueryImpl(
+            filterBuilder
+                .attribute(Metacard.TITLE)
+                .is()
+                .equalTo()
+                .text(Library.FLAGSTAFF_QUERY_PHRASE));
+    query.setPageSize(4);
+    query.setStartIndex(1);
+
+    Set<String> ids = new HashSet<>();
+    String cursor = QUERY_CURSOR_START;
+    String nextCursor;
+    int pages = 0;
+
+    do {
+      Map<String, Serializable> properties = new HashMap<>();
+      properties.put(QUERY_CURSOR_KEY, cursor);
+
+      SourceResponse sourceResponse = provider.query(new QueryRequestImpl(query, properties));
+
+      assertEquals(9L, sourceResponse.getHits());
+      for (Result r : sourceResponse.getResults()) {
+        assertTrue("Result returned on more than one page", ids.add(r.getMetacard().getId()));
+      }
+
+      nextCursor = (String) sourceResponse.getPropertyValue(QUERY_NEXT_CURSOR_KEY);
+      assertThat(nextCursor, notNullValue());
+
+      if (nextCursor.equals(cursor)) {
+        break;
+      }
+      cursor = nextCursor;
+      pages++;
+    } while (pages < 10);
+
+    assertThat(ids.size(), is(9));
+    assertThat(pages, is(3));
+  }
+
+  @Test(expected = UnsupportedQueryException.class)
+  public void testCursorPagingWithStartIndex() throws Exception {
+    QueryImpl query = new QueryImpl(filterBuilder.attribute(Metacard.ID).is().like().text("*"));
+    query.setStartIndex(2);
+
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(QUERY_CURSOR_KEY, QUERY_CURSOR_START);
+
+    provider.query(new QueryRequestImpl(query, properties));
+  }
+
   @Test
   public void testFacetedResponse() throws Exception {
 
@@ -264,6 +264,15 @@ public void testXpathQuery() throws Exception {
     queryXpathPositiveExists("/purchaseOrder/*", Library.PURCHASE_ORDER_QUERY_PHRASE);
     queryXpathPositiveExists("/purchaseOrder/*/item", Library.PURCHASE_ORDER_QUERY_PHRASE);
     queryXpathPositiveExists("//*[@country='US']", Library.PURCHASE_ORDER_QUERY_PHRASE);
+    queryXpathPositiveExists(
+        "/purchaseOrder[comment='Hurry, my lawn is going wild!']",
+        Library.PURCHASE_ORDER_QUERY_PHRASE);
+    queryXpathPositiveExists(
+        "//item[@partNum='926-AA']/USPrice", Library.PURCHASE_ORDER_QUERY_PHRASE);
+    queryXpathPositiveExists(
+        "//shipTo[name='Nobody' or city='Mill Valley']", Library.PURCHASE_ORDER_QUERY_PHRASE);
+    queryXpathPositiveExists(
+        "//item[contains(productName, 'Monitor')]", Library.PURCHASE_ORDER_QUERY_PHRASE);
 
     queryXpathPositiveWithSearchPhrase(
         "//shipTo/@country", "US", Library.PURCHASE_ORDER_QUERY_PHRASE);
@@ -293,6 +302,9 @@ public void testXpathQuery() throws Exception {
     queryXpathNegativeExists("//electric");
     queryXpathNegativeExists("//partNum");
     queryXpathNegativeExists("//shipTo[@country2]");
+    queryXpathNegativeExists("//shipTo[@country='CA']");
+    queryXpathNegativeExists("/purchaseOrder[comment='Hurry']");
+    queryXpathNegativeExists("//item[productName='Lawnmower' and USPrice='39.98']");
 
     queryXpathNegativeWithSearchPhrase("//shipTo/@country", "us");
     queryXpathNegativeWithSearchPhrase("/purchaseOrder/comment", "invalid");
@@ -13,6 +13,11 @@
  */
 package ddf.catalog.cache.solr.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
@@ -21,26 +26,73 @@
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Bulk adds metacards to the cache that are not needed immediately. */
+/**
+ * Bulk adds metacards to the cache that are not needed immediately.
+ *
+ * <p>Metacards wait in a backlog, keyed by metacard id so that a metacard added again before it
+ * is written is only written once, with its latest version. The backlog is bounded; metacards
+ * that do not fit are dropped and counted. Batches are written by a configurable number of writer
+ * threads. The backlog size, the dropped and written metacards and the time taken to write a
+ * batch are published over JMX.
+ */
 public class CacheBulkProcessor {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CacheBulkProcessor.class);
 
+  private static final String METRICS_SCOPE = "CachePopulation";
+
+  private static final int DEFAULT_WRITER_THREADS = 2;
+
   private final ScheduledExecutorService batchScheduler =
-      Executors.newSingleThreadScheduledExecutor();
+      Executors.newSingleThreadScheduledExecutor(
+          StandardThreadFactoryBuilder.newThreadFactory("cacheBulkProcessorThread"));
+
+  private final ThreadPoolExecutor batchWriters =
+      new ThreadPoolExecutor(
+          DEFAULT_WRITER_THREADS,
+          DEFAULT_WRITER_THREADS,
+          0L,
+          TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(),
+          StandardThreadFactoryBuilder.newThreadFactory("cacheBulkWriterThread"));
 
   private final Map<String, Metacard> metacardsToCache = new ConcurrentHashMap<>();
 
+  private final MetricRegistry metrics = new MetricRegistry();
+
+  private final JmxReporter reporter =
+      JmxReporter.forRegistry(metrics).inDomain("ddf.metrics.catalog.cache").build();
+
+  private final Meter addedMetacards = metrics.meter(MetricRegistry.name(METRICS_SCOPE, "Added"));
+
+  private final Meter coalescedMetacards =
+      metrics.meter(MetricRegistry.name(METRICS_SCOPE, "Coalesced"));
+
+  private final Meter droppedMetacards =
+      metrics.meter(MetricRegistry.name(METRICS_SCOPE, "Dropped"));
+
+  private final Meter writtenMetacards =
+      metrics.meter(MetricRegistry.name(METRICS_SCOPE, "Written"));
+
+  private final Meter failedWrites =
+      metrics.meter(MetricRegistry.name(METRICS_SCOPE, "FailedWrites"));
+
+  private final Timer flushLatency = metrics.timer(MetricRegistry.name(METRICS_SCOPE, "Flush"));
+
   private long flushInterval = TimeUnit.SECONDS.toMillis(10);
 
-  private int maximumBacklogSize = 10000;
+  private volatile int maximumBacklogSize = 10000;
 
   private int batchSize = 500;
 
@@ -66,6 +118,10 @@ public CacheBulkProcessor(
       final long delay,
       final TimeUnit delayUnit,
       CacheStrategy cacheStrategy) {
+    metrics.register(
+        MetricRegistry.name(METRICS_SCOPE, "Backlog"), (Gauge<Integer>) metacardsToCache::size);
+    reporter.start();
+
     batchScheduler.scheduleWithFixedDelay(
         () -> {
           try {
@@ -74,17 +130,20 @@ public CacheBulkProcessor(
               LOGGER.debug("{} metacards to batch add to cache", metacardsToCache.size());
 
               List<Metacard> metacards = new ArrayList<>(metacardsToCache.values());
+              List<Callable<Void>> batchWrites = new ArrayList<>();
               for (Collection<Metacard> batch : Lists.partition(metacards, batchSize)) {
-                LOGGER.debug("Caching a batch of {} metacards", batch.size());
-                cache.create(batch);
-
-                for (Metacard metacard : batch) {
-                  metacardsToCache.remove(metacard.getId());
-                }
+                batchWrites.add(
+                    () -> {
+                      write(cache, batch);
+                      return null;
+                    });
               }
+              batchWriters.invokeAll(batchWrites);
 
               lastBulkAdd = new Date();
             }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
           } catch (VirtualMachineError vme) {
             throw vme;
           } catch (Throwable throwable) {
@@ -98,34 +157,66 @@ public CacheBulkProcessor(
     this.cacheStrategy = cacheStrategy;
   }
 
+  /**
+   * Writes a batch of metacards to the cache and removes them from the backlog, unless they were
+   * added again while being written. Failed batches stay in the backlog to be written again.
+   */
+  private void write(SolrCache cache, Collection<Metacard> batch) {
+    LOGGER.debug("Caching a batch of {} metacards", batch.size());
+    try (Timer.Context context = flushLatency.time()) {
+      cache.create(batch);
+      writtenMetacards.mark(batch.size());
+
+      for (Metacard metacard : batch) {
+        metacardsToCache.remove(metacard.getId(), metacard);
+      }
+    } catch (RuntimeException e) {
+      failedWrites.mark();
+      LOGGER.warn("Bulk ingest of {} metacards to cache failed", batch.size(), e);
+    }
+  }
+
   private boolean timeToFlush() {
     Date now = new Date();
     return now.getTime() - lastBulkAdd.getTime() > flushInterval;
   }
 
   /**
-   * Adds metacards to be bulk added to cache. Metacards will be ignored if backlog grows too large.
+   * Adds metacards to be bulk added to cache. Metacards will be dropped if the backlog is full.
    * Metacard currently in backlog will be updated if added again.
    *
    * @param results metacards to add to current batch
    */
   public void add(final List<Result> results) {
-    if (metacardsToCache.size() < maximumBacklogSize) {
-      cacheStrategy
-          .getCacheStrategyFunction()
-          .accept(results, m -> metacardsToCache.put(m.getId(), m));
+    cacheStrategy.getCacheStrategyFunction().accept(results, this::addToBacklog);
+  }
+
+  private void addToBacklog(Metacard metacard) {
+    if (metacardsToCache.computeIfPresent(metacard.getId(), (id, pending) -> metacard) != null) {
+      coalescedMetacards.mark();
+    } else if (metacardsToCache.size() < maximumBacklogSize) {
+      metacardsToCache.put(metacard.getId(), metacard);
+      addedMetacards.mark();
+    } else {
+      droppedMetacards.mark();
     }
   }
 
   /** Shutdown scheduled tasks. */
   public void shutdown() {
     batchScheduler.shutdown();
+    batchWriters.shutdown();
+    reporter.stop();
   }
 
   int pendingMetacards() {
     return metacardsToCache.size();
   }
 
+  long droppedMetacards() {
+    return droppedMetacards.getCount();
+  }
+
   public void setFlushInterval(long flushInterval) {
     this.flushInterval = flushInterval;
   }
@@ -138,6 +229,22 @@ public void setMaximumBacklogSize(int maximumBacklogSize) {
     this.maximumBacklogSize = maximumBacklogSize;
   }
 
+  /**
+   * Sets the number of threads that write batches to the cache in parallel.
+   *
+   * @param writerThreads number of writer threads, at least 1
+   */
+  public void setWriterThreads(int writerThreads) {
+    int threads = Math.max(1, writerThreads);
+    if (threads > batchWriters.getMaximumPoolSize()) {
+      batchWriters.setMaximumPoolSize(threads);
+      batchWriters.setCorePoolSize(threads);
+    } else {
+      batchWriters.setCorePoolSize(threads);
+      batchWriters.setMaximumPoolSize(threads);
+    }
+  }
+
   public void setCacheStrategy(CacheStrategy cacheStrategy) {
     this.cacheStrategy = cacheStrategy;
   }
@@ -20,11 +20,13 @@
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.ResultImpl;
 import ddf.catalog.federation.FederationStrategy;
+import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.Request;
 import ddf.catalog.operation.SourceResponse;
 import ddf.catalog.operation.Update;
 import ddf.catalog.operation.UpdateResponse;
@@ -40,6 +42,8 @@
 import ddf.catalog.source.UnsupportedQueryException;
 import ddf.catalog.util.impl.RelevanceResultComparator;
 import ddf.catalog.util.impl.Requests;
+import ddf.security.SubjectIdentity;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -105,6 +109,10 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
   /** package-private to allow for unit testing */
   static final int DEFAULT_MAX_START_INDEX = 50000;
 
+  private static final long DEFAULT_QUERY_RESULT_CACHE_TTL_SECONDS = 30;
+
+  private static final long DEFAULT_QUERY_RESULT_CACHE_SIZE = 100;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(CachingFederationStrategy.class);
 
   private final SolrCache cache;
@@ -141,6 +149,19 @@ public class CachingFederationStrategy implements FederationStrategy, PostIngest
 
   private CacheQueryFactory cacheQueryFactory;
 
+  private FilterAdapter filterAdapter;
+
+  private SubjectIdentity subjectIdentity;
+
+  private boolean queryResultCacheEnabled = false;
+
+  private long queryResultCacheTimeToLiveSeconds = DEFAULT_QUERY_RESULT_CACHE_TTL_SECONDS;
+
+  private long queryResultCacheSize = DEFAULT_QUERY_RESULT_CACHE_SIZE;
+
+  /** The cache of source responses to identical queries, {@code null} when it is disabled. */
+  private volatile QueryResultCache queryResultCache;
+
   /**
    * Instantiates an {@code AbstractFederationStrategy} with the provided {@link ExecutorService}.
    *
@@ -352,6 +373,7 @@ private int computeModifiedPageSize(int offset, int pageSize) {
 
   @Override
   public CreateResponse process(CreateResponse input) throws PluginExecutionException {
+    invalidateQueryResults(input.getRequest());
     return input;
   }
 
@@ -359,6 +381,7 @@ public CreateResponse process(CreateResponse input) throws PluginExecutionExcept
   public UpdateResponse process(UpdateResponse input) throws PluginExecutionException {
 
     LOGGER.debug("Post ingest processing of UpdateResponse.");
+    invalidateQueryResults(input.getRequest());
     if (!isCacheRemoteIngests() && !Requests.isLocal(input.getRequest())) {
       return input;
     }
@@ -386,6 +409,7 @@ public UpdateResponse process(UpdateResponse input) throws PluginExecutionExcept
   public DeleteResponse process(DeleteResponse input) throws PluginExecutionException {
 
     LOGGER.debug("Post ingest processing of DeleteResponse.");
+    invalidateQueryResults(input.getRequest());
     if (!isCacheRemoteIngests() && !Requests.isLocal(input.getRequest())) {
       return input;
     }
@@ -403,6 +427,15 @@ public DeleteResponse process(DeleteResponse input) throws PluginExecutionExcept
     return input;
   }
 
+  /** Discards the cached query results when the local catalog changes. */
+  private void invalidateQueryResults(Request request) {
+    QueryResultCache resultCache = queryResultCache;
+    if (resultCache != null && Requests.isLocal(request)) {
+      LOGGER.debug("Local catalog changed, discarding cached query results.");
+      resultCache.invalidateAll();
+    }
+  }
+
   int getMaxStartIndex() {
     return maxStartIndex;
   }
@@ -442,6 +475,56 @@ public void setCacheRemoteIngests(boolean cacheRemoteIngests) {
     this.cacheRemoteIngests = cacheRemoteIngests;
   }
 
+  public void setCachePopulationThreads(int cachePopulationThreads) {
+    cacheBulkProcessor.setWriterThreads(cachePopulationThreads);
+  }
+
+  public void setCachePopulationBacklogSize(int cachePopulationBacklogSize) {
+    cacheBulkProcessor.setMaximumBacklogSize(cachePopulationBacklogSize);
+  }
+
+  public void setFilterAdapter(FilterAdapter filterAdapter) {
+    this.filterAdapter = filterAdapter;
+    updateQueryResultCache();
+  }
+
+  public void setSubjectIdentity(SubjectIdentity subjectIdentity) {
+    this.subjectIdentity = subjectIdentity;
+    updateQueryResultCache();
+  }
+
+  public void setQueryResultCacheEnabled(boolean queryResultCacheEnabled) {
+    this.queryResultCacheEnabled = queryResultCacheEnabled;
+    updateQueryResultCache();
+  }
+
+  public void setQueryResultCacheTimeToLiveSeconds(long queryResultCacheTimeToLiveSeconds) {
+    this.queryResultCacheTimeToLiveSeconds = queryResultCacheTimeToLiveSeconds;
+    updateQueryResultCache();
+  }
+
+  public void setQueryResultCacheSize(long queryResultCacheSize) {
+    this.queryResultCacheSize = queryResultCacheSize;
+    updateQueryResultCache();
+  }
+
+  /** Replaces the query result cache, discarding any cached results, after a setting changes. */
+  private void updateQueryResultCache() {
+    if (queryResultCacheEnabled
+        && filterAdapter != null
+        && queryResultCacheTimeToLiveSeconds > 0
+        && queryResultCacheSize > 0) {
+      queryResultCache =
+          new QueryResultCache(
+              filterAdapter,
+              subjectIdentity,
+              queryResultCacheTimeToLiveSeconds,
+              queryResultCacheSize);
+    } else {
+      queryResultCache = null;
+    }
+  }
+
   public void shutdown() {
     cacheCommitPhaser.shutdown();
     cacheBulkProcessor.shutdown();
@@ -510,7 +593,23 @@ public SourceResponse call() throws Exception {
     @SuppressWarnings("squid:S1181" /*Catching throwable intentionally*/)
     private SourceResponse getSourceResponse(QueryRequest queryRequest)
         throws UnsupportedQueryException {
+      QueryResultCache resultCache = queryResultCache;
+      String resultKey = null;
+      if (resultCache != null && isResultCacheable()) {
+        resultKey = resultCache.getKey(source, request);
+      }
+      if (resultKey != null) {
+        SourceResponse cachedResponse = resultCache.get(resultKey, queryRequest);
+        if (cachedResponse != null) {
+          LOGGER.debug("Returning cached query results of source {}", source.getId());
+          return cachedResponse;
+        }
+      }
+
       final SourceResponse sourceResponse = source.query(queryRequest);
+      if (resultKey != null) {
+        resultCache.put(resultKey, sourceResponse);
+      }
       final SourceResponse clonedSourceResponse = cloneResponse(sourceResponse);
 
       if (INDEX_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))) {
@@ -532,6 +631,17 @@ private SourceResponse getSourceResponse(QueryRequest queryRequest)
       return sourceResponse;
     }
 
+    /**
+     * Queries of the cache, and queries that must wait for their results to be indexed, are always
+     * sent to their source.
+     */
+    private boolean isResultCacheable() {
+      Serializable queryMode = request.getPropertyValue(QUERY_MODE);
+      return source != cacheSource
+          && !CACHE_QUERY_MODE.equals(queryMode)
+          && !INDEX_QUERY_MODE.equals(queryMode);
+    }
+
     private QueryRequest getQueryRequest() {
       QueryRequest queryRequest;
       if (CACHE_QUERY_MODE.equals(request.getPropertyValue(QUERY_MODE))
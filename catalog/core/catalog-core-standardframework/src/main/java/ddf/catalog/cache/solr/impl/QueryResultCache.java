@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.delegate.FilterToTextDelegate;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.source.Source;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.security.SecurityConstants;
+import ddf.security.SubjectIdentity;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.shiro.subject.Subject;
+import org.opengis.filter.sort.SortBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the responses of sources to identical queries for a short time, so that the same
+ * queries repeated by several users or by periodic refreshes are not sent to slow remote sources
+ * each time.
+ *
+ * <p>Responses are keyed by source id, the text form of the filter, the sort, the paging, the
+ * simple request properties and the identity of the subject. They expire after a fixed time, are
+ * evicted when the cache is full, and are all discarded when the local catalog changes. Responses
+ * with processing details are not cached.
+ */
+class QueryResultCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(QueryResultCache.class);
+
+  private final FilterAdapter filterAdapter;
+
+  private final SubjectIdentity subjectIdentity;
+
+  private final Cache<String, SourceResponse> responses;
+
+  /**
+   * @param filterAdapter adapts query filters to their text form
+   * @param subjectIdentity identifies the subject of a query
+   * @param timeToLiveSeconds number of seconds a response is kept
+   * @param maximumSize maximum number of responses kept
+   */
+  QueryResultCache(
+      FilterAdapter filterAdapter,
+      SubjectIdentity subjectIdentity,
+      long timeToLiveSeconds,
+      long maximumSize) {
+    this.filterAdapter = filterAdapter;
+    this.subjectIdentity = subjectIdentity;
+    this.responses =
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+            .maximumSize(maximumSize)
+            .build();
+  }
+
+  /**
+   * @param source the source the request is sent to
+   * @param request the request sent to the source
+   * @return the key of the response of the source to the request, or {@code null} if the response
+   *     can not be cached
+   */
+  String getKey(Source source, QueryRequest request) {
+    Query query = request.getQuery();
+    if (source == null || query == null) {
+      return null;
+    }
+
+    String subject =
+        getSubjectIdentifier(request.getPropertyValue(SecurityConstants.SECURITY_SUBJECT));
+    if (subject == null) {
+      return null;
+    }
+
+    String filter;
+    try {
+      filter = filterAdapter.adapt(query, new FilterToTextDelegate());
+    } catch (UnsupportedQueryException | RuntimeException e) {
+      LOGGER.debug("Unable to build the text form of the query, its results are not cached.", e);
+      return null;
+    }
+
+    StringBuilder key =
+        new StringBuilder(source.getId())
+            .append('\n')
+            .append(filter)
+            .append('\n')
+            .append(getSortKey(query.getSortBy()))
+            .append('\n')
+            .append(query.getStartIndex())
+            .append(',')
+            .append(query.getPageSize())
+            .append(',')
+            .append(query.requestsTotalResultsCount())
+            .append(',')
+            .append(request.isEnterprise())
+            .append('\n')
+            .append(getSimpleProperties(request.getProperties()))
+            .append('\n')
+            .append(subject);
+    return key.toString();
+  }
+
+  /** @return a copy of the response remembered for the key, or {@code null} if there is none */
+  SourceResponse get(String key, QueryRequest request) {
+    SourceResponse response = responses.getIfPresent(key);
+    return response == null ? null : copy(response, request);
+  }
+
+  /**
+   * Remembers the response for the key, unless the source reported processing errors or warnings,
+   * since those describe a partial response that should not be served again.
+   */
+  void put(String key, SourceResponse response) {
+    if (CollectionUtils.isNotEmpty(response.getProcessingDetails())) {
+      LOGGER.debug("The response has processing details, it is not cached.");
+      return;
+    }
+    responses.put(key, copy(response, response.getRequest()));
+  }
+
+  /** Discards all the remembered responses. */
+  void invalidateAll() {
+    responses.invalidateAll();
+  }
+
+  long size() {
+    return responses.size();
+  }
+
+  private String getSubjectIdentifier(Serializable subject) {
+    if (subject == null) {
+      return "";
+    }
+    if (!(subject instanceof Subject) || subjectIdentity == null) {
+      return null;
+    }
+    try {
+      return subjectIdentity.getUniqueIdentifier((Subject) subject);
+    } catch (RuntimeException e) {
+      LOGGER.debug("Unable to identify the subject of the query.", e);
+      return null;
+    }
+  }
+
+  private String getSortKey(SortBy sortBy) {
+    if (sortBy == null || sortBy.getPropertyName() == null) {
+      return "";
+    }
+    return sortBy.getPropertyName().getPropertyName() + ' ' + sortBy.getSortOrder();
+  }
+
+  /**
+   * Request properties that are strings, numbers or booleans can change what a source returns, so
+   * they are part of the key. Other properties, such as the subject, are not.
+   */
+  private String getSimpleProperties(Map<String, Serializable> properties) {
+    if (properties == null) {
+      return "";
+    }
+    Map<String, Serializable> simpleProperties = new TreeMap<>();
+    for (Map.Entry<String, Serializable> property : properties.entrySet()) {
+      Serializable value = property.getValue();
+      if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+        simpleProperties.put(property.getKey(), value);
+      }
+    }
+    return simpleProperties.toString();
+  }
+
+  /** Copies the metacards of the response, so that the copies can be changed by their users. */
+  private SourceResponse copy(SourceResponse response, QueryRequest request) {
+    List<Result> results =
+        response.getResults().stream().map(this::copy).collect(Collectors.toList());
+    Map<String, Serializable> properties = new HashMap<>();
+    if (response.getProperties() != null) {
+      properties.putAll(response.getProperties());
+    }
+    return new SourceResponseImpl(request, properties, results, response.getHits());
+  }
+
+  private Result copy(Result result) {
+    Metacard metacard = result.getMetacard();
+    ResultImpl copy = new ResultImpl();
+    if (metacard != null) {
+      copy.setMetacard(new MetacardImpl(metacard, metacard.getMetacardType()));
+    }
+    copy.setRelevanceScore(result.getRelevanceScore());
+    copy.setDistanceInMeters(result.getDistanceInMeters());
+    return copy;
+  }
+}
@@ -33,12 +33,12 @@
 import ddf.catalog.util.impl.CollectionResultComparator;
 import ddf.catalog.util.impl.DistanceResultComparator;
 import ddf.catalog.util.impl.RelevanceResultComparator;
+import ddf.catalog.util.impl.SortedResultMerger;
 import ddf.catalog.util.impl.TemporalResultComparator;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -143,7 +143,8 @@ public void run() {
       resultComparator.addComparator(coreComparator);
     }
 
-    List<Result> resultList = new ArrayList<>();
+    int maxResults = query.getPageSize() > 0 ? query.getPageSize() : Integer.MAX_VALUE;
+    SortedResultMerger resultMerger = new SortedResultMerger(resultComparator, maxResults);
     long totalHits = 0;
     Set<ProcessingDetails> processingDetails = returnResults.getProcessingDetails();
 
@@ -181,7 +182,7 @@ public void run() {
               queryRequest, sourceId, new NullPointerException(), processingDetails);
         } else if (queryRequest != null) {
           sourceResponse = executePostFederationQueryPlugins(sourceResponse, queryRequest);
-          resultList.addAll(sourceResponse.getResults());
+          resultMerger.add(sourceResponse.getResults());
           long hits = sourceResponse.getHits();
           totalHits += hits;
           hitsPerSource.merge(sourceId, hits, (l1, l2) -> l1 + l2);
@@ -209,7 +210,7 @@ public void run() {
       }
     }
     returnProperties.put("hitsPerSource", hitsPerSource);
-    LOGGER.debug("All sources finished returning results: {}", resultList.size());
+    LOGGER.debug("All sources finished returning results: {}", resultMerger.size());
 
     returnResults.setHits(totalHits);
     if (CachingFederationStrategy.INDEX_QUERY_MODE.equals(
@@ -217,21 +218,10 @@ public void run() {
       QueryResponse result = cachingFederationStrategy.queryCache(request);
       returnResults.addResults(result.getResults(), true);
     } else {
-      returnResults.addResults(sortedResults(resultList, resultComparator), true);
+      returnResults.addResults(resultMerger.merge(), true);
     }
   }
 
-  List<Result> sortedResults(List<Result> results, Comparator<? super Result> comparator) {
-    Collections.sort(results, comparator);
-
-    int maxResults = Integer.MAX_VALUE;
-    if (query.getPageSize() > 0) {
-      maxResults = query.getPageSize();
-    }
-
-    return results.size() > maxResults ? results.subList(0, maxResults) : results;
-  }
-
   private static Comparable getAttributeValue(Result r, String attributeName) {
     if (r == null) {
       return null;
@@ -26,13 +26,15 @@
 import ddf.catalog.source.IngestException;
 import ddf.mime.MimeTypeResolutionException;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +60,14 @@
 public class OperationsMetacardSupport {
   private static final Logger LOGGER = LoggerFactory.getLogger(OperationsMetacardSupport.class);
 
+  /**
+   * Number of leading bytes of the content that are kept in memory while it is copied to its
+   * temporary file, so that the mime type can be sniffed without reading the file again.
+   */
+  static final int CONTENT_HEADER_SIZE = 64 * 1024;
+
+  private static final int COPY_BUFFER_SIZE = 8192;
+
   //
   // Injected properties
   //
@@ -97,6 +107,7 @@ void generateMetacardAndContentItems(
         Path tmpPath = null;
         String fileName;
         long size;
+        byte[] header;
         try (InputStream inputStream = contentItem.getInputStream()) {
           fileName = contentItem.getFilename();
           if (inputStream == null) {
@@ -113,7 +124,7 @@ void generateMetacardAndContentItems(
               Files.createTempFile(
                   FilenameUtils.getBaseName(sanitizedFilename),
                   FilenameUtils.getExtension(sanitizedFilename));
-          Files.copy(inputStream, tmpPath, StandardCopyOption.REPLACE_EXISTING);
+          header = copyToFile(inputStream, tmpPath);
           size = Files.size(tmpPath);
 
           final String key = contentItem.getId();
@@ -134,7 +145,7 @@ void generateMetacardAndContentItems(
           throw new IngestException("Could not copy bytes of content message.", e);
         }
         String mimeTypeRaw = contentItem.getMimeTypeRawData();
-        mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath);
+        mimeTypeRaw = guessMimeType(mimeTypeRaw, fileName, tmpPath, header);
 
         if (!InputValidation.isMimeTypeClientSideSafe(mimeTypeRaw)) {
           throw new IngestException("Unsupported mime type.");
@@ -227,25 +238,65 @@ private String updateFileExtension(String mimeTypeRaw, String fileName) {
     return fileName;
   }
 
+  /**
+   * Copies the content to its temporary file, keeping the first {@link #CONTENT_HEADER_SIZE} bytes
+   * in memory as they go by.
+   *
+   * @return the first {@link #CONTENT_HEADER_SIZE} bytes of the content, or all of them if the
+   *     content is smaller
+   */
+  private byte[] copyToFile(InputStream inputStream, Path path) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    byte[] buffer = new byte[COPY_BUFFER_SIZE];
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        int headerRemaining = CONTENT_HEADER_SIZE - header.size();
+        if (headerRemaining > 0) {
+          header.write(buffer, 0, Math.min(read, headerRemaining));
+        }
+        outputStream.write(buffer, 0, read);
+      }
+    }
+    return header.toByteArray();
+  }
+
   // package-private for unit testing
   String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
       throws IOException {
+    return guessMimeType(mimeTypeRaw, fileName, tmpContentPath, null);
+  }
+
+  /**
+   * @param header the first {@link #CONTENT_HEADER_SIZE} bytes of the content, used instead of
+   *     reading the file where they are enough to make the guess, may be {@code null}
+   */
+  // package-private for unit testing
+  String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath, byte[] header)
+      throws IOException {
     if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw)) {
-      try (InputStream inputStreamMessageCopy =
-          com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream()) {
-        String mimeTypeGuess =
-            frameworkProperties
-                .getMimeTypeMapper()
-                .guessMimeType(inputStreamMessageCopy, FilenameUtils.getExtension(fileName));
-        if (StringUtils.isNotEmpty(mimeTypeGuess)) {
-          mimeTypeRaw = mimeTypeGuess;
+      String fileExtension = FilenameUtils.getExtension(fileName);
+      String mimeTypeGuess = null;
+      // without an extension the mapper runs the container detectors, which need the whole file
+      if (isWholeContent(header) || (header != null && StringUtils.isNotEmpty(fileExtension))) {
+        mimeTypeGuess = guessMapperMimeType(new ByteArrayInputStream(header), fileExtension);
+      }
+      if (StringUtils.isEmpty(mimeTypeGuess) && !isWholeContent(header)) {
+        try (InputStream inputStreamMessageCopy =
+            com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream()) {
+          mimeTypeGuess = guessMapperMimeType(inputStreamMessageCopy, fileExtension);
         }
-      } catch (MimeTypeResolutionException e) {
-        LOGGER.debug("Unable to guess mime type for file.", e);
+      }
+      if (StringUtils.isNotEmpty(mimeTypeGuess)) {
+        mimeTypeRaw = mimeTypeGuess;
       }
       if (ContentItem.DEFAULT_MIME_TYPE.equals(mimeTypeRaw)) {
         Detector detector = new DefaultProbDetector();
-        try (InputStream inputStreamMessageCopy = TikaInputStream.get(tmpContentPath)) {
+        // container detectors need the whole file, so the header only stands in for small files
+        try (InputStream inputStreamMessageCopy =
+            isWholeContent(header)
+                ? TikaInputStream.get(header)
+                : TikaInputStream.get(tmpContentPath)) {
           MediaType mediaType = detector.detect(inputStreamMessageCopy, new Metadata());
           mimeTypeRaw = mediaType.toString();
         } catch (IOException e) {
@@ -253,29 +304,69 @@ String guessMimeType(String mimeTypeRaw, String fileName, Path tmpContentPath)
         }
       }
       if (mimeTypeRaw.equals("text/plain")) {
-        try (InputStream inputStreamMessageCopy =
-                com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream();
-            BufferedReader bufferedReader =
-                new BufferedReader(
-                    new InputStreamReader(inputStreamMessageCopy, Charset.forName("UTF-8")))) {
-          String line =
-              bufferedReader
-                  .lines()
-                  .map(String::trim)
-                  .filter(StringUtils::isNotEmpty)
-                  .findFirst()
-                  .orElse("");
+        mimeTypeRaw = guessTextMimeType(tmpContentPath, header);
+      }
+    }
+    return mimeTypeRaw;
+  }
 
-          if (line.startsWith("<")) {
-            mimeTypeRaw = "text/xml";
-          } else if (line.startsWith("{") || line.startsWith("[")) {
-            mimeTypeRaw = "application/json";
-          }
-        } catch (IOException e) {
-          LOGGER.debug("Unable to guess mime type for file.", e);
+  private String guessMapperMimeType(InputStream inputStream, String fileExtension) {
+    try {
+      return frameworkProperties.getMimeTypeMapper().guessMimeType(inputStream, fileExtension);
+    } catch (MimeTypeResolutionException e) {
+      LOGGER.debug("Unable to guess mime type for file.", e);
+      return null;
+    }
+  }
+
+  private boolean isWholeContent(byte[] header) {
+    return header != null && header.length < CONTENT_HEADER_SIZE;
+  }
+
+  /**
+   * Looks at the first non-blank character of plain text content to tell XML and JSON apart from
+   * other text.
+   */
+  private String guessTextMimeType(Path tmpContentPath, byte[] header) {
+    if (header != null) {
+      // UTF-8 encodes the whitespace trimmed off the lines as single bytes up to a space, and any
+      // byte above a space starts a character that is not trimmed
+      for (byte b : header) {
+        if ((b & 0xff) > ' ') {
+          return textMimeType(String.valueOf((char) b));
         }
       }
+      if (isWholeContent(header)) {
+        return "text/plain";
+      }
     }
-    return mimeTypeRaw;
+
+    try (InputStream inputStreamMessageCopy =
+            com.google.common.io.Files.asByteSource(tmpContentPath.toFile()).openStream();
+        BufferedReader bufferedReader =
+            new BufferedReader(
+                new InputStreamReader(inputStreamMessageCopy, Charset.forName("UTF-8")))) {
+      String line =
+          bufferedReader
+              .lines()
+              .map(String::trim)
+              .filter(StringUtils::isNotEmpty)
+              .findFirst()
+              .orElse("");
+
+      return textMimeType(line);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to guess mime type for file.", e);
+    }
+    return "text/plain";
+  }
+
+  private String textMimeType(String line) {
+    if (line.startsWith("<")) {
+      return "text/xml";
+    } else if (line.startsWith("{") || line.startsWith("[")) {
+      return "application/json";
+    }
+    return "text/plain";
   }
 }
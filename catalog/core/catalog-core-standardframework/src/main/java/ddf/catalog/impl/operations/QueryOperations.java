@@ -46,6 +46,7 @@
 import ddf.catalog.plugin.PostQueryPlugin;
 import ddf.catalog.plugin.PreAuthorizationPlugin;
 import ddf.catalog.plugin.PreQueryPlugin;
+import ddf.catalog.plugin.ResultIndependentPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import ddf.catalog.source.ConnectedSource;
 import ddf.catalog.source.FederatedSource;
@@ -68,11 +69,16 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.shiro.util.ThreadContext;
+import org.codice.ddf.platform.util.ForkJoinPoolFactory;
 import org.opengis.filter.Filter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -103,6 +109,13 @@ public class QueryOperations extends DescribableImpl {
 
   public static final Integer MAX_PAGE_SIZE = determineAndRetrieveMaxPageSize();
 
+  /**
+   * The fewest results a chunk is given when {@link ResultIndependentPlugin}s are run over chunks
+   * of the results in parallel. Responses too small for two chunks are processed on the calling
+   * thread.
+   */
+  static final int MIN_PLUGIN_CHUNK_SIZE = 100;
+
   private static final Supplier<Boolean> ZERO_PAGESIZE_COMPATIBILTY =
       () -> Boolean.valueOf(System.getProperty(ZERO_PAGESIZE_COMPATIBILITY_PROPERTY));
 
@@ -121,6 +134,8 @@ public class QueryOperations extends DescribableImpl {
 
   private long queryTimeoutMillis = 300000;
 
+  private final ForkJoinPool pluginPool = ForkJoinPoolFactory.getNewForkJoinPool(null, false);
+
   public QueryOperations(
       FrameworkProperties frameworkProperties,
       SourceOperations sourceOperations,
@@ -148,6 +163,10 @@ public void setQueryTimeoutMillis(long queryTimeoutMillis) {
     this.queryTimeoutMillis = queryTimeoutMillis;
   }
 
+  public void destroy() {
+    pluginPool.shutdownNow();
+  }
+
   //
   // Delegate methods
   //
@@ -247,6 +266,13 @@ QueryResponse doQuery(QueryRequest queryRequest, FederationStrategy strategy)
               + "were available, or the current subject doesn't have permission to access the sites.");
     }
 
+    if (isCursorQuery(queryRequest) && querySources.sourcesToQuery.size() > 1) {
+      throw new FederationException(
+          "Cursor queries can only be executed against a single source, but "
+              + querySources.sourcesToQuery.size()
+              + " sources were selected.");
+    }
+
     LOGGER.debug("Calling strategy.federate()");
 
     Query originalQuery = queryRequest.getQuery();
@@ -390,30 +416,174 @@ boolean includesLocalSources(Set<String> sourceIds) {
 
   private QueryResponse processPostQueryPlugins(QueryResponse queryResponse)
       throws FederationException {
-    for (PostQueryPlugin service : frameworkProperties.getPostQuery()) {
-      try {
-        queryResponse = service.process(queryResponse);
-      } catch (PluginExecutionException see) {
-        LOGGER.debug("Error executing PostQueryPlugin: {}", see.getMessage(), see);
-      } catch (StopProcessingException e) {
-        throw new FederationException("Query could not be executed.", e);
-      }
+    return processPostQueryPlugins(
+        queryResponse, frameworkProperties.getPostQuery(), this::processPostQueryPlugin);
+  }
+
+  private QueryResponse processPostQueryPlugin(
+      PostQueryPlugin service, QueryResponse queryResponse) throws StopProcessingException {
+    try {
+      return service.process(queryResponse);
+    } catch (PluginExecutionException see) {
+      LOGGER.debug("Error executing PostQueryPlugin: {}", see.getMessage(), see);
+      return queryResponse;
     }
-    return queryResponse;
   }
 
   private QueryResponse processPostQueryAccessPlugins(QueryResponse queryResponse)
       throws FederationException {
-    for (AccessPlugin plugin : frameworkProperties.getAccessPlugins()) {
-      try {
-        queryResponse = plugin.processPostQuery(queryResponse);
-      } catch (StopProcessingException e) {
-        throw new FederationException("Query could not be executed.", e);
+    return processPostQueryPlugins(
+        queryResponse, frameworkProperties.getAccessPlugins(), AccessPlugin::processPostQuery);
+  }
+
+  /**
+   * Runs the plugins over the response in order. Consecutive {@link ResultIndependentPlugin}s are
+   * run together over chunks of the results in parallel when there are enough results.
+   */
+  private <T> QueryResponse processPostQueryPlugins(
+      QueryResponse queryResponse, List<T> plugins, PostQueryProcessor<T> processor)
+      throws FederationException {
+    List<T> remaining = new ArrayList<>(plugins);
+    try {
+      int start = 0;
+      while (start < remaining.size()) {
+        int end = start;
+        while (end < remaining.size() && remaining.get(end) instanceof ResultIndependentPlugin) {
+          end++;
+        }
+
+        if (end == start) {
+          queryResponse = processor.process(remaining.get(start), queryResponse);
+          start++;
+        } else {
+          queryResponse = processInChunks(queryResponse, remaining.subList(start, end), processor);
+          start = end;
+        }
       }
+    } catch (StopProcessingException e) {
+      throw new FederationException("Query could not be executed.", e);
     }
     return queryResponse;
   }
 
+  private <T> QueryResponse processInChunks(
+      QueryResponse queryResponse, List<T> plugins, PostQueryProcessor<T> processor)
+      throws StopProcessingException {
+    List<Result> results = queryResponse.getResults();
+    int chunkCount =
+        Math.min(pluginPool.getParallelism() + 1, results.size() / MIN_PLUGIN_CHUNK_SIZE);
+    if (chunkCount < 2) {
+      return processChunk(queryResponse, plugins, processor);
+    }
+
+    int chunkSize = (results.size() + chunkCount - 1) / chunkCount;
+    Map<String, Serializable> properties =
+        Collections.unmodifiableMap(queryResponse.getProperties());
+    Map<Object, Object> threadContext = ThreadContext.getResources();
+
+    List<ForkJoinTask<QueryResponse>> tasks = new ArrayList<>(chunkCount - 1);
+    for (int from = chunkSize; from < results.size(); from += chunkSize) {
+      QueryResponse chunk = createChunk(queryResponse, results, from, from + chunkSize, properties);
+      tasks.add(pluginPool.submit(() -> processChunk(chunk, plugins, processor, threadContext)));
+    }
+
+    List<QueryResponse> processedChunks = new ArrayList<>(chunkCount);
+    try {
+      // the first chunk is processed on this thread while the others are processed in the pool
+      QueryResponse firstChunk = createChunk(queryResponse, results, 0, chunkSize, properties);
+      processedChunks.add(processChunk(firstChunk, plugins, processor));
+      for (ForkJoinTask<QueryResponse> task : tasks) {
+        processedChunks.add(getProcessedChunk(task));
+      }
+    } finally {
+      tasks.forEach(task -> task.cancel(true));
+    }
+
+    List<Result> processedResults = new ArrayList<>(results.size());
+    Set<ProcessingDetails> processingDetails = new HashSet<>();
+    Optional.ofNullable(queryResponse.getProcessingDetails()).ifPresent(processingDetails::addAll);
+    for (QueryResponse chunk : processedChunks) {
+      processedResults.addAll(chunk.getResults());
+      Optional.ofNullable(chunk.getProcessingDetails()).ifPresent(processingDetails::addAll);
+    }
+
+    QueryResponseImpl processedResponse =
+        new QueryResponseImpl(
+            queryResponse.getRequest(),
+            processedResults,
+            true,
+            queryResponse.getHits(),
+            queryResponse.getProperties());
+    processedResponse.setProcessingDetails(processingDetails);
+    return processedResponse;
+  }
+
+  private QueryResponse createChunk(
+      QueryResponse queryResponse,
+      List<Result> results,
+      int from,
+      int to,
+      Map<String, Serializable> properties) {
+    return new QueryResponseImpl(
+        queryResponse.getRequest(),
+        results.subList(from, Math.min(to, results.size())),
+        true,
+        queryResponse.getHits(),
+        properties);
+  }
+
+  private <T> QueryResponse processChunk(
+      QueryResponse chunk,
+      List<T> plugins,
+      PostQueryProcessor<T> processor,
+      @Nullable Map<Object, Object> threadContext)
+      throws StopProcessingException {
+    // plugins may look up the subject of the query from the thread context
+    Map<Object, Object> previousThreadContext = ThreadContext.getResources();
+    ThreadContext.remove();
+    ThreadContext.setResources(threadContext);
+    try {
+      return processChunk(chunk, plugins, processor);
+    } finally {
+      ThreadContext.remove();
+      ThreadContext.setResources(previousThreadContext);
+    }
+  }
+
+  private <T> QueryResponse processChunk(
+      QueryResponse chunk, List<T> plugins, PostQueryProcessor<T> processor)
+      throws StopProcessingException {
+    for (T plugin : plugins) {
+      chunk = processor.process(plugin, chunk);
+    }
+    return chunk;
+  }
+
+  private QueryResponse getProcessedChunk(ForkJoinTask<QueryResponse> task)
+      throws StopProcessingException {
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StopProcessingException("Interrupted while processing the query results.");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof StopProcessingException) {
+        throw (StopProcessingException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException("Unable to process the query results.", cause);
+    }
+  }
+
+  @FunctionalInterface
+  private interface PostQueryProcessor<T> {
+    QueryResponse process(T plugin, QueryResponse queryResponse) throws StopProcessingException;
+  }
+
   private QueryResponse populateQueryResponsePolicyMap(QueryResponse queryResponse)
       throws FederationException {
     HashMap<String, Set<String>> responsePolicyMap = new HashMap<>();
@@ -553,6 +723,10 @@ private QueryRequest validateQueryRequest(QueryRequest queryRequest)
 
     Query originalQuery = queryRequest.getQuery();
 
+    if (isCursorQuery(queryRequest) && originalQuery.getStartIndex() != 1) {
+      throw new UnsupportedQueryException("Start index must be 1 when paging with a cursor");
+    }
+
     int queryPageSize = originalQuery.getPageSize();
 
     if (originalQuery.getPageSize() < 0) {
@@ -585,6 +759,10 @@ private QueryRequest validateQueryRequest(QueryRequest queryRequest)
         queryRequest.getProperties());
   }
 
+  private boolean isCursorQuery(QueryRequest queryRequest) {
+    return queryRequest.getPropertyValue(Constants.QUERY_CURSOR_KEY) != null;
+  }
+
   private QueryResponse injectAttributes(QueryResponse response) {
     List<Result> results =
         response
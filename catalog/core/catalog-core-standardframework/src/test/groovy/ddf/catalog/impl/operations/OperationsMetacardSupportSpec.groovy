@@ -250,6 +250,39 @@ class OperationsMetacardSupportSpec extends Specification {
         "text/plain".equals(mimeType)
     }
 
+    def 'test text sniffed from content header'() {
+        mimeTypeMapper.guessMimeType(_, _) >> null
+        def tempFile = Files.createTempFile("test", "bin")
+        Files.write(tempFile.toAbsolutePath(), "test file content".getBytes())
+        when:
+        def mimeType = opsMetacard.guessMimeType(ContentItem.DEFAULT_MIME_TYPE, tempFile.getFileName().toString(), tempFile.toAbsolutePath(), " \n  {\"test\": \"file content\"}".getBytes())
+        then:
+        "application/json".equals(mimeType)
+    }
+
+    def 'test mime type mapper reads content header'() {
+        def tempFile = Files.createTempFile("test", ".xml")
+        Files.write(tempFile.toAbsolutePath(), "file content".getBytes())
+        when:
+        def mimeType = opsMetacard.guessMimeType(ContentItem.DEFAULT_MIME_TYPE, tempFile.getFileName().toString(), tempFile.toAbsolutePath(), "<header/>".getBytes())
+        then:
+        1 * mimeTypeMapper.guessMimeType({ it.text == "<header/>" }, "xml") >> "text/xml"
+        "text/xml".equals(mimeType)
+    }
+
+    def 'test mime type mapper reads file when nothing is guessed from a partial header'() {
+        def tempFile = Files.createTempFile("test", ".nitf")
+        Files.write(tempFile.toAbsolutePath(), "file content".getBytes())
+        def header = new byte[OperationsMetacardSupport.CONTENT_HEADER_SIZE]
+        when:
+        def mimeType = opsMetacard.guessMimeType(ContentItem.DEFAULT_MIME_TYPE, tempFile.getFileName().toString(), tempFile.toAbsolutePath(), header)
+        then:
+        1 * mimeTypeMapper.guessMimeType({ it instanceof ByteArrayInputStream }, "nitf") >> null
+        then:
+        1 * mimeTypeMapper.guessMimeType({ !(it instanceof ByteArrayInputStream) }, "nitf") >> "image/nitf"
+        "image/nitf".equals(mimeType)
+    }
+
     def 'test derived content does not have metacard generated'() {
         setup:
         def id = 'ABC123'
@@ -19,6 +19,7 @@ import ddf.catalog.data.ContentType
 import ddf.catalog.data.MetacardType
 import ddf.catalog.data.Result
 import ddf.catalog.data.impl.MetacardImpl
+import ddf.catalog.data.impl.ResultImpl
 import ddf.catalog.federation.FederationException
 import ddf.catalog.federation.FederationStrategy
 import ddf.catalog.filter.FilterAdapter
@@ -30,8 +31,13 @@ import ddf.catalog.operation.Query
 import ddf.catalog.operation.QueryRequest
 import ddf.catalog.operation.QueryResponse
 import ddf.catalog.operation.impl.QueryImpl
+import ddf.catalog.operation.impl.QueryResponseImpl
+import ddf.catalog.plugin.AccessPlugin
 import ddf.catalog.plugin.PolicyPlugin
 import ddf.catalog.plugin.PolicyResponse
+import ddf.catalog.plugin.PostQueryPlugin
+import ddf.catalog.plugin.ResultIndependentPlugin
+import ddf.catalog.plugin.StopProcessingException
 import ddf.catalog.source.CatalogProvider
 import ddf.catalog.source.ConnectedSource
 import ddf.catalog.source.FederatedSource
@@ -94,6 +100,10 @@ class QueryOperationsSpec extends Specification {
         queryOperations.setId(SOURCE_ID)
     }
 
+    def cleanup() {
+        queryOperations.destroy()
+    }
+
     def 'test querysources init default'() {
         setup:
         def mockForQueryOps = Mock(QueryOperations)
@@ -826,6 +836,70 @@ class QueryOperationsSpec extends Specification {
 
     }
 
+    def 'result independent post query plugins process chunks of the results in order'() {
+        setup:
+        def resultCount = QueryOperations.MIN_PLUGIN_CHUNK_SIZE * 10
+        def response = queryResponse(resultCount)
+        def chunkSizes = Collections.synchronizedList([])
+        def seenByPlainPlugin = []
+        def plainPlugin = { QueryResponse input ->
+            seenByPlainPlugin << input.results.size()
+            input.results.each { it.metacard.title += 'c' }
+            input
+        } as PostQueryPlugin
+
+        frameworkProperties.postQuery = [
+                new TitlePlugin(suffix: 'a', chunkSizes: chunkSizes),
+                new TitlePlugin(suffix: 'b', chunkSizes: chunkSizes),
+                plainPlugin,
+                new TitlePlugin(suffix: 'd', chunkSizes: chunkSizes)]
+
+        when:
+        def processed = queryOperations.processPostQueryPlugins(response)
+
+        then:
+        processed.hits == resultCount
+        processed.properties.foo == 'bar'
+        processed.results*.metacard*.id == (1..resultCount).collect { it as String }
+        processed.results.every { it.metacard.title == 'abcd' }
+        seenByPlainPlugin == [resultCount]
+        chunkSizes.sum() == resultCount * 3
+        chunkSizes.every { it < resultCount }
+    }
+
+    def 'result independent post query plugins process small responses whole'() {
+        setup:
+        def resultCount = QueryOperations.MIN_PLUGIN_CHUNK_SIZE - 1
+        def chunkSizes = []
+        frameworkProperties.postQuery = [new TitlePlugin(suffix: 'a', chunkSizes: chunkSizes)]
+
+        when:
+        def processed = queryOperations.processPostQueryPlugins(queryResponse(resultCount))
+
+        then:
+        processed.results.every { it.metacard.title == 'a' }
+        chunkSizes == [resultCount]
+    }
+
+    def 'result independent access plugin stopping a chunk stops the query'() {
+        setup:
+        def resultCount = QueryOperations.MIN_PLUGIN_CHUNK_SIZE * 10
+        def accessPlugin = Mock(AccessPlugin, additionalInterfaces: [ResultIndependentPlugin])
+        accessPlugin.processPostQuery(_) >> { QueryResponse input ->
+            if (input.results.any { it.metacard.id == resultCount as String }) {
+                throw new StopProcessingException('stopped')
+            }
+            input
+        }
+        frameworkProperties.accessPlugins = [accessPlugin]
+
+        when:
+        queryOperations.processPostQueryAccessPlugins(queryResponse(resultCount))
+
+        then:
+        thrown(FederationException)
+    }
+
     private def mockCatalogProvider(def id) {
         def catProv = Mock(CatalogProvider)
         catProv.getId() >> { return id }
@@ -863,4 +937,26 @@ class QueryOperationsSpec extends Specification {
         result.getRelevanceScore() >> { 0.88 }
         return result
     }
+
+    private def queryResponse(int resultCount) {
+        def results = (1..resultCount).collect {
+            def metacard = new MetacardImpl()
+            metacard.id = it as String
+            metacard.title = ''
+            new ResultImpl(metacard) as Result
+        }
+        return new QueryResponseImpl(Mock(QueryRequest), results, true, resultCount, [foo: 'bar'])
+    }
+
+    private static class TitlePlugin implements PostQueryPlugin, ResultIndependentPlugin {
+        String suffix
+        List<Integer> chunkSizes
+
+        @Override
+        QueryResponse process(QueryResponse input) {
+            chunkSizes << input.results.size()
+            input.results.each { it.metacard.title += suffix }
+            return input
+        }
+    }
 }
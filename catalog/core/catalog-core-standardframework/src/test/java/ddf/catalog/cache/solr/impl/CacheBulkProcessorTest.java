@@ -110,6 +110,35 @@ public void exceedsBacklog() throws Exception {
     verify(mockSolrCache, never()).create(anyCollectionOf(Metacard.class));
   }
 
+  @Test
+  public void droppedWhenBacklogIsFull() throws Exception {
+    cacheBulkProcessor.setFlushInterval(TimeUnit.MINUTES.toMillis(1));
+    cacheBulkProcessor.setMaximumBacklogSize(5);
+    List<Result> mockResults = getMockResults(8);
+
+    cacheBulkProcessor.add(mockResults);
+    // metacards already in the backlog are still updated
+    cacheBulkProcessor.add(mockResults.subList(0, 1));
+
+    assertThat(cacheBulkProcessor.pendingMetacards()).isEqualTo(5);
+    assertThat(cacheBulkProcessor.droppedMetacards()).isEqualTo(3);
+    verify(mockSolrCache, never()).create(anyCollectionOf(Metacard.class));
+  }
+
+  @Test
+  public void parallelWriters() throws Exception {
+    cacheBulkProcessor.setWriterThreads(4);
+    List<Result> mockResults = getMockResults(40);
+
+    cacheBulkProcessor.add(mockResults);
+    waitForPendingMetacardsToCache();
+
+    verify(mockSolrCache, atLeast(4)).create(capturedMetacards.capture());
+    List<Metacard> cachedMetacards = new ArrayList<>();
+    capturedMetacards.getAllValues().forEach(cachedMetacards::addAll);
+    assertThat(cachedMetacards).hasSize(40).containsAll(getMetacards(mockResults));
+  }
+
   @Test
   public void cacheThrowsExcpetion() throws Exception {
     doThrow(new RuntimeException())
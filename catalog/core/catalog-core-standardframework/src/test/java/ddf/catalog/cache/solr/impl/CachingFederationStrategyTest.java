@@ -24,6 +24,7 @@
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -37,6 +38,7 @@
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
 import ddf.catalog.operation.CreateResponse;
 import ddf.catalog.operation.DeleteRequest;
@@ -652,6 +654,32 @@ public void testProcessCreateResponse() throws Exception {
     assertThat(response, is(strategy.process(response)));
   }
 
+  @Test
+  public void testFederateQueryResultCache() throws Exception {
+    FilterAdapter filterAdapter = mock(FilterAdapter.class);
+    doReturn("filter").when(filterAdapter).adapt(any(), any());
+    federateStrategy.setFilterAdapter(filterAdapter);
+    federateStrategy.setQueryResultCacheEnabled(true);
+
+    Source mockSource = getMockSource();
+    List<Source> sourceList = ImmutableList.of(mockSource);
+    QueryRequest fedQueryRequest = new QueryRequestImpl(mockQuery, false, null, properties);
+
+    federateStrategy.federate(sourceList, fedQueryRequest);
+    QueryResponse federateResponse = federateStrategy.federate(sourceList, fedQueryRequest);
+
+    assertThat(federateResponse.getResults().size(), is(1));
+    assertThat(federateResponse.getResults().get(0).getMetacard().getId(), is(metacard.getId()));
+    verify(mockSource, times(1)).query(any(QueryRequest.class));
+
+    // a local ingest discards the cached results
+    CreateResponse createResponse = mock(CreateResponseImpl.class);
+    federateStrategy.process(createResponse);
+    federateStrategy.federate(sourceList, fedQueryRequest);
+
+    verify(mockSource, times(2)).query(any(QueryRequest.class));
+  }
+
   @Test(expected = NullPointerException.class)
   public void testNullQueryExecutorService() throws Exception {
     strategy =
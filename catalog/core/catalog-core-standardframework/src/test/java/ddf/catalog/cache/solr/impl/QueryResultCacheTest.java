@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.cache.solr.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.filter.FilterAdapter;
+import ddf.catalog.filter.proxy.builder.GeotoolsFilterBuilder;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.operation.impl.ProcessingDetailsImpl;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.SourceResponseImpl;
+import ddf.catalog.source.Source;
+import ddf.catalog.source.UnsupportedQueryException;
+import ddf.security.SecurityConstants;
+import ddf.security.Subject;
+import ddf.security.SubjectIdentity;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryResultCacheTest {
+
+  private FilterAdapter filterAdapter;
+
+  private SubjectIdentity subjectIdentity;
+
+  private Source source;
+
+  private QueryResultCache queryResultCache;
+
+  @Before
+  public void setUp() throws Exception {
+    filterAdapter = mock(FilterAdapter.class);
+    doReturn("filter").when(filterAdapter).adapt(any(), any());
+    subjectIdentity = mock(SubjectIdentity.class);
+    source = mock(Source.class);
+    when(source.getId()).thenReturn("source");
+
+    queryResultCache = new QueryResultCache(filterAdapter, subjectIdentity, 60, 10);
+  }
+
+  @Test
+  public void testCachedResponseIsCopied() {
+    MetacardImpl metacard = new MetacardImpl();
+    metacard.setId("id");
+    ResultImpl result = new ResultImpl(metacard);
+    result.setRelevanceScore(0.5);
+    QueryRequest request = getRequest(1, null);
+    SourceResponse response =
+        new SourceResponseImpl(request, Collections.singletonList(result), 7L);
+
+    String key = queryResultCache.getKey(source, request);
+    assertThat(queryResultCache.get(key, request), nullValue());
+    queryResultCache.put(key, response);
+
+    SourceResponse cached = queryResultCache.get(key, request);
+    assertThat(cached.getHits(), is(7L));
+    Result cachedResult = cached.getResults().get(0);
+    assertThat(cachedResult.getRelevanceScore(), is(0.5));
+    assertThat(cachedResult.getMetacard().getId(), is("id"));
+    assertThat(cachedResult.getMetacard(), not(sameInstance(metacard)));
+
+    queryResultCache.invalidateAll();
+    assertThat(queryResultCache.get(key, request), nullValue());
+  }
+
+  @Test
+  public void testResponseWithProcessingDetailsIsNotCached() {
+    QueryRequest request = getRequest(1, null);
+    SourceResponse response = mock(SourceResponse.class);
+    when(response.getRequest()).thenReturn(request);
+    when(response.getResults()).thenReturn(Collections.emptyList());
+    when(response.getProcessingDetails())
+        .thenReturn(
+            Collections.singleton(
+                new ProcessingDetailsImpl("source", new Exception("Partial response"))));
+
+    String key = queryResultCache.getKey(source, request);
+    queryResultCache.put(key, response);
+
+    assertThat(queryResultCache.get(key, request), nullValue());
+  }
+
+  @Test
+  public void testResponseWithWarningsIsNotCached() {
+    QueryRequest request = getRequest(1, null);
+    SourceResponseImpl response = new SourceResponseImpl(request, Collections.emptyList(), 0L);
+    response.setWarnings(Collections.singletonList("warning"));
+
+    String key = queryResultCache.getKey(source, request);
+    queryResultCache.put(key, response);
+
+    assertThat(queryResultCache.get(key, request), nullValue());
+  }
+
+  @Test
+  public void testKeyDependsOnPagingAndSubject() {
+    Subject subject1 = mock(Subject.class);
+    Subject subject2 = mock(Subject.class);
+    when(subjectIdentity.getUniqueIdentifier(subject1)).thenReturn("user1");
+    when(subjectIdentity.getUniqueIdentifier(subject2)).thenReturn("user2");
+
+    String key = queryResultCache.getKey(source, getRequest(1, subject1));
+
+    assertThat(key, is(queryResultCache.getKey(source, getRequest(1, subject1))));
+    assertThat(key, not(queryResultCache.getKey(source, getRequest(11, subject1))));
+    assertThat(key, not(queryResultCache.getKey(source, getRequest(1, subject2))));
+  }
+
+  @Test
+  public void testUnidentifiedSubjectIsNotCached() {
+    queryResultCache = new QueryResultCache(filterAdapter, null, 60, 10);
+
+    assertThat(queryResultCache.getKey(source, getRequest(1, null)), notNullValue());
+    assertThat(queryResultCache.getKey(source, getRequest(1, mock(Subject.class))), nullValue());
+  }
+
+  @Test
+  public void testUnsupportedFilterIsNotCached() throws Exception {
+    doThrow(new UnsupportedQueryException()).when(filterAdapter).adapt(any(), any());
+
+    assertThat(queryResultCache.getKey(source, getRequest(1, null)), nullValue());
+  }
+
+  private QueryRequest getRequest(int startIndex, Subject subject) {
+    Map<String, Serializable> properties = new HashMap<>();
+    if (subject != null) {
+      properties.put(SecurityConstants.SECURITY_SUBJECT, subject);
+    }
+    QueryImpl query =
+        new QueryImpl(
+            new GeotoolsFilterBuilder().attribute("title").is().like().text("*"),
+            startIndex,
+            10,
+            null,
+            false,
+            1000);
+    return new QueryRequestImpl(query, properties);
+  }
+}
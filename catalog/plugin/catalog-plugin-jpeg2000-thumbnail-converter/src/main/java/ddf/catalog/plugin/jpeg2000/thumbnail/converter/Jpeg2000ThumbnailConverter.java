@@ -21,6 +21,7 @@
 import ddf.catalog.operation.QueryResponse;
 import ddf.catalog.plugin.PluginExecutionException;
 import ddf.catalog.plugin.PostQueryPlugin;
+import ddf.catalog.plugin.ResultIndependentPlugin;
 import ddf.catalog.plugin.StopProcessingException;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
@@ -33,7 +34,7 @@
  * check for Jpeg 2000 thumbnails in the result set, and convert them to standard Jpeg so the
  * browser can render them.
  */
-public class Jpeg2000ThumbnailConverter implements PostQueryPlugin {
+public class Jpeg2000ThumbnailConverter implements PostQueryPlugin, ResultIndependentPlugin {
 
   public static final int OTHER_JP2_SIGNATURE = 0x0000000c;
 
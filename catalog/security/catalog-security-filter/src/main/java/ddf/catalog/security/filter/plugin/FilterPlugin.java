@@ -13,6 +13,10 @@
  */
 package ddf.catalog.security.filter.plugin;
 
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
@@ -41,12 +45,18 @@
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.subject.Subject;
 import org.codice.ddf.security.common.Security;
 import org.osgi.framework.Bundle;
@@ -68,6 +78,39 @@ public class FilterPlugin implements AccessPlugin {
 
   private static final Security SECURITY = Security.getInstance();
 
+  private static final String DECISIONS_SCOPE = "Decisions";
+
+  private final MetricRegistry metrics = new MetricRegistry();
+
+  private final JmxReporter reporter =
+      JmxReporter.forRegistry(metrics).inDomain("ddf.metrics.catalog.security.filter").build();
+
+  private final Meter evaluatedDecisions =
+      metrics.meter(MetricRegistry.name(DECISIONS_SCOPE, "Evaluated"));
+
+  private final Meter cachedDecisions =
+      metrics.meter(MetricRegistry.name(DECISIONS_SCOPE, "Cached"));
+
+  public FilterPlugin() {
+    metrics.register(
+        MetricRegistry.name(DECISIONS_SCOPE, "CacheHitRatio"),
+        new RatioGauge() {
+          @Override
+          protected Ratio getRatio() {
+            long cached = cachedDecisions.getCount();
+            return Ratio.of(cached, (double) cached + evaluatedDecisions.getCount());
+          }
+        });
+  }
+
+  public void init() {
+    reporter.start();
+  }
+
+  public void destroy() {
+    reporter.stop();
+  }
+
   public void addStrategy(ServiceReference<FilterStrategy> filterStrategyRef) {
     Bundle bundle = FrameworkUtil.getBundle(FilterPlugin.class);
     if (bundle != null) {
@@ -87,21 +130,22 @@ protected Subject getSystemSubject() {
 
   @Override
   public CreateRequest processPreCreate(CreateRequest input) throws StopProcessingException {
-    KeyValueCollectionPermission securityPermission =
-        new KeyValueCollectionPermission(CollectionPermission.CREATE_ACTION);
     List<Metacard> metacards = input.getMetacards();
     Subject subject = getSubject(input);
     Subject systemSubject = getSystemSubject();
+    Decisions userDecisions = new Decisions(subject, CollectionPermission.CREATE_ACTION);
+    Decisions systemDecisions = new Decisions(systemSubject, CollectionPermission.CREATE_ACTION);
+    List<Attribute> securityAttributes = getSecurityAttributes(metacards);
+    userDecisions.decideAll(securityAttributes);
+    systemDecisions.decideAll(securityAttributes);
     List<String> userNotPermittedTitles = new ArrayList<>();
     List<String> systemNotPermittedTitles = new ArrayList<>();
     for (Metacard metacard : metacards) {
       Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-      if (!checkPermissions(
-          attr, securityPermission, subject, CollectionPermission.CREATE_ACTION)) {
+      if (!userDecisions.isPermitted(attr)) {
         userNotPermittedTitles.add(metacard.getTitle());
       }
-      if (!checkPermissions(
-          attr, securityPermission, systemSubject, CollectionPermission.CREATE_ACTION)) {
+      if (!systemDecisions.isPermitted(attr)) {
         systemNotPermittedTitles.add(metacard.getTitle());
       }
     }
@@ -126,11 +170,17 @@ public CreateRequest processPreCreate(CreateRequest input) throws StopProcessing
   @Override
   public UpdateRequest processPreUpdate(UpdateRequest input, Map<String, Metacard> metacards)
       throws StopProcessingException {
-    KeyValueCollectionPermission securityPermission =
-        new KeyValueCollectionPermission(CollectionPermission.UPDATE_ACTION);
     List<Map.Entry<Serializable, Metacard>> updates = input.getUpdates();
     Subject subject = getSubject(input);
     Subject systemSubject = getSystemSubject();
+    Decisions userDecisions = new Decisions(subject, CollectionPermission.UPDATE_ACTION);
+    Decisions systemDecisions = new Decisions(systemSubject, CollectionPermission.UPDATE_ACTION);
+    List<Attribute> securityAttributes =
+        getSecurityAttributes(
+            updates.stream().map(Map.Entry::getValue).collect(Collectors.toList()));
+    systemDecisions.decideAll(securityAttributes);
+    securityAttributes.addAll(getSecurityAttributes(metacards.values()));
+    userDecisions.decideAll(securityAttributes);
     List<String> unknownIds = new ArrayList<>();
     List<String> userNotPermittedIds = new ArrayList<>();
     List<String> systemNotPermittedIds = new ArrayList<>();
@@ -148,13 +198,10 @@ public UpdateRequest processPreUpdate(UpdateRequest input, Map<String, Metacard>
         unknownIds.add(id);
       } else {
         Attribute oldAttr = oldMetacard.getAttribute(Metacard.SECURITY);
-        if (!checkPermissions(attr, securityPermission, subject, CollectionPermission.UPDATE_ACTION)
-            || !checkPermissions(
-                oldAttr, securityPermission, subject, CollectionPermission.UPDATE_ACTION)) {
+        if (!userDecisions.isPermitted(attr) || !userDecisions.isPermitted(oldAttr)) {
           userNotPermittedIds.add(newMetacard.getId());
         }
-        if (!checkPermissions(
-            attr, securityPermission, systemSubject, CollectionPermission.UPDATE_ACTION)) {
+        if (!systemDecisions.isPermitted(attr)) {
           systemNotPermittedIds.add(newMetacard.getId());
         }
       }
@@ -191,12 +238,12 @@ public DeleteResponse processPostDelete(DeleteResponse input) throws StopProcess
 
     List<Metacard> results = input.getDeletedMetacards();
     List<Metacard> newResults = new ArrayList<>(results.size());
-    KeyValueCollectionPermission securityPermission =
-        new KeyValueCollectionPermission(CollectionPermission.READ_ACTION);
+    Decisions decisions = new Decisions(subject, CollectionPermission.READ_ACTION);
+    decisions.decideAll(getSecurityAttributes(results));
     int filteredMetacards = 0;
     for (Metacard metacard : results) {
       Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-      if (!checkPermissions(attr, securityPermission, subject, CollectionPermission.READ_ACTION)) {
+      if (!decisions.isPermitted(attr)) {
         for (FilterStrategy filterStrategy : filterStrategies.values()) {
           FilterResult filterResult = filterStrategy.process(input, metacard);
           if (filterResult.processed()) {
@@ -240,13 +287,15 @@ public QueryResponse processPostQuery(QueryResponse input) throws StopProcessing
     List<Result> results = input.getResults();
     List<Result> newResults = new ArrayList<>(results.size());
     Metacard metacard;
-    KeyValueCollectionPermission securityPermission =
-        new KeyValueCollectionPermission(CollectionPermission.READ_ACTION);
+    Decisions decisions = new Decisions(subject, CollectionPermission.READ_ACTION);
+    decisions.decideAll(
+        getSecurityAttributes(
+            results.stream().map(Result::getMetacard).collect(Collectors.toList())));
     int filteredMetacards = 0;
     for (Result result : results) {
       metacard = result.getMetacard();
       Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-      if (!checkPermissions(attr, securityPermission, subject, CollectionPermission.READ_ACTION)) {
+      if (!decisions.isPermitted(attr)) {
         for (FilterStrategy filterStrategy : filterStrategies.values()) {
           FilterResult filterResult = filterStrategy.process(input, metacard);
           if (filterResult.processed()) {
@@ -286,11 +335,9 @@ public ResourceResponse processPostResource(ResourceResponse input, Metacard met
       throw new StopProcessingException(
           "Unable to filter contents of current message, no user Subject available.");
     }
-    KeyValueCollectionPermission securityPermission =
-        new KeyValueCollectionPermission(CollectionPermission.READ_ACTION);
     Subject subject = getSubject(input);
     Attribute attr = metacard.getAttribute(Metacard.SECURITY);
-    if (!checkPermissions(attr, securityPermission, subject, CollectionPermission.READ_ACTION)) {
+    if (!new Decisions(subject, CollectionPermission.READ_ACTION).isPermitted(attr)) {
       for (FilterStrategy filterStrategy : filterStrategies.values()) {
         FilterResult filterResult = filterStrategy.process(input, metacard);
         if (filterResult.processed()) {
@@ -333,19 +380,88 @@ private Subject getSubject(Request input) throws StopProcessingException {
     return subject;
   }
 
-  private boolean checkPermissions(
-      Attribute attr,
-      KeyValueCollectionPermission securityPermission,
-      Subject subject,
-      String action) {
-    Map<String, Set<String>> map = null;
+  private static List<Attribute> getSecurityAttributes(Collection<Metacard> metacards) {
+    List<Attribute> securityAttributes = new ArrayList<>(metacards.size());
+    for (Metacard metacard : metacards) {
+      securityAttributes.add(metacard.getAttribute(Metacard.SECURITY));
+    }
+    return securityAttributes;
+  }
+
+  /**
+   * The decisions of whether a subject is permitted to perform an action on metacards, given their
+   * security attribute. The metacards of a request usually share a handful of distinct security
+   * markings, so the decision for each distinct marking is only made once per request, and the
+   * decisions of a page of metacards are requested from the subject in a single check.
+   */
+  private class Decisions {
+
+    private final Subject subject;
+
+    private final String action;
 
-    if (attr != null) {
-      map = (Map<String, Set<String>>) attr.getValue();
+    /** Decisions by the values of each security marking, {@code null} for unmarked metacards. */
+    private final Map<Map<String, Set<String>>, Boolean> decisions = new HashMap<>();
+
+    Decisions(Subject subject, String action) {
+      this.subject = subject;
+      this.action = action;
     }
-    if (map != null) {
-      securityPermission = new KeyValueCollectionPermission(action, map);
+
+    /** Makes the decisions for all the security attributes that are not decided yet at once. */
+    void decideAll(Collection<Attribute> securityAttributes) {
+      Map<Map<String, Set<String>>, Permission> undecided = new LinkedHashMap<>();
+      for (Attribute securityAttribute : securityAttributes) {
+        Map<String, Set<String>> key = getKey(securityAttribute);
+        if (!decisions.containsKey(key) && !undecided.containsKey(key)) {
+          undecided.put(key, getPermission(key));
+        }
+      }
+      if (undecided.isEmpty()) {
+        return;
+      }
+
+      boolean[] permitted = subject.isPermitted(new ArrayList<>(undecided.values()));
+      evaluatedDecisions.mark(undecided.size());
+      int i = 0;
+      for (Map<String, Set<String>> key : undecided.keySet()) {
+        decisions.put(key, permitted[i++]);
+      }
+    }
+
+    boolean isPermitted(Attribute securityAttribute) {
+      Map<String, Set<String>> key = getKey(securityAttribute);
+      Boolean permitted = decisions.get(key);
+      if (permitted == null) {
+        evaluatedDecisions.mark();
+        permitted = subject.isPermitted(getPermission(key));
+        decisions.put(key, permitted);
+      } else {
+        cachedDecisions.mark();
+      }
+      return permitted;
+    }
+
+    private Permission getPermission(Map<String, Set<String>> key) {
+      if (key == null) {
+        return new KeyValueCollectionPermission(action);
+      }
+      return new KeyValueCollectionPermission(action, key);
+    }
+
+    /**
+     * The permission only looks at the set of values of each key, so markings that only differ in
+     * the order or repetition of their values get the same decision.
+     */
+    private Map<String, Set<String>> getKey(Attribute securityAttribute) {
+      if (securityAttribute == null || securityAttribute.getValue() == null) {
+        return null;
+      }
+      Map<String, ? extends Collection<String>> markings =
+          (Map<String, ? extends Collection<String>>) securityAttribute.getValue();
+      Map<String, Set<String>> key = new HashMap<>(markings.size());
+      markings.forEach((name, values) -> key.put(name, new HashSet<>(values)));
+      return key;
     }
-    return subject.isPermitted(securityPermission);
   }
 }
@@ -18,7 +18,11 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.catalog.data.Metacard;
@@ -57,6 +61,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.mgt.DefaultSecurityManager;
 import org.apache.shiro.mgt.SecurityManager;
@@ -80,6 +85,10 @@ public class FilterPluginTest {
 
   FilterPlugin plugin;
 
+  AuthorizingRealm realm;
+
+  DefaultSecurityManager manager;
+
   QueryResponseImpl incomingResponse;
 
   ResourceResponseImpl resourceResponse;
@@ -96,7 +105,7 @@ public class FilterPluginTest {
 
   @Before
   public void setup() {
-    AuthorizingRealm realm = mock(AuthorizingRealm.class);
+    realm = mock(AuthorizingRealm.class);
 
     when(realm.getName()).thenReturn("mockRealm");
     when(realm.isPermitted(any(PrincipalCollection.class), any(Permission.class)))
@@ -105,7 +114,7 @@ public void setup() {
     Collection<org.apache.shiro.realm.Realm> realms = new ArrayList<>();
     realms.add(realm);
 
-    DefaultSecurityManager manager = new DefaultSecurityManager();
+    manager = new DefaultSecurityManager();
     manager.setRealms(realms);
     SimplePrincipalCollection principalCollection =
         new SimplePrincipalCollection(
@@ -170,15 +179,7 @@ protected Subject getSystemSubject() {
   }
 
   public Answer<Boolean> makeDecision() {
-
-    Map<String, List<String>> testRoleMap = new HashMap<>();
-    List<String> testRoles = new ArrayList<>();
-    testRoles.add("A");
-    testRoles.add("B");
-    testRoleMap.put("Roles", testRoles);
-
-    final KeyValueCollectionPermission testUserPermission =
-        new KeyValueCollectionPermission(CollectionPermission.READ_ACTION, testRoleMap);
+    final KeyValueCollectionPermission testUserPermission = getTestUserPermission();
 
     return new Answer<Boolean>() {
       @Override
@@ -190,6 +191,29 @@ public Boolean answer(InvocationOnMock invocation) {
     };
   }
 
+  public Answer<boolean[]> makeDecisions() {
+    final KeyValueCollectionPermission testUserPermission = getTestUserPermission();
+
+    return invocation -> {
+      List<Permission> incomingPermissions = (List<Permission>) invocation.getArguments()[1];
+      boolean[] decisions = new boolean[incomingPermissions.size()];
+      for (int i = 0; i < decisions.length; i++) {
+        decisions[i] = testUserPermission.implies(incomingPermissions.get(i));
+      }
+      return decisions;
+    };
+  }
+
+  private KeyValueCollectionPermission getTestUserPermission() {
+    Map<String, List<String>> testRoleMap = new HashMap<>();
+    List<String> testRoles = new ArrayList<>();
+    testRoles.add("A");
+    testRoles.add("B");
+    testRoleMap.put("Roles", testRoles);
+
+    return new KeyValueCollectionPermission(CollectionPermission.READ_ACTION, testRoleMap);
+  }
+
   @Test
   public void testPluginFilter() {
 
@@ -201,6 +225,38 @@ public void testPluginFilter() {
     }
   }
 
+  @Test
+  public void testIdenticalMarkingsAreDecidedOnce() throws StopProcessingException {
+    incomingResponse.addResult(new ResultImpl(getExactRolesMetacard()), false);
+    incomingResponse.addResult(new ResultImpl(getMoreRolesMetacard()), false);
+    incomingResponse.addResult(new ResultImpl(getNoSecurityAttributeMetacard()), true);
+
+    QueryResponse response = plugin.processPostQuery(incomingResponse);
+
+    assertThat(response.getResults().size(), is(6));
+    verify(realm, times(5)).isPermitted(any(PrincipalCollection.class), any(Permission.class));
+  }
+
+  @Test
+  public void testDecisionsOfAPageAreRequestedFromTheRealmAtOnce() throws StopProcessingException {
+    when(realm.isPermitted(any(PrincipalCollection.class), anyListOf(Permission.class)))
+        .then(makeDecisions());
+    manager.setAuthorizer(
+        new ModularRealmAuthorizer(manager.getRealms()) {
+          @Override
+          public boolean[] isPermitted(
+              PrincipalCollection principals, List<Permission> permissions) {
+            return realm.isPermitted(principals, permissions);
+          }
+        });
+
+    QueryResponse response = plugin.processPostQuery(incomingResponse);
+
+    verifyFilterResponse(response);
+    verify(realm).isPermitted(any(PrincipalCollection.class), anyListOf(Permission.class));
+    verify(realm, never()).isPermitted(any(PrincipalCollection.class), any(Permission.class));
+  }
+
   @Test
   public void testPluginFilterNoStrategies() {
     plugin = new FilterPlugin();
@@ -204,9 +204,11 @@ public SendEvent(
     ping();
   }
 
+  /** @throws IllegalStateException if the event could not be sent to the callback url */
   private void sendEvent(String operation, Metacard... metacards) {
     if (subject == null) {
-      return;
+      throw new IllegalStateException(
+          "Event callback url " + callbackUrl + " has not been reached.");
     }
     try {
       List<Result> results =
@@ -236,7 +238,9 @@ private void sendEvent(String operation, Metacard... metacards) {
       }
       recordCollection.setSourceResponse(queryResponse);
 
-      send(operation, recordCollection);
+      if (!send(operation, recordCollection)) {
+        throw new IllegalStateException("Unable to send event to callback url " + callbackUrl);
+      }
     } catch (StopProcessingException | InvalidSyntaxException e) {
       LOGGER.debug("Unable to send event error running AccessPlugin processPostQuery. ", e);
     }
@@ -169,6 +169,18 @@ public void testDeleted() throws Exception {
     verifyResults();
   }
 
+  @Test(expected = IllegalStateException.class)
+  public void testFailedSendIsReported() throws Exception {
+    when(webclient.invoke(eq("POST"), anyObject())).thenThrow(new RuntimeException());
+    sendEvent.created(metacard);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnreachedCallbackIsReported() throws Exception {
+    sendEvent.setSubject(null);
+    sendEvent.created(metacard);
+  }
+
   @Test
   public void testIsAvailableSubjectExpiration() throws Exception {
     when(webclient.invoke(eq("HEAD"), isNull())).thenReturn(response);
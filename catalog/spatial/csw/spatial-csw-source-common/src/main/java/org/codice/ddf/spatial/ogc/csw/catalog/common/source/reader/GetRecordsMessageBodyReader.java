@@ -42,6 +42,7 @@
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
+import org.codice.ddf.spatial.ogc.catalog.common.PrefixRecordingInputStream;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswSourceConfiguration;
@@ -128,21 +129,17 @@ public CswRecordCollection readFrom(
       return cswRecords;
     }
 
-    // Save original input stream for any exception message that might need to be
-    // created
-    String originalInputStream = IOUtils.toString(inStream, "UTF-8");
-    LOGGER.debug("Converting to CswRecordCollection: \n {}", originalInputStream);
-
-    // Re-create the input stream (since it has already been read for potential
-    // exception message creation)
-    inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
+    // Records are unmarshalled as they are read from the stream, only the start of the response
+    // is kept for any exception message that might need to be created
+    PrefixRecordingInputStream recordingStream = new PrefixRecordingInputStream(inStream);
 
     try {
       HierarchicalStreamReader reader =
           new XppReader(
-              new InputStreamReader(inStream, StandardCharsets.UTF_8),
+              new InputStreamReader(recordingStream, StandardCharsets.UTF_8),
               XmlPullParserFactory.newInstance().newPullParser());
       cswRecords = (CswRecordCollection) xstream.unmarshal(reader, null, argumentHolder);
+      LOGGER.debug("Converted to CswRecordCollection: \n {}", recordingStream);
     } catch (XmlPullParserException e) {
       LOGGER.debug("Unable to create XmlPullParser, and cannot parse CSW Response.", e);
     } catch (XStreamException e) {
@@ -151,12 +148,13 @@ public CswRecordCollection readFrom(
       // Instead the ExceptionReport will come here and be treated like a GetRecords
       // response, resulting in an XStreamException since ExceptionReport cannot be
       // unmarshalled. So this catch clause is responsible for catching that XStream
-      // exception and creating a JAX-RS response containing the original stream
+      // exception and creating a JAX-RS response containing the start of the original stream
       // (with the ExceptionReport) and rethrowing it as a WebApplicatioNException,
       // which CXF will wrap as a ClientException that the CswSource catches, converts
       // to a CswException, and logs.
-      ByteArrayInputStream bis =
-          new ByteArrayInputStream(originalInputStream.getBytes(StandardCharsets.UTF_8));
+      recordingStream.readPrefix();
+      LOGGER.debug("Unable to convert to CswRecordCollection: \n {}", recordingStream);
+      ByteArrayInputStream bis = new ByteArrayInputStream(recordingStream.getPrefix());
       ResponseBuilder responseBuilder = Response.ok(bis);
       responseBuilder.type("text/xml");
       Response response = responseBuilder.build();
@@ -19,6 +19,7 @@
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -36,13 +37,16 @@
 import ddf.security.encryption.EncryptionService;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
+import org.apache.commons.io.IOUtils;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswAxisOrder;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
@@ -267,4 +271,27 @@ public void testPartialContentNotSupportedHandling() throws Exception {
     // of bytes that was attempted to be skipped, the stream must be aligned there instead.
     assertThat(resource.getByteArray(), is(data));
   }
+
+  @Test
+  public void testExceptionReportIsReturnedInWebApplicationException() throws Exception {
+    CswSourceConfiguration config = new CswSourceConfiguration(encryptionService);
+    config.setOutputSchema(CswConstants.CSW_OUTPUT_SCHEMA);
+    GetRecordsMessageBodyReader reader = new GetRecordsMessageBodyReader(mockProvider, config);
+
+    String exceptionReport =
+        "<ows:ExceptionReport xmlns:ows=\"http://www.opengis.net/ows\" version=\"1.2.0\">"
+            + "<ows:Exception exceptionCode=\"InvalidParameterValue\" locator=\"maxRecords\">"
+            + "<ows:ExceptionText>maxRecords is too large</ows:ExceptionText>"
+            + "</ows:Exception></ows:ExceptionReport>";
+    InputStream is = new ByteArrayInputStream(exceptionReport.getBytes(StandardCharsets.UTF_8));
+
+    try {
+      reader.readFrom(
+          CswRecordCollection.class, null, null, null, new MultivaluedHashMap<>(), is);
+      fail("Expected a WebApplicationException");
+    } catch (WebApplicationException e) {
+      InputStream entity = (InputStream) e.getResponse().getEntity();
+      assertThat(IOUtils.toString(entity, StandardCharsets.UTF_8), is(exceptionReport));
+    }
+  }
 }
@@ -13,6 +13,9 @@
  */
 package org.codice.ddf.spatial.geocoding.create;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.codice.countrycode.standard.StandardProvider;
 import org.codice.countrycode.standard.StandardRegistry;
 import org.codice.countrycode.standard.StandardRegistryImpl;
@@ -24,11 +27,24 @@
  * href="http://download.geonames.org/export/dump">geonames.org</a>.
  */
 public class GeoNamesCreator implements GeoEntryCreator {
-  private StandardProvider isoStandard;
+  /** The alpha-3 country codes by alpha-2 country code, looked up for every GeoNames entry. */
+  private final Map<String, String> alpha3CountryCodes;
 
   public GeoNamesCreator() {
     StandardRegistry registry = StandardRegistryImpl.getInstance();
-    isoStandard = registry.lookup("ISO3166", "1");
+    StandardProvider isoStandard = registry.lookup("ISO3166", "1");
+
+    Map<String, String> countryCodes = new HashMap<>();
+    isoStandard
+        .getStandardEntries()
+        .forEach(
+            countryCode -> {
+              String alpha3 = countryCode.getAsFormat("alpha3");
+              if (alpha3 != null) {
+                countryCodes.putIfAbsent(countryCode.getAsFormat("alpha2"), alpha3);
+              }
+            });
+    alpha3CountryCodes = Collections.unmodifiableMap(countryCodes);
   }
 
   @Override
@@ -38,13 +54,7 @@ public GeoEntry createGeoEntry(final String line, String entryResource) {
 
     final String countryCodeAlpha2 = fields[8];
     String countryCodeAlpha3 =
-        isoStandard
-            .getStandardEntries()
-            .stream()
-            .filter(c -> c.getAsFormat("alpha2").equals(countryCodeAlpha2))
-            .findFirst()
-            .map(cc -> cc.getAsFormat("alpha3"))
-            .orElse(countryCodeAlpha2);
+        alpha3CountryCodes.getOrDefault(countryCodeAlpha2, countryCodeAlpha2);
 
     return new GeoEntry.Builder()
         .name(fields[1])
@@ -22,8 +22,13 @@
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import javax.ws.rs.NotFoundException;
@@ -43,6 +48,12 @@
 public class GeoNamesFileExtractor implements GeoEntryExtractor {
   private static final int BUFFER_SIZE = 4096;
 
+  /** The number of lines parsed together by one task. */
+  private static final int CHUNK_SIZE = 1000;
+
+  /** The number of chunks read ahead of the chunk being passed to the callback. */
+  private static final int CHUNKS_IN_FLIGHT = 2 * ForkJoinPool.getCommonPoolParallelism();
+
   private GeoEntryCreator geoEntryCreator;
 
   private WebClient webClient;
@@ -102,16 +113,34 @@ public void pushGeoEntriesToExtractionCallback(
 
     InputStream fileInputStream = getInputStreamFromResource(resource, extractionCallback);
 
+    // the lines are parsed in parallel chunks, and the entries are passed to the callback in the
+    // order of the lines from this thread
+    Deque<CompletableFuture<ParsedChunk>> chunks = new ArrayDeque<>();
+
     try (InputStreamReader inputStreamReader =
             new InputStreamReader(fileInputStream, StandardCharsets.UTF_8);
         BufferedReader reader = new BufferedReader(inputStreamReader)) {
 
       double bytesRead = 0.0;
 
+      List<String> lines = new ArrayList<>(CHUNK_SIZE);
       for (String line; (line = reader.readLine()) != null; ) {
-        extractionCallback.extracted(extractGeoEntry(line, resource));
-        bytesRead += line.getBytes(StandardCharsets.UTF_8).length;
-        extractionCallback.updateProgress((int) (50 + (bytesRead / fileSize) * 50));
+        lines.add(line);
+        if (lines.size() == CHUNK_SIZE) {
+          chunks.add(parseChunk(lines, resource));
+          lines = new ArrayList<>(CHUNK_SIZE);
+        }
+
+        if (chunks.size() > CHUNKS_IN_FLIGHT) {
+          bytesRead += pushChunk(chunks.remove(), extractionCallback, bytesRead);
+        }
+      }
+      if (!lines.isEmpty()) {
+        chunks.add(parseChunk(lines, resource));
+      }
+
+      while (!chunks.isEmpty()) {
+        bytesRead += pushChunk(chunks.remove(), extractionCallback, bytesRead);
       }
       extractionCallback.updateProgress(100);
 
@@ -122,9 +151,50 @@ public void pushGeoEntriesToExtractionCallback(
           resource + " does not follow the " + "expected GeoNames file format.", e);
     } catch (GeoEntryIndexingException e) {
       throw new GeoEntryExtractionException("Unable to extract GeoEntry from " + resource + ".", e);
+    } finally {
+      chunks.forEach(chunk -> chunk.cancel(false));
     }
   }
 
+  private CompletableFuture<ParsedChunk> parseChunk(List<String> lines, String resource) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          List<GeoEntry> geoEntries = new ArrayList<>(lines.size());
+          long bytes = 0;
+          for (String line : lines) {
+            geoEntries.add(extractGeoEntry(line, resource));
+            bytes += line.getBytes(StandardCharsets.UTF_8).length;
+          }
+          return new ParsedChunk(geoEntries, bytes);
+        });
+  }
+
+  /**
+   * Passes the entries of a chunk to the callback once it has been parsed.
+   *
+   * @return the number of bytes of the lines of the chunk
+   */
+  private long pushChunk(
+      CompletableFuture<ParsedChunk> chunk, ExtractionCallback extractionCallback, double bytesRead)
+      throws GeoEntryIndexingException {
+    ParsedChunk parsedChunk;
+    try {
+      parsedChunk = chunk.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+
+    for (GeoEntry geoEntry : parsedChunk.geoEntries) {
+      extractionCallback.extracted(geoEntry);
+    }
+    extractionCallback.updateProgress(
+        (int) (50 + ((bytesRead + parsedChunk.bytes) / fileSize) * 50));
+    return parsedChunk.bytes;
+  }
+
   /**
    * Determines the appropriate InputStream to get from the given file resource. If there is no file
    * extension, the resource is downloaded from a url ( default :
@@ -279,7 +349,7 @@ private InputStream getFileInputStream(String resource) throws GeoEntryExtractio
 
     try {
       File file = new File(resource);
-      fileSize = file.getTotalSpace();
+      fileSize = file.length();
       fileInputStream = new FileInputStream(file);
     } catch (FileNotFoundException e) {
       throw new GeoEntryExtractionException(resource + " cannot be found", e);
@@ -330,4 +400,15 @@ private InputStream unZipInputStream(String resource, InputStream inputStream)
   private GeoEntry extractGeoEntry(final String line, final String resource) {
     return geoEntryCreator.createGeoEntry(line, resource);
   }
+
+  private static class ParsedChunk {
+    private final List<GeoEntry> geoEntries;
+
+    private final long bytes;
+
+    ParsedChunk(List<GeoEntry> geoEntries, long bytes) {
+      this.geoEntries = geoEntries;
+      this.bytes = bytes;
+    }
+  }
 }
@@ -31,6 +31,8 @@
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import javax.ws.rs.core.Response;
 import org.apache.commons.io.FileUtils;
@@ -43,7 +45,9 @@
 import org.codice.ddf.spatial.geocoding.TestBase;
 import org.codice.ddf.spatial.geocoding.create.GeoNamesCreator;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
@@ -60,6 +64,8 @@ public class GeoNamesFileExtractorTest extends TestBase {
   private static final String UNSUPPORTED_FILE_PATH =
       GeoNamesFileExtractorTest.class.getResource("/geonames/foo.rtf").getPath();
 
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
   private GeoNamesFileExtractor geoNamesFileExtractor;
 
   private static final String URL = "http://example.com";
@@ -155,6 +161,40 @@ public void testExtractFromValidZipFileStreaming()
     FileUtils.deleteQuietly(new File(FilenameUtils.removeExtension(VALID_ZIP_FILE_PATH) + ".txt"));
   }
 
+  @Test
+  public void testExtractChunksInOrder()
+      throws GeoEntryExtractionException, GeoNamesRemoteDownloadException,
+          GeoEntryIndexingException, IOException {
+    int lineCount = 2500;
+    List<String> lines = new ArrayList<>(lineCount);
+    for (int i = 0; i < lineCount; i++) {
+      lines.add(
+          i
+              + "\tCity "
+              + i
+              + "\tCity "
+              + i
+              + "\t\t33.30616\t-111.84125\tP\tPPL\tUS\t\tAZ\t013\t\t\t"
+              + i
+              + "\t370\t368\tAmerica/Phoenix\t2011-05-14");
+    }
+    File file = tempDir.newFile("cities.txt");
+    FileUtils.writeLines(file, StandardCharsets.UTF_8.name(), lines);
+
+    final ExtractionCallback extractionCallback = mock(ExtractionCallback.class);
+    final ArgumentCaptor<GeoEntry> geoEntryArgumentCaptor = ArgumentCaptor.forClass(GeoEntry.class);
+    geoNamesFileExtractor.pushGeoEntriesToExtractionCallback(
+        file.getAbsolutePath(), extractionCallback);
+
+    verify(extractionCallback, times(lineCount)).extracted(geoEntryArgumentCaptor.capture());
+    verify(extractionCallback).updateProgress(100);
+    List<GeoEntry> geoEntries = geoEntryArgumentCaptor.getAllValues();
+    for (int i = 0; i < lineCount; i++) {
+      assertEquals("City " + i, geoEntries.get(i).getName());
+      assertEquals(i, geoEntries.get(i).getPopulation());
+    }
+  }
+
   @Test
   public void testExtractFromTextFileWrongFormat()
       throws GeoEntryExtractionException, GeoNamesRemoteDownloadException {
@@ -52,14 +52,22 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.RetryPolicy;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.codice.ddf.platform.util.uuidgenerator.UuidGenerator;
 import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
 import org.codice.ddf.spatial.geocoding.GeoEntry;
@@ -79,6 +87,8 @@ public class GeoNamesCatalogIndexer implements GeoEntryIndexer {
 
   private static final int BATCH_SIZE = 250;
 
+  private static final int DEFAULT_CREATE_THREADS = 4;
+
   private static final String TITLE_FORMAT = "%s, %s";
 
   private static final String PROCESSED = ".processed";
@@ -100,6 +110,10 @@ public class GeoNamesCatalogIndexer implements GeoEntryIndexer {
 
   private FilterBuilder filterBuilder;
 
+  private int createBatchSize = BATCH_SIZE;
+
+  private int createThreads = DEFAULT_CREATE_THREADS;
+
   public GeoNamesCatalogIndexer(
       CatalogFramework catalogFramework,
       UuidGenerator uuidGenerator,
@@ -193,22 +207,20 @@ public void updateIndex(
       return;
     }
 
-    List<Metacard> metacardList = new ArrayList<>();
+    final MetacardBatchCreator metacardBatchCreator = new MetacardBatchCreator();
 
     final GeoEntryExtractor.ExtractionCallback extractionCallback =
         new GeoEntryExtractor.ExtractionCallback() {
           @Override
           public void extracted(final GeoEntry newEntry) throws GeoEntryIndexingException {
-            Metacard metacard = transformGeoEntryToMetacard(newEntry);
-            if (metacard != null) {
-              metacardList.add(metacard);
-            }
+            metacardBatchCreator.add(newEntry);
           }
 
           @Override
           public void updateProgress(final int progress) {
+            // the resource is indexed once the last batch is created, not once it is extracted
             if (progressCallback != null) {
-              progressCallback.updateProgress(progress);
+              progressCallback.updateProgress(Math.min(progress, 99));
             }
           }
         };
@@ -224,16 +236,35 @@ public void updateProgress(final int progress) {
           .run(() -> removeGeoNamesMetacardsFromCatalog(resource, extractionCallback));
     }
 
-    geoEntryExtractor.pushGeoEntriesToExtractionCallback(resource, extractionCallback);
+    boolean extracted = false;
+    try {
+      geoEntryExtractor.pushGeoEntriesToExtractionCallback(resource, extractionCallback);
+      extracted = true;
+    } finally {
+      if (!extracted) {
+        metacardBatchCreator.abort();
+      }
+    }
+    int totalMetacards = metacardBatchCreator.finish();
+
+    if (progressCallback != null) {
+      progressCallback.updateProgress(100);
+    }
 
-    if (CollectionUtils.isEmpty(metacardList)) {
-      LOGGER.debug("No Metacards were created from the resource.");
+    if (metacardBatchCreator.getFailedBatches() > 0) {
+      LOGGER.warn(
+          "{} batches of GeoNames metacards could not be created from {}, it is not marked as processed.",
+          metacardBatchCreator.getFailedBatches(),
+          resource);
       return;
     }
 
-    executeCreateMetacardRequest(metacardList);
+    if (totalMetacards == 0) {
+      LOGGER.debug("No Metacards were created from the resource.");
+      return;
+    }
 
-    LOGGER.trace("All data created for: {}", resource);
+    LOGGER.trace("Created {} metacards for: {}", totalMetacards, resource);
     fileProcessingComplete(resource);
   }
 
@@ -331,21 +362,15 @@ public void updateIndex(
   private void executeCreateMetacardRequest(List<Metacard> metacards) {
     int totalMetacards = metacards.size();
 
-    for (int i = 0; i < totalMetacards; i += BATCH_SIZE) {
+    for (int i = 0; i < totalMetacards; i += createBatchSize) {
 
-      int lastIndex = i + BATCH_SIZE;
+      int lastIndex = i + createBatchSize;
       if (lastIndex > metacards.size()) {
         lastIndex = metacards.size();
       }
 
-      List<Metacard> sublist = metacards.subList(i, lastIndex);
-      Map<String, Serializable> properties = new HashMap<>();
-      CreateRequest createRequest = new CreateRequestImpl(sublist, properties);
       try {
-        CreateResponse createResponse = catalogFramework.create(createRequest);
-        List<Metacard> createdMetacards = createResponse.getCreatedMetacards();
-        LOGGER.trace(
-            "Created {} metacards.", createdMetacards == null ? 0 : createdMetacards.size());
+        createMetacards(metacards.subList(i, lastIndex));
       } catch (IngestException | SourceUnavailableException e) {
         LOGGER.debug("Unable to create Metacards", e);
       }
@@ -354,6 +379,31 @@ private void executeCreateMetacardRequest(List<Metacard> metacards) {
     LOGGER.trace("Created {} metacards.", totalMetacards);
   }
 
+  /** @return the number of metacards created by a single create request */
+  private int createMetacards(List<Metacard> metacards)
+      throws IngestException, SourceUnavailableException {
+    if (metacards.isEmpty()) {
+      return 0;
+    }
+    Map<String, Serializable> properties = new HashMap<>();
+    CreateRequest createRequest = new CreateRequestImpl(metacards, properties);
+    CreateResponse createResponse = catalogFramework.create(createRequest);
+    List<Metacard> createdMetacards = createResponse.getCreatedMetacards();
+    int created = createdMetacards == null ? 0 : createdMetacards.size();
+    LOGGER.trace("Created {} metacards.", created);
+    return created;
+  }
+
+  /** @param createBatchSize the number of metacards created by each create request */
+  public void setCreateBatchSize(int createBatchSize) {
+    this.createBatchSize = createBatchSize;
+  }
+
+  /** @param createThreads the number of create requests sent to the catalog at the same time */
+  public void setCreateThreads(int createThreads) {
+    this.createThreads = createThreads;
+  }
+
   private boolean resourceProcessed(String resource) {
     String processedIndicator = resource + PROCESSED;
     File processedFile = new File(processedIndicator);
@@ -433,4 +483,116 @@ private Integer getGeoNameGazetterSortByFeatureClass(GeoEntry geoEntry) {
     }
     return gazetteerSortValue;
   }
+
+  /**
+   * Turns the extracted cities into metacards and creates them in batches, from a pool of threads.
+   * The queue of batches waiting for a thread is bounded; when it is full, the extracting thread
+   * creates the next batch itself. This keeps only a few batches of the resource in memory.
+   */
+  private class MetacardBatchCreator {
+
+    private final ExecutorService executor;
+
+    private final Subject subject = ThreadContext.getSubject();
+
+    private List<GeoEntry> batch = new ArrayList<>(createBatchSize);
+
+    private final AtomicInteger createdMetacards = new AtomicInteger();
+
+    private final AtomicInteger failedBatches = new AtomicInteger();
+
+    MetacardBatchCreator() {
+      executor =
+          new ThreadPoolExecutor(
+              createThreads,
+              createThreads,
+              0L,
+              TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(createThreads),
+              StandardThreadFactoryBuilder.newThreadFactory("geoNamesIndexerThread"),
+              new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    void add(GeoEntry geoEntry) {
+      if (!GeoCodingConstants.CITY_FEATURE_CODES.contains(geoEntry.getFeatureCode())) {
+        return;
+      }
+
+      batch.add(geoEntry);
+      if (batch.size() == createBatchSize) {
+        submitBatch();
+      }
+    }
+
+    /**
+     * Creates the last batch and waits for all the batches to be created.
+     *
+     * @return the number of metacards created
+     * @throws GeoEntryIndexingException if interrupted while waiting for the batches
+     */
+    int finish() throws GeoEntryIndexingException {
+      if (!batch.isEmpty()) {
+        submitBatch();
+      }
+
+      try {
+        awaitBatches();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new GeoEntryIndexingException("Interrupted while creating GeoNames metacards.", e);
+      }
+      return createdMetacards.get();
+    }
+
+    /** Discards the batch being filled and waits for the batches already submitted. */
+    void abort() {
+      batch = new ArrayList<>();
+      try {
+        awaitBatches();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /** @return the number of batches that could not be created */
+    int getFailedBatches() {
+      return failedBatches.get();
+    }
+
+    private void awaitBatches() throws InterruptedException {
+      executor.shutdown();
+      try {
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+          LOGGER.debug("Waiting for GeoNames metacards to be created.");
+        }
+      } catch (InterruptedException e) {
+        executor.shutdownNow();
+        throw e;
+      }
+    }
+
+    private void submitBatch() {
+      List<GeoEntry> geoEntries = batch;
+      batch = new ArrayList<>(createBatchSize);
+
+      Runnable createMetacards =
+          () -> {
+            try {
+              createdMetacards.addAndGet(
+                  GeoNamesCatalogIndexer.this.createMetacards(
+                      geoEntries
+                          .stream()
+                          .map(GeoNamesCatalogIndexer.this::transformGeoEntryToMetacard)
+                          .filter(Objects::nonNull)
+                          .collect(Collectors.toList())));
+            } catch (IngestException | SourceUnavailableException | RuntimeException e) {
+              LOGGER.debug("Unable to create GeoNames metacards.", e);
+              failedBatches.incrementAndGet();
+            }
+          };
+
+      // the catalog checks the permissions of the subject indexing the resource
+      executor.execute(subject == null ? createMetacards : subject.associateWith(createMetacards));
+    }
+  }
 }
@@ -0,0 +1,523 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.spatial.geocoding.GeoEntry;
+import org.codice.ddf.spatial.geocoding.Suggestion;
+import org.codice.ddf.spatial.geocoding.context.NearbyLocation;
+import org.codice.ddf.spatial.geocoding.context.impl.NearbyLocationImpl;
+import org.codice.ddf.spatial.geocoding.context.impl.SuggestionImpl;
+import org.locationtech.spatial4j.context.SpatialContext;
+import org.locationtech.spatial4j.distance.DistanceUtils;
+import org.locationtech.spatial4j.shape.impl.PointImpl;
+
+/**
+ * An immutable in-memory index of gazetteer cities.
+ *
+ * <p>Names are normalized and every word of a name starts a key. The keys are kept sorted, so the
+ * keys starting with a prefix form one range of the sorted keys, and a segment tree over the
+ * population of the keys returns the most populated cities of that range without visiting the rest
+ * of it. Cities are also bucketed into a grid of one degree cells, so nearby cities are found by
+ * visiting only the cells within the search radius.
+ */
+final class GazetteerIndex {
+
+  private static final SpatialContext SPATIAL_CONTEXT = SpatialContext.GEO;
+
+  private static final int SNAPSHOT_MAGIC = 0x47415a31;
+
+  private static final int GRID_ROWS = 180;
+
+  private static final int GRID_COLUMNS = 360;
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private final long version;
+
+  private final GeoEntry[] entries;
+
+  private final String[] names;
+
+  private final long[] populations;
+
+  /** The entry and the offset in its name of each key, in the order of the keys. */
+  private final int[] keyEntries;
+
+  private final int[] keyOffsets;
+
+  /** The key of the most populated city below each node, the leaves start at {@link #leaves}. */
+  private final int[] populationTree;
+
+  private final int leaves;
+
+  /** The entries of grid cell {@code c} are {@code cellEntries[cellStarts[c]..cellStarts[c+1]]}. */
+  private final int[] cellStarts;
+
+  private final int[] cellEntries;
+
+  /**
+   * @param entries the cities, named the way they are titled in the catalog
+   * @param version identifies this index in the ids it gives out, it should differ from the
+   *     versions of the indexes this one replaces
+   */
+  GazetteerIndex(List<GeoEntry> entries, long version) {
+    this.version = version;
+    this.entries = entries.toArray(new GeoEntry[0]);
+    this.names = new String[this.entries.length];
+    this.populations = new long[this.entries.length];
+
+    int keyCount = 0;
+    for (int i = 0; i < this.entries.length; i++) {
+      names[i] = normalize(this.entries[i].getName());
+      populations[i] = this.entries[i].getPopulation();
+      keyCount += StringUtils.countMatches(names[i], " ") + (names[i].isEmpty() ? 0 : 1);
+    }
+
+    Integer[] keys = new Integer[keyCount];
+    int[] unsortedEntries = new int[keyCount];
+    int[] unsortedOffsets = new int[keyCount];
+    int key = 0;
+    for (int i = 0; i < names.length; i++) {
+      int offset = names[i].isEmpty() ? -1 : 0;
+      while (offset >= 0) {
+        unsortedEntries[key] = i;
+        unsortedOffsets[key] = offset;
+        keys[key] = key;
+        key++;
+        offset = names[i].indexOf(' ', offset);
+        offset = offset < 0 ? -1 : offset + 1;
+      }
+    }
+
+    Arrays.sort(
+        keys,
+        (a, b) ->
+            compare(
+                names[unsortedEntries[a]],
+                unsortedOffsets[a],
+                names[unsortedEntries[b]],
+                unsortedOffsets[b]));
+
+    keyEntries = new int[keyCount];
+    keyOffsets = new int[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      keyEntries[i] = unsortedEntries[keys[i]];
+      keyOffsets[i] = unsortedOffsets[keys[i]];
+    }
+
+    int size = 1;
+    while (size < keyCount) {
+      size <<= 1;
+    }
+    leaves = size;
+    populationTree = new int[2 * size];
+    Arrays.fill(populationTree, -1);
+    for (int i = 0; i < keyCount; i++) {
+      populationTree[size + i] = i;
+    }
+    for (int node = size - 1; node > 0; node--) {
+      populationTree[node] = morePopulated(populationTree[2 * node], populationTree[2 * node + 1]);
+    }
+
+    cellStarts = new int[GRID_ROWS * GRID_COLUMNS + 1];
+    for (GeoEntry entry : this.entries) {
+      if (hasLocation(entry)) {
+        cellStarts[cell(entry.getLatitude(), entry.getLongitude()) + 1]++;
+      }
+    }
+    for (int cell = 0; cell < GRID_ROWS * GRID_COLUMNS; cell++) {
+      cellStarts[cell + 1] += cellStarts[cell];
+    }
+    cellEntries = new int[cellStarts[GRID_ROWS * GRID_COLUMNS]];
+    int[] cellEnds = Arrays.copyOf(cellStarts, GRID_ROWS * GRID_COLUMNS);
+    for (int i = 0; i < this.entries.length; i++) {
+      GeoEntry entry = this.entries[i];
+      if (hasLocation(entry)) {
+        cellEntries[cellEnds[cell(entry.getLatitude(), entry.getLongitude())]++] = i;
+      }
+    }
+  }
+
+  /**
+   * Reads an index back from a snapshot written by {@link #writeSnapshot(Path)}.
+   *
+   * @throws IOException if the snapshot cannot be read or is not a gazetteer snapshot
+   */
+  static GazetteerIndex readSnapshot(Path snapshot, long version) throws IOException {
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+      if (input.readInt() != SNAPSHOT_MAGIC) {
+        throw new IOException(snapshot + " is not a gazetteer snapshot.");
+      }
+
+      int count = input.readInt();
+      List<GeoEntry> entries = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        GeoEntry.Builder builder =
+            new GeoEntry.Builder()
+                .name(input.readUTF())
+                .featureCode(StringUtils.defaultIfEmpty(input.readUTF(), null))
+                .countryCode(StringUtils.defaultIfEmpty(input.readUTF(), null))
+                .importLocation(StringUtils.defaultIfEmpty(input.readUTF(), null))
+                .population(input.readLong());
+        if (input.readBoolean()) {
+          builder.latitude(input.readDouble()).longitude(input.readDouble());
+        }
+        entries.add(builder.build());
+      }
+      return new GazetteerIndex(entries, version);
+    }
+  }
+
+  /**
+   * Writes the cities of this index to {@code snapshot}, replacing the previous snapshot only once
+   * the new one is complete.
+   */
+  void writeSnapshot(Path snapshot) throws IOException {
+    Path parent = snapshot.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temporary = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        output.writeInt(SNAPSHOT_MAGIC);
+        output.writeInt(entries.length);
+        for (GeoEntry entry : entries) {
+          output.writeUTF(StringUtils.defaultString(entry.getName()));
+          output.writeUTF(StringUtils.defaultString(entry.getFeatureCode()));
+          output.writeUTF(StringUtils.defaultString(entry.getCountryCode()));
+          output.writeUTF(StringUtils.defaultString(entry.getImportLocation()));
+          output.writeLong(entry.getPopulation());
+          output.writeBoolean(hasLocation(entry));
+          if (hasLocation(entry)) {
+            output.writeDouble(entry.getLatitude());
+            output.writeDouble(entry.getLongitude());
+          }
+        }
+      }
+      Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  List<GeoEntry> getEntries() {
+    return Collections.unmodifiableList(Arrays.asList(entries));
+  }
+
+  /**
+   * @return the most populated cities with a word of their name starting with {@code queryString},
+   *     the words of {@code queryString} taken together
+   */
+  List<Suggestion> getSuggestedNames(String queryString, int maxResults) {
+    String prefix = normalize(queryString);
+    if (prefix.isEmpty() || maxResults <= 0) {
+      return Collections.emptyList();
+    }
+
+    int from = lowerBound(prefix);
+    int to = upperBound(prefix);
+
+    PriorityQueue<int[]> ranges =
+        new PriorityQueue<>(
+            (a, b) -> a[2] == b[2] ? 0 : morePopulated(a[2], b[2]) == a[2] ? -1 : 1);
+    addRange(ranges, from, to);
+
+    Set<Integer> suggested = new HashSet<>();
+    List<Suggestion> suggestions = new ArrayList<>(maxResults);
+    while (!ranges.isEmpty() && suggestions.size() < maxResults) {
+      int[] range = ranges.poll();
+      int entry = keyEntries[range[2]];
+      if (suggested.add(entry)) {
+        suggestions.add(new SuggestionImpl(getId(entry), entries[entry].getName()));
+      }
+      addRange(ranges, range[0], range[2]);
+      addRange(ranges, range[2] + 1, range[1]);
+    }
+    return suggestions;
+  }
+
+  /**
+   * @return the cities with every word of {@code queryString} in their name, sorted by feature code
+   *     and then by population in descending order
+   */
+  List<GeoEntry> query(String queryString, int maxResults) {
+    String normalized = normalize(queryString);
+    if (normalized.isEmpty() || maxResults <= 0) {
+      return Collections.emptyList();
+    }
+
+    String[] words = normalized.split(" ");
+    Set<Integer> matches = new LinkedHashSet<>();
+    for (int key = lowerBound(words[0]), to = upperBound(words[0]); key < to; key++) {
+      int entry = keyEntries[key];
+      int end = keyOffsets[key] + words[0].length();
+      if ((end == names[entry].length() || names[entry].charAt(end) == ' ')
+          && containsWords(names[entry], words)) {
+        matches.add(entry);
+      }
+    }
+
+    return matches
+        .stream()
+        .sorted(
+            Comparator.comparing(
+                    (Integer entry) -> entries[entry].getFeatureCode(),
+                    Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(entry -> populations[entry], Comparator.reverseOrder()))
+        .limit(maxResults)
+        .map(entry -> entries[entry])
+        .collect(Collectors.toList());
+  }
+
+  /** @return the city with the id, or null if the id was not given out by this index */
+  GeoEntry getById(String id) {
+    String[] parts = StringUtils.split(id, ':');
+    if (parts.length != 2 || !String.valueOf(version).equals(parts[0])) {
+      return null;
+    }
+
+    try {
+      int entry = Integer.parseInt(parts[1]);
+      return entry >= 0 && entry < entries.length ? entries[entry] : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return the cities within {@code radiusInKm} of the point, sorted by population in descending
+   *     order
+   */
+  List<NearbyLocation> getNearestCities(
+      double latitude, double longitude, double radiusInKm, int maxResults) {
+    // the points are in the same (latitude, longitude) order GazetteerQueryCatalog gives them
+    PointImpl center = new PointImpl(latitude, longitude, SPATIAL_CONTEXT);
+
+    return withinRadius(latitude, longitude, radiusInKm)
+        .stream()
+        .sorted(Comparator.comparing((Integer entry) -> populations[entry]).reversed())
+        .limit(maxResults)
+        .map(
+            entry ->
+                new NearbyLocationImpl(
+                    center,
+                    new PointImpl(
+                        entries[entry].getLatitude(),
+                        entries[entry].getLongitude(),
+                        SPATIAL_CONTEXT),
+                    entries[entry].getName()))
+        .collect(Collectors.toList());
+  }
+
+  /** @return the country code of the closest city within {@code radiusInKm} of the point */
+  Optional<String> getCountryCode(double latitude, double longitude, double radiusInKm) {
+    return withinRadius(latitude, longitude, radiusInKm)
+        .stream()
+        .min(Comparator.comparing(entry -> distanceInKm(latitude, longitude, entry)))
+        .map(entry -> entries[entry].getCountryCode());
+  }
+
+  private List<Integer> withinRadius(double latitude, double longitude, double radiusInKm) {
+    double latitudeSpan = radiusInKm / DistanceUtils.DEG_TO_KM;
+    int firstRow = row(latitude - latitudeSpan);
+    int lastRow = row(latitude + latitudeSpan);
+
+    int firstColumn = 0;
+    int lastColumn = GRID_COLUMNS - 1;
+    double farthestLatitude =
+        Math.max(Math.abs(latitude - latitudeSpan), Math.abs(latitude + latitudeSpan));
+    if (farthestLatitude < 90) {
+      double longitudeSpan = latitudeSpan / Math.cos(Math.toRadians(farthestLatitude));
+      if (2 * longitudeSpan + 1 < GRID_COLUMNS) {
+        firstColumn = (int) Math.floor(longitude - longitudeSpan + 180);
+        lastColumn = (int) Math.floor(longitude + longitudeSpan + 180);
+      }
+    }
+
+    List<Integer> within = new ArrayList<>();
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        int cell = row * GRID_COLUMNS + Math.floorMod(column, GRID_COLUMNS);
+        for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+          if (distanceInKm(latitude, longitude, cellEntries[i]) <= radiusInKm) {
+            within.add(cellEntries[i]);
+          }
+        }
+      }
+    }
+    return within;
+  }
+
+  private double distanceInKm(double latitude, double longitude, int entry) {
+    return DistanceUtils.distHaversineRAD(
+            Math.toRadians(latitude),
+            Math.toRadians(longitude),
+            Math.toRadians(entries[entry].getLatitude()),
+            Math.toRadians(entries[entry].getLongitude()))
+        * DistanceUtils.EARTH_MEAN_RADIUS_KM;
+  }
+
+  private String getId(int entry) {
+    return version + ":" + entry;
+  }
+
+  /** Adds the range of keys {@code [from, to)} and its most populated key, unless it is empty. */
+  private void addRange(PriorityQueue<int[]> ranges, int from, int to) {
+    if (from < to) {
+      ranges.add(new int[] {from, to, mostPopulated(from, to)});
+    }
+  }
+
+  private int mostPopulated(int from, int to) {
+    int best = -1;
+    for (int low = from + leaves, high = to + leaves; low < high; low >>= 1, high >>= 1) {
+      if ((low & 1) == 1) {
+        best = morePopulated(best, populationTree[low++]);
+      }
+      if ((high & 1) == 1) {
+        best = morePopulated(best, populationTree[--high]);
+      }
+    }
+    return best;
+  }
+
+  /** @return the key of the more populated city, the first key when both are as populated */
+  private int morePopulated(int key, int otherKey) {
+    if (key < 0 || otherKey < 0) {
+      return Math.max(key, otherKey);
+    }
+
+    long population = populations[keyEntries[key]];
+    long otherPopulation = populations[keyEntries[otherKey]];
+    if (population != otherPopulation) {
+      return population > otherPopulation ? key : otherKey;
+    }
+    return Math.min(key, otherKey);
+  }
+
+  /** @return the first key that is not before the keys starting with {@code prefix} */
+  private int lowerBound(String prefix) {
+    int low = 0;
+    int high = keyEntries.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (comparePrefix(middle, prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** @return the first key that is after the keys starting with {@code prefix} */
+  private int upperBound(String prefix) {
+    int low = 0;
+    int high = keyEntries.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (comparePrefix(middle, prefix) <= 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** @return 0 if the key starts with {@code prefix}, else how the key sorts against it */
+  private int comparePrefix(int key, String prefix) {
+    String name = names[keyEntries[key]];
+    int offset = keyOffsets[key];
+    int length = Math.min(name.length() - offset, prefix.length());
+    for (int i = 0; i < length; i++) {
+      int difference = name.charAt(offset + i) - prefix.charAt(i);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return length < prefix.length() ? -1 : 0;
+  }
+
+  private static int compare(String name, int offset, String otherName, int otherOffset) {
+    int length = Math.min(name.length() - offset, otherName.length() - otherOffset);
+    for (int i = 0; i < length; i++) {
+      int difference = name.charAt(offset + i) - otherName.charAt(otherOffset + i);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return (name.length() - offset) - (otherName.length() - otherOffset);
+  }
+
+  private static boolean containsWords(String name, String[] words) {
+    String delimited = " " + name + " ";
+    for (String word : words) {
+      if (!delimited.contains(" " + word + " ")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Lower cases {@code name}, strips its accents and separates its words with single spaces. */
+  static String normalize(String name) {
+    if (name == null) {
+      return "";
+    }
+
+    String stripped =
+        DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+    return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+  }
+
+  private static boolean hasLocation(GeoEntry entry) {
+    return entry.getLatitude() != null && entry.getLongitude() != null;
+  }
+
+  private static int cell(double latitude, double longitude) {
+    int column = Math.floorMod((int) Math.floor(longitude + 180), GRID_COLUMNS);
+    return row(latitude) * GRID_COLUMNS + column;
+  }
+
+  private static int row(double latitude) {
+    return Math.max(0, Math.min(GRID_ROWS - 1, (int) Math.floor(latitude + 90)));
+  }
+}
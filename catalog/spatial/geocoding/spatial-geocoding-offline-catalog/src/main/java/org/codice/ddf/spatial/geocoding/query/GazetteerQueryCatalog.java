@@ -14,6 +14,8 @@
 package org.codice.ddf.spatial.geocoding.query;
 
 import static ddf.catalog.Constants.ADDITIONAL_SORT_BYS;
+import static ddf.catalog.Constants.QUERY_CURSOR_KEY;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_KEY;
 import static ddf.catalog.Constants.SUGGESTION_CONTEXT_KEY;
 import static ddf.catalog.Constants.SUGGESTION_DICT_KEY;
 import static ddf.catalog.Constants.SUGGESTION_QUERY_KEY;
@@ -173,6 +175,42 @@ public GeoEntry queryById(String id) throws GeoEntryQueryException {
     return null;
   }
 
+  /**
+   * Retrieves a page of the cities in the catalog. The pages are read with a query cursor rather
+   * than a start index, because the catalog framework limits how far a start index can page.
+   *
+   * @param cursor the {@link ddf.catalog.Constants#QUERY_CURSOR_KEY} of the page, {@link
+   *     ddf.catalog.Constants#QUERY_CURSOR_START} for the first page
+   * @param pageSize the maximum number of cities in the page
+   * @return the cities of the page and the cursor of the next page
+   * @throws GeoEntryQueryException if an exception occurs while querying the catalog
+   */
+  CityPage queryCities(String cursor, int pageSize) throws GeoEntryQueryException {
+    Filter queryFilter = filterBuilder.allOf(filterBuilder.anyOf(featureCodeFilters), tagFilter);
+    SortBy idSortBy = new SortByImpl(Core.ID, SortOrder.ASCENDING);
+    Query query = new QueryImpl(queryFilter, 1, pageSize, idSortBy, false, TIMEOUT);
+
+    Map<String, Serializable> properties = new HashMap<>();
+    properties.put(QUERY_CURSOR_KEY, cursor);
+
+    QueryResponse queryResponse;
+    try {
+      queryResponse = catalogFramework.query(new QueryRequestImpl(query, properties));
+    } catch (UnsupportedQueryException | SourceUnavailableException | FederationException e) {
+      throw new GeoEntryQueryException(ERROR_MESSAGE, e);
+    }
+
+    List<GeoEntry> cities =
+        queryResponse
+            .getResults()
+            .stream()
+            .map(Result::getMetacard)
+            .map(this::transformMetacardToGeoEntry)
+            .collect(Collectors.toList());
+    Serializable nextCursor = queryResponse.getPropertyValue(QUERY_NEXT_CURSOR_KEY);
+    return new CityPage(cities, nextCursor instanceof String ? (String) nextCursor : null);
+  }
+
   @Override
   public List<Suggestion> getSuggestedNames(String queryString, int maxResults)
       throws GeoEntryQueryException {
@@ -239,6 +277,12 @@ private GeoEntry transformMetacardToGeoEntry(Metacard metacard) {
       LOGGER.debug("GeoEntry does not contain Gazetteer Sort Value");
     }
 
+    String importLocation =
+        getStringAttributeFromMetacard(metacard, GeoEntryAttributes.IMPORT_LOCATION);
+    if (StringUtils.isNotBlank(importLocation)) {
+      geoEntryBuilder.importLocation(importLocation);
+    }
+
     String location = getStringAttributeFromMetacard(metacard, Core.LOCATION);
     if (StringUtils.isNotBlank(location)) {
       try {
@@ -358,4 +402,29 @@ public Optional<String> getCountryCode(String wktLocation, int radius)
     }
     return Optional.empty();
   }
+
+  /** A page of the cities in the catalog. */
+  static class CityPage {
+
+    private final List<GeoEntry> cities;
+
+    private final String nextCursor;
+
+    CityPage(List<GeoEntry> cities, String nextCursor) {
+      this.cities = cities;
+      this.nextCursor = nextCursor;
+    }
+
+    List<GeoEntry> getCities() {
+      return cities;
+    }
+
+    /**
+     * @return the cursor of the next page, equal to the cursor of this page after the last page,
+     *     or {@code null} if the catalog does not support cursors
+     */
+    String getNextCursor() {
+      return nextCursor;
+    }
+  }
 }
@@ -0,0 +1,409 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.io.WKTReader;
+import ddf.catalog.Constants;
+import ddf.security.service.SecurityServiceException;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.StringUtils;
+import org.codice.ddf.security.common.Security;
+import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
+import org.codice.ddf.spatial.geocoding.GeoEntry;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractionException;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractor;
+import org.codice.ddf.spatial.geocoding.GeoEntryIndexer;
+import org.codice.ddf.spatial.geocoding.GeoEntryIndexingException;
+import org.codice.ddf.spatial.geocoding.GeoEntryQueryException;
+import org.codice.ddf.spatial.geocoding.GeoEntryQueryable;
+import org.codice.ddf.spatial.geocoding.GeoNamesRemoteDownloadException;
+import org.codice.ddf.spatial.geocoding.ProgressCallback;
+import org.codice.ddf.spatial.geocoding.Suggestion;
+import org.codice.ddf.spatial.geocoding.context.NearbyLocation;
+import org.codice.ddf.spatial.geocoding.query.GazetteerQueryCatalog.CityPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers gazetteer queries from a {@link GazetteerIndex} held in memory instead of querying the
+ * catalog for every keystroke of a location search.
+ *
+ * <p>The cities are indexed in the catalog by the wrapped {@link GeoEntryIndexer} as before, and
+ * every update of the catalog is applied to the in-memory index as well. The index is written to a
+ * snapshot after each update and read back from it on startup. Without a snapshot, it is built
+ * from the cities in the catalog. Until the index is loaded, or when it is disabled, queries are
+ * answered by the wrapped {@link GazetteerQueryCatalog}.
+ *
+ * <p>The index is built with the system subject and is served to every caller without going
+ * through the access and filter plugins of the catalog. Gazetteer entries are public reference
+ * data, so it must only be enabled when the gazetteer metacards carry no security markings.
+ */
+public class InMemoryGazetteer implements GeoEntryQueryable, GeoEntryIndexer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryGazetteer.class);
+
+  private static final ThreadLocal<WKTReader> WKT_READER_THREAD_LOCAL =
+      ThreadLocal.withInitial(WKTReader::new);
+
+  private static final String TITLE_FORMAT = "%s, %s";
+
+  private static final int PAGE_SIZE = 1000;
+
+  private final GazetteerQueryCatalog catalogQueryable;
+
+  private final GeoEntryIndexer catalogIndexer;
+
+  private final ExecutorService executor;
+
+  private final Security security;
+
+  private final Object updateLock = new Object();
+
+  private volatile GazetteerIndex index;
+
+  private boolean enabled;
+
+  private String snapshotPath;
+
+  public InMemoryGazetteer(
+      GazetteerQueryCatalog catalogQueryable,
+      GeoEntryIndexer catalogIndexer,
+      ExecutorService executor) {
+    this(catalogQueryable, catalogIndexer, executor, Security.getInstance());
+  }
+
+  InMemoryGazetteer(
+      GazetteerQueryCatalog catalogQueryable,
+      GeoEntryIndexer catalogIndexer,
+      ExecutorService executor,
+      Security security) {
+    this.catalogQueryable = catalogQueryable;
+    this.catalogIndexer = catalogIndexer;
+    this.executor = executor;
+    this.security = security;
+  }
+
+  public void init() {
+    if (enabled) {
+      executor.submit(this::load);
+    }
+  }
+
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setSnapshotPath(String snapshotPath) {
+    this.snapshotPath = snapshotPath;
+  }
+
+  @Override
+  public List<GeoEntry> query(String queryString, int maxResults) throws GeoEntryQueryException {
+    GazetteerIndex current = index;
+    if (current == null) {
+      return catalogQueryable.query(queryString, maxResults);
+    }
+    return current.query(queryString, maxResults);
+  }
+
+  @Override
+  public GeoEntry queryById(String id) throws GeoEntryQueryException {
+    if (StringUtils.isBlank(id)) {
+      throw new IllegalArgumentException("id cannot be blank or null");
+    }
+
+    GazetteerIndex current = index;
+    GeoEntry geoEntry = current == null ? null : current.getById(id);
+    if (geoEntry == null) {
+      // the id may have been given out by the catalog, or by an index that has been replaced since
+      return catalogQueryable.queryById(id);
+    }
+    return geoEntry;
+  }
+
+  @Override
+  public List<Suggestion> getSuggestedNames(String queryString, int maxResults)
+      throws GeoEntryQueryException {
+    GazetteerIndex current = index;
+    if (current == null) {
+      return catalogQueryable.getSuggestedNames(queryString, maxResults);
+    }
+    return current.getSuggestedNames(queryString, maxResults);
+  }
+
+  @Override
+  public List<NearbyLocation> getNearestCities(String location, int radiusInKm, int maxResults)
+      throws ParseException, GeoEntryQueryException {
+    GazetteerIndex current = index;
+    if (current == null) {
+      return catalogQueryable.getNearestCities(location, radiusInKm, maxResults);
+    }
+
+    Point center;
+    try {
+      center = WKT_READER_THREAD_LOCAL.get().read(location).getCentroid();
+    } catch (com.vividsolutions.jts.io.ParseException e) {
+      throw new ParseException(e.getMessage(), 0);
+    }
+    if (center.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return current.getNearestCities(center.getY(), center.getX(), radiusInKm, maxResults);
+  }
+
+  @Override
+  public Optional<String> getCountryCode(String wktLocation, int radius)
+      throws GeoEntryQueryException, ParseException {
+    GazetteerIndex current = index;
+    if (current == null) {
+      return catalogQueryable.getCountryCode(wktLocation, radius);
+    }
+
+    Point center;
+    try {
+      center = WKT_READER_THREAD_LOCAL.get().read(wktLocation).getCentroid();
+    } catch (com.vividsolutions.jts.io.ParseException e) {
+      return Optional.empty();
+    }
+    if (center.isEmpty()) {
+      return Optional.empty();
+    }
+    return current.getCountryCode(center.getY(), center.getX(), radius);
+  }
+
+  @Override
+  public void updateIndex(
+      List<GeoEntry> newEntries, boolean create, ProgressCallback progressCallback, String resource)
+      throws GeoEntryIndexingException {
+    catalogIndexer.updateIndex(newEntries, create, progressCallback, resource);
+
+    if (enabled) {
+      List<GeoEntry> cities = new ArrayList<>();
+      for (GeoEntry geoEntry : newEntries) {
+        addCity(cities, geoEntry);
+      }
+      update(cities, create, resource);
+    }
+  }
+
+  @Override
+  public void updateIndex(
+      String resource,
+      GeoEntryExtractor geoEntryExtractor,
+      boolean create,
+      ProgressCallback progressCallback)
+      throws GeoEntryIndexingException, GeoEntryExtractionException,
+          GeoNamesRemoteDownloadException {
+    if (!enabled) {
+      catalogIndexer.updateIndex(resource, geoEntryExtractor, create, progressCallback);
+      return;
+    }
+
+    List<GeoEntry> cities = new ArrayList<>();
+    AtomicBoolean extracted = new AtomicBoolean();
+    catalogIndexer.updateIndex(
+        resource,
+        new RecordingExtractor(geoEntryExtractor, cities, extracted),
+        create,
+        progressCallback);
+
+    // the catalog indexer skips the resources it has already indexed
+    if (extracted.get() && (create || !cities.isEmpty())) {
+      update(cities, create, resource);
+    }
+  }
+
+  private void load() {
+    synchronized (updateLock) {
+      Path snapshot = Paths.get(snapshotPath);
+      if (snapshot.toFile().exists()) {
+        try {
+          index = GazetteerIndex.readSnapshot(snapshot, System.currentTimeMillis());
+          LOGGER.debug("Loaded the gazetteer index from {}.", snapshot);
+          return;
+        } catch (IOException e) {
+          LOGGER.debug("Unable to read the gazetteer snapshot {}, rebuilding it.", snapshot, e);
+        }
+      }
+
+      security.runAsAdmin(
+          () -> {
+            try {
+              security.runWithSubjectOrElevate(this::loadFromCatalog);
+            } catch (SecurityServiceException | InvocationTargetException e) {
+              LOGGER.debug("Unable to build the gazetteer index from the catalog.", e);
+            }
+            return null;
+          });
+    }
+  }
+
+  private Object loadFromCatalog() {
+    List<GeoEntry> cities = new ArrayList<>();
+    try {
+      String cursor = Constants.QUERY_CURSOR_START;
+      while (true) {
+        CityPage page = catalogQueryable.queryCities(cursor, PAGE_SIZE);
+        cities.addAll(page.getCities());
+        String nextCursor = page.getNextCursor();
+        if (nextCursor == null) {
+          if (page.getCities().size() < PAGE_SIZE) {
+            break;
+          }
+          LOGGER.info(
+              "The catalog does not support paging with a cursor, the gazetteer will be queried "
+                  + "in the catalog.");
+          return null;
+        }
+        if (nextCursor.equals(cursor)) {
+          break;
+        }
+        cursor = nextCursor;
+      }
+    } catch (GeoEntryQueryException e) {
+      LOGGER.info(
+          "Unable to read the gazetteer from the catalog, it will be queried in the catalog.", e);
+      return null;
+    }
+
+    replaceIndex(cities);
+    LOGGER.debug("Built the gazetteer index from {} cities in the catalog.", cities.size());
+    return null;
+  }
+
+  private void update(List<GeoEntry> cities, boolean create, String resource) {
+    synchronized (updateLock) {
+      GazetteerIndex current = index;
+      if (current == null) {
+        // the update is in the catalog, the index will be built from it once it is loaded
+        deleteSnapshot();
+        return;
+      }
+
+      List<GeoEntry> entries = new ArrayList<>(current.getEntries().size() + cities.size());
+      for (GeoEntry entry : current.getEntries()) {
+        if (!create
+            || (StringUtils.isNotBlank(resource) && !resource.equals(entry.getImportLocation()))) {
+          entries.add(entry);
+        }
+      }
+      entries.addAll(cities);
+      replaceIndex(entries);
+    }
+  }
+
+  private void replaceIndex(List<GeoEntry> entries) {
+    GazetteerIndex newIndex = new GazetteerIndex(entries, System.currentTimeMillis());
+    index = newIndex;
+    try {
+      newIndex.writeSnapshot(Paths.get(snapshotPath));
+    } catch (IOException e) {
+      LOGGER.info("Unable to write the gazetteer snapshot {}.", snapshotPath, e);
+    }
+  }
+
+  private void deleteSnapshot() {
+    try {
+      Files.deleteIfExists(Paths.get(snapshotPath));
+    } catch (IOException e) {
+      LOGGER.info("Unable to delete the outdated gazetteer snapshot {}.", snapshotPath, e);
+    }
+  }
+
+  /** Adds the city the way {@code GeoNamesCatalogIndexer} indexes it, if it is a city. */
+  private static void addCity(List<GeoEntry> cities, GeoEntry geoEntry) {
+    if (!GeoCodingConstants.CITY_FEATURE_CODES.contains(geoEntry.getFeatureCode())) {
+      return;
+    }
+
+    cities.add(
+        new GeoEntry.Builder()
+            .name(String.format(TITLE_FORMAT, geoEntry.getName(), geoEntry.getCountryCode()))
+            .featureCode(geoEntry.getFeatureCode())
+            .countryCode(geoEntry.getCountryCode())
+            .population(geoEntry.getPopulation())
+            .latitude(geoEntry.getLatitude())
+            .longitude(geoEntry.getLongitude())
+            .importLocation(geoEntry.getImportLocation())
+            .build());
+  }
+
+  /** Passes the extracted entries on, keeping the cities among them. */
+  private static class RecordingExtractor implements GeoEntryExtractor {
+
+    private final GeoEntryExtractor extractor;
+
+    private final List<GeoEntry> cities;
+
+    private final AtomicBoolean extracted;
+
+    RecordingExtractor(
+        GeoEntryExtractor extractor, List<GeoEntry> cities, AtomicBoolean extracted) {
+      this.extractor = extractor;
+      this.cities = cities;
+      this.extracted = extracted;
+    }
+
+    @Override
+    public void setUrl(String url) {
+      extractor.setUrl(url);
+    }
+
+    @Override
+    public List<GeoEntry> getGeoEntries(String resource, ProgressCallback progressCallback)
+        throws GeoEntryExtractionException, GeoNamesRemoteDownloadException {
+      List<GeoEntry> geoEntries = extractor.getGeoEntries(resource, progressCallback);
+      extracted.set(true);
+      geoEntries.forEach(geoEntry -> addCity(cities, geoEntry));
+      return geoEntries;
+    }
+
+    @Override
+    public void pushGeoEntriesToExtractionCallback(
+        String resource, ExtractionCallback extractionCallback)
+        throws GeoEntryExtractionException, GeoNamesRemoteDownloadException {
+      extractor.pushGeoEntriesToExtractionCallback(
+          resource,
+          new ExtractionCallback() {
+            @Override
+            public void extracted(GeoEntry newEntry) throws GeoEntryIndexingException {
+              addCity(cities, newEntry);
+              extractionCallback.extracted(newEntry);
+            }
+
+            @Override
+            public void updateProgress(int progress) {
+              extractionCallback.updateProgress(progress);
+            }
+          });
+      extracted.set(true);
+    }
+  }
+}
@@ -15,8 +15,10 @@
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -42,11 +44,16 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import org.codice.ddf.platform.util.uuidgenerator.UuidGenerator;
 import org.codice.ddf.spatial.geocoding.GeoCodingConstants;
 import org.codice.ddf.spatial.geocoding.GeoEntry;
 import org.codice.ddf.spatial.geocoding.GeoEntryAttributes;
 import org.codice.ddf.spatial.geocoding.GeoEntryCreator;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractionException;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractor;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractor.ExtractionCallback;
+import org.codice.ddf.spatial.geocoding.GeoEntryIndexingException;
 import org.codice.ddf.spatial.geocoding.ProgressCallback;
 import org.codice.ddf.spatial.geocoding.extract.GeoNamesFileExtractor;
 import org.junit.After;
@@ -274,6 +281,26 @@ public void testUpdateIndexBatches() throws Exception {
     assertThat(totalEntries, is(totalExpectedEntries));
   }
 
+  @Test
+  public void testUpdateIndexConfiguredBatches() throws Exception {
+    ArgumentCaptor<CreateRequest> createRequestArgumentCaptor =
+        ArgumentCaptor.forClass(CreateRequest.class);
+    ProgressCallback mockProgressCallback = mock(ProgressCallback.class);
+
+    geoNamesCatalogIndexer.setCreateBatchSize(100);
+    geoNamesCatalogIndexer.setCreateThreads(2);
+    geoNamesCatalogIndexer.updateIndex(
+        LARGE_FILE_PATH, geoEntryExtractor, false, mockProgressCallback);
+    verify(catalogFramework, times(4)).create(createRequestArgumentCaptor.capture());
+
+    int totalEntries = 0;
+    for (CreateRequest createRequest : createRequestArgumentCaptor.getAllValues()) {
+      totalEntries += createRequest.getMetacards().size();
+    }
+    assertThat(totalEntries, is(360));
+    verify(mockProgressCallback, times(1)).updateProgress(100);
+  }
+
   @Test
   public void testUpdateIndexNullResponse() throws Exception {
     when(createResponse.getCreatedMetacards()).thenReturn(null);
@@ -287,6 +314,7 @@ public void testUpdateIndexIngestException() throws Exception {
     when(catalogFramework.create(any(CreateRequest.class))).thenThrow(IngestException.class);
     geoNamesCatalogIndexer.updateIndex(GOOD_FILE_PATH, geoEntryExtractor, false, progressCallback);
     verify(catalogFramework, times(1)).create(any(CreateRequest.class));
+    assertThat(new File(GOOD_FILE_PATH + ".processed").exists(), is(false));
   }
 
   @SuppressWarnings("unchecked")
@@ -296,6 +324,68 @@ public void testUpdateIndexSourceUnavailableException() throws Exception {
         .thenThrow(SourceUnavailableException.class);
     geoNamesCatalogIndexer.updateIndex(GOOD_FILE_PATH, geoEntryExtractor, false, progressCallback);
     verify(catalogFramework, times(1)).create(any(CreateRequest.class));
+    assertThat(new File(GOOD_FILE_PATH + ".processed").exists(), is(false));
+  }
+
+  @Test
+  public void testUpdateIndexIsMarkedProcessed() throws Exception {
+    geoNamesCatalogIndexer.updateIndex(GOOD_FILE_PATH, geoEntryExtractor, false, progressCallback);
+    assertThat(new File(GOOD_FILE_PATH + ".processed").exists(), is(true));
+  }
+
+  @Test
+  public void testUpdateIndexFailedBatchIsNotMarkedProcessed() throws Exception {
+    when(catalogFramework.create(any(CreateRequest.class)))
+        .thenReturn(createResponse)
+        .thenThrow(RuntimeException.class);
+    geoNamesCatalogIndexer.setCreateBatchSize(100);
+    geoNamesCatalogIndexer.updateIndex(LARGE_FILE_PATH, geoEntryExtractor, false, progressCallback);
+    verify(catalogFramework, times(4)).create(any(CreateRequest.class));
+    assertThat(new File(LARGE_FILE_PATH + ".processed").exists(), is(false));
+  }
+
+  @Test
+  public void testUpdateIndexFailedExtractionCreatesNoPartialBatch() throws Exception {
+    GeoEntryExtractor failingExtractor = mock(GeoEntryExtractor.class);
+    doAnswer(
+            invocation -> {
+              ((ExtractionCallback) invocation.getArguments()[1]).extracted(GEO_ENTRY);
+              throw new GeoEntryExtractionException("Extraction failed.");
+            })
+        .when(failingExtractor)
+        .pushGeoEntriesToExtractionCallback(anyString(), any(ExtractionCallback.class));
+
+    try {
+      geoNamesCatalogIndexer.updateIndex(GOOD_FILE_PATH, failingExtractor, false, progressCallback);
+      fail("The extraction failure should have been thrown.");
+    } catch (GeoEntryExtractionException e) {
+      verify(catalogFramework, never()).create(any(CreateRequest.class));
+      assertThat(new File(GOOD_FILE_PATH + ".processed").exists(), is(false));
+    }
+  }
+
+  @Test
+  public void testInterruptedUpdateIndex() throws Exception {
+    when(catalogFramework.create(any(CreateRequest.class)))
+        .then(
+            invocation -> {
+              try {
+                new CountDownLatch(1).await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return createResponse;
+            });
+
+    Thread.currentThread().interrupt();
+    try {
+      geoNamesCatalogIndexer.updateIndex(
+          GOOD_FILE_PATH, geoEntryExtractor, false, progressCallback);
+      fail("The interruption should have been thrown.");
+    } catch (GeoEntryIndexingException e) {
+      assertThat(Thread.interrupted(), is(true));
+      assertThat(new File(GOOD_FILE_PATH + ".processed").exists(), is(false));
+    }
   }
 
   @Test
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.codice.ddf.spatial.geocoding.GeoEntry;
+import org.codice.ddf.spatial.geocoding.Suggestion;
+import org.codice.ddf.spatial.geocoding.context.NearbyLocation;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GazetteerIndexTest {
+
+  private static final long VERSION = 42L;
+
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  private GazetteerIndex index;
+
+  @Before
+  public void setUp() {
+    index =
+        new GazetteerIndex(
+            Arrays.asList(
+                city("Boston, US", "PPLA", 667137, 42.35843, -71.05977),
+                city("Cambridge, US", "PPL", 105162, 42.3751, -71.10561),
+                city("Boston, GB", "PPL", 41340, 52.97633, -0.02664),
+                city("New York City, US", "PPL", 8175133, 40.71427, -74.00597),
+                city("York, GB", "PPL", 153717, 53.95763, -1.08271),
+                city("São Paulo, BR", "PPLA", 10021295, -23.5475, -46.63611),
+                city("Suva, FJ", "PPLC", 77366, -18.14161, 178.44149),
+                city("Taveuni, FJ", "PPL", 9000, -16.85, -179.96667),
+                city("Sea, XX", "PPL", 0, null, null)),
+            VERSION);
+  }
+
+  @Test
+  public void testSuggestionsAreRankedByPopulation() {
+    assertThat(suggestedNames("bos", 10), contains("Boston, US", "Boston, GB"));
+  }
+
+  @Test
+  public void testSuggestionsAreLimited() {
+    assertThat(suggestedNames("bos", 1), contains("Boston, US"));
+  }
+
+  @Test
+  public void testSuggestionsMatchAnyWordOfTheName() {
+    assertThat(suggestedNames("yor", 10), contains("New York City, US", "York, GB"));
+  }
+
+  @Test
+  public void testSuggestionsMatchSeveralWords() {
+    assertThat(suggestedNames("New York C", 10), contains("New York City, US"));
+  }
+
+  @Test
+  public void testSuggestionsIgnoreCaseAndAccents() {
+    assertThat(suggestedNames("SAO PAU", 10), contains("São Paulo, BR"));
+  }
+
+  @Test
+  public void testSuggestionsWithoutMatches() {
+    assertThat(index.getSuggestedNames("xyz", 10), is(empty()));
+    assertThat(index.getSuggestedNames(" ", 10), is(empty()));
+  }
+
+  @Test
+  public void testSuggestionIdsFindTheirCity() {
+    Suggestion suggestion = index.getSuggestedNames("cambridge", 1).get(0);
+    assertThat(index.getById(suggestion.getId()).getName(), is("Cambridge, US"));
+  }
+
+  @Test
+  public void testIdsOfOtherIndexesAreNotFound() {
+    String id = index.getSuggestedNames("cambridge", 1).get(0).getId();
+    GazetteerIndex otherIndex = new GazetteerIndex(index.getEntries(), VERSION + 1);
+    assertThat(otherIndex.getById(id), is(nullValue()));
+    assertThat(index.getById("6b1fd5c2a14b4d6ab8f2a2b1c8e0a6d7"), is(nullValue()));
+    assertThat(index.getById(VERSION + ":100"), is(nullValue()));
+  }
+
+  @Test
+  public void testQueryMatchesWholeWordsSortedByFeatureCodeThenPopulation() {
+    List<String> names =
+        index.query("boston", 10).stream().map(GeoEntry::getName).collect(Collectors.toList());
+    assertThat(names, contains("Boston, GB", "Boston, US"));
+
+    names = index.query("york", 10).stream().map(GeoEntry::getName).collect(Collectors.toList());
+    assertThat(names, contains("New York City, US", "York, GB"));
+
+    assertThat(index.query("bost", 10), is(empty()));
+    assertThat(index.query("york gb", 10).get(0).getName(), is("York, GB"));
+  }
+
+  @Test
+  public void testNearestCitiesAreSortedByPopulation() {
+    List<NearbyLocation> nearbyLocations = index.getNearestCities(42.36, -71.06, 50, 10);
+    assertThat(
+        nearbyLocations.stream().map(NearbyLocation::getName).collect(Collectors.toList()),
+        contains("Boston, US", "Cambridge, US"));
+    assertThat(index.getNearestCities(42.36, -71.06, 50, 1).size(), is(1));
+    assertThat(index.getNearestCities(42.36, -71.06, 1, 10).size(), is(1));
+  }
+
+  @Test
+  public void testNearestCitiesAcrossTheAntimeridian() {
+    List<NearbyLocation> nearbyLocations = index.getNearestCities(-17.5, 179.5, 200, 10);
+    assertThat(
+        nearbyLocations.stream().map(NearbyLocation::getName).collect(Collectors.toList()),
+        contains("Suva, FJ", "Taveuni, FJ"));
+  }
+
+  @Test
+  public void testCountryCodeOfTheClosestCity() {
+    assertThat(index.getCountryCode(52.9, -0.1, 100), is(Optional.of("GB")));
+    assertThat(index.getCountryCode(0, 0, 100), is(Optional.empty()));
+  }
+
+  @Test
+  public void testSnapshot() throws IOException {
+    Path snapshot = tempDir.getRoot().toPath().resolve("gazetteer-index.bin");
+    index.writeSnapshot(snapshot);
+    GazetteerIndex readIndex = GazetteerIndex.readSnapshot(snapshot, VERSION);
+
+    assertThat(readIndex.getEntries().size(), is(index.getEntries().size()));
+    GeoEntry boston = readIndex.query("boston us", 1).get(0);
+    assertThat(boston.getName(), is("Boston, US"));
+    assertThat(boston.getFeatureCode(), is("PPLA"));
+    assertThat(boston.getCountryCode(), is("US"));
+    assertThat(boston.getPopulation(), is(667137L));
+    assertThat(boston.getLatitude(), is(42.35843));
+    assertThat(boston.getLongitude(), is(-71.05977));
+    assertThat(boston.getImportLocation(), is("cities.txt"));
+    assertThat(readIndex.query("sea", 1).get(0).getLatitude(), is(nullValue()));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadingAnotherFileAsSnapshot() throws IOException {
+    Path snapshot = tempDir.newFile("not-a-snapshot.bin").toPath();
+    Files.write(snapshot, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+    GazetteerIndex.readSnapshot(snapshot, VERSION);
+  }
+
+  private List<String> suggestedNames(String queryString, int maxResults) {
+    return index
+        .getSuggestedNames(queryString, maxResults)
+        .stream()
+        .map(Suggestion::getName)
+        .collect(Collectors.toList());
+  }
+
+  private static GeoEntry city(
+      String name, String featureCode, long population, Double latitude, Double longitude) {
+    return new GeoEntry.Builder()
+        .name(name)
+        .featureCode(featureCode)
+        .countryCode(name.substring(name.length() - 2))
+        .population(population)
+        .latitude(latitude)
+        .longitude(longitude)
+        .importLocation("cities.txt")
+        .build();
+  }
+}
@@ -13,6 +13,8 @@
  */
 package org.codice.ddf.spatial.geocoding.query;
 
+import static ddf.catalog.Constants.QUERY_CURSOR_KEY;
+import static ddf.catalog.Constants.QUERY_NEXT_CURSOR_KEY;
 import static org.codice.ddf.spatial.geocoding.GeoCodingConstants.GAZETTEER_METACARD_TAG;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
@@ -20,6 +22,7 @@
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.catalog.CatalogFramework;
@@ -49,8 +52,10 @@
 import org.codice.ddf.spatial.geocoding.GeoEntryAttributes;
 import org.codice.ddf.spatial.geocoding.GeoEntryQueryException;
 import org.codice.ddf.spatial.geocoding.context.NearbyLocation;
+import org.codice.ddf.spatial.geocoding.query.GazetteerQueryCatalog.CityPage;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class GazetteerQueryCatalogTest {
 
@@ -318,6 +323,35 @@ public void testGetCountryCodeSourceUnavailableException() throws Exception {
     queryCatalog.getCountryCode(NEAR_BOSTON_WKT, RADIUS_IN_KM);
   }
 
+  @Test
+  public void testQueryCitiesPagesWithTheCursor() throws Exception {
+    QueryResponseImpl queryResponse =
+        new QueryResponseImpl(
+            mock(QueryRequest.class),
+            Collections.singletonList(new ResultImpl(generateGeoNamesMetacard())),
+            1);
+    queryResponse.getProperties().put(QUERY_NEXT_CURSOR_KEY, "nextCursor");
+    when(catalogFramework.query(any(QueryRequest.class))).thenReturn(queryResponse);
+
+    CityPage page = queryCatalog.queryCities("cursor", 10);
+
+    assertThat(page.getCities().get(0).getName(), is(BOSTON));
+    assertThat(page.getNextCursor(), is("nextCursor"));
+    ArgumentCaptor<QueryRequest> requestCaptor = ArgumentCaptor.forClass(QueryRequest.class);
+    verify(catalogFramework).query(requestCaptor.capture());
+    assertThat(requestCaptor.getValue().getPropertyValue(QUERY_CURSOR_KEY), is("cursor"));
+    assertThat(requestCaptor.getValue().getQuery().getStartIndex(), is(1));
+    assertThat(requestCaptor.getValue().getQuery().getPageSize(), is(10));
+  }
+
+  @Test
+  public void testQueryCitiesWithoutCursorSupport() throws Exception {
+    CityPage page = queryCatalog.queryCities("cursor", 10);
+
+    assertThat(page.getCities().size(), is(1));
+    assertThat(page.getNextCursor(), nullValue());
+  }
+
   private Metacard generateEmptyMetacard() {
     return new MetacardImpl(GEO_ENTRY_METACARD_TYPE);
   }
@@ -0,0 +1,268 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.geocoding.query;
+
+import static ddf.catalog.Constants.QUERY_CURSOR_START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.codice.ddf.security.common.Security;
+import org.codice.ddf.spatial.geocoding.GeoEntry;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractor;
+import org.codice.ddf.spatial.geocoding.GeoEntryExtractor.ExtractionCallback;
+import org.codice.ddf.spatial.geocoding.GeoEntryIndexer;
+import org.codice.ddf.spatial.geocoding.ProgressCallback;
+import org.codice.ddf.spatial.geocoding.Suggestion;
+import org.codice.ddf.spatial.geocoding.query.GazetteerQueryCatalog.CityPage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InMemoryGazetteerTest {
+
+  private static final String RESOURCE = "cities.txt";
+
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  private GazetteerQueryCatalog catalogQueryable;
+
+  private GeoEntryIndexer catalogIndexer;
+
+  private ExecutorService executor;
+
+  private InMemoryGazetteer gazetteer;
+
+  private File snapshot;
+
+  @Before
+  public void setUp() throws Exception {
+    catalogQueryable = mock(GazetteerQueryCatalog.class);
+    catalogIndexer = mock(GeoEntryIndexer.class);
+    executor = mock(ExecutorService.class);
+    doAnswer(
+            invocation -> {
+              ((Runnable) invocation.getArguments()[0]).run();
+              return null;
+            })
+        .when(executor)
+        .submit(any(Runnable.class));
+
+    Security security = mock(Security.class);
+    when(security.runAsAdmin(any(PrivilegedAction.class)))
+        .thenAnswer(invocation -> ((PrivilegedAction) invocation.getArguments()[0]).run());
+    when(security.runWithSubjectOrElevate(any(Callable.class)))
+        .thenAnswer(invocation -> ((Callable) invocation.getArguments()[0]).call());
+
+    snapshot = new File(tempDir.getRoot(), "gazetteer-index.bin");
+    gazetteer = new InMemoryGazetteer(catalogQueryable, catalogIndexer, executor, security);
+    gazetteer.setSnapshotPath(snapshot.getAbsolutePath());
+  }
+
+  @Test
+  public void testDisabledGazetteerQueriesTheCatalog() throws Exception {
+    gazetteer.init();
+    gazetteer.getSuggestedNames("bos", 5);
+    gazetteer.query("boston", 5);
+
+    verify(executor, never()).submit(any(Runnable.class));
+    verify(catalogQueryable).getSuggestedNames("bos", 5);
+    verify(catalogQueryable).query("boston", 5);
+  }
+
+  @Test
+  public void testIndexIsBuiltFromTheCatalog() throws Exception {
+    when(catalogQueryable.queryCities(anyString(), anyInt()))
+        .thenReturn(lastPage(city("Boston, US", 667137, RESOURCE)));
+
+    gazetteer.setEnabled(true);
+    gazetteer.init();
+
+    assertThat(suggestedNames("bos"), contains("Boston, US"));
+    verify(catalogQueryable, never()).getSuggestedNames(anyString(), anyInt());
+    assertThat(snapshot.exists(), is(true));
+  }
+
+  @Test
+  public void testIndexIsBuiltFromMoreCitiesThanTheFrameworkCanPageByStartIndex()
+      throws Exception {
+    // the catalog framework clamps start indices to 50000 by default
+    int cityCount = 50500;
+    when(catalogQueryable.queryCities(anyString(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              String cursor = (String) invocation.getArguments()[0];
+              int pageSize = (int) invocation.getArguments()[1];
+              int start = QUERY_CURSOR_START.equals(cursor) ? 0 : Integer.parseInt(cursor);
+              int end = Math.min(start + pageSize, cityCount);
+              List<GeoEntry> cities =
+                  IntStream.range(start, end)
+                      .mapToObj(i -> city("City " + i + ", US", i, RESOURCE))
+                      .collect(Collectors.toList());
+              return new CityPage(cities, start == end ? cursor : String.valueOf(end));
+            });
+
+    gazetteer.setEnabled(true);
+    gazetteer.init();
+
+    assertThat(suggestedNames("city").get(0), is("City 50499, US"));
+    verify(catalogQueryable).queryCities(QUERY_CURSOR_START, 1000);
+    verify(catalogQueryable).queryCities("50000", 1000);
+  }
+
+  @Test
+  public void testCatalogWithoutCursorsIsQueriedInTheCatalog() throws Exception {
+    List<GeoEntry> cities =
+        IntStream.range(0, 1000)
+            .mapToObj(i -> city("City " + i + ", US", i, RESOURCE))
+            .collect(Collectors.toList());
+    when(catalogQueryable.queryCities(anyString(), anyInt()))
+        .thenReturn(new CityPage(cities, null));
+
+    gazetteer.setEnabled(true);
+    gazetteer.init();
+    gazetteer.getSuggestedNames("city", 5);
+
+    verify(catalogQueryable).getSuggestedNames("city", 5);
+    assertThat(snapshot.exists(), is(false));
+  }
+
+  @Test
+  public void testIndexIsReadFromTheSnapshot() throws Exception {
+    new GazetteerIndex(Collections.singletonList(city("Boston, US", 667137, RESOURCE)), 1L)
+        .writeSnapshot(snapshot.toPath());
+
+    gazetteer.setEnabled(true);
+    gazetteer.init();
+
+    assertThat(suggestedNames("bos"), contains("Boston, US"));
+    verify(catalogQueryable, never()).queryCities(anyString(), anyInt());
+  }
+
+  @Test
+  public void testIndexedCitiesReplaceTheCitiesOfTheirResource() throws Exception {
+    when(catalogQueryable.queryCities(anyString(), anyInt()))
+        .thenReturn(
+            lastPage(city("Boston, US", 667137, RESOURCE), city("Bosaso, SO", 46969, "other.txt")));
+    gazetteer.setEnabled(true);
+    gazetteer.init();
+
+    GeoEntryExtractor extractor = mock(GeoEntryExtractor.class);
+    doAnswer(
+            invocation -> {
+              ExtractionCallback callback = (ExtractionCallback) invocation.getArguments()[1];
+              callback.extracted(geoNamesEntry("Boston", "PPLA", 700000));
+              callback.extracted(geoNamesEntry("Boston Harbor", "BAY", 0));
+              return null;
+            })
+        .when(extractor)
+        .pushGeoEntriesToExtractionCallback(eq(RESOURCE), any(ExtractionCallback.class));
+    doAnswer(
+            invocation -> {
+              ((GeoEntryExtractor) invocation.getArguments()[1])
+                  .pushGeoEntriesToExtractionCallback(RESOURCE, mock(ExtractionCallback.class));
+              return null;
+            })
+        .when(catalogIndexer)
+        .updateIndex(
+            eq(RESOURCE), any(GeoEntryExtractor.class), eq(true), any(ProgressCallback.class));
+
+    gazetteer.updateIndex(RESOURCE, extractor, true, mock(ProgressCallback.class));
+
+    assertThat(suggestedNames("bos"), contains("Boston, US", "Bosaso, SO"));
+    assertThat(gazetteer.query("boston", 1).get(0).getPopulation(), is(700000L));
+  }
+
+  @Test
+  public void testAlreadyIndexedResourceLeavesTheIndex() throws Exception {
+    when(catalogQueryable.queryCities(anyString(), anyInt()))
+        .thenReturn(lastPage(city("Boston, US", 667137, RESOURCE)));
+    gazetteer.setEnabled(true);
+    gazetteer.init();
+
+    gazetteer.updateIndex(
+        RESOURCE, mock(GeoEntryExtractor.class), true, mock(ProgressCallback.class));
+
+    assertThat(suggestedNames("bos"), contains("Boston, US"));
+  }
+
+  @Test
+  public void testUnknownIdsAreQueriedInTheCatalog() throws Exception {
+    when(catalogQueryable.queryCities(anyString(), anyInt()))
+        .thenReturn(lastPage(city("Boston, US", 667137, RESOURCE)));
+    gazetteer.setEnabled(true);
+    gazetteer.init();
+
+    String id = gazetteer.getSuggestedNames("bos", 1).get(0).getId();
+    assertThat(gazetteer.queryById(id).getName(), is("Boston, US"));
+
+    gazetteer.queryById("6b1fd5c2a14b4d6ab8f2a2b1c8e0a6d7");
+    verify(catalogQueryable).queryById("6b1fd5c2a14b4d6ab8f2a2b1c8e0a6d7");
+  }
+
+  private List<String> suggestedNames(String queryString) throws Exception {
+    return gazetteer
+        .getSuggestedNames(queryString, 10)
+        .stream()
+        .map(Suggestion::getName)
+        .collect(Collectors.toList());
+  }
+
+  private static CityPage lastPage(GeoEntry... cities) {
+    return new CityPage(Arrays.asList(cities), QUERY_CURSOR_START);
+  }
+
+  private static GeoEntry city(String name, long population, String importLocation) {
+    return new GeoEntry.Builder()
+        .name(name)
+        .featureCode("PPL")
+        .countryCode(name.substring(name.length() - 2))
+        .population(population)
+        .latitude(0.0)
+        .longitude(0.0)
+        .importLocation(importLocation)
+        .build();
+  }
+
+  private static GeoEntry geoNamesEntry(String name, String featureCode, long population) {
+    return new GeoEntry.Builder()
+        .name(name)
+        .featureCode(featureCode)
+        .countryCode("US")
+        .population(population)
+        .latitude(42.35843)
+        .longitude(-71.05977)
+        .importLocation(RESOURCE)
+        .build();
+  }
+}
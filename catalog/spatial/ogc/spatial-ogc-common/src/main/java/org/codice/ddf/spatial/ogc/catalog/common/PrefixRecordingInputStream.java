@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Records the first {@link #PREFIX_LIMIT} bytes read through it while the stream is parsed. The
+ * prefix is enough to hold an exception report returned in place of a response, or to log the
+ * start of a response, without holding on to whole responses.
+ */
+public class PrefixRecordingInputStream extends FilterInputStream {
+
+  public static final int PREFIX_LIMIT = 64 * 1024;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+
+  public PrefixRecordingInputStream(InputStream in) {
+    super(in);
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    if (b != -1 && prefix.size() < PREFIX_LIMIT) {
+      prefix.write(b);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int count = super.read(b, off, len);
+    if (count > 0) {
+      prefix.write(b, off, Math.min(count, PREFIX_LIMIT - prefix.size()));
+    }
+    return count;
+  }
+
+  /** Reads the rest of the stream until the prefix is complete or the stream ends. */
+  public void readPrefix() throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int count = 0;
+    while (prefix.size() < PREFIX_LIMIT && count != -1) {
+      count = read(buffer);
+    }
+  }
+
+  /** @return the bytes recorded so far */
+  public byte[] getPrefix() {
+    return prefix.toByteArray();
+  }
+
+  /** @return the bytes recorded so far, decoded as UTF-8 */
+  @Override
+  public String toString() {
+    return new String(prefix.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
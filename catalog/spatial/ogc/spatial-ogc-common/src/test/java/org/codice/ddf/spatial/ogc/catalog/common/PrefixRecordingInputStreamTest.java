@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class PrefixRecordingInputStreamTest {
+
+  @Test
+  public void testRecordsWholeShortStream() throws Exception {
+    byte[] data = "<ExceptionReport/>".getBytes(StandardCharsets.UTF_8);
+    PrefixRecordingInputStream recordingStream =
+        new PrefixRecordingInputStream(new ByteArrayInputStream(data));
+
+    assertThat(IOUtils.toByteArray(recordingStream), is(data));
+    assertThat(recordingStream.getPrefix(), is(data));
+    assertThat(recordingStream.toString(), is("<ExceptionReport/>"));
+  }
+
+  @Test
+  public void testReadPrefixKeepsOnlyPrefix() throws Exception {
+    int limit = PrefixRecordingInputStream.PREFIX_LIMIT;
+    byte[] data = new byte[limit * 3];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    PrefixRecordingInputStream recordingStream =
+        new PrefixRecordingInputStream(new ByteArrayInputStream(data));
+
+    assertThat(recordingStream.read(), is(0));
+    recordingStream.readPrefix();
+
+    assertThat(recordingStream.getPrefix(), is(Arrays.copyOf(data, limit)));
+    byte[] rest = IOUtils.toByteArray(recordingStream);
+    assertThat(rest, is(Arrays.copyOfRange(data, data.length - rest.length, data.length)));
+  }
+}
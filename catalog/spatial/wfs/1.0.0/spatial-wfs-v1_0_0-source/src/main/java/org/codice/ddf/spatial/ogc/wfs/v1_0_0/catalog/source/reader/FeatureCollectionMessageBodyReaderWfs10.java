@@ -23,7 +23,6 @@
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import javax.ws.rs.Consumes;
@@ -35,6 +34,7 @@
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
 import org.apache.commons.io.IOUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.PrefixRecordingInputStream;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsFeatureCollection;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlEnvelopeConverter;
@@ -90,33 +90,28 @@ public WfsFeatureCollection readFrom(
       InputStream inStream)
       throws IOException, WebApplicationException {
 
-    // Save original input stream for any exception message that might need to be
-    // created
-    String originalInputStream = IOUtils.toString(inStream, StandardCharsets.UTF_8.name());
-
-    // Re-create the input stream (since it has already been read for potential
-    // exception message creation)
-    inStream =
-        new ByteArrayInputStream(originalInputStream.getBytes(StandardCharsets.UTF_8.name()));
+    // Features are converted as they are read from the stream, only the start of the response
+    // is kept for any exception message that might need to be created
+    PrefixRecordingInputStream recordingStream = new PrefixRecordingInputStream(inStream);
 
     WfsFeatureCollection featureCollection = null;
 
     try {
       xstream.allowTypeHierarchy(WfsFeatureCollection.class);
-      featureCollection = (WfsFeatureCollection) xstream.fromXML(inStream);
+      featureCollection = (WfsFeatureCollection) xstream.fromXML(recordingStream);
     } catch (XStreamException e) {
       // If a ServiceExceptionReport is sent from the remote WFS site it will be sent with an
       // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
       // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
       // response, resulting in an XStreamException since ExceptionReport cannot be
       // unmarshalled. So this catch clause is responsible for catching that XStream
-      // exception and creating a JAX-RS response containing the original stream
+      // exception and creating a JAX-RS response containing the start of the original stream
       // (with the ExceptionReport) and rethrowing it as a WebApplicationException,
       // which CXF will wrap as a ClientException that the WfsSource catches, converts
       // to a WfsException, and logs.
       LOGGER.debug("Exception unmarshalling", e);
-      ByteArrayInputStream bis =
-          new ByteArrayInputStream(originalInputStream.getBytes(StandardCharsets.UTF_8));
+      recordingStream.readPrefix();
+      ByteArrayInputStream bis = new ByteArrayInputStream(recordingStream.getPrefix());
       ResponseBuilder responseBuilder = Response.ok(bis);
       responseBuilder.type("text/xml");
       Response response = responseBuilder.build();
@@ -20,20 +20,14 @@
 import com.vividsolutions.jts.io.WKTWriter;
 import ddf.catalog.data.AttributeType.AttributeFormat;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactoryConfigurationError;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import org.codice.ddf.libs.geo.util.GeospatialUtil;
 import org.codice.ddf.platform.util.XMLUtils;
 import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
@@ -56,8 +50,6 @@ abstract class AbstractFeatureConverterWfs11 extends AbstractFeatureConverter
 
   private static final String XML_PARSE_FAILURE = "Failed to parse GML based XML into a Document.";
 
-  private static final String CREATE_TRANSFORMER_FAILURE = "Failed to create Transformer.";
-
   private static final String GML_FAILURE = "Failed to transform GML.\n";
 
   private static final XMLUtils XML_UTILS = XMLUtils.getInstance();
@@ -168,17 +160,8 @@ private Geometry readGml(String xml) {
         doc.createElementNS(
             Wfs11Constants.GML_3_1_1_NAMESPACE, doc.getDocumentElement().getNodeName());
       }
-      // Convert DOM to InputStream
-      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-      Source xmlSource = new DOMSource(doc);
-      Result outputTarget = new StreamResult(outputStream);
-      try {
-        XML_UTILS.getXmlTransformer(false).transform(xmlSource, outputTarget);
-      } catch (TransformerException | TransformerFactoryConfigurationError e) {
-        LOGGER.debug(CREATE_TRANSFORMER_FAILURE, e);
-      }
-
-      xmlIs = new ByteArrayInputStream(outputStream.toByteArray());
+      // Serializing the document would only reproduce the XML, so parse the XML itself
+      xmlIs = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
 
       // Parse XML into a Geometry object
       Configuration configurationG = new org.geotools.gml3.GMLConfiguration();
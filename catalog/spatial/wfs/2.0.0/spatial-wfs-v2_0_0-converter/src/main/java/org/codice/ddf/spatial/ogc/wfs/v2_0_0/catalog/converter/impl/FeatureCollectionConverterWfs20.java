@@ -23,6 +23,7 @@
 import com.vividsolutions.jts.geom.GeometryFactory;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.MetacardImpl;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -32,6 +33,7 @@
 import java.util.Set;
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
+import org.apache.commons.lang.StringUtils;
 import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsFeatureCollection;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsQnameBuilder;
@@ -52,6 +54,10 @@ public class FeatureCollectionConverterWfs20 implements Converter {
 
   private static final String FEATURE_COLLECTION = "FeatureCollection";
 
+  private static final String NUMBER_MATCHED = "numberMatched";
+
+  private static final String NUMBER_RETURNED = "numberReturned";
+
   private static final Logger LOGGER =
       LoggerFactory.getLogger(FeatureCollectionConverterWfs20.class);
 
@@ -167,6 +173,7 @@ private Geometry getBounds(List<Metacard> metacards) {
   @Override
   public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
     Wfs20FeatureCollection featureCollection = new Wfs20FeatureCollection();
+    setNumbers(featureCollection, reader);
     while (reader.hasMoreChildren()) {
       reader.moveDown();
       String nodeName = reader.getNodeName();
@@ -203,6 +210,20 @@ public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext co
     return featureCollection;
   }
 
+  private void setNumbers(
+      Wfs20FeatureCollection featureCollection, HierarchicalStreamReader reader) {
+    featureCollection.setNumberMatched(reader.getAttribute(NUMBER_MATCHED));
+
+    String numberReturned = StringUtils.trimToNull(reader.getAttribute(NUMBER_RETURNED));
+    if (numberReturned != null) {
+      try {
+        featureCollection.setNumberReturned(new BigInteger(numberReturned));
+      } catch (NumberFormatException e) {
+        LOGGER.debug("Invalid {} in the feature collection: {}", NUMBER_RETURNED, numberReturned);
+      }
+    }
+  }
+
   private Wfs20FeatureCollection addMetacardToFeatureCollection(
       Wfs20FeatureCollection featureCollection,
       UnmarshallingContext context,
@@ -15,17 +15,15 @@
 
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.xml.WstxDriver;
 import com.thoughtworks.xstream.security.NoTypePermission;
 import ddf.catalog.data.Metacard;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.math.BigInteger;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import javax.ws.rs.Consumes;
@@ -36,16 +34,10 @@
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
-import net.opengis.wfs.v_2_0_0.FeatureCollectionType;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.PrefixRecordingInputStream;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlEnvelopeConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlGeometryConverter;
@@ -63,7 +55,9 @@
   private static final Logger LOGGER =
       LoggerFactory.getLogger(FeatureCollectionMessageBodyReaderWfs20.class);
 
-  private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
+  private static final String EXCEPTION_REPORT = "ExceptionReport";
+
+  private final WstxDriver driver = new WstxDriver();
 
   protected XStream xstream;
 
@@ -73,7 +67,7 @@
       new HashMap<String, FeatureConverter>();
 
   public FeatureCollectionMessageBodyReaderWfs20() {
-    xstream = new XStream(new WstxDriver());
+    xstream = new XStream(driver);
     xstream.addPermission(NoTypePermission.NONE);
     xstream.setClassLoader(this.getClass().getClassLoader());
     xstream.registerConverter(new GmlGeometryConverter());
@@ -84,31 +78,6 @@ public FeatureCollectionMessageBodyReaderWfs20() {
     xstream.alias("FeatureCollection", Wfs20FeatureCollection.class);
   }
 
-  private static JAXBContext initJaxbContext() {
-    JAXBContext jaxbContext = null;
-
-    // JAXB context path
-    String contextPath =
-        StringUtils.join(
-            new String[] {
-              Wfs20Constants.OGC_WFS_PACKAGE,
-              Wfs20Constants.OGC_FILTER_PACKAGE,
-              Wfs20Constants.OGC_GML_PACKAGE,
-              Wfs20Constants.OGC_OWS_PACKAGE
-            },
-            ":");
-
-    try {
-      jaxbContext =
-          JAXBContext.newInstance(
-              contextPath, FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-    } catch (JAXBException e) {
-      LOGGER.info("Unable to create JAXB context using contextPath: {}.", contextPath, e);
-    }
-
-    return jaxbContext;
-  }
-
   @Override
   public boolean isReadable(
       Class<?> clazz, Type type, Annotation[] annotations, MediaType mediaType) {
@@ -118,7 +87,6 @@ public boolean isReadable(
     return Wfs20FeatureCollection.class.isAssignableFrom(clazz);
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public Wfs20FeatureCollection readFrom(
       Class<Wfs20FeatureCollection> clazz,
@@ -129,85 +97,49 @@ public Wfs20FeatureCollection readFrom(
       InputStream inStream)
       throws IOException, WebApplicationException {
 
-    // Save original input stream for any exception message that might need to be
-    // created and additional attributes
-    String originalInputStream = IOUtils.toString(inStream, "UTF-8");
-    LOGGER.debug("{}", originalInputStream);
+    // Features are converted as they are read from the stream, only the start of the response
+    // is kept for any exception message that might need to be created
+    PrefixRecordingInputStream recordingStream = new PrefixRecordingInputStream(inStream);
 
     ClassLoader ccl = Thread.currentThread().getContextClassLoader();
 
     try {
       Thread.currentThread()
           .setContextClassLoader(FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-      // Fetch FeatureCollection attributes
-      Unmarshaller unmarshaller = null;
-      JAXBElement<FeatureCollectionType> wfsFeatureCollectionType = null;
-      xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
-      try {
-        unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
-        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
-        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
-        xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
-        XMLStreamReader xmlStreamReader =
-            xmlInputFactory.createXMLStreamReader(new StringReader(originalInputStream));
-        wfsFeatureCollectionType =
-            (JAXBElement<FeatureCollectionType>) unmarshaller.unmarshal(xmlStreamReader);
-      } catch (ClassCastException e1) {
-        LOGGER.debug(
-            "Exception unmarshalling {}, could be an OWS Exception Report from server.",
-            e1.getMessage());
-
+      XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+      xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+      xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+      xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+      HierarchicalStreamReader reader =
+          driver.createStaxReader(xmlInputFactory.createXMLStreamReader(recordingStream));
+
+      if (EXCEPTION_REPORT.equals(reader.getNodeName())) {
         // If an ExceptionReport is sent from the remote WFS site it will be sent with an
         // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
-        // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
-        // response, resulting in an XStreamException since ExceptionReport cannot be
-        // unmarshalled. So this catch clause is responsible for catching that XStream
-        // exception and creating a JAX-RS response containing the original stream
-        // (with the ExceptionReport) and rethrowing it as a WebApplicationException,
+        // Instead the ExceptionReport will come here in place of a GetFeature response.
+        // So this creates a JAX-RS response containing the start of the original stream
+        // (with the ExceptionReport) and throws it as a WebApplicationException,
         // which CXF will wrap as a ClientException that the WfsSource catches, converts
         // to a WfsException, and logs.
-
-        ByteArrayInputStream bis =
-            new ByteArrayInputStream(originalInputStream.getBytes(StandardCharsets.UTF_8));
+        recordingStream.readPrefix();
+        LOGGER.debug("OWS Exception Report from server: {}", recordingStream);
+        ByteArrayInputStream bis = new ByteArrayInputStream(recordingStream.getPrefix());
         ResponseBuilder responseBuilder = Response.ok(bis);
         responseBuilder.type("text/xml");
         Response response = responseBuilder.build();
-        throw new WebApplicationException(e1, response);
-      } catch (VirtualMachineError e) {
-        throw e;
-      } catch (JAXBException | XMLStreamException e1) {
-        LOGGER.debug("Error in retrieving feature collection.", e1);
-      } catch (RuntimeException | Error e) {
-        LOGGER.debug("Error processing collection", e);
-        throw e;
-      }
-
-      Wfs20FeatureCollection featureCollection = null;
-
-      if (null != wfsFeatureCollectionType && null != wfsFeatureCollectionType.getValue()) {
-        BigInteger numberReturned = wfsFeatureCollectionType.getValue().getNumberReturned();
-        String numberMatched = wfsFeatureCollectionType.getValue().getNumberMatched();
-
-        // Re-create the input stream (since it has already been read for potential
-        // exception message creation)
-        inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
-
-        try {
-          xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
-          featureCollection = (Wfs20FeatureCollection) xstream.fromXML(inStream);
-          featureCollection.setNumberMatched(numberMatched);
-          featureCollection.setNumberReturned(numberReturned);
-
-        } catch (XStreamException e) {
-          LOGGER.debug("Exception unmarshalling {}", e);
-        } finally {
-          IOUtils.closeQuietly(inStream);
-        }
+        throw new WebApplicationException(response);
       }
 
+      xstream.allowTypeHierarchy(Wfs20FeatureCollection.class);
+      Wfs20FeatureCollection featureCollection =
+          (Wfs20FeatureCollection) xstream.unmarshal(reader);
+      LOGGER.debug("{}", recordingStream);
       return featureCollection;
+    } catch (XMLStreamException | XStreamException e) {
+      LOGGER.debug("Error in retrieving feature collection.", e);
+      return null;
     } finally {
+      IOUtils.closeQuietly(inStream);
       Thread.currentThread().setContextClassLoader(ccl);
     }
   }
@@ -41,15 +41,14 @@
 import ddf.catalog.data.impl.BasicTypes;
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.types.Core;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -92,6 +91,13 @@ public abstract class AbstractFeatureConverter implements FeatureConverter {
 
   private HierarchicalStreamCopier copier = new HierarchicalStreamCopier();
 
+  /**
+   * Shared by every conversion. Creating a reader only reads the driver's input factory, which is
+   * created up front rather than on the first read, and a configured Woodstox input factory is
+   * thread-safe for concurrent readers.
+   */
+  private final StaxDriver driver = createDriver();
+
   private NoNameCoder noNameCoder = new NoNameCoder();
 
   private MetacardMapper metacardMapper = null;
@@ -104,6 +110,12 @@ public AbstractFeatureConverter(MetacardMapper metacardMapper) {
     this.metacardMapper = metacardMapper;
   }
 
+  private static StaxDriver createDriver() {
+    StaxDriver staxDriver = new WstxDriver();
+    staxDriver.getInputFactory();
+    return staxDriver;
+  }
+
   @Override
   public boolean canConvert(Class clazz) {
     return Metacard.class.isAssignableFrom(clazz);
@@ -133,16 +145,16 @@ public void setCoordinateOrder(String coordinateOrder) {
   protected HierarchicalStreamReader copyXml(
       HierarchicalStreamReader hreader, StringWriter writer) {
     copier.copy(hreader, new CompactWriter(writer, noNameCoder));
-
-    StaxDriver driver = new WstxDriver();
-    return driver.createReader(
-        new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8)));
+    return driver.createReader(new StringReader(writer.toString()));
   }
 
   protected Metacard createMetacardFromFeature(
       HierarchicalStreamReader hreader, MetacardType metacardType) {
+    // The feature is copied once, the copy is both read for the attributes and kept as metadata
     StringWriter metadataWriter = new StringWriter();
-    HierarchicalStreamReader reader = copyXml(hreader, metadataWriter);
+    copier.copy(hreader, new CompactWriter(metadataWriter, noNameCoder));
+    String metadata = metadataWriter.toString();
+    HierarchicalStreamReader reader = driver.createReader(new StringReader(metadata));
     MetacardImpl mc = new MetacardImpl(metacardType);
     mc.setContentTypeName(metacardType.getName());
 
@@ -233,7 +245,7 @@ protected Metacard createMetacardFromFeature(
       reader.moveUp();
     }
 
-    mc.setMetadata(metadataWriter.toString());
+    mc.setMetadata(metadata);
 
     try {
       if (metacardType instanceof FeatureMetacardType) {
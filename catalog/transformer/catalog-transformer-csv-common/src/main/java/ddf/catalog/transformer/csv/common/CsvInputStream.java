@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) Codice Foundation
+ * <p/>
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ * <p/>
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.catalog.transformer.csv.common;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+
+/**
+ * An InputStream of CSV text that prints the rows of the metacards as they are read, a few rows at
+ * a time, so that the CSV text of all the metacards is never held in memory at once.
+ */
+class CsvInputStream extends InputStream {
+  private static final int ROWS_PER_CHUNK = 100;
+
+  private final Iterator<Metacard> metacards;
+
+  private final List<AttributeDescriptor> orderedAttributeDescriptors;
+
+  private final StringBuilder buffer = new StringBuilder();
+
+  private final CSVPrinter csvPrinter;
+
+  private byte[] chunk;
+
+  private int position;
+
+  /**
+   * @param metacards the metacards to print, one row per metacard
+   * @param orderedAttributeDescriptors the attributes to print, in column order
+   * @param aliasMap a map from attribute name to column header
+   * @throws IOException if the column headers cannot be printed
+   */
+  CsvInputStream(
+      final Iterator<Metacard> metacards,
+      final List<AttributeDescriptor> orderedAttributeDescriptors,
+      final Map<String, String> aliasMap)
+      throws IOException {
+    this.metacards = metacards;
+    this.orderedAttributeDescriptors = orderedAttributeDescriptors;
+    this.csvPrinter = new CSVPrinter(buffer, CSVFormat.RFC4180);
+
+    csvPrinter.printRecord(() -> new ColumnHeaderIterator(orderedAttributeDescriptors, aliasMap));
+    takeChunk();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return chunk[position++] & 0xff;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+
+    int count = Math.min(len, chunk.length - position);
+    System.arraycopy(chunk, position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int available() {
+    return chunk.length - position;
+  }
+
+  /** @return {@code false} if all the rows have been read */
+  private boolean fill() throws IOException {
+    while (position >= chunk.length) {
+      if (!metacards.hasNext()) {
+        return false;
+      }
+
+      for (int rows = 0; rows < ROWS_PER_CHUNK && metacards.hasNext(); rows++) {
+        Metacard metacard = metacards.next();
+        if (metacard != null) {
+          csvPrinter.printRecord(() -> new MetacardIterator(metacard, orderedAttributeDescriptors));
+        }
+      }
+      takeChunk();
+    }
+    return true;
+  }
+
+  private void takeChunk() {
+    chunk = buffer.toString().getBytes(StandardCharsets.UTF_8);
+    position = 0;
+    buffer.setLength(0);
+  }
+}
@@ -28,6 +28,8 @@
 import java.io.InputStream;
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +71,30 @@ public static BinaryContent createResponse(final Appendable csv) {
     return new BinaryContentImpl(inputStream, CSV_MIME_TYPE);
   }
 
+  /**
+   * Creates a response that prints the CSV rows of the metacards while it is being read, instead
+   * of holding the CSV text of all the metacards in memory.
+   *
+   * @param metacards the metacards to print, one row per metacard
+   * @param orderedAttributeDescriptors the attributes to print, in column order
+   * @param aliasMap a map from attribute name to column header
+   * @return the CSV response
+   * @throws CatalogTransformerException if the column headers cannot be printed
+   */
+  public static BinaryContent createStreamingResponse(
+      final List<Metacard> metacards,
+      final List<AttributeDescriptor> orderedAttributeDescriptors,
+      final Map<String, String> aliasMap)
+      throws CatalogTransformerException {
+    try {
+      return new BinaryContentImpl(
+          new CsvInputStream(metacards.iterator(), orderedAttributeDescriptors, aliasMap),
+          CSV_MIME_TYPE);
+    } catch (IOException ioe) {
+      throw new CatalogTransformerException(ioe);
+    }
+  }
+
   public static Appendable writeMetacardsToCsv(
       final List<Metacard> metacards,
       final List<AttributeDescriptor> orderedAttributeDescriptors,
@@ -144,7 +170,9 @@ public static List<AttributeDescriptor> sortAttributes(
 
   /**
    * Given a list of {@link Metacard}s, returns a set of {@link AttributeDescriptor}s that contains
-   * all attributes that exist on the given metacard types. Object and Binary types are excluded
+   * all attributes that exist on the given metacard types. Object and Binary types are excluded.
+   * Only the metacard types are inspected, each distinct type once, so the attribute values of the
+   * metacards are not read.
    *
    * @param metacards List of metacards from which to extract attribute descriptors
    * @return a Set of {@AttributeDescriptor}s that are on each metacard
@@ -152,10 +180,17 @@ public static List<AttributeDescriptor> sortAttributes(
   public static Set<AttributeDescriptor> getAllCsvAttributeDescriptors(
       final List<Metacard> metacards) {
 
-    return metacards
+    // results usually share a handful of metacard type instances, compare them by identity since
+    // MetacardType equality compares every attribute descriptor
+    Set<MetacardType> metacardTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+    metacards
         .stream()
         .filter(Objects::nonNull)
         .map(Metacard::getMetacardType)
+        .forEach(metacardTypes::add);
+
+    return metacardTypes
+        .stream()
         .map(MetacardType::getAttributeDescriptors)
         .flatMap(Set::stream)
         .filter(CsvTransformer::attributeNotBinary)
@@ -25,6 +25,7 @@
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.AttributeType;
+import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.impl.AttributeImpl;
@@ -32,7 +33,9 @@
 import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.MetacardTypeImpl;
 import ddf.catalog.transform.CatalogTransformerException;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -175,6 +178,26 @@ public void writeSearchResultsToCsvWithAliasMap() throws CatalogTransformerExcep
     assertThat(scanner.hasNext(), is(false));
   }
 
+  @Test
+  public void streamingResponseMatchesCsvText() throws CatalogTransformerException, IOException {
+    List<Metacard> metacards = new ArrayList<>();
+    for (int i = 0; i < 250; i++) {
+      metacards.add(buildMetacard());
+    }
+    List<AttributeDescriptor> requestedAttributes =
+        CsvTransformer.sortAttributes(
+            CsvTransformer.getAllCsvAttributeDescriptors(metacards), Collections.emptyList());
+    Map<String, String> aliasMap = ImmutableMap.of("attribute1", "column1");
+
+    BinaryContent content =
+        CsvTransformer.createStreamingResponse(metacards, requestedAttributes, aliasMap);
+
+    Appendable csvText =
+        CsvTransformer.writeMetacardsToCsv(metacards, requestedAttributes, aliasMap);
+    assertThat(content.getMimeTypeValue(), is("text/csv"));
+    assertThat(new String(content.getByteArray(), StandardCharsets.UTF_8), is(csvText.toString()));
+  }
+
   private Metacard buildMetacard() {
     MetacardType metacardType = new MetacardTypeImpl("", new HashSet<>(ATTRIBUTE_DESCRIPTOR_LIST));
     Metacard metacard = new MetacardImpl(metacardType);
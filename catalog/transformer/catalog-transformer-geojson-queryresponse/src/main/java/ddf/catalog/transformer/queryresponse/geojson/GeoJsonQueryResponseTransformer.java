@@ -21,18 +21,40 @@
 import ddf.catalog.transform.CatalogTransformerException;
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.catalog.transform.QueryResponseTransformer;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
-import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import net.minidev.json.JSONValue;
 import net.minidev.json.parser.JSONParser;
 import net.minidev.json.parser.ParseException;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.SubjectThreadState;
+import org.apache.shiro.util.ThreadContext;
+import org.apache.shiro.util.ThreadState;
+import org.codice.ddf.platform.util.ForkJoinPoolFactory;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +64,12 @@
  * ddf.catalog.data.Metacard}s that are the results from a query. This class leverages the {@link
  * GeoJsonMetacardTransformer} to convert metacards to JSON.
  *
+ * <p>The response is streamed: results are converted in chunks, in parallel when a chunk is larger
+ * than the threshold, and written to the returned content as soon as the chunk is converted, in
+ * the order of the results. The responses are written by a bounded pool of writer threads, as the
+ * subject that requested the transformation, and closing the content before the end stops its
+ * writer.
+ *
  * @see GeoJsonMetacardTransformer
  * @see QueryResponseTransformer
  * @see ddf.catalog.data.Metacard
@@ -51,6 +79,14 @@ public class GeoJsonQueryResponseTransformer implements QueryResponseTransformer
 
   public static final String ID = "geojson";
 
+  public static final int DEFAULT_THRESHOLD = 50;
+
+  private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+
+  private static final int MAX_WRITER_THREADS = 32;
+
+  private static final int MAX_QUEUED_RESPONSES = 1024;
+
   private static final Logger LOGGER =
       LoggerFactory.getLogger(GeoJsonQueryResponseTransformer.class);
 
@@ -68,10 +104,48 @@ public class GeoJsonQueryResponseTransformer implements QueryResponseTransformer
 
   private final MetacardTransformer metacardTransformer;
 
+  private final ForkJoinPool fjp = ForkJoinPoolFactory.getNewForkJoinPool(null, false);
+
+  private final ThreadPoolExecutor writerPool = createWriterPool();
+
+  private int threshold = DEFAULT_THRESHOLD;
+
   public GeoJsonQueryResponseTransformer(MetacardTransformer metacardTransformer) {
     this.metacardTransformer = metacardTransformer;
   }
 
+  /**
+   * @param threshold the fork threshold: result lists smaller than this size will be converted
+   *     serially; larger than this size will be converted in threshold-sized chunks in parallel
+   */
+  public void setThreshold(int threshold) {
+    this.threshold = threshold <= 1 ? 2 : threshold;
+  }
+
+  public void destroy() {
+    writerPool.shutdownNow();
+    fjp.shutdownNow();
+  }
+
+  int getActiveWriterCount() {
+    return writerPool.getActiveCount();
+  }
+
+  private static ThreadPoolExecutor createWriterPool() {
+    // a response that does not fit in the queue is rejected rather than written by the caller,
+    // which would block on the pipe it has not returned yet
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(
+            MAX_WRITER_THREADS,
+            MAX_WRITER_THREADS,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(MAX_QUEUED_RESPONSES),
+            StandardThreadFactoryBuilder.newThreadFactory("geoJsonResponseWriterThread"));
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
   private JSONObject convertToJSON(Result result) throws CatalogTransformerException {
     JSONObject rootObject = new JSONObject();
 
@@ -83,10 +157,6 @@ private JSONObject convertToJSON(Result result) throws CatalogTransformerExcepti
   }
 
   private Object createGeoJSON(Metacard metacard) throws CatalogTransformerException {
-    if (metacardTransformer == null) {
-      throw new CatalogTransformerException("The metacard transformer cannot be null");
-    }
-
     BinaryContent rawContent = metacardTransformer.transform(metacard, null);
     JSONParser jsonParser = new JSONParser(JSONParser.DEFAULT_PERMISSIVE_MODE);
     try {
@@ -111,27 +181,238 @@ public BinaryContent transform(
       throw new CatalogTransformerException(
           "Cannot transform null " + SourceResponse.class.getName());
     }
+    if (metacardTransformer == null) {
+      throw new CatalogTransformerException("The metacard transformer cannot be null");
+    }
 
-    JSONObject rootObject = new JSONObject();
+    List<Result> results =
+        upstreamResponse.getResults() == null
+            ? Collections.emptyList()
+            : new ArrayList<>(upstreamResponse.getResults());
+    for (Result result : results) {
+      if (result == null) {
+        throw new CatalogTransformerException("Cannot transform null " + Result.class.getName());
+      }
+      if (result.getMetacard() == null) {
+        throw new CatalogTransformerException("Cannot transform null " + Metacard.class.getName());
+      }
+    }
+
+    GeoJsonInputStream inputStream = new GeoJsonInputStream();
+    PipedOutputStream outputStream;
+    try {
+      outputStream = new PipedOutputStream(inputStream);
+    } catch (IOException e) {
+      throw new CatalogTransformerException("Unable to create GeoJSON response stream", e);
+    }
+
+    long hits = upstreamResponse.getHits();
+    Runnable writeTask = () -> writeResponse(hits, results, outputStream, inputStream);
+    Subject subject = ThreadContext.getSubject();
+    try {
+      inputStream.setWriter(
+          writerPool.submit(subject == null ? writeTask : subject.associateWith(writeTask)));
+    } catch (RejectedExecutionException e) {
+      throw new CatalogTransformerException("Too many GeoJSON responses are being written", e);
+    }
+
+    return new BinaryContentImpl(inputStream, DEFAULT_MIME_TYPE);
+  }
+
+  private void writeResponse(
+      long hits,
+      List<Result> results,
+      PipedOutputStream outputStream,
+      GeoJsonInputStream inputStream) {
+    Writer writer =
+        new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    try {
+      writeResults(hits, results, writer);
+    } catch (ExecutionException e) {
+      LOGGER.debug("Failed to convert results to GeoJSON", e);
+      inputStream.setFailure(e.getCause());
+    } catch (InterruptedException e) {
+      inputStream.setFailure(e);
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      LOGGER.debug("Failed to write GeoJSON response, the reader may have closed the stream", e);
+    } finally {
+      // the failure has to be set before closing, so that the reader does not see a normal end
+      closeQuietly(writer);
+    }
+  }
+
+  private void writeResults(long hits, List<Result> results, Writer writer)
+      throws IOException, ExecutionException, InterruptedException {
+    writer.write("{\"hits\":");
+    writer.write(Long.toString(hits));
+    writer.write(",\"results\":[");
+
+    // the next chunk is converted while the current one is written
+    int chunkSize = threshold * fjp.getParallelism();
+    ForkJoinTask<StringBuilder> current = null;
+    ForkJoinTask<StringBuilder> next = submitChunk(results, 0, chunkSize);
+    try {
+      for (int start = 0; next != null; start += chunkSize) {
+        current = next;
+        next = submitChunk(results, start + chunkSize, chunkSize);
+        if (start > 0) {
+          writer.write(',');
+        }
+        writer.append(current.get());
+        writer.flush();
+      }
+    } finally {
+      // the chunks that are not written anymore are not converted either
+      cancel(current);
+      cancel(next);
+    }
 
-    addNonNullObject(rootObject, "hits", upstreamResponse.getHits());
+    writer.write("]}");
+  }
+
+  private ForkJoinTask<StringBuilder> submitChunk(List<Result> results, int start, int size) {
+    if (start >= results.size()) {
+      return null;
+    }
+    return fjp.submit(
+        new ResultForkTask(
+            results.subList(start, Math.min(start + size, results.size())),
+            ThreadContext.getSubject()));
+  }
+
+  private static void cancel(ForkJoinTask<?> task) {
+    if (task != null) {
+      task.cancel(false);
+    }
+  }
+
+  private static void closeQuietly(Writer writer) {
+    try {
+      writer.close();
+    } catch (IOException e) {
+      LOGGER.debug("Failed to close GeoJSON response stream", e);
+    }
+  }
+
+  /**
+   * Converts a list of results to GeoJSON features separated by commas, splitting the list in two
+   * halves that are converted concurrently while it is larger than the threshold. The results are
+   * converted as the subject of the response.
+   */
+  private class ResultForkTask extends RecursiveTask<StringBuilder> {
+    private static final long serialVersionUID = 1L;
 
-    JSONArray resultsList = new JSONArray();
+    private final transient List<Result> resultList;
 
-    if (upstreamResponse.getResults() != null) {
-      for (Result result : upstreamResponse.getResults()) {
-        if (result == null) {
-          throw new CatalogTransformerException("Cannot transform null " + Result.class.getName());
+    private final transient Subject subject;
+
+    ResultForkTask(List<Result> resultList, Subject subject) {
+      this.resultList = resultList;
+      this.subject = subject;
+    }
+
+    @Override
+    protected StringBuilder compute() {
+      if (resultList.size() < threshold) {
+        return doCompute();
+      }
+
+      int half = resultList.size() / 2;
+      ResultForkTask left = new ResultForkTask(resultList.subList(0, half), subject);
+      left.fork();
+      StringBuilder right =
+          new ResultForkTask(resultList.subList(half, resultList.size()), subject).compute();
+      return left.join().append(',').append(right);
+    }
+
+    private StringBuilder doCompute() {
+      ThreadState threadState = subject == null ? null : new SubjectThreadState(subject);
+      if (threadState != null) {
+        threadState.bind();
+      }
+      try {
+        StringBuilder features = new StringBuilder();
+        for (Result result : resultList) {
+          if (features.length() > 0) {
+            features.append(',');
+          }
+          try {
+            features.append(JSONValue.toJSONString(convertToJSON(result)));
+          } catch (CatalogTransformerException e) {
+            throw new ResultConversionException(e);
+          }
+        }
+        return features;
+      } finally {
+        if (threadState != null) {
+          threadState.restore();
         }
-        resultsList.add(convertToJSON(result));
       }
     }
-    addNonNullObject(rootObject, "results", resultsList);
+  }
 
-    String jsonText = JSONValue.toJSONString(rootObject);
+  private static class ResultConversionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
 
-    return new BinaryContentImpl(
-        new ByteArrayInputStream(jsonText.getBytes(StandardCharsets.UTF_8)), DEFAULT_MIME_TYPE);
+    ResultConversionException(CatalogTransformerException cause) {
+      super(cause.getMessage(), cause);
+    }
+  }
+
+  /**
+   * Input stream of the GeoJSON response that fails instead of ending normally when the response
+   * could not be written completely, and that cancels its writer when it is closed.
+   */
+  private static class GeoJsonInputStream extends PipedInputStream {
+
+    private volatile Throwable failure;
+
+    private volatile Future<?> writer;
+
+    private volatile boolean closed;
+
+    GeoJsonInputStream() {
+      super(PIPE_BUFFER_SIZE);
+    }
+
+    void setFailure(Throwable failure) {
+      this.failure = failure;
+    }
+
+    void setWriter(Future<?> writer) {
+      this.writer = writer;
+      if (closed) {
+        writer.cancel(true);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      Future<?> currentWriter = writer;
+      if (currentWriter != null) {
+        currentWriter.cancel(true);
+      }
+      super.close();
+    }
+
+    @Override
+    public synchronized int read() throws IOException {
+      return checkFailure(super.read());
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+      return checkFailure(super.read(b, off, len));
+    }
+
+    private int checkFailure(int read) throws IOException {
+      if (read == -1 && failure != null) {
+        throw new IOException("Unable to transform query response to GeoJSON", failure);
+      }
+      return read;
+    }
   }
 
   @Override
@@ -13,11 +13,17 @@
  */
 package ddf.catalog.transformer.queryresponse.geojson;
 
+import static org.hamcrest.CoreMatchers.everyItem;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import ddf.catalog.data.BinaryContent;
 import ddf.catalog.data.Metacard;
@@ -31,20 +37,28 @@
 import ddf.catalog.transform.MetacardTransformer;
 import ddf.catalog.transformer.metacard.geojson.GeoJsonMetacardTransformer;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import net.minidev.json.parser.JSONParser;
 import net.minidev.json.parser.ParseException;
 import org.apache.commons.io.IOUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.SubjectRunnable;
+import org.apache.shiro.util.ThreadContext;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -155,6 +169,125 @@ public void testCustomTransformerWithJsonArray()
     assertThat(((JSONObject) metacard.get(1)).get("id"), is("1"));
   }
 
+  @Test
+  public void testParallelConversionKeepsResultOrder()
+      throws ParseException, IOException, CatalogTransformerException {
+    GeoJsonQueryResponseTransformer geoJsonQRT =
+        new GeoJsonQueryResponseTransformer(createIdMetacardTransformer());
+    geoJsonQRT.setThreshold(2);
+
+    try {
+      final int resultCount = 500;
+      JSONObject json = transform(setupResponseWithIds(resultCount), geoJsonQRT);
+
+      JSONArray results = (JSONArray) json.get("results");
+      assertThat(results.size(), is(resultCount));
+      for (int i = 0; i < resultCount; i++) {
+        JSONObject metacard = (JSONObject) ((JSONObject) results.get(i)).get("metacard");
+        assertThat(metacard.get("id"), is(Integer.toString(i)));
+      }
+    } finally {
+      geoJsonQRT.destroy();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testFailedConversionFailsResponseStream()
+      throws IOException, CatalogTransformerException {
+    MetacardTransformer idTransformer = createIdMetacardTransformer();
+    GeoJsonQueryResponseTransformer geoJsonQRT =
+        new GeoJsonQueryResponseTransformer(
+            (metacard, arguments) -> {
+              if ("3".equals(metacard.getId())) {
+                throw new CatalogTransformerException("Unable to transform metacard");
+              }
+              return idTransformer.transform(metacard, arguments);
+            });
+
+    try {
+      geoJsonQRT.transform(setupResponseWithIds(10), null).getByteArray();
+    } finally {
+      geoJsonQRT.destroy();
+    }
+  }
+
+  @Test
+  public void testAbandonedResponseStopsItsWriter() throws Exception {
+    AtomicInteger conversions = new AtomicInteger();
+    MetacardTransformer idTransformer = createIdMetacardTransformer();
+    GeoJsonQueryResponseTransformer geoJsonQRT =
+        new GeoJsonQueryResponseTransformer(
+            (metacard, arguments) -> {
+              conversions.incrementAndGet();
+              return idTransformer.transform(metacard, arguments);
+            });
+    geoJsonQRT.setThreshold(2);
+
+    try {
+      // far more than the pipe buffers, so the writer is blocked when the stream is closed
+      final int resultCount = 100000;
+      InputStream inputStream =
+          geoJsonQRT.transform(setupResponseWithIds(resultCount), null).getInputStream();
+      assertThat(inputStream.read(), is((int) '{'));
+      inputStream.close();
+
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (geoJsonQRT.getActiveWriterCount() > 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(geoJsonQRT.getActiveWriterCount(), is(0));
+      assertThat(conversions.get(), lessThan(resultCount));
+    } finally {
+      geoJsonQRT.destroy();
+    }
+  }
+
+  @Test
+  public void testResultsAreConvertedAsTheRequestingSubject() throws Exception {
+    Subject subject = mock(Subject.class);
+    when(subject.associateWith(any(Runnable.class)))
+        .thenAnswer(
+            invocation -> new SubjectRunnable(subject, (Runnable) invocation.getArguments()[0]));
+    List<Subject> subjects = Collections.synchronizedList(new ArrayList<>());
+    MetacardTransformer idTransformer = createIdMetacardTransformer();
+    GeoJsonQueryResponseTransformer geoJsonQRT =
+        new GeoJsonQueryResponseTransformer(
+            (metacard, arguments) -> {
+              subjects.add(ThreadContext.getSubject());
+              return idTransformer.transform(metacard, arguments);
+            });
+    geoJsonQRT.setThreshold(2);
+
+    ThreadContext.bind(subject);
+    try {
+      final int resultCount = 100;
+      geoJsonQRT.transform(setupResponseWithIds(resultCount), null).getByteArray();
+
+      assertThat(subjects.size(), is(resultCount));
+      assertThat(subjects, everyItem(sameInstance(subject)));
+    } finally {
+      ThreadContext.unbindSubject();
+      geoJsonQRT.destroy();
+    }
+  }
+
+  private MetacardTransformer createIdMetacardTransformer() {
+    return (metacard, arguments) ->
+        new BinaryContentImpl(
+            IOUtils.toInputStream(
+                "{\"id\":\"" + metacard.getId() + "\"}", StandardCharsets.UTF_8));
+  }
+
+  private SourceResponse setupResponseWithIds(int count) {
+    List<Result> results = new LinkedList<>();
+    for (int i = 0; i < count; i++) {
+      MetacardImpl metacard = new MetacardImpl();
+      metacard.setId(Integer.toString(i));
+      results.add(new ResultImpl(metacard));
+    }
+    return new SourceResponseImpl(null, results, (long) count);
+  }
+
   private MetacardTransformer createCustomMetacardTransformer(String binContent) {
     return (metacard, arguments) ->
         new BinaryContentImpl(IOUtils.toInputStream(binContent, StandardCharsets.UTF_8));
@@ -27,12 +27,16 @@
 import ddf.catalog.transformer.api.PrintWriterProvider;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
-import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
@@ -55,7 +59,12 @@ public class XmlResponseQueueTransformer extends AbstractXmlTransformer
 
   public static final int BUFFER_SIZE = 1024;
 
-  private static class MetacardForkTask extends RecursiveTask<StringWriter> {
+  /**
+   * Marshals a list of results, splitting it in two halves that are marshalled concurrently while
+   * it is larger than the threshold. Each serially marshalled part is encoded into its own chunk of
+   * bytes; the chunks are returned in result order, so they are never concatenated.
+   */
+  private static class MetacardForkTask extends RecursiveTask<List<byte[]>> {
     private static final long serialVersionUID = 1L;
 
     private final transient ImmutableList<Result> resultList;
@@ -95,7 +104,7 @@ private MetacardForkTask(
     }
 
     @Override
-    protected StringWriter compute() {
+    protected List<byte[]> compute() {
       if (cancelOperation.get()) {
         return null;
       }
@@ -122,29 +131,31 @@ protected StringWriter compute() {
                 threshold,
                 cancelOperation,
                 metacardMarshaller);
-        StringWriter rightList = fRight.compute();
-        StringWriter leftList = fLeft.join();
+        List<byte[]> rightList = fRight.compute();
+        List<byte[]> leftList = fLeft.join();
 
-        leftList.append(rightList.getBuffer());
-        return leftList;
+        List<byte[]> chunks = new ArrayList<>(leftList.size() + rightList.size());
+        chunks.addAll(leftList);
+        chunks.addAll(rightList);
+        return chunks;
       }
     } // end compute()
 
-    private StringWriter doCompute() {
-      StringWriter sw = new StringWriter(BUFFER_SIZE);
+    private List<byte[]> doCompute() {
+      StringBuilder xml = new StringBuilder(BUFFER_SIZE);
       Map<String, Serializable> args = new HashMap<>();
       args.put(MetacardMarshallerImpl.OMIT_XML_DECL, Boolean.TRUE);
       try {
         for (Result result : resultList) {
           Metacard metacard = result.getMetacard();
           String xmlString = metacardMarshaller.marshal(metacard, args);
-          sw.append(xmlString);
+          xml.append(xmlString);
         }
       } catch (XmlPullParserException | IOException | CatalogTransformerException e) {
         cancelOperation.set(true);
         throw new DataBindingException("Failure to write node; operation aborted", e);
       }
-      return sw;
+      return Collections.singletonList(xml.toString().getBytes(StandardCharsets.UTF_8));
     }
 
     private void writeObject(ObjectOutputStream stream) throws IOException {
@@ -232,25 +243,38 @@ public BinaryContent transform(SourceResponse response, Map<String, Serializable
         writer.addAttribute(nsRow.getKey(), nsRow.getValue());
       }
 
-      if (response.getResults() != null && !response.getResults().isEmpty()) {
-        StringWriter metacardContent =
-            fjp.invoke(
-                new MetacardForkTask(
-                    ImmutableList.copyOf(response.getResults()),
-                    fjp,
-                    geometryTransformer,
-                    threshold,
-                    metacardMarshaller));
-
-        writer.setRawValue(metacardContent.getBuffer().toString());
+      if (response.getResults() == null || response.getResults().isEmpty()) {
+        writer.endNode(); // metacards
+
+        ByteArrayInputStream bais =
+            new ByteArrayInputStream(writer.makeString().getBytes(StandardCharsets.UTF_8));
+
+        return new BinaryContentImpl(bais, mimeType);
       }
 
+      List<byte[]> metacardContent =
+          fjp.invoke(
+              new MetacardForkTask(
+                  ImmutableList.copyOf(response.getResults()),
+                  fjp,
+                  geometryTransformer,
+                  threshold,
+                  metacardMarshaller));
+
+      // close the start tag, then split the document around the marshalled metacards
+      writer.setRawValue("");
+      writer.flush();
+      String head = writer.makeString();
       writer.endNode(); // metacards
+      String tail = writer.makeString().substring(head.length());
 
-      ByteArrayInputStream bais =
-          new ByteArrayInputStream(writer.makeString().getBytes(StandardCharsets.UTF_8));
+      List<InputStream> chunks = new ArrayList<>(metacardContent.size() + 2);
+      chunks.add(new ByteArrayInputStream(head.getBytes(StandardCharsets.UTF_8)));
+      metacardContent.forEach(chunk -> chunks.add(new ByteArrayInputStream(chunk)));
+      chunks.add(new ByteArrayInputStream(tail.getBytes(StandardCharsets.UTF_8)));
 
-      return new BinaryContentImpl(bais, mimeType);
+      return new BinaryContentImpl(
+          new SequenceInputStream(Collections.enumeration(chunks)), mimeType);
     } catch (Exception e) {
       LOGGER.info("Failed Query response transformation", e);
       throw new CatalogTransformerException("Failed Query response transformation");
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.service.impl;
+
+import java.util.List;
+import org.apache.shiro.authz.Authorizer;
+import org.apache.shiro.authz.ModularRealmAuthorizer;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+
+/**
+ * {@link ModularRealmAuthorizer} that passes the permissions of a batch check to each realm in a
+ * single call instead of one call per permission, so that realms can evaluate them together. As for
+ * a single permission, a permission is granted if any of the realms grants it.
+ */
+class BatchRealmAuthorizer extends ModularRealmAuthorizer {
+
+  @Override
+  public boolean[] isPermitted(PrincipalCollection principals, List<Permission> permissions) {
+    assertRealmsConfigured();
+    if (permissions == null || permissions.isEmpty()) {
+      return new boolean[0];
+    }
+
+    boolean[] permitted = new boolean[permissions.size()];
+    for (Realm realm : getRealms()) {
+      if (realm instanceof Authorizer) {
+        boolean[] realmPermitted = ((Authorizer) realm).isPermitted(principals, permissions);
+        for (int i = 0; i < permitted.length; i++) {
+          permitted[i] |= realmPermitted[i];
+        }
+      }
+    }
+    return permitted;
+  }
+}
@@ -49,6 +49,7 @@ public class SecurityManagerImpl implements SecurityManager {
   public SecurityManagerImpl() {
     // create the new security manager
     internalManager = new DefaultSecurityManager();
+    internalManager.setAuthorizer(new BatchRealmAuthorizer());
   }
 
   /** @param realms The realms used for the backing authZ and authN operations. */
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package ddf.security.service.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.realm.AuthorizingRealm;
+import org.apache.shiro.realm.Realm;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchRealmAuthorizerTest {
+
+  private final PrincipalCollection principals = new SimplePrincipalCollection();
+
+  private final List<Permission> permissions =
+      Arrays.asList(mock(Permission.class), mock(Permission.class), mock(Permission.class));
+
+  private AuthorizingRealm realm1;
+
+  private AuthorizingRealm realm2;
+
+  private BatchRealmAuthorizer authorizer;
+
+  @Before
+  public void setUp() {
+    realm1 = mock(AuthorizingRealm.class);
+    realm2 = mock(AuthorizingRealm.class);
+    when(realm1.isPermitted(principals, permissions))
+        .thenReturn(new boolean[] {true, false, false});
+    when(realm2.isPermitted(principals, permissions))
+        .thenReturn(new boolean[] {false, true, false});
+
+    authorizer = new BatchRealmAuthorizer();
+    authorizer.setRealms(Arrays.asList(realm1, realm2, mock(Realm.class)));
+  }
+
+  @Test
+  public void testEachRealmIsCalledOncePerBatch() {
+    authorizer.isPermitted(principals, permissions);
+
+    verify(realm1).isPermitted(principals, permissions);
+    verify(realm2).isPermitted(principals, permissions);
+    verify(realm1, never()).isPermitted(any(PrincipalCollection.class), any(Permission.class));
+    verify(realm2, never()).isPermitted(any(PrincipalCollection.class), any(Permission.class));
+  }
+
+  @Test
+  public void testPermissionIsGrantedIfAnyRealmGrantsIt() {
+    assertThat(
+        authorizer.isPermitted(principals, permissions), is(new boolean[] {true, true, false}));
+  }
+
+  @Test
+  public void testEmptyBatch() {
+    assertThat(authorizer.isPermitted(principals, Collections.emptyList()).length, is(0));
+    verify(realm1, never())
+        .isPermitted(any(PrincipalCollection.class), anyListOf(Permission.class));
+  }
+}
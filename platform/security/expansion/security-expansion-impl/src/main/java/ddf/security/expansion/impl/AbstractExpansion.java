@@ -22,10 +22,12 @@
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,6 +67,9 @@ public abstract class AbstractExpansion implements Expansion {
 
   private static final String EXPANSION_FILE_NAME = "expansionFileName";
 
+  /** Maximum number of expanded value sets remembered by {@link #expand(String, Set)}. */
+  private static final int MAX_CACHED_EXPANSIONS = 1024;
+
   protected Pattern rulePattern = Pattern.compile(RULE_SPLIT_REGEX); // ("\\[(.+)\\|(.*)\\]");
 
   protected Map<String, List<String[]>> expansionTable;
@@ -73,6 +78,25 @@ public abstract class AbstractExpansion implements Expansion {
 
   private String expansionFilename = DEFAULT_CONFIG_FILE_NAME;
 
+  /**
+   * The users and metacards being authorized mostly carry the same few value sets, so the expanded
+   * values are remembered by attribute name and original values until the rules change.
+   */
+  private final Map<List<Object>, Set<String>> expansionCache =
+      Collections.synchronizedMap(
+          new LinkedHashMap<List<Object>, Set<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Set<String>> eldest) {
+              return size() > MAX_CACHED_EXPANSIONS;
+            }
+          });
+
+  /**
+   * Incremented by {@link #rulesChanged()}, so that an expansion computed with the previous rules
+   * is not remembered once the cache has been cleared.
+   */
+  private long rulesGeneration;
+
   /*
    * @see ddf.security.expansion.Expansion#expand(Map<String, Set<String>>)
    */
@@ -112,6 +136,7 @@ public Set<String> expand(String key, Set<String> values) {
       return values;
     }
 
+    long generation = getRulesGeneration();
     List<String[]> mappingRuleList = expansionTable.get(key);
 
     // if there are not matching keys in the expansion table - return the original string
@@ -119,6 +144,15 @@ public Set<String> expand(String key, Set<String> values) {
       return values;
     }
 
+    List<Object> cacheKey = Arrays.asList(key, new HashSet<>(values));
+    Set<String> cachedSet = expansionCache.get(cacheKey);
+    if (cachedSet != null) {
+      LOGGER.debug("Expanded result for key {} is {}", key, cachedSet);
+      values.clear();
+      values.addAll(cachedSet);
+      return new HashSet<>(cachedSet);
+    }
+
     /*
      * This expansion loop builds on itself, so the order of the rules is important - the
      * expanded set of strings is processed for expansion by subsequent rules.
@@ -157,6 +191,11 @@ public Set<String> expand(String key, Set<String> values) {
     }
 
     LOGGER.debug("Expanded result for key {} is {}", key, currentSet);
+    synchronized (expansionCache) {
+      if (generation == rulesGeneration) {
+        expansionCache.put(cacheKey, Collections.unmodifiableSet(new HashSet<>(currentSet)));
+      }
+    }
     // update the original set passed in for expansion
     values.clear();
     values.addAll(currentSet);
@@ -173,6 +212,24 @@ public Set<String> expand(String key, Set<String> values) {
    */
   protected abstract String doExpansion(String original, String[] rule);
 
+  /**
+   * Discards the expansions remembered for the previous rules. Called whenever the rules or the
+   * attribute separator change; subclasses that modify {@link #expansionTable} directly or keep
+   * state derived from the rules must call or override it as well.
+   */
+  protected void rulesChanged() {
+    synchronized (expansionCache) {
+      rulesGeneration++;
+      expansionCache.clear();
+    }
+  }
+
+  private long getRulesGeneration() {
+    synchronized (expansionCache) {
+      return rulesGeneration;
+    }
+  }
+
   /*
    * @see ddf.security.expansion.Expansion#getExpansionMap()
    */
@@ -198,6 +255,7 @@ public void setExpansionMap(Map<String, List<String[]>> table) {
     } else {
       expansionTable = table;
     }
+    rulesChanged();
   }
 
   /**
@@ -231,6 +289,7 @@ public void addExpansionRule(String key, String[] rule) {
     }
 
     list.add(rule);
+    rulesChanged();
   }
 
   /**
@@ -257,6 +316,7 @@ public boolean removeExpansionRule(String key, String[] rule) {
       if (list.size() == 0) {
         expansionTable.remove(key);
       }
+      rulesChanged();
     }
     return result;
   }
@@ -297,6 +357,7 @@ public void setExpansionRules(List<String> rulesList) {
 
     if ((rulesList == null) || (rulesList.isEmpty())) {
       expansionTable.clear();
+      rulesChanged();
     } else {
       String key;
       String[] rule;
@@ -374,6 +435,7 @@ public void setAttributeSeparator(String separator) {
     } else {
       attributeSeparator = separator;
     }
+    rulesChanged();
   }
 
   /**
@@ -392,6 +454,7 @@ public void setExpansionFileName(String filename) {
       LOGGER.warn(
           "Null or empty mapping configuration file name: {} - clearing existing map.", filename);
       expansionTable.clear();
+      rulesChanged();
     }
   }
 
@@ -424,6 +487,7 @@ protected void loadConfiguration(String filename) {
     if (expansionTable != null) {
       expansionTable.clear();
     }
+    rulesChanged();
     File file = null;
     filename = StringUtils.strip(filename);
     if (!Paths.get(filename).isAbsolute()) {
@@ -450,6 +514,7 @@ protected void loadConfiguration(String filename) {
             } else {
               attributeSeparator = DEFAULT_VALUE_SEPARATOR;
             }
+            rulesChanged();
           } else {
             addExpansionRule(line);
           }
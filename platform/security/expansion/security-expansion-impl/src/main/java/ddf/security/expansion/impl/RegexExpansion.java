@@ -13,7 +13,18 @@
  */
 package ddf.security.expansion.impl;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
 public class RegexExpansion extends AbstractExpansion {
+  private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+  /** The rules compiled so far, by search expression and replacement. */
+  private final Map<String, Map<String, UnaryOperator<String>>> compiledRules =
+      new ConcurrentHashMap<>();
+
   public RegexExpansion() {}
 
   /**
@@ -28,8 +39,39 @@ public RegexExpansion() {}
    */
   @Override
   protected String doExpansion(String original, String[] rule) {
-    String expandedValue;
-    expandedValue = original.replaceAll(rule[0], rule[1]);
-    return expandedValue;
+    return compiledRules
+        .computeIfAbsent(rule[0], search -> new ConcurrentHashMap<>())
+        .computeIfAbsent(rule[1], replacement -> compile(rule[0], replacement))
+        .apply(original);
+  }
+
+  @Override
+  protected void rulesChanged() {
+    super.rulesChanged();
+    compiledRules.clear();
+  }
+
+  /**
+   * Compiles a rule once instead of on every expansion. A search expression without any regular
+   * expression syntax, replaced by a value without group references, is applied as a plain string
+   * replacement.
+   */
+  private static UnaryOperator<String> compile(String search, String replacement) {
+    if (isLiteral(search) && replacement.indexOf('$') < 0 && replacement.indexOf('\\') < 0) {
+      return original ->
+          original.contains(search) ? original.replace(search, replacement) : original;
+    }
+
+    Pattern pattern = Pattern.compile(search);
+    return original -> pattern.matcher(original).replaceAll(replacement);
+  }
+
+  private static boolean isLiteral(String search) {
+    for (int i = 0; i < search.length(); i++) {
+      if (REGEX_META_CHARACTERS.indexOf(search.charAt(i)) >= 0) {
+        return false;
+      }
+    }
+    return true;
   }
 }
@@ -13,6 +13,7 @@
  */
 package ddf.security.expansion.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.io.File;
@@ -20,10 +21,17 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -254,4 +262,43 @@ public void testLoadConfiguration() {
       fail();
     }
   }
+
+  @Test
+  public void testExpansionWithPreviousRulesIsNotRemembered() throws Exception {
+    CountDownLatch expanding = new CountDownLatch(1);
+    CountDownLatch rulesChanged = new CountDownLatch(1);
+    StraightExpansionImpl exp =
+        new StraightExpansionImpl() {
+          @Override
+          protected String doExpansion(String original, String[] rule) {
+            if (expanding.getCount() > 0) {
+              expanding.countDown();
+              try {
+                rulesChanged.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            }
+            return super.doExpansion(original, rule);
+          }
+        };
+    exp.addExpansionRule("role", new String[] {"VP", "VP Manager"});
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Set<String>> previous =
+          executor.submit(() -> exp.expand("role", new HashSet<>(Collections.singleton("VP"))));
+      expanding.await();
+      exp.setExpansionRules(Collections.emptyList());
+      exp.addExpansionRule("role", new String[] {"VP", "VP Employee"});
+      rulesChanged.countDown();
+
+      assertEquals(new HashSet<>(Arrays.asList("VP", "Manager")), previous.get());
+      assertEquals(
+          new HashSet<>(Arrays.asList("VP", "Employee")),
+          exp.expand("role", new HashSet<>(Collections.singleton("VP"))));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -183,4 +183,48 @@ public void testExpandMap() throws Exception {
     assert (result.size() == 1);
     assert (result.contains("AZTEC"));
   }
+
+  @Test
+  public void testExpandAfterRulesChange() throws Exception {
+    AbstractExpansion exp = new RegexExpansion();
+    exp.addExpansionRule("location", rule5);
+
+    Set<String> testSet = new HashSet<String>();
+    testSet.add("AZ");
+    exp.expand("location", testSet);
+    assert (testSet.size() == 2);
+    assert (testSet.contains("Arizona"));
+
+    // the same values are expanded again with the new rules
+    exp.addExpansionRule("location", rule6);
+    testSet.clear();
+    testSet.add("AZ");
+    Set<String> result = exp.expand("location", testSet);
+    assert (result.size() == 3);
+    assert (result.contains("Arizona"));
+    assert (result.contains("USA"));
+
+    // remembered expansions are returned as copies
+    result.clear();
+    testSet.clear();
+    testSet.add("AZ");
+    result = exp.expand("location", testSet);
+    assert (result.size() == 3);
+    assert (testSet.equals(result));
+  }
+
+  @Test
+  public void testExpandLiteralRule() throws Exception {
+    AbstractExpansion exp = new RegexExpansion();
+    exp.addExpansionRule("role", new String[] {"Manager", "Manager Employee"});
+
+    Set<String> testSet = new HashSet<String>();
+    testSet.add("Manager-East");
+    testSet.add("Staff");
+    exp.expand("role", testSet);
+    assert (testSet.size() == 3);
+    assert (testSet.contains("Manager"));
+    assert (testSet.contains("Employee-East"));
+    assert (testSet.contains("Staff"));
+  }
 }
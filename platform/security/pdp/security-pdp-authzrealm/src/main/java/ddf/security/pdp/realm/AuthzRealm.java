@@ -27,7 +27,9 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
@@ -182,40 +184,84 @@ public boolean[] isPermitted(PrincipalCollection subjectPrincipal, List<Permissi
     boolean[] results = new boolean[permissions.size()];
     AuthorizationInfo authorizationInfo = getAuthorizationInfo(subjectPrincipal);
     List<Permission> expandedPermissions = expandPermissions(permissions);
+    Collection<Permission> perms = getPermissions(authorizationInfo);
+    String curUser = "<user>";
+    if (subjectPrincipal != null && subjectPrincipal.getPrimaryPrincipal() != null) {
+      curUser = subjectPrincipal.getPrimaryPrincipal().toString();
+    }
+
+    // the permissions of the results of a query are often the same, so each distinct permission
+    // is only checked once
+    Map<Object, PermissionCheck> distinctChecks = new LinkedHashMap<>();
+    PermissionCheck[] checks = new PermissionCheck[results.length];
     int i = 0;
     for (Permission permission : expandedPermissions) {
-      results[i++] = isPermitted(subjectPrincipal, permission, authorizationInfo);
+      Permission curPermission = toCollectionPermission(permission, perms);
+      String user = curUser;
+      checks[i++] =
+          distinctChecks.computeIfAbsent(
+              getPermissionKey(curPermission), key -> check(user, curPermission, perms));
     }
 
+    checkWithXacml(curUser, authorizationInfo, distinctChecks.values());
+
+    for (i = 0; i < results.length; i++) {
+      results[i] = checks[i] != null && checks[i].permitted;
+    }
     return results;
   }
 
+  /** Stops the threads used to evaluate XACML requests. */
+  public void destroy() {
+    xacmlPdp.destroy();
+  }
+
+  private Permission toCollectionPermission(Permission permission, Collection<Permission> perms) {
+    if (!CollectionUtils.isEmpty(perms) && permission instanceof KeyValuePermission) {
+      LOGGER.debug(
+          "Should not execute subject.isPermitted with KeyValuePermission. Instead create a KeyValueCollectionPermission with an action.");
+      return new KeyValueCollectionPermission(
+          CollectionPermission.UNKNOWN_ACTION, (KeyValuePermission) permission);
+    }
+    return permission;
+  }
+
   /**
-   * Checks if the corresponding Subject/user contained within the AuthorizationInfo object implies
-   * the given Permission.
+   * @return a key that is equal for key value collection permissions with the same action, keys
+   *     and values, or the permission itself for other permissions
+   */
+  private Object getPermissionKey(Permission permission) {
+    if (!(permission instanceof KeyValueCollectionPermission)) {
+      return permission;
+    }
+
+    KeyValueCollectionPermission kvcp = (KeyValueCollectionPermission) permission;
+    List<KeyValuePermission> keyValuePermissions = kvcp.getKeyValuePermissionList();
+    List<Object> key = new ArrayList<>(keyValuePermissions.size() + 1);
+    key.add(kvcp.getAction());
+    Map<String, Set<String>> values = new HashMap<>();
+    for (KeyValuePermission keyValuePermission : keyValuePermissions) {
+      values
+          .computeIfAbsent(keyValuePermission.getKey(), k -> new HashSet<>())
+          .addAll(keyValuePermission.getValues());
+    }
+    key.add(values);
+    return key;
+  }
+
+  /**
+   * Checks if the subject permissions imply the given permission. Key value collection permissions
+   * that can not be implied by the subject permissions are left to be checked with XACML.
    *
+   * @param curUser the name of the user, used for auditing
    * @param permission the permission being checked.
-   * @param authorizationInfo the application-specific subject/user identifier.
-   * @return true if the user is permitted
+   * @param perms the permissions of the user
+   * @return the result of the check
    */
-  private boolean isPermitted(
-      PrincipalCollection subjectPrincipal,
-      Permission permission,
-      AuthorizationInfo authorizationInfo) {
-    Collection<Permission> perms = getPermissions(authorizationInfo);
-    String curUser = "<user>";
-    if (subjectPrincipal != null && subjectPrincipal.getPrimaryPrincipal() != null) {
-      curUser = subjectPrincipal.getPrimaryPrincipal().toString();
-    }
+  private PermissionCheck check(
+      String curUser, Permission permission, Collection<Permission> perms) {
     if (!CollectionUtils.isEmpty(perms)) {
-      if (permission instanceof KeyValuePermission) {
-        permission =
-            new KeyValueCollectionPermission(
-                CollectionPermission.UNKNOWN_ACTION, (KeyValuePermission) permission);
-        LOGGER.debug(
-            "Should not execute subject.isPermitted with KeyValuePermission. Instead create a KeyValueCollectionPermission with an action.");
-      }
-      if (permission != null && permission instanceof KeyValueCollectionPermission) {
+      if (permission instanceof KeyValueCollectionPermission) {
         KeyValueCollectionPermission kvcp = (KeyValueCollectionPermission) permission;
         List<KeyValuePermission> keyValuePermissions = kvcp.getKeyValuePermissionList();
         List<KeyValuePermission> matchOnePermissions = new ArrayList<>();
@@ -276,28 +322,22 @@ private boolean isPermitted(
                   + PERMISSION_FINISH_2_MSG
                   + permission
                   + "] is not implied.");
+          return new PermissionCheck(permission, false, null);
         }
 
         // if we weren't able to automatically imply these permissions, call out to XACML
         if (!matchAllXacml) {
-          KeyValueCollectionPermission xacmlPermissions =
-              new KeyValueCollectionPermission(kvcp.getAction(), matchAllPreXacmlPermissions);
-          matchAllXacml = xacmlPdp.isPermitted(curUser, authorizationInfo, xacmlPermissions);
-          if (!matchAllXacml) {
-            SecurityLogger.audit(
-                PERMISSION_FINISH_1_MSG
-                    + curUser
-                    + PERMISSION_FINISH_2_MSG
-                    + permission
-                    + "] is not implied via XACML.");
-          }
+          return new PermissionCheck(
+              permission,
+              true,
+              new KeyValueCollectionPermission(kvcp.getAction(), matchAllPreXacmlPermissions));
         }
-        return matchAll && matchOne && matchAllXacml;
+        return new PermissionCheck(permission, true, null);
       }
 
       for (Permission perm : perms) {
         if (permission != null && perm.implies(permission)) {
-          return true;
+          return new PermissionCheck(permission, true, null);
         }
       }
     }
@@ -308,7 +348,40 @@ private boolean isPermitted(
             + PERMISSION_FINISH_2_MSG
             + permission
             + "] is not implied.");
-    return false;
+    return new PermissionCheck(permission, false, null);
+  }
+
+  /**
+   * Evaluates the XACML permissions of all the checks that need them as a single batch, so that
+   * the XACML requests share the subject attributes and are evaluated in parallel.
+   */
+  private void checkWithXacml(
+      String curUser, AuthorizationInfo authorizationInfo, Collection<PermissionCheck> checks) {
+    List<PermissionCheck> xacmlChecks = new ArrayList<>();
+    List<KeyValueCollectionPermission> xacmlPermissions = new ArrayList<>();
+    for (PermissionCheck check : checks) {
+      if (check.xacmlPermission != null) {
+        xacmlChecks.add(check);
+        xacmlPermissions.add(check.xacmlPermission);
+      }
+    }
+    if (xacmlChecks.isEmpty()) {
+      return;
+    }
+
+    boolean[] xacmlResults = xacmlPdp.isPermitted(curUser, authorizationInfo, xacmlPermissions);
+    for (int i = 0; i < xacmlResults.length; i++) {
+      PermissionCheck check = xacmlChecks.get(i);
+      if (!xacmlResults[i]) {
+        SecurityLogger.audit(
+            PERMISSION_FINISH_1_MSG
+                + curUser
+                + PERMISSION_FINISH_2_MSG
+                + check.permission
+                + "] is not implied via XACML.");
+        check.permitted = false;
+      }
+    }
   }
 
   private KeyValueCollectionPermission isPermittedByExtensionAll(
@@ -518,4 +591,22 @@ public void setEnvironmentAttributes(List<String> environmentAttributes) {
     this.environmentAttributes.clear();
     this.environmentAttributes.addAll(environmentAttributes);
   }
+
+  /** The result of checking a permission against the permissions of the subject. */
+  private static class PermissionCheck {
+
+    private final Permission permission;
+
+    private boolean permitted;
+
+    /** The permissions that still have to be permitted by XACML, or {@code null} if none. */
+    private final KeyValueCollectionPermission xacmlPermission;
+
+    PermissionCheck(
+        Permission permission, boolean permitted, KeyValueCollectionPermission xacmlPermission) {
+      this.permission = permission;
+      this.permitted = permitted;
+      this.xacmlPermission = xacmlPermission;
+    }
+  }
 }
@@ -20,8 +20,16 @@
 import ddf.security.permission.CollectionPermission;
 import ddf.security.permission.KeyValueCollectionPermission;
 import ddf.security.permission.KeyValuePermission;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeValueType;
 import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributesType;
@@ -40,6 +48,7 @@
 import org.apache.shiro.util.CollectionUtils;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.codice.ddf.parser.Parser;
+import org.codice.ddf.platform.util.StandardThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -94,55 +103,175 @@ public class XacmlPdp {
 
   private static final String FILTER_ACTION = "filter";
 
+  private static final int EVALUATION_THREADS = Runtime.getRuntime().availableProcessors();
+
   private XacmlClient pdp;
 
   private List<String> environmentAttributes;
 
+  private final ThreadPoolExecutor evaluationExecutor;
+
   /** Creates a general */
   public XacmlPdp(String dirPath, Parser parser, List<String> environmentAttributes)
       throws PdpException {
     super();
     pdp = new XacmlClient(dirPath, parser);
     this.environmentAttributes = environmentAttributes;
+    this.evaluationExecutor =
+        new ThreadPoolExecutor(
+            EVALUATION_THREADS,
+            EVALUATION_THREADS,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            StandardThreadFactoryBuilder.newThreadFactory("xacmlPdpThread"));
+    evaluationExecutor.allowCoreThreadTimeOut(true);
     LOGGER.debug("Creating new PDP-backed Authorizing Realm");
   }
 
+  /** Stops the threads that evaluate the XACML requests of a batch of permissions. */
+  public void destroy() {
+    evaluationExecutor.shutdownNow();
+  }
+
   public boolean isPermitted(
       String primaryPrincipal, AuthorizationInfo info, KeyValueCollectionPermission curPermission) {
-    boolean curResponse;
-    LOGGER.debug(
-        "Checking if {} has access for action {}", primaryPrincipal, curPermission.getAction());
-
-    SecurityLogger.audit(
-        "Checking if ["
-            + primaryPrincipal
-            + "] has access for action "
-            + curPermission.getAction());
-
-    if (CollectionUtils.isEmpty(info.getObjectPermissions())
-        && CollectionUtils.isEmpty(info.getStringPermissions())
-        && CollectionUtils.isEmpty(info.getRoles())
-        && !CollectionUtils.isEmpty(curPermission.getKeyValuePermissionList())) {
-      return false;
+    return isPermitted(primaryPrincipal, info, Collections.singletonList(curPermission))[0];
+  }
+
+  /**
+   * Checks a batch of permissions for the same subject. The subject and environment attributes are
+   * only created once for the whole batch, and the XACML requests of the batch are evaluated in
+   * parallel.
+   *
+   * @param primaryPrincipal the subject the permissions are checked for
+   * @param info the authorization information of the subject
+   * @param permissions the permissions to check
+   * @return an array of booleans whose indices correspond to the index of the permissions in the
+   *     given list, {@code true} if the subject is permitted
+   */
+  public boolean[] isPermitted(
+      String primaryPrincipal,
+      AuthorizationInfo info,
+      List<KeyValueCollectionPermission> permissions) {
+    boolean[] results = new boolean[permissions.size()];
+    List<Integer> requestIndices = new ArrayList<>();
+    List<RequestType> requests = new ArrayList<>();
+    AttributesType subjectAttributes = null;
+    AttributesType environmentAttributesType = null;
+
+    for (int i = 0; i < results.length; i++) {
+      KeyValueCollectionPermission curPermission = permissions.get(i);
+      LOGGER.debug(
+          "Checking if {} has access for action {}", primaryPrincipal, curPermission.getAction());
+
+      SecurityLogger.audit(
+          "Checking if ["
+              + primaryPrincipal
+              + "] has access for action "
+              + curPermission.getAction());
+
+      if (CollectionUtils.isEmpty(info.getObjectPermissions())
+          && CollectionUtils.isEmpty(info.getStringPermissions())
+          && CollectionUtils.isEmpty(info.getRoles())
+          && !CollectionUtils.isEmpty(curPermission.getKeyValuePermissionList())) {
+        results[i] = false;
+        continue;
+      }
+
+      if ((!CollectionUtils.isEmpty(info.getObjectPermissions())
+              || !CollectionUtils.isEmpty(info.getStringPermissions())
+              || !CollectionUtils.isEmpty(info.getRoles()))
+          && CollectionUtils.isEmpty(curPermission.getKeyValuePermissionList())) {
+        results[i] = true;
+        continue;
+      }
+
+      if (subjectAttributes == null) {
+        LOGGER.debug("Received authZ info, creating XACML request.");
+        subjectAttributes = createSubjectAttributes(primaryPrincipal, info);
+        environmentAttributesType = createEnvironmentAttributes();
+      }
+      requestIndices.add(i);
+      requests.add(
+          createXACMLRequest(
+              primaryPrincipal, curPermission, subjectAttributes, environmentAttributesType));
     }
 
-    if ((!CollectionUtils.isEmpty(info.getObjectPermissions())
-            || !CollectionUtils.isEmpty(info.getStringPermissions())
-            || !CollectionUtils.isEmpty(info.getRoles()))
-        && CollectionUtils.isEmpty(curPermission.getKeyValuePermissionList())) {
-      return true;
+    LOGGER.debug("Created {} XACML requests, calling PDP.", requests.size());
+    boolean[] responses = evaluate(requests);
+    for (int i = 0; i < responses.length; i++) {
+      results[requestIndices.get(i)] = responses[i];
+    }
+    return results;
+  }
+
+  /**
+   * Evaluates the requests on the evaluation threads, except for the last one which is evaluated on
+   * the calling thread while the others are in flight.
+   */
+  private boolean[] evaluate(List<RequestType> requests) {
+    boolean[] responses = new boolean[requests.size()];
+    List<Future<Boolean>> futures = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size() - 1; i++) {
+      futures.add(submit(requests.get(i)));
     }
 
-    LOGGER.debug("Received authZ info, creating XACML request.");
-    RequestType curRequest = createXACMLRequest(primaryPrincipal, info, curPermission);
-    LOGGER.debug("Created XACML request, calling PDP.");
+    if (!requests.isEmpty()) {
+      responses[requests.size() - 1] = isPermitted(requests.get(requests.size() - 1));
+    }
+
+    for (int i = 0; i < futures.size(); i++) {
+      Future<Boolean> future = futures.get(i);
+      if (future == null) {
+        responses[i] = isPermitted(requests.get(i));
+        continue;
+      }
 
-    curResponse = isPermitted(curRequest);
-    return curResponse;
+      try {
+        responses[i] = future.get();
+      } catch (InterruptedException e) {
+        LOGGER.debug("Interrupted while waiting for the PDP.", e);
+        Thread.currentThread().interrupt();
+        cancel(futures);
+        return new boolean[requests.size()];
+      } catch (ExecutionException e) {
+        LOGGER.debug("Unable to evaluate XACML request.", e);
+        responses[i] = false;
+      }
+    }
+    return responses;
+  }
+
+  /** @return the future of the evaluation, or {@code null} if the executor has been shut down */
+  private Future<Boolean> submit(RequestType request) {
+    try {
+      return evaluationExecutor.submit(() -> isPermitted(request));
+    } catch (RejectedExecutionException e) {
+      LOGGER.debug("XACML request evaluation rejected, evaluating on the calling thread.", e);
+      return null;
+    }
+  }
+
+  private void cancel(List<Future<Boolean>> futures) {
+    for (Future<Boolean> future : futures) {
+      if (future != null) {
+        future.cancel(true);
+      }
+    }
   }
 
   protected RequestType createXACMLRequest(
       String subject, AuthorizationInfo info, CollectionPermission permission) {
+    return createXACMLRequest(
+        subject, permission, createSubjectAttributes(subject, info), createEnvironmentAttributes());
+  }
+
+  private RequestType createXACMLRequest(
+      String subject,
+      CollectionPermission permission,
+      AttributesType subjectAttributes,
+      AttributesType environmentAttributesType) {
     LOGGER.debug(
         "Creating XACML request for subject: {} and metacard permissions {}", subject, permission);
 
@@ -166,33 +295,12 @@ protected RequestType createXACMLRequest(
     xacmlRequestType.getAttributes().add(actionAttributes);
 
     // Adding permissions for the calling subject
-    AttributesType subjectAttributes = createSubjectAttributes(subject, info);
     xacmlRequestType.getAttributes().add(subjectAttributes);
 
     // Adding permissions for the resource
     AttributesType metadataAttributes = new AttributesType();
     metadataAttributes.setCategory(RESOURCE_CATEGORY);
 
-    AttributesType environmentAttributesType = new AttributesType();
-    environmentAttributesType.setCategory(ENVIRONMENT_CATEGORY);
-    if (!CollectionUtils.isEmpty(environmentAttributes)) {
-      for (String envAttr : environmentAttributes) {
-        String[] attr = envAttr.split("=");
-        if (attr.length == 2) {
-          AttributeType attributeType = new AttributeType();
-          attributeType.setAttributeId(attr[0].trim());
-          String[] attrVals = attr[1].split(",");
-          for (String attrVal : attrVals) {
-            AttributeValueType attributeValueType = new AttributeValueType();
-            attributeValueType.setDataType(STRING_DATA_TYPE);
-            attributeValueType.getContent().add(attrVal.trim());
-            attributeType.getAttributeValue().add(attributeValueType);
-          }
-          environmentAttributesType.getAttribute().add(attributeType);
-        }
-      }
-    }
-
     if (permission instanceof KeyValueCollectionPermission) {
       List<KeyValuePermission> tmpList =
           ((KeyValueCollectionPermission) permission).getKeyValuePermissionList();
@@ -215,7 +323,7 @@ protected RequestType createXACMLRequest(
       }
 
       xacmlRequestType.getAttributes().add(metadataAttributes);
-      if (!CollectionUtils.isEmpty(environmentAttributes)) {
+      if (environmentAttributesType != null) {
         xacmlRequestType.getAttributes().add(environmentAttributesType);
       }
     } else {
@@ -246,6 +354,32 @@ protected boolean isPermitted(RequestType xacmlRequest) {
     return permitted;
   }
 
+  /** @return the environment attributes, or {@code null} if none are configured */
+  private AttributesType createEnvironmentAttributes() {
+    if (CollectionUtils.isEmpty(environmentAttributes)) {
+      return null;
+    }
+
+    AttributesType environmentAttributesType = new AttributesType();
+    environmentAttributesType.setCategory(ENVIRONMENT_CATEGORY);
+    for (String envAttr : environmentAttributes) {
+      String[] attr = envAttr.split("=");
+      if (attr.length == 2) {
+        AttributeType attributeType = new AttributeType();
+        attributeType.setAttributeId(attr[0].trim());
+        String[] attrVals = attr[1].split(",");
+        for (String attrVal : attrVals) {
+          AttributeValueType attributeValueType = new AttributeValueType();
+          attributeValueType.setDataType(STRING_DATA_TYPE);
+          attributeValueType.getContent().add(attrVal.trim());
+          attributeType.getAttributeValue().add(attributeValueType);
+        }
+        environmentAttributesType.getAttribute().add(attributeType);
+      }
+    }
+    return environmentAttributesType;
+  }
+
   private AttributesType createSubjectAttributes(String subject, AuthorizationInfo info) {
     AttributesType subjectAttributes = new AttributesType();
     subjectAttributes.setCategory(ACCESS_SUBJECT_CATEGORY);
@@ -13,6 +13,10 @@
  */
 package ddf.security.pdp.realm.test;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import ddf.security.pdp.realm.AuthzRealm;
@@ -231,6 +235,31 @@ public void testIsNotPermitted() {
     }
   }
 
+  @Test
+  public void testIdenticalPermissionsAreCheckedOnce() {
+    HashMap<String, List<String>> otherSecurity = new HashMap<>(security);
+    otherSecurity.put("country2", Arrays.asList("CAN", "GBR"));
+    otherSecurity.put("rule2", Arrays.asList("A", "B", "C"));
+    permissionList.clear();
+    permissionList.add(new KeyValueCollectionPermission("action", security));
+    permissionList.add(new KeyValueCollectionPermission("action", otherSecurity));
+    permissionList.add(new KeyValueCollectionPermission("action", security));
+
+    PolicyExtension policyExtension = mock(PolicyExtension.class);
+    when(policyExtension.isPermittedMatchAll(any(), any(), any()))
+        .thenAnswer(invocation -> invocation.getArguments()[1]);
+    when(policyExtension.isPermittedMatchOne(any(), any(), any()))
+        .thenAnswer(invocation -> invocation.getArguments()[1]);
+    testRealm.addPolicyExtension(policyExtension);
+
+    boolean[] permittedArray = testRealm.isPermitted(mockSubjectPrincipal, permissionList);
+
+    Assert.assertEquals(true, permittedArray[0]);
+    Assert.assertEquals(false, permittedArray[1]);
+    Assert.assertEquals(true, permittedArray[2]);
+    verify(policyExtension, times(2)).isPermittedMatchOne(any(), any(), any());
+  }
+
   @Test
   public void testBadPolicyExtension() {
     permissionList.clear();
@@ -228,6 +228,25 @@ public void testResourceIsNotPermitted() {
     assertThat(testRealm.isPermitted(request), equalTo(false));
   }
 
+  @Test
+  public void testBatchIsPermitted() {
+    HashMap<String, List<String>> permitted = new HashMap<>();
+    permitted.put(RESOURCE_ACCESS, Arrays.asList(ACCESS_TYPE_A));
+    HashMap<String, List<String>> notPermitted = new HashMap<>();
+    notPermitted.put(RESOURCE_ACCESS, Arrays.asList(ACCESS_TYPE_A, ACCESS_TYPE_B, ACCESS_TYPE_C));
+
+    boolean[] results =
+        testRealm.isPermitted(
+            USER_NAME,
+            generateSubjectInfo(TEST_COUNTRY),
+            Arrays.asList(
+                new KeyValueCollectionPermission(CollectionPermission.READ_ACTION, permitted),
+                new KeyValueCollectionPermission(CollectionPermission.READ_ACTION, notPermitted),
+                new KeyValueCollectionPermission(CollectionPermission.READ_ACTION, permitted)));
+
+    assertThat(results, is(new boolean[] {true, false, true}));
+  }
+
   @Test
   public void testParseAttributeTypeBoolean() {
     assertThat(testRealm.getXacmlDataType("true"), is(BOOLEAN_DATA_TYPE));
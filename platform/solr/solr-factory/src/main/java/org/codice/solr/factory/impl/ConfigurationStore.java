@@ -28,6 +28,8 @@ public class ConfigurationStore {
 
   private boolean disableTextPath;
 
+  private boolean compactMetacardEncoding;
+
   private boolean inMemory;
 
   private Double nearestNeighborDistanceLimit;
@@ -77,6 +79,20 @@ public void setDisableTextPath(boolean disableTextPath) {
     this.disableTextPath = disableTextPath;
   }
 
+  /** @return true, if metacard types and object values are written in the compact encoding */
+  public boolean isCompactMetacardEncoding() {
+    return compactMetacardEncoding;
+  }
+
+  /**
+   * @param compactMetacardEncoding When set to true, metacard types and object values of every
+   *     subsequent update or insert are written in the compact encoding instead of Java
+   *     serialization, which releases before the compact encoding cannot read.
+   */
+  public void setCompactMetacardEncoding(boolean compactMetacardEncoding) {
+    this.compactMetacardEncoding = compactMetacardEncoding;
+  }
+
   public String getDataDirectoryPath() {
     return dataDirectoryPath;
   }
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.xpath;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import net.sf.saxon.s9api.Axis;
+import net.sf.saxon.s9api.XdmNode;
+import net.sf.saxon.s9api.XdmNodeKind;
+import net.sf.saxon.s9api.XdmSequenceIterator;
+
+/**
+ * Terms of the XPath index field, used to pre-filter XPath queries before the {@link
+ * XpathFilterCollector} evaluates them. For {@code <a><b c="1">x</b></a>} the terms are the
+ * document term {@code /}, the paths {@code /a}, {@code /a/b} and {@code /a/b/@c}, the names {@code
+ * a}, {@code b} and {@code @c}, and the string values {@code a=x}, {@code b=x} and {@code @c=1}.
+ */
+public final class XpathIndex {
+
+  public static final String FIELD_NAME = "lux_path";
+
+  /** Term of every indexed document, the documents without it are only evaluated by XPath. */
+  static final String DOCUMENT_TERM = "/";
+
+  /** Longest string value of an element or attribute that is indexed, in characters. */
+  static final int MAX_VALUE_LENGTH = 256;
+
+  private static final int MAX_TERM_BYTES = 32766;
+
+  private XpathIndex() {}
+
+  /**
+   * Returns the index terms of an XML document.
+   *
+   * @param document document node of the XML, with its namespaces stripped
+   * @return the terms of the document, or an empty set if a term is too large to be indexed
+   */
+  public static Set<String> getTerms(XdmNode document) {
+    Set<String> terms = new LinkedHashSet<>();
+    terms.add(DOCUMENT_TERM);
+
+    XdmSequenceIterator children = document.axisIterator(Axis.CHILD);
+    while (children.hasNext()) {
+      XdmNode child = (XdmNode) children.next();
+      if (child.getNodeKind() == XdmNodeKind.ELEMENT) {
+        addElementTerms(child, "", terms);
+      }
+    }
+
+    for (String term : terms) {
+      if (term.length() * 3 > MAX_TERM_BYTES
+          && term.getBytes(StandardCharsets.UTF_8).length > MAX_TERM_BYTES) {
+        return Collections.emptySet();
+      }
+    }
+    return terms;
+  }
+
+  static String valueTerm(String name, String value) {
+    return name + "=" + value;
+  }
+
+  /**
+   * Adds the terms of an element and its descendants.
+   *
+   * @return the string value of the element, or {@code null} if it is too long to be indexed
+   */
+  private static String addElementTerms(XdmNode element, String parentPath, Set<String> terms) {
+    String name = element.getNodeName().getLocalName();
+    String path = parentPath + "/" + name;
+    terms.add(path);
+    terms.add(name);
+
+    XdmSequenceIterator attributes = element.axisIterator(Axis.ATTRIBUTE);
+    while (attributes.hasNext()) {
+      XdmNode attribute = (XdmNode) attributes.next();
+      String attributeName = "@" + attribute.getNodeName().getLocalName();
+      terms.add(path + "/" + attributeName);
+      terms.add(attributeName);
+      addValueTerm(attributeName, attribute.getStringValue(), terms);
+    }
+
+    StringBuilder value = new StringBuilder();
+    boolean isValueIndexed = true;
+    XdmSequenceIterator children = element.axisIterator(Axis.CHILD);
+    while (children.hasNext()) {
+      XdmNode child = (XdmNode) children.next();
+      String childValue = null;
+      if (child.getNodeKind() == XdmNodeKind.ELEMENT) {
+        childValue = addElementTerms(child, path, terms);
+        isValueIndexed &= childValue != null;
+      } else if (child.getNodeKind() == XdmNodeKind.TEXT) {
+        childValue = child.getStringValue();
+      }
+
+      if (isValueIndexed && childValue != null) {
+        value.append(childValue);
+        isValueIndexed = value.length() <= MAX_VALUE_LENGTH;
+      }
+    }
+
+    if (!isValueIndexed) {
+      return null;
+    }
+    addValueTerm(name, value.toString(), terms);
+    return value.toString();
+  }
+
+  private static void addValueTerm(String name, String value, Set<String> terms) {
+    if (value.length() <= MAX_VALUE_LENGTH) {
+      terms.add(valueTerm(name, value));
+    }
+  }
+}
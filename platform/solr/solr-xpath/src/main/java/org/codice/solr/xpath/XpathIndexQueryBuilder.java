@@ -0,0 +1,504 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.xpath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+
+/**
+ * Converts an XPath into a Lucene query on the {@link XpathIndex} terms that every document
+ * matching the XPath satisfies. Location paths, predicates, comparisons with string literals and
+ * the {@code and}, {@code or} and {@code |} operators are understood; function calls and numbers do
+ * not constrain the query, and an XPath using any other construct matches all the documents.
+ */
+final class XpathIndexQueryBuilder {
+
+  private static final Set<String> NODE_TYPE_TESTS =
+      new HashSet<>(Arrays.asList("node", "text", "comment", "processing-instruction"));
+
+  private static final Set<String> COMPARISON_OPERATORS =
+      new HashSet<>(
+          Arrays.asList("=", "!=", "<", "<=", ">", ">=", "eq", "ne", "lt", "le", "gt", "ge"));
+
+  private static final Set<String> FORWARD_AXES =
+      new HashSet<>(Arrays.asList("child", "attribute", "descendant", "descendant-or-self"));
+
+  private static final Set<String> OTHER_AXES =
+      new HashSet<>(
+          Arrays.asList(
+              "self",
+              "parent",
+              "ancestor",
+              "ancestor-or-self",
+              "following",
+              "following-sibling",
+              "preceding",
+              "preceding-sibling"));
+
+  private static final List<String> SYMBOLS = Arrays.asList("//", "::", "..", "!=", "<=", ">=");
+
+  private final List<String> tokens;
+
+  private int position;
+
+  private XpathIndexQueryBuilder(String xpath) throws UnsupportedXpathException {
+    tokens = tokenize(xpath);
+  }
+
+  /**
+   * @param xpath XPath expression, with its namespace prefixes stripped
+   * @return query matching every indexed document the XPath can select, and every document that
+   *     has not been indexed
+   */
+  static Query build(String xpath) {
+    Query condition = getCondition(xpath);
+    if (condition == null) {
+      return new MatchAllDocsQuery();
+    }
+
+    Query notIndexed =
+        new BooleanQuery.Builder()
+            .add(new MatchAllDocsQuery(), Occur.MUST)
+            .add(termQuery(XpathIndex.DOCUMENT_TERM), Occur.MUST_NOT)
+            .build();
+    return new BooleanQuery.Builder()
+        .add(condition, Occur.SHOULD)
+        .add(notIndexed, Occur.SHOULD)
+        .build();
+  }
+
+  /**
+   * @param xpath XPath expression, with its namespace prefixes stripped
+   * @return query on the index terms that every indexed document the XPath selects matches, or
+   *     {@code null} if the XPath does not constrain the indexed documents or cannot be parsed
+   */
+  static Query getCondition(String xpath) {
+    try {
+      XpathIndexQueryBuilder builder = new XpathIndexQueryBuilder(xpath);
+      Query condition = builder.parseExpression(new PathState("", null)).condition;
+      if (builder.position < builder.tokens.size()) {
+        throw new UnsupportedXpathException();
+      }
+      return condition;
+    } catch (UnsupportedXpathException e) {
+      return null;
+    }
+  }
+
+  private Operand parseExpression(PathState context) throws UnsupportedXpathException {
+    Operand left = parseAnd(context);
+    while (peekIs("or")) {
+      position++;
+      left = new Operand(or(left.condition, parseAnd(context).condition));
+    }
+    return left;
+  }
+
+  private Operand parseAnd(PathState context) throws UnsupportedXpathException {
+    Operand left = parseComparison(context);
+    while (peekIs("and")) {
+      position++;
+      left = new Operand(and(left.condition, parseComparison(context).condition));
+    }
+    return left;
+  }
+
+  private Operand parseComparison(PathState context) throws UnsupportedXpathException {
+    Operand left = parseUnion(context);
+    if (position == tokens.size() || !COMPARISON_OPERATORS.contains(peek())) {
+      return left;
+    }
+
+    String operator = next();
+    Operand right = parseUnion(context);
+    // A comparison with an empty sequence is false, so both sides have to exist
+    Query condition = and(left.condition, right.condition);
+    if ("=".equals(operator) || "eq".equals(operator)) {
+      condition = and(condition, valueCondition(left, right));
+      condition = and(condition, valueCondition(right, left));
+    }
+    return new Operand(condition);
+  }
+
+  private Operand parseUnion(PathState context) throws UnsupportedXpathException {
+    Operand left = parsePath(context);
+    while (peekIs("|")) {
+      position++;
+      left = new Operand(or(left.condition, parsePath(context).condition));
+    }
+    return left;
+  }
+
+  private Operand parsePath(PathState context) throws UnsupportedXpathException {
+    String token = peek();
+    if (isLiteral(token)) {
+      position++;
+      return new Operand(null, null, token.substring(1));
+    }
+    if (isNumber(token)) {
+      position++;
+      return new Operand(null);
+    }
+
+    PathState state;
+    if ("(".equals(token)) {
+      position++;
+      Operand expression = parseExpression(context);
+      expect(")");
+      state = new PathState(null, null);
+      state.condition = expression.condition;
+    } else if (isName(token)
+        && "(".equals(peek(1))
+        && !NODE_TYPE_TESTS.contains(token)
+        && !peekIs(2, "::")) {
+      // Function results are not indexed, only skip the arguments
+      position += 2;
+      skipTo(")");
+      state = new PathState(null, null);
+    } else if ("/".equals(token)) {
+      position++;
+      state = new PathState("", null);
+      if (position == tokens.size() || !isStepStart(peek())) {
+        return state.toOperand();
+      }
+      parseStep(state);
+    } else if ("//".equals(token)) {
+      position++;
+      state = new PathState(null, null);
+      parseStep(state);
+    } else if (isStepStart(token)) {
+      state = new PathState(context.fullPath, context.name);
+      parseStep(state);
+    } else {
+      throw new UnsupportedXpathException();
+    }
+
+    while (peekIs("[")) {
+      parsePredicate(state);
+    }
+    while (peekIs("/") || peekIs("//")) {
+      if ("//".equals(next())) {
+        state.forgetPath();
+      }
+      parseStep(state);
+    }
+    return state.toOperand();
+  }
+
+  private void parseStep(PathState state) throws UnsupportedXpathException {
+    String token = next();
+    if (".".equals(token)) {
+      // the context node is selected again
+    } else if ("..".equals(token)) {
+      state.forgetPath();
+      state.name = null;
+    } else {
+      String axis = "child";
+      if ("@".equals(token)) {
+        axis = "attribute";
+        token = next();
+      } else if (isName(token) && peekIs("::")) {
+        axis = token;
+        position++;
+        token = next();
+      }
+
+      String name;
+      if ("*".equals(token)) {
+        name = null;
+      } else if (isName(token) && peekIs("(")) {
+        if (!NODE_TYPE_TESTS.contains(token)) {
+          throw new UnsupportedXpathException();
+        }
+        position++;
+        skipTo(")");
+        name = null;
+      } else if (isName(token)) {
+        name = "attribute".equals(axis) ? "@" + token : token;
+      } else {
+        throw new UnsupportedXpathException();
+      }
+
+      if ("child".equals(axis) || "attribute".equals(axis)) {
+        state.addStep(name);
+      } else if (FORWARD_AXES.contains(axis) || OTHER_AXES.contains(axis)) {
+        state.forgetPath();
+        state.name = name;
+      } else {
+        throw new UnsupportedXpathException();
+      }
+
+      if (name != null) {
+        state.condition = and(state.condition, termQuery(name));
+      }
+    }
+
+    while (peekIs("[")) {
+      parsePredicate(state);
+    }
+  }
+
+  private void parsePredicate(PathState state) throws UnsupportedXpathException {
+    expect("[");
+    Operand predicate = parseExpression(new PathState(state.fullPath, state.name));
+    expect("]");
+    state.condition = and(state.condition, predicate.condition);
+  }
+
+  private void skipTo(String closingToken) throws UnsupportedXpathException {
+    int depth = 0;
+    String token;
+    while (!closingToken.equals(token = next()) || depth > 0) {
+      if ("(".equals(token) || "[".equals(token)) {
+        depth++;
+      } else if (")".equals(token) || "]".equals(token)) {
+        depth--;
+      }
+    }
+  }
+
+  private void expect(String expected) throws UnsupportedXpathException {
+    if (!expected.equals(next())) {
+      throw new UnsupportedXpathException();
+    }
+  }
+
+  private String next() throws UnsupportedXpathException {
+    String token = peek();
+    position++;
+    return token;
+  }
+
+  private String peek() throws UnsupportedXpathException {
+    if (position == tokens.size()) {
+      throw new UnsupportedXpathException();
+    }
+    return tokens.get(position);
+  }
+
+  private String peek(int offset) {
+    return position + offset < tokens.size() ? tokens.get(position + offset) : null;
+  }
+
+  private boolean peekIs(String token) {
+    return token.equals(peek(0));
+  }
+
+  private boolean peekIs(int offset, String token) {
+    return token.equals(peek(offset));
+  }
+
+  private static Query valueCondition(Operand path, Operand literal) {
+    if (path.name == null
+        || literal.literal == null
+        || literal.literal.length() > XpathIndex.MAX_VALUE_LENGTH) {
+      return null;
+    }
+    return termQuery(XpathIndex.valueTerm(path.name, literal.literal));
+  }
+
+  private static Query termQuery(String term) {
+    return new TermQuery(new Term(XpathIndex.FIELD_NAME, term));
+  }
+
+  /** @return query of both conditions, where {@code null} is a condition every document meets */
+  private static Query and(Query left, Query right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    return new BooleanQuery.Builder().add(left, Occur.MUST).add(right, Occur.MUST).build();
+  }
+
+  private static Query or(Query left, Query right) {
+    if (left == null || right == null) {
+      return null;
+    }
+    return new BooleanQuery.Builder().add(left, Occur.SHOULD).add(right, Occur.SHOULD).build();
+  }
+
+  /**
+   * Splits an XPath into names, symbols, numbers, and string literals which are prefixed by a
+   * single quote. Namespace prefixes of names are removed like they are from the indexed XML.
+   */
+  private static List<String> tokenize(String xpath) throws UnsupportedXpathException {
+    List<String> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < xpath.length()) {
+      char c = xpath.charAt(i);
+      int end;
+      if (Character.isWhitespace(c)) {
+        i++;
+        continue;
+      } else if (c == '\'' || c == '"') {
+        StringBuilder literal = new StringBuilder("'");
+        end = i + 1;
+        while (true) {
+          if (end == xpath.length()) {
+            throw new UnsupportedXpathException();
+          }
+          char d = xpath.charAt(end++);
+          if (d != c) {
+            literal.append(d);
+          } else if (end < xpath.length() && xpath.charAt(end) == c) {
+            literal.append(c);
+            end++;
+          } else {
+            break;
+          }
+        }
+        tokens.add(literal.toString());
+        i = end;
+        continue;
+      } else if (isDigit(xpath, i) || (c == '.' && isDigit(xpath, i + 1))) {
+        end = i + 1;
+        while (end < xpath.length() && (isDigit(xpath, end) || xpath.charAt(end) == '.')) {
+          end++;
+        }
+      } else if (isNameStart(c)) {
+        end = nameEnd(xpath, i);
+        if (end + 1 < xpath.length()
+            && xpath.charAt(end) == ':'
+            && isNameStart(xpath.charAt(end + 1))) {
+          i = end + 1;
+          end = nameEnd(xpath, i);
+        }
+      } else {
+        end = i + 1;
+        for (String symbol : SYMBOLS) {
+          if (xpath.startsWith(symbol, i)) {
+            end = i + symbol.length();
+            break;
+          }
+        }
+      }
+      tokens.add(xpath.substring(i, end));
+      i = end;
+    }
+    return tokens;
+  }
+
+  private static int nameEnd(String xpath, int start) {
+    int end = start + 1;
+    while (end < xpath.length()
+        && (isNameStart(xpath.charAt(end))
+            || Character.isDigit(xpath.charAt(end))
+            || xpath.charAt(end) == '-'
+            || xpath.charAt(end) == '.')) {
+      end++;
+    }
+    return end;
+  }
+
+  private static boolean isDigit(String xpath, int index) {
+    return index < xpath.length() && Character.isDigit(xpath.charAt(index));
+  }
+
+  private static boolean isNameStart(char c) {
+    return Character.isLetter(c) || c == '_';
+  }
+
+  private static boolean isLiteral(String token) {
+    return token.charAt(0) == '\'';
+  }
+
+  private static boolean isNumber(String token) {
+    return Character.isDigit(token.charAt(0))
+        || (token.length() > 1 && token.charAt(0) == '.' && Character.isDigit(token.charAt(1)));
+  }
+
+  private static boolean isName(String token) {
+    return isNameStart(token.charAt(0));
+  }
+
+  private static boolean isStepStart(String token) {
+    return isName(token)
+        || "*".equals(token)
+        || "@".equals(token)
+        || ".".equals(token)
+        || "..".equals(token);
+  }
+
+  /** Location path being parsed, or the context of a predicate. */
+  private static class PathState {
+
+    /** Path of the selected nodes from the document, {@code null} once it is not known. */
+    private String fullPath;
+
+    /** Name of the selected nodes, {@code null} if they are not selected by name. */
+    private String name;
+
+    private Query condition;
+
+    PathState(String fullPath, String name) {
+      this.fullPath = fullPath;
+      this.name = name;
+    }
+
+    void addStep(String stepName) {
+      if (stepName == null) {
+        forgetPath();
+      } else if (fullPath != null) {
+        fullPath = fullPath + "/" + stepName;
+      }
+      name = stepName;
+    }
+
+    /** Keeps the path known so far as a condition before the selected nodes become unknown. */
+    void forgetPath() {
+      if (fullPath != null && !fullPath.isEmpty()) {
+        condition = and(condition, termQuery(fullPath));
+      }
+      fullPath = null;
+    }
+
+    Operand toOperand() {
+      forgetPath();
+      return new Operand(condition, name, null);
+    }
+  }
+
+  private static class Operand {
+
+    /** Query every document where the operand is not empty matches, {@code null} for all. */
+    private final Query condition;
+
+    private final String name;
+
+    private final String literal;
+
+    Operand(Query condition) {
+      this(condition, null, null);
+    }
+
+    Operand(Query condition, String name, String literal) {
+      this.condition = condition;
+      this.name = name;
+      this.literal = literal;
+    }
+  }
+
+  private static class UnsupportedXpathException extends Exception {}
+}
@@ -49,8 +49,9 @@ protected Query getFieldQuery(String field, String queryText, int slop) throws S
    *
    * @param queryText XPath expression to convert into lucene path and attribute index query
    * @return Lucene query to pre-filter using xpath index
+   * @see XpathIndex
    */
   private Query getLuceneQuery(final String queryText) {
-    return null; // TODO DDF-1882 add lucene xpath pre-filtering
+    return XpathIndexQueryBuilder.build(queryText);
   }
 }
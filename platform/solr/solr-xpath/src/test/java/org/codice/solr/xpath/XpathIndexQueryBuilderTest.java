@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package org.codice.solr.xpath;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import javax.xml.transform.stream.StreamSource;
+import net.sf.saxon.s9api.Processor;
+import net.sf.saxon.s9api.SaxonApiException;
+import net.sf.saxon.s9api.XPathSelector;
+import net.sf.saxon.s9api.XdmAtomicValue;
+import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmNode;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Pins the condition derived from each XPath construct, rendered with {@code +} for required and
+ * no prefix for optional clauses, and checks that the query still matches the document the XPath
+ * selects.
+ */
+public class XpathIndexQueryBuilderTest {
+
+  private static final Processor PROCESSOR = new Processor(false);
+
+  private static final String DESCRIPTION = String.join("", Collections.nCopies(300, "x"));
+
+  private static final String PURCHASE_ORDER =
+      "<purchaseOrder orderDate=\"1999-10-20\">"
+          + "<shipTo country=\"US\"><name>Alice Smith</name><city>Mill Valley</city></shipTo>"
+          + "<comment>Hurry</comment>"
+          + "<items>"
+          + "<item partNum=\"872-AA\"><productName>Lawnmower</productName>"
+          + "<USPrice>148.95</USPrice></item>"
+          + "<item partNum=\"926-AA\"><productName>Baby Monitor</productName>"
+          + "<USPrice>39.98</USPrice></item>"
+          + "</items>"
+          + "<description>"
+          + DESCRIPTION
+          + "</description>"
+          + "<Point><pos>1 2</pos></Point>"
+          + "</purchaseOrder>";
+
+  private static XdmNode purchaseOrder;
+
+  @BeforeClass
+  public static void setUpClass() throws SaxonApiException {
+    purchaseOrder =
+        PROCESSOR.newDocumentBuilder().build(new StreamSource(new StringReader(PURCHASE_ORDER)));
+  }
+
+  @Test
+  public void testAbsolutePath() throws Exception {
+    assertCondition(
+        "/purchaseOrder/comment", "+(+purchaseOrder +comment) +/purchaseOrder/comment");
+  }
+
+  @Test
+  public void testRelativePathsStartAtTheDocument() throws Exception {
+    String expected = "+(+(+purchaseOrder +items) +item) +/purchaseOrder/items/item";
+    assertCondition("purchaseOrder/items/item", expected);
+    assertCondition("./purchaseOrder/items/item", expected);
+  }
+
+  @Test
+  public void testDescendantSteps() throws Exception {
+    assertCondition("/purchaseOrder//USPrice", "+(+purchaseOrder +/purchaseOrder) +USPrice");
+    assertCondition("//USPrice", "USPrice");
+  }
+
+  @Test
+  public void testWildcardSteps() throws Exception {
+    assertCondition("/*/*/item", "item");
+  }
+
+  @Test
+  public void testPredicates() throws Exception {
+    assertCondition(
+        "/purchaseOrder[items//productName]",
+        "+(+purchaseOrder +(+(+items +/purchaseOrder/items) +productName)) +/purchaseOrder");
+    assertCondition("//shipTo[@country='US']", "+shipTo +(+@country +@country=US)");
+    assertCondition(
+        "//shipTo[city = 'Mill Valley']/name",
+        "+(+shipTo +(+city +city=Mill Valley)) +name");
+  }
+
+  @Test
+  public void testPositionalAndFunctionPredicatesDoNotConstrain() throws Exception {
+    assertCondition("//item[2]/USPrice", "+item +USPrice");
+    assertCondition("//item[contains(productName, 'Monitor')]", "item");
+    assertCondition("(//comment)[1]", "comment");
+  }
+
+  @Test
+  public void testParentStep() throws Exception {
+    assertCondition(
+        "/purchaseOrder/items/../comment",
+        "+(+(+purchaseOrder +items) +/purchaseOrder/items) +comment");
+  }
+
+  @Test
+  public void testOtherAxes() throws Exception {
+    assertCondition("//USPrice/ancestor::item", "+USPrice +item");
+    assertCondition(
+        "/purchaseOrder/descendant::productName", "+(+purchaseOrder +/purchaseOrder) +productName");
+    assertCondition("//item/attribute::partNum", "+item +@partNum");
+    assertCondition("//item/self::item", "+item +item");
+    assertCondition("//name/following-sibling::city", "+name +city");
+    assertCondition("//comment/text()", "comment");
+  }
+
+  @Test
+  public void testUnion() throws Exception {
+    assertCondition(
+        "/purchaseOrder/comment | //missing",
+        "(+(+purchaseOrder +comment) +/purchaseOrder/comment) missing");
+  }
+
+  @Test
+  public void testAndOr() throws Exception {
+    assertCondition(
+        "//item[productName='Lawnmower' and USPrice='148.95']",
+        "+item +(+(+productName +productName=Lawnmower) +(+USPrice +USPrice=148.95))");
+    assertCondition(
+        "//shipTo[name='Nobody' or city='Mill Valley']",
+        "+shipTo +((+name +name=Nobody) (+city +city=Mill Valley))");
+  }
+
+  @Test
+  public void testComparisons() throws Exception {
+    assertCondition("'US' = //shipTo/@country", "+(+shipTo +@country) +@country=US");
+    assertCondition("//item[2]/USPrice eq '39.98'", "+(+item +USPrice) +USPrice=39.98");
+    assertCondition("//item[USPrice != '1']", "+item +USPrice");
+    assertCondition("//item[USPrice > 100]", "+item +USPrice");
+  }
+
+  @Test
+  public void testLiteralsLongerThanIndexedValues() throws Exception {
+    assertCondition("//description[. = '" + DESCRIPTION + "']", "description");
+  }
+
+  @Test
+  public void testFunctionCallsDoNotConstrain() throws Exception {
+    assertCondition("count(//item) > 1", null);
+    assertCondition("boolean(//item)", null);
+  }
+
+  @Test
+  public void testNamespacePrefixesAreIgnored() throws Exception {
+    assertThat(
+        render(XpathIndexQueryBuilder.getCondition("//gml:Point/gml:pos")), is("+Point +pos"));
+    assertCondition("//Point/pos", "+Point +pos");
+  }
+
+  @Test
+  public void testUnparseableXpathsMatchAllDocuments() throws Exception {
+    assertCondition("for $x in //item return $x", null);
+    assertMatchesAll("//item + 1");
+    assertMatchesAll("/purchaseOrder[");
+    assertMatchesAll("//item[@partNum = \"872-AA\"");
+    assertMatchesAll("");
+    assertMatchesAll("/");
+  }
+
+  @Test
+  public void testDocumentsThatCannotMatchAreFiltered() throws Exception {
+    assertThat(matches(XpathIndexQueryBuilder.build("//shipTo[@country='CA']")), is(false));
+    assertThat(matches(XpathIndexQueryBuilder.build("/purchaseOrder/missing")), is(false));
+    assertThat(matches(XpathIndexQueryBuilder.build("/items/item")), is(false));
+  }
+
+  @Test
+  public void testDocumentsWithoutIndexTermsMatch() throws Exception {
+    Query query = XpathIndexQueryBuilder.build("/purchaseOrder/comment");
+    assertThat(matches(query, null), is(true));
+  }
+
+  private static void assertCondition(String xpath, String expectedCondition) throws Exception {
+    assertThat(render(XpathIndexQueryBuilder.getCondition(xpath)), is(expectedCondition));
+    assertThat("The XPath should select the document: " + xpath, selects(xpath), is(true));
+    assertThat(
+        "The query should match the document: " + xpath,
+        matches(XpathIndexQueryBuilder.build(xpath)),
+        is(true));
+  }
+
+  private static void assertMatchesAll(String xpath) throws IOException {
+    assertThat(XpathIndexQueryBuilder.getCondition(xpath), is(nullValue()));
+    Query query = XpathIndexQueryBuilder.build(xpath);
+    assertThat(query, instanceOf(MatchAllDocsQuery.class));
+    assertThat(matches(query), is(true));
+  }
+
+  private static boolean selects(String xpath) throws SaxonApiException {
+    XPathSelector selector = PROCESSOR.newXPathCompiler().compile(xpath).load();
+    selector.setContextItem(purchaseOrder);
+    XdmItem result = selector.evaluateSingle();
+    return result != null
+        && !(result.isAtomicValue() && !((XdmAtomicValue) result).getBooleanValue());
+  }
+
+  private static boolean matches(Query query) throws IOException {
+    return matches(query, purchaseOrder);
+  }
+
+  /** Indexes the terms of the document, or no terms if it is {@code null}, and runs the query. */
+  private static boolean matches(Query query, XdmNode document) throws IOException {
+    try (Directory directory = new RAMDirectory()) {
+      try (IndexWriter writer =
+          new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()))) {
+        Document luceneDocument = new Document();
+        luceneDocument.add(new StringField("id", "1", Field.Store.NO));
+        if (document != null) {
+          for (String term : XpathIndex.getTerms(document)) {
+            luceneDocument.add(new StringField(XpathIndex.FIELD_NAME, term, Field.Store.NO));
+          }
+        }
+        writer.addDocument(luceneDocument);
+      }
+      try (DirectoryReader reader = DirectoryReader.open(directory)) {
+        return new IndexSearcher(reader).count(query) == 1;
+      }
+    }
+  }
+
+  private static String render(Query query) {
+    if (query == null) {
+      return null;
+    }
+    if (query instanceof TermQuery) {
+      assertThat(((TermQuery) query).getTerm().field(), is(XpathIndex.FIELD_NAME));
+      return ((TermQuery) query).getTerm().text();
+    }
+    assertThat(query, not(instanceOf(MatchAllDocsQuery.class)));
+    return ((BooleanQuery) query)
+        .clauses()
+        .stream()
+        .map(XpathIndexQueryBuilderTest::render)
+        .collect(Collectors.joining(" "));
+  }
+
+  private static String render(BooleanClause clause) {
+    String prefix = clause.getOccur() == Occur.MUST ? "+" : "";
+    String query = render(clause.getQuery());
+    return prefix + (clause.getQuery() instanceof BooleanQuery ? "(" + query + ")" : query);
+  }
+}